@@ -0,0 +1,98 @@
+package com.example.riceapi.benchmark;
+
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.dto.RiceOrderResponse;
+import com.example.riceapi.mapper.RiceOrderJsonSerializer;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.RiceOrder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the list endpoint payload at different response sizes.
+ * 
+ * mapAndSerialize builds the RiceOrderResponse graph per order first, as the list
+ * endpoint used to; serializeEntities writes the entities through
+ * RiceOrderJsonSerializer. Run with {@code -Djmh.args="ApiResponseSerialization -prof gc"}
+ * to compare their allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiResponseSerializationBenchmark {
+    
+    @Param({"100", "1000", "10000"})
+    public int datasetSize;
+    
+    private ObjectWriter writer;
+    private ObjectWriter entityWriter;
+    private RiceOrderMapper mapper;
+    private ApiResponse<List<RiceOrderResponse>> response;
+    private ApiResponse<List<RiceOrder>> entityResponse;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Same date handling as the Spring Boot auto-configured mapper
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .serializerByType(RiceOrder.class, new RiceOrderJsonSerializer())
+                .build();
+        writer = objectMapper.writerFor(new TypeReference<ApiResponse<List<RiceOrderResponse>>>() { });
+        entityWriter = objectMapper.writerFor(new TypeReference<ApiResponse<List<RiceOrder>>>() { });
+        
+        mapper = new RiceOrderMapper();
+        List<RiceOrder> entities = new ArrayList<>(datasetSize);
+        List<RiceOrderResponse> orders = new ArrayList<>(datasetSize);
+        for (int i = 0; i < datasetSize; i++) {
+            RiceOrder order = OrderFixtures.order(i);
+            entities.add(order);
+            orders.add(mapper.toResponse(order));
+        }
+        String message = "Retrieved " + datasetSize + " orders successfully";
+        response = ApiResponse.success(orders, message);
+        entityResponse = ApiResponse.success(entities, message);
+    }
+    
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(response);
+    }
+    
+    @Benchmark
+    public byte[] mapAndSerialize() throws JsonProcessingException {
+        List<RiceOrder> entities = entityResponse.getData();
+        List<RiceOrderResponse> orders = new ArrayList<>(entities.size());
+        for (RiceOrder order : entities) {
+            orders.add(mapper.toResponse(order));
+        }
+        return writer.writeValueAsBytes(ApiResponse.success(orders, entityResponse.getMessage()));
+    }
+    
+    @Benchmark
+    public byte[] serializeEntities() throws JsonProcessingException {
+        return entityWriter.writeValueAsBytes(ApiResponse.success(entityResponse.getData(), entityResponse.getMessage()));
+    }
+}
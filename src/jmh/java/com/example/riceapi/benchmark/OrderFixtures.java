@@ -0,0 +1,133 @@
+package com.example.riceapi.benchmark;
+
+import com.example.riceapi.dto.CustomerDto;
+import com.example.riceapi.dto.DeliveryAddressDto;
+import com.example.riceapi.dto.OrderItemDto;
+import com.example.riceapi.dto.RiceOrderRequest;
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.DeliveryAddress;
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deterministic order data for the benchmarks, shaped like the demo seed data
+ */
+final class OrderFixtures {
+    
+    static final int CUSTOMER_COUNT = 10_000;
+    
+    private static final String[] RICE_TYPES = {
+            "Nasi Goreng Special", "Nasi Goreng Ayam", "Nasi Goreng Seafood",
+            "Nasi Goreng Kampung", "Nasi Goreng Pete"
+    };
+    private static final String[] SPICE_LEVELS = {"Mild", "Medium", "Hot", "Extra Hot"};
+    private static final String[] CITIES = {"Jakarta", "Bandung", "Surabaya", "Yogyakarta", "Semarang"};
+    private static final String[] PAYMENT_METHODS = {"Credit Card", "Cash", "E-Wallet", "Debit Card"};
+    private static final LocalDateTime BASE_DATE = LocalDateTime.of(2024, 1, 1, 10, 0);
+    
+    private OrderFixtures() {
+    }
+    
+    static String orderId(int i) {
+        return String.format("ORD%09d", i);
+    }
+    
+    static String customerId(int i) {
+        return String.format("CUST%06d", i % CUSTOMER_COUNT);
+    }
+    
+    static RiceOrder order(int i) {
+        RiceOrder.OrderStatus[] statuses = RiceOrder.OrderStatus.values();
+        int itemCount = 1 + i % 3;
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        for (int j = 0; j < itemCount; j++) {
+            items.add(OrderItem.builder()
+                    .itemId("ITEM" + i + "-" + j)
+                    .riceType(RICE_TYPES[(i + j) % RICE_TYPES.length])
+                    .quantity(1 + (i + j) % 4)
+                    .pricePerUnit(BigDecimal.valueOf(30_000 + 5_000L * ((i + j) % 6)))
+                    .spiceLevel(SPICE_LEVELS[(i + j) % SPICE_LEVELS.length])
+                    .additionalNotes("Extra sambal")
+                    .build());
+        }
+        RiceOrder order = RiceOrder.builder()
+                .orderId(orderId(i))
+                .customer(Customer.builder()
+                        .customerId(customerId(i))
+                        .name("Customer " + (i % CUSTOMER_COUNT))
+                        .email("customer" + (i % CUSTOMER_COUNT) + "@email.com")
+                        .phoneNumber("+62-812-0000-" + (i % CUSTOMER_COUNT))
+                        .build())
+                .orderItems(items)
+                .deliveryAddress(DeliveryAddress.builder()
+                        .street("Jl. Sudirman No. " + (i % 500))
+                        .city(CITIES[i % CITIES.length])
+                        .state("DKI Jakarta")
+                        .postalCode("12190")
+                        .country("Indonesia")
+                        .additionalInstructions("Please call upon arrival")
+                        .build())
+                .status(statuses[i % statuses.length])
+                .orderDate(BASE_DATE.plusMinutes(i))
+                .deliveryTime(BASE_DATE.plusMinutes(i + 45L))
+                .paymentMethod(PAYMENT_METHODS[i % PAYMENT_METHODS.length])
+                .build();
+        return order.withTotalAmountMinor(order.calculateTotalAmountMinor());
+    }
+    
+    static RiceOrderRequest request(int i) {
+        RiceOrder order = order(i);
+        List<OrderItemDto> items = new ArrayList<>();
+        for (OrderItem item : order.getOrderItems()) {
+            items.add(OrderItemDto.builder()
+                    .itemId(item.getItemId())
+                    .riceType(item.getRiceType())
+                    .quantity(item.getQuantity())
+                    .pricePerUnit(item.getPricePerUnit())
+                    .spiceLevel(item.getSpiceLevel())
+                    .additionalNotes(item.getAdditionalNotes())
+                    .build());
+        }
+        return RiceOrderRequest.builder()
+                .orderId(order.getOrderId())
+                .customer(CustomerDto.builder()
+                        .customerId(order.getCustomer().getCustomerId())
+                        .name(order.getCustomer().getName())
+                        .email(order.getCustomer().getEmail())
+                        .phoneNumber(order.getCustomer().getPhoneNumber())
+                        .build())
+                .orderItems(items)
+                .deliveryAddress(DeliveryAddressDto.builder()
+                        .street(order.getDeliveryAddress().getStreet())
+                        .city(order.getDeliveryAddress().getCity())
+                        .state(order.getDeliveryAddress().getState())
+                        .postalCode(order.getDeliveryAddress().getPostalCode())
+                        .country(order.getDeliveryAddress().getCountry())
+                        .additionalInstructions(order.getDeliveryAddress().getAdditionalInstructions())
+                        .build())
+                .status(order.getStatus().name())
+                .orderDate(order.getOrderDate())
+                .deliveryTime(order.getDeliveryTime())
+                .paymentMethod(order.getPaymentMethod())
+                .build();
+    }
+    
+    /**
+     * @return A repository without seed data holding orders 0 .. size - 1
+     */
+    static RiceOrderRepository repository(int size) {
+        RiceOrderRepository repository = new RiceOrderRepository();
+        List<RiceOrder> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            batch.add(order(i));
+        }
+        repository.addOrders(batch);
+        return repository;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.riceapi.benchmark;
+
+import com.example.riceapi.analytics.ItemDimension;
+import com.example.riceapi.analytics.OrderItemColumns;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.ParallelScans;
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Large scans on the calling thread (parallelism 1) against the bounded scan
+ * pool, e.g. {@code -p parallelism=1,4,8 -p datasetSize=1000000}.
+ * 
+ * The "contended" group runs one scanning thread next to three threads doing
+ * point reads, the way request threads share the cores with a scan. Compare
+ * the point read throughput across parallelism values to see that the pool's
+ * fixed worker count leaves the request threads their share.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelScanBenchmark {
+    
+    private static final RiceOrder.OrderStatus[] STATUSES = RiceOrder.OrderStatus.values();
+    private static final Set<ItemDimension> RICE_TYPE_PER_HOUR =
+            EnumSet.of(ItemDimension.RICE_TYPE, ItemDimension.HOUR);
+    
+    @Param({"100000", "1000000"})
+    public int datasetSize;
+    
+    @Param({"1", "4"})
+    public int parallelism;
+    
+    private RiceOrderRepository repository;
+    private ParallelScans scans;
+    private OrderItemColumns columns;
+    private String[] orderIds;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = OrderFixtures.repository(datasetSize);
+        scans = parallelism > 1 ? new ParallelScans(parallelism, 10_000) : ParallelScans.sequential();
+        repository.setParallelScans(scans);
+        columns = new OrderItemColumns(repository, scans);
+        columns.loadAll();
+        orderIds = new String[datasetSize];
+        for (int i = 0; i < datasetSize; i++) {
+            orderIds[i] = OrderFixtures.orderId(i);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scans.close();
+    }
+    
+    @Benchmark
+    public List<RiceOrder> getOrdersByStatus() {
+        return repository.getOrdersByStatus(STATUSES[ThreadLocalRandom.current().nextInt(STATUSES.length)]);
+    }
+    
+    // Orders without a status are not indexed, so this visits every order
+    @Benchmark
+    public List<RiceOrder> getOrdersWithoutStatus() {
+        return repository.getOrdersByStatus(null);
+    }
+    
+    @Benchmark
+    public List<OrderItemColumns.ItemGroup> aggregateRiceTypePerHour() {
+        return columns.aggregate(RICE_TYPE_PER_HOUR, Set.of(), null, null);
+    }
+    
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public List<RiceOrder> contendedScan() {
+        return repository.getOrdersByStatus(null);
+    }
+    
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public Optional<RiceOrder> contendedPointRead() {
+        return repository.getOrderById(orderIds[ThreadLocalRandom.current().nextInt(orderIds.length)]);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.riceapi.benchmark;
+
+import com.example.riceapi.dto.RiceOrderRequest;
+import com.example.riceapi.dto.RiceOrderResponse;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.RiceOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-order mapping and total calculation. Add {@code -prof gc} to see allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RiceOrderMapperBenchmark {
+    
+    // Number of distinct orders cycled through, to keep the working set realistic
+    @Param({"1024"})
+    public int datasetSize;
+    
+    private final RiceOrderMapper mapper = new RiceOrderMapper();
+    private RiceOrder[] orders;
+    private RiceOrderRequest[] requests;
+    private int next;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        orders = new RiceOrder[datasetSize];
+        requests = new RiceOrderRequest[datasetSize];
+        for (int i = 0; i < datasetSize; i++) {
+            orders[i] = OrderFixtures.order(i);
+            requests[i] = OrderFixtures.request(i);
+        }
+    }
+    
+    @Benchmark
+    public RiceOrderResponse toResponse() {
+        return mapper.toResponse(orders[nextIndex()]);
+    }
+    
+    @Benchmark
+    public RiceOrder toEntity() {
+        return mapper.toEntity(requests[nextIndex()]);
+    }
+    
+    @Benchmark
+    public long calculateTotalAmountMinor() {
+        return orders[nextIndex()].calculateTotalAmountMinor();
+    }
+    
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == datasetSize ? 0 : index + 1;
+        return index;
+    }
+}
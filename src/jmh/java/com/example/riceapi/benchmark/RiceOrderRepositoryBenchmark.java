@@ -0,0 +1,113 @@
+package com.example.riceapi.benchmark;
+
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository reads and writes, alone and under contention.
+ * 
+ * The dataset size is a JMH parameter, e.g. {@code -p datasetSize=1000000};
+ * raise the single-threaded benchmarks to contended ones with {@code -t 8}.
+ * The "mixed" group runs readers and writers against the same store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RiceOrderRepositoryBenchmark {
+    
+    private static final RiceOrder.OrderStatus[] STATUSES = RiceOrder.OrderStatus.values();
+    
+    @Param({"10000", "100000"})
+    public int datasetSize;
+    
+    private RiceOrderRepository repository;
+    
+    // Precomputed so that key formatting does not show up in the measurements
+    private String[] orderIds;
+    private String[] customerIds;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        repository = OrderFixtures.repository(datasetSize);
+        orderIds = new String[datasetSize];
+        for (int i = 0; i < datasetSize; i++) {
+            orderIds[i] = OrderFixtures.orderId(i);
+        }
+        customerIds = new String[OrderFixtures.CUSTOMER_COUNT];
+        for (int i = 0; i < customerIds.length; i++) {
+            customerIds[i] = OrderFixtures.customerId(i);
+        }
+    }
+    
+    @Benchmark
+    public Optional<RiceOrder> getOrderById() {
+        return repository.getOrderById(randomOrderId());
+    }
+    
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public List<RiceOrder> getOrdersByStatus() {
+        return repository.getOrdersByStatus(STATUSES[ThreadLocalRandom.current().nextInt(STATUSES.length)]);
+    }
+    
+    @Benchmark
+    public List<RiceOrder> getOrdersByCustomerId() {
+        return repository.getOrdersByCustomerId(customerIds[ThreadLocalRandom.current().nextInt(customerIds.length)]);
+    }
+    
+    @Benchmark
+    public List<RiceOrder> getOrdersPage() {
+        return repository.getOrdersPage(randomOrderId(), 100);
+    }
+    
+    @Benchmark
+    public Optional<RiceOrder> partialUpdateStatus() {
+        return repository.partialUpdateOrder(randomOrderId(), statusUpdate());
+    }
+    
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public Optional<RiceOrder> mixedRead() {
+        return repository.getOrderById(randomOrderId());
+    }
+    
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public Optional<RiceOrder> mixedWrite() {
+        return repository.partialUpdateOrder(randomOrderId(), statusUpdate());
+    }
+    
+    private String randomOrderId() {
+        return orderIds[ThreadLocalRandom.current().nextInt(orderIds.length)];
+    }
+    
+    private static RiceOrder statusUpdate() {
+        return RiceOrder.builder()
+                .status(STATUSES[ThreadLocalRandom.current().nextInt(STATUSES.length)])
+                .build();
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.riceapi.analytics;
+
+import com.example.riceapi.repository.OrderStore;
+import com.example.riceapi.repository.ParallelScans;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+@Configuration
+@ConditionalOnProperty(prefix = "riceapi.analytics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AnalyticsConfig {
+    
+    @Bean
+    public OrderItemColumns orderItemColumns(OrderStore store, ParallelScans scans) {
+        OrderItemColumns columns = new OrderItemColumns(store, scans);
+        store.addChangeListener(columns);
+        return columns;
+    }
+    
+    /**
+     * Mirror the orders restored before the listener was registered, e.g. from a
+     * snapshot attached without being decoded
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOrderItemColumns(ApplicationReadyEvent event) {
+        event.getApplicationContext().getBean(OrderItemColumns.class).loadAll();
+    }
+}
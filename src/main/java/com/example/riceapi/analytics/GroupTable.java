@@ -0,0 +1,105 @@
+package com.example.riceapi.analytics;
+
+/**
+ * Running totals per group key, in parallel primitive arrays with open
+ * addressing, so a scan adds a row without boxing or allocating per group.
+ * Not thread-safe: each scan fills its own table and tables are merged after.
+ */
+final class GroupTable {
+    
+    private static final int INITIAL_CAPACITY = 64;
+    
+    private long[] keys;
+    private boolean[] used;
+    private long[] itemCounts;
+    private long[] units;
+    private long[] revenueMinor;
+    private int size;
+    
+    GroupTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+    
+    /**
+     * Add one item, or the totals of several, to a group
+     */
+    void add(long key, long itemCount, long itemUnits, long itemRevenueMinor) {
+        int slot = slot(key);
+        if (!used[slot]) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                slot = slot(key);
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+        }
+        itemCounts[slot] += itemCount;
+        units[slot] += itemUnits;
+        revenueMinor[slot] += itemRevenueMinor;
+    }
+    
+    /**
+     * Add all totals of another table to this one
+     */
+    void merge(GroupTable other) {
+        for (int slot = 0; slot < other.keys.length; slot++) {
+            if (other.used[slot]) {
+                add(other.keys[slot], other.itemCounts[slot], other.units[slot], other.revenueMinor[slot]);
+            }
+        }
+    }
+    
+    void forEach(Visitor visitor) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                visitor.visit(keys[slot], itemCounts[slot], units[slot], revenueMinor[slot]);
+            }
+        }
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    // Slot of the key, or the free slot where it belongs
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    private void grow() {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        long[] oldItemCounts = itemCounts;
+        long[] oldUnits = units;
+        long[] oldRevenueMinor = revenueMinor;
+        allocate(oldKeys.length * 2);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldUsed[slot]) {
+                int target = slot(oldKeys[slot]);
+                used[target] = true;
+                keys[target] = oldKeys[slot];
+                itemCounts[target] = oldItemCounts[slot];
+                units[target] = oldUnits[slot];
+                revenueMinor[target] = oldRevenueMinor[slot];
+            }
+        }
+    }
+    
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        itemCounts = new long[capacity];
+        units = new long[capacity];
+        revenueMinor = new long[capacity];
+    }
+    
+    interface Visitor {
+        void visit(long key, long itemCount, long units, long revenueMinor);
+    }
+}
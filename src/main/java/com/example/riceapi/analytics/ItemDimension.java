@@ -0,0 +1,39 @@
+package com.example.riceapi.analytics;
+
+/**
+ * What {@link OrderItemColumns#aggregate} groups order items by. HOUR and DAY
+ * bucket the order date and cannot be combined.
+ */
+public enum ItemDimension {
+    RICE_TYPE("riceType"),
+    SPICE_LEVEL("spiceLevel"),
+    HOUR("hour"),
+    DAY("day");
+    
+    private final String parameterName;
+    
+    ItemDimension(String parameterName) {
+        this.parameterName = parameterName;
+    }
+    
+    /**
+     * @return The name used for the dimension in request parameters
+     */
+    public String getParameterName() {
+        return parameterName;
+    }
+    
+    /**
+     * @param name A parameter name such as riceType or hour
+     * @return The dimension with that parameter name
+     * @throws IllegalArgumentException if no dimension has that name
+     */
+    public static ItemDimension fromParameterName(String name) {
+        for (ItemDimension dimension : values()) {
+            if (dimension.parameterName.equals(name)) {
+                return dimension;
+            }
+        }
+        throw new IllegalArgumentException("Unknown dimension: " + name);
+    }
+}
@@ -0,0 +1,452 @@
+package com.example.riceapi.analytics;
+
+import com.example.riceapi.modal.Money;
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.OrderChangeListener;
+import com.example.riceapi.repository.OrderStore;
+import com.example.riceapi.repository.ParallelScans;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Columnar mirror of the order items in an {@link OrderStore}, for menu analytics
+ * such as units sold per rice type and hour. Every item is one row across
+ * primitive arrays: quantity, unit price, order time and order status, with rice
+ * type and spice level dictionary-encoded as int codes. Aggregations run front to
+ * back over those arrays instead of walking the order object graphs.
+ * 
+ * Each change notification reads the order from the store, marks its previous
+ * rows dead and appends its current items, all under one lock, so the live rows
+ * follow the latest state of every order even when notifications arrive out of
+ * order. Dead rows are compacted away once they outnumber the live ones.
+ * 
+ * Aggregations read the last published table without locking and are weakly
+ * consistent, like {@link OrderStore#streamAllOrders()}. Large tables are split
+ * into row ranges that are scanned on the {@link ParallelScans} pool and merged.
+ */
+public class OrderItemColumns implements OrderChangeListener {
+    
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    // Below this many dead rows compaction is not worth a copy
+    private static final int MIN_COMPACTION_ROWS = 1024;
+    
+    // Order time of rows whose order has no order date
+    private static final long NO_TIME = Long.MIN_VALUE;
+    
+    // Status bit of rows whose order has no status
+    private static final int NO_STATUS = 31;
+    
+    // Time bucket of groups whose order has no order date
+    private static final int NO_BUCKET = Integer.MIN_VALUE;
+    
+    private static final long SECONDS_PER_HOUR = 3600;
+    private static final long SECONDS_PER_DAY = 86400;
+    
+    // Smallest row range a parallel scan is split into
+    private static final int MIN_SPLIT_ROWS = 4096;
+    
+    private final OrderStore store;
+    private final ParallelScans scans;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Dictionary riceTypes = new Dictionary();
+    private final Dictionary spiceLevels = new Dictionary();
+    
+    // Rows of each order's current items; only used under the lock
+    private final Map<String, int[]> rowsByOrder = new HashMap<>();
+    private int deadRows;
+    
+    // Rows up to table.size are visible to aggregations; replaced after every change
+    private volatile Table table = new Table(INITIAL_CAPACITY, 0);
+    
+    /**
+     * @param store The store the changed orders are read from
+     */
+    public OrderItemColumns(OrderStore store) {
+        this(store, ParallelScans.sequential());
+    }
+    
+    /**
+     * @param store The store the changed orders are read from
+     * @param scans Runs aggregations over large tables in parallel
+     */
+    public OrderItemColumns(OrderStore store, ParallelScans scans) {
+        this.store = store;
+        this.scans = scans;
+    }
+    
+    @Override
+    public void orderChanged(String orderId) {
+        lock.lock();
+        try {
+            RiceOrder order = store.getOrderById(orderId).orElse(null);
+            Table current = table;
+            int[] previous = rowsByOrder.remove(orderId);
+            if (previous != null) {
+                for (int row : previous) {
+                    current.clearLive(row);
+                }
+                deadRows += previous.length;
+            }
+            
+            List<OrderItem> items = order != null && order.getOrderItems() != null ? order.getOrderItems() : List.of();
+            Table next = current.withCapacity(current.size + items.size());
+            int[] rows = new int[items.size()];
+            int row = current.size;
+            for (int i = 0; i < rows.length; i++) {
+                OrderItem item = items.get(i);
+                next.set(row, order, item,
+                        riceTypes.codeOf(item.getRiceType()), spiceLevels.codeOf(item.getSpiceLevel()));
+                rows[i] = row++;
+            }
+            if (rows.length > 0) {
+                rowsByOrder.put(orderId, rows);
+            }
+            next = next.withSize(row);
+            if (deadRows >= MIN_COMPACTION_ROWS && deadRows > row - deadRows) {
+                next = compact(next);
+            }
+            table = next;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Mirror every order currently in the store. Used once at startup, after the
+     * store has been restored; orders written meanwhile are mirrored twice at no harm.
+     */
+    public void loadAll() {
+        store.streamAllOrders().forEach(order -> orderChanged(order.getOrderId()));
+    }
+    
+    /**
+     * Aggregate the items of the mirrored orders
+     * 
+     * @param groupBy Dimensions to group by; empty for a single group over all items
+     * @param statuses Order statuses to include, or empty for all orders
+     * @param from Inclusive lower bound of the order date, to the second, or null for no lower bound
+     * @param to Exclusive upper bound of the order date, to the second, or null for no upper bound
+     * @return One group per combination of dimension values that has items,
+     *         ordered by period, rice type and spice level
+     * @throws IllegalArgumentException if groupBy contains both HOUR and DAY, or from is after to
+     */
+    public List<ItemGroup> aggregate(Set<ItemDimension> groupBy, Set<RiceOrder.OrderStatus> statuses,
+                                     LocalDateTime from, LocalDateTime to) {
+        Query query = new Query(groupBy, statuses, from, to);
+        Table snapshot = table;
+        GroupTable totals;
+        if (scans.isParallel(snapshot.size)) {
+            int splitRows = Math.max(MIN_SPLIT_ROWS, snapshot.size / (scans.getParallelism() * 4));
+            totals = scans.invoke(new ScanTask(snapshot, 0, snapshot.size, query, splitRows));
+        } else {
+            totals = new GroupTable();
+            scan(snapshot, 0, snapshot.size, query, totals);
+        }
+        return query.toGroups(totals, riceTypes, spiceLevels);
+    }
+    
+    /**
+     * @return Number of items mirrored, not counting dead rows
+     */
+    public int getItemCount() {
+        lock.lock();
+        try {
+            return table.size - deadRows;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    // Adds the live rows in [fromRow, toRow) that match the query to totals
+    static void scan(Table table, int fromRow, int toRow, Query query, GroupTable totals) {
+        int[] quantity = table.quantity;
+        long[] priceMinor = table.priceMinor;
+        long[] orderTime = table.orderTime;
+        int[] riceType = table.riceType;
+        int[] spiceLevel = table.spiceLevel;
+        byte[] status = table.status;
+        long[] live = table.live;
+        for (int row = fromRow; row < toRow; row++) {
+            if ((live[row >>> 6] & (1L << row)) == 0 || (query.statusMask & (1 << status[row])) == 0) {
+                continue;
+            }
+            long time = orderTime[row];
+            if (query.timeFiltered && (time == NO_TIME || time < query.fromSecond || time >= query.toSecond)) {
+                continue;
+            }
+            long key = query.key(time, riceType[row], spiceLevel[row]);
+            totals.add(key, 1, quantity[row], quantity[row] * priceMinor[row]);
+        }
+    }
+    
+    // Copies the live rows into a fresh table sized for them and renumbers the orders' rows
+    private Table compact(Table current) {
+        int live = current.size - deadRows;
+        Table compacted = new Table(Math.max(INITIAL_CAPACITY, live * 2), 0);
+        int next = 0;
+        for (int[] rows : rowsByOrder.values()) {
+            for (int i = 0; i < rows.length; i++) {
+                compacted.copy(next, current, rows[i]);
+                rows[i] = next++;
+            }
+        }
+        deadRows = 0;
+        return compacted.withSize(next);
+    }
+    
+    /**
+     * Scans a row range, split in halves down to splitRows, and merges the partial totals
+     */
+    private static final class ScanTask extends RecursiveTask<GroupTable> {
+        
+        private final Table table;
+        private final int fromRow;
+        private final int toRow;
+        private final Query query;
+        private final int splitRows;
+        
+        ScanTask(Table table, int fromRow, int toRow, Query query, int splitRows) {
+            this.table = table;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.query = query;
+            this.splitRows = splitRows;
+        }
+        
+        @Override
+        protected GroupTable compute() {
+            if (toRow - fromRow <= splitRows) {
+                GroupTable totals = new GroupTable();
+                scan(table, fromRow, toRow, query, totals);
+                return totals;
+            }
+            int middle = (fromRow + toRow) >>> 1;
+            ScanTask upper = new ScanTask(table, middle, toRow, query, splitRows);
+            upper.fork();
+            GroupTable totals = new ScanTask(table, fromRow, middle, query, splitRows).compute();
+            totals.merge(upper.join());
+            return totals;
+        }
+    }
+    
+    /**
+     * Totals of one group. Dimensions that were not grouped by are null, as are
+     * the values of items that do not have them.
+     */
+    @Value
+    public static class ItemGroup {
+        String riceType;
+        String spiceLevel;
+        LocalDateTime period;  // Start of the hour or day
+        long itemCount;
+        long units;
+        BigDecimal revenue;
+    }
+    
+    /**
+     * Parsed aggregation request: the filters as row values and how to pack a
+     * row's dimension values into one group key.
+     */
+    static final class Query {
+        
+        private final boolean byRiceType;
+        private final boolean bySpiceLevel;
+        private final long bucketSeconds;  // 0 when not grouped by time
+        private final int statusMask;
+        private final boolean timeFiltered;
+        private final long fromSecond;
+        private final long toSecond;
+        
+        Query(Set<ItemDimension> groupBy, Set<RiceOrder.OrderStatus> statuses, LocalDateTime from, LocalDateTime to) {
+            if (groupBy.contains(ItemDimension.HOUR) && groupBy.contains(ItemDimension.DAY)) {
+                throw new IllegalArgumentException("Cannot group by both hour and day");
+            }
+            if (from != null && to != null && from.isAfter(to)) {
+                throw new IllegalArgumentException("Range start must not be after range end");
+            }
+            byRiceType = groupBy.contains(ItemDimension.RICE_TYPE);
+            bySpiceLevel = groupBy.contains(ItemDimension.SPICE_LEVEL);
+            bucketSeconds = groupBy.contains(ItemDimension.HOUR) ? SECONDS_PER_HOUR
+                    : groupBy.contains(ItemDimension.DAY) ? SECONDS_PER_DAY : 0;
+            int mask = 0;
+            for (RiceOrder.OrderStatus status : statuses) {
+                mask |= 1 << status.ordinal();
+            }
+            statusMask = statuses.isEmpty() ? -1 : mask;
+            timeFiltered = from != null || to != null;
+            fromSecond = from != null ? toSecond(from) : Long.MIN_VALUE;
+            toSecond = to != null ? toSecond(to) : Long.MAX_VALUE;
+        }
+        
+        // Time bucket in the high 32 bits, rice type and spice level codes in 16 bits each
+        long key(long time, int riceTypeCode, int spiceLevelCode) {
+            long key = 0;
+            if (bucketSeconds != 0) {
+                int bucket = time == NO_TIME ? NO_BUCKET
+                        : Math.clamp(Math.floorDiv(time, bucketSeconds), NO_BUCKET + 1, Integer.MAX_VALUE);
+                key = (long) bucket << 32;
+            }
+            if (byRiceType) {
+                key |= (long) riceTypeCode << 16;
+            }
+            if (bySpiceLevel) {
+                key |= spiceLevelCode;
+            }
+            return key;
+        }
+        
+        List<ItemGroup> toGroups(GroupTable totals, Dictionary riceTypes, Dictionary spiceLevels) {
+            List<ItemGroup> groups = new ArrayList<>(totals.size());
+            totals.forEach((key, itemCount, units, revenueMinor) -> {
+                int bucket = (int) (key >> 32);
+                LocalDateTime period = bucketSeconds == 0 || bucket == NO_BUCKET ? null
+                        : LocalDateTime.ofEpochSecond((long) bucket * bucketSeconds, 0, ZoneOffset.UTC);
+                groups.add(new ItemGroup(
+                        byRiceType ? riceTypes.valueOf((int) (key >>> 16) & Dictionary.MAX_CODE) : null,
+                        bySpiceLevel ? spiceLevels.valueOf((int) key & Dictionary.MAX_CODE) : null,
+                        period, itemCount, units, BigDecimal.valueOf(revenueMinor, Money.SCALE)));
+            });
+            groups.sort(Comparator.comparing(ItemGroup::getPeriod, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(ItemGroup::getRiceType, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(ItemGroup::getSpiceLevel, Comparator.nullsFirst(Comparator.naturalOrder())));
+            return groups;
+        }
+        
+        private static long toSecond(LocalDateTime time) {
+            return time.toEpochSecond(ZoneOffset.UTC);
+        }
+    }
+    
+    /**
+     * The columns. Arrays are shared between successive tables until they have
+     * to grow; rows below size are never rewritten except for their live bit, so
+     * a reader holding an older table sees a consistent prefix.
+     */
+    static final class Table {
+        
+        final int[] quantity;
+        final long[] priceMinor;  // 0 when the item has no price
+        final long[] orderTime;  // Epoch seconds of the order date, NO_TIME without one
+        final int[] riceType;
+        final int[] spiceLevel;
+        final byte[] status;  // Status ordinal, NO_STATUS without one
+        final long[] live;  // One bit per row, cleared when the row is superseded
+        final int size;
+        
+        Table(int capacity, int size) {
+            this(new int[capacity], new long[capacity], new long[capacity], new int[capacity], new int[capacity],
+                    new byte[capacity], new long[(capacity + 63) >>> 6], size);
+        }
+        
+        private Table(int[] quantity, long[] priceMinor, long[] orderTime, int[] riceType, int[] spiceLevel,
+                      byte[] status, long[] live, int size) {
+            this.quantity = quantity;
+            this.priceMinor = priceMinor;
+            this.orderTime = orderTime;
+            this.riceType = riceType;
+            this.spiceLevel = spiceLevel;
+            this.status = status;
+            this.live = live;
+            this.size = size;
+        }
+        
+        Table withSize(int newSize) {
+            return new Table(quantity, priceMinor, orderTime, riceType, spiceLevel, status, live, newSize);
+        }
+        
+        // This table if it has room for the rows, otherwise a copy with at least twice the capacity
+        Table withCapacity(int rows) {
+            int capacity = quantity.length;
+            if (rows <= capacity) {
+                return this;
+            }
+            int grown = Math.max(rows, capacity * 2);
+            return new Table(Arrays.copyOf(quantity, grown), Arrays.copyOf(priceMinor, grown),
+                    Arrays.copyOf(orderTime, grown), Arrays.copyOf(riceType, grown), Arrays.copyOf(spiceLevel, grown),
+                    Arrays.copyOf(status, grown), Arrays.copyOf(live, (grown + 63) >>> 6), size);
+        }
+        
+        void set(int row, RiceOrder order, OrderItem item, int riceTypeCode, int spiceLevelCode) {
+            quantity[row] = item.getQuantity() != null ? item.getQuantity() : 0;
+            priceMinor[row] = item.getPricePerUnitMinor() != Money.ABSENT ? item.getPricePerUnitMinor() : 0;
+            LocalDateTime orderDate = order.getOrderDate();
+            orderTime[row] = orderDate != null ? orderDate.toEpochSecond(ZoneOffset.UTC) : NO_TIME;
+            riceType[row] = riceTypeCode;
+            spiceLevel[row] = spiceLevelCode;
+            status[row] = (byte) (order.getStatus() != null ? order.getStatus().ordinal() : NO_STATUS);
+            live[row >>> 6] |= 1L << row;
+        }
+        
+        void copy(int row, Table from, int fromRow) {
+            quantity[row] = from.quantity[fromRow];
+            priceMinor[row] = from.priceMinor[fromRow];
+            orderTime[row] = from.orderTime[fromRow];
+            riceType[row] = from.riceType[fromRow];
+            spiceLevel[row] = from.spiceLevel[fromRow];
+            status[row] = from.status[fromRow];
+            live[row >>> 6] |= 1L << row;
+        }
+        
+        void clearLive(int row) {
+            live[row >>> 6] &= ~(1L << row);
+        }
+    }
+    
+    /**
+     * Codes for the distinct values of one text column; 0 stands for null. Codes
+     * are written under the owner's lock and read without it.
+     */
+    static final class Dictionary {
+        
+        // Codes fit the 16 bits they get in a group key; the last one is shared by all further values
+        static final int MAX_CODE = 0xFFFF;
+        static final String OVERFLOW_VALUE = "(other)";
+        
+        private final Map<String, Integer> codes = new HashMap<>();
+        
+        // Values by code; replaced after each addition so readers see the filled slot
+        private volatile String[] values = new String[16];
+        
+        int codeOf(String value) {
+            if (value == null) {
+                return 0;
+            }
+            Integer code = codes.get(value);
+            if (code != null) {
+                return code;
+            }
+            int next = codes.size() + 1;
+            if (next >= MAX_CODE) {
+                return MAX_CODE;
+            }
+            String[] current = values;
+            String[] grown = next < current.length ? current : Arrays.copyOf(current, current.length * 2);
+            grown[next] = value;
+            codes.put(value, next);
+            values = grown;
+            return next;
+        }
+        
+        String valueOf(int code) {
+            if (code == MAX_CODE) {
+                return OVERFLOW_VALUE;
+            }
+            String[] current = values;
+            return code < current.length ? current[code] : null;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.riceapi.cache;
+
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.OrderChangeListener;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Pre-encoded JSON of orders that no longer change, keyed by order ID and version.
+ *
+ * Only DELIVERED and CANCELLED orders are cached. An entry is served only while
+ * the order still has the version it was encoded at, and writes to an order drop
+ * its entry through {@link OrderChangeListener}. The total size of the cached JSON
+ * is bounded; Caffeine's W-TinyLFU policy decides which entries to evict.
+ */
+public class OrderJsonCache implements OrderChangeListener {
+    
+    private static final Set<RiceOrder.OrderStatus> CACHED_STATUSES =
+            EnumSet.of(RiceOrder.OrderStatus.DELIVERED, RiceOrder.OrderStatus.CANCELLED);
+    
+    // Rough per-entry overhead of the cache node, key and EncodedOrder
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+    
+    private final Cache<String, EncodedOrder> entries;
+    
+    /**
+     * @param maxBytes Upper bound for the cached JSON plus per-entry overhead
+     */
+    public OrderJsonCache(long maxBytes) {
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String orderId, EncodedOrder encoded) ->
+                        encoded.json.length + 2 * orderId.length() + ENTRY_OVERHEAD_BYTES)
+                .recordStats()
+                .build();
+    }
+    
+    /**
+     * @param order The order about to be written
+     * @return Whether the JSON of the order should be taken from and kept in the cache
+     */
+    public boolean isCacheable(RiceOrder order) {
+        return order.getOrderId() != null && order.getStatus() != null && CACHED_STATUSES.contains(order.getStatus());
+    }
+    
+    /**
+     * Look up the JSON of one version of an order
+     *
+     * @param orderId The order ID
+     * @param version The version of the order being written
+     * @return The encoded order, or null if it is not cached at that version
+     */
+    public EncodedOrder get(String orderId, long version) {
+        EncodedOrder encoded = entries.getIfPresent(orderId);
+        return encoded != null && encoded.version == version ? encoded : null;
+    }
+    
+    /**
+     * Cache the JSON of one version of an order, replacing any other version
+     *
+     * @param orderId The order ID
+     * @param version The version the JSON was encoded from
+     * @param json The UTF-8 encoded JSON object
+     * @return The cached entry
+     */
+    public EncodedOrder put(String orderId, long version, byte[] json) {
+        EncodedOrder encoded = new EncodedOrder(version, json);
+        entries.put(orderId, encoded);
+        return encoded;
+    }
+    
+    @Override
+    public void orderChanged(String orderId) {
+        entries.invalidate(orderId);
+    }
+    
+    /**
+     * @return Number of cached orders
+     */
+    public long size() {
+        entries.cleanUp();
+        return entries.estimatedSize();
+    }
+    
+    Cache<String, EncodedOrder> getEntries() {
+        return entries;
+    }
+    
+    /**
+     * The JSON of one order version. Written with JsonGenerator.writeRawValue, which
+     * copies the UTF-8 bytes straight into the output buffer of byte-based generators.
+     */
+    public static final class EncodedOrder implements SerializableString {
+        
+        private final long version;
+        private final byte[] json;
+        
+        EncodedOrder(long version, byte[] json) {
+            this.version = version;
+            this.json = json;
+        }
+        
+        public long getVersion() {
+            return version;
+        }
+        
+        @Override
+        public String getValue() {
+            return new String(json, StandardCharsets.UTF_8);
+        }
+        
+        @Override
+        public int charLength() {
+            return getValue().length();
+        }
+        
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return json;
+        }
+        
+        @Override
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            if (offset + json.length > buffer.length) {
+                return -1;
+            }
+            System.arraycopy(json, 0, buffer, offset, json.length);
+            return json.length;
+        }
+        
+        @Override
+        public int appendUnquoted(char[] buffer, int offset) {
+            String value = getValue();
+            if (offset + value.length() > buffer.length) {
+                return -1;
+            }
+            value.getChars(0, value.length(), buffer, offset);
+            return value.length();
+        }
+        
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            out.write(json);
+            return json.length;
+        }
+        
+        @Override
+        public int putUnquotedUTF8(ByteBuffer buffer) {
+            if (buffer.remaining() < json.length) {
+                return -1;
+            }
+            buffer.put(json);
+            return json.length;
+        }
+        
+        // Quoted forms are only needed if the JSON is written as a string value
+        
+        @Override
+        public char[] asQuotedChars() {
+            return quoted().asQuotedChars();
+        }
+        
+        @Override
+        public byte[] asQuotedUTF8() {
+            return quoted().asQuotedUTF8();
+        }
+        
+        @Override
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            return quoted().appendQuotedUTF8(buffer, offset);
+        }
+        
+        @Override
+        public int appendQuoted(char[] buffer, int offset) {
+            return quoted().appendQuoted(buffer, offset);
+        }
+        
+        @Override
+        public int writeQuotedUTF8(OutputStream out) throws IOException {
+            return quoted().writeQuotedUTF8(out);
+        }
+        
+        @Override
+        public int putQuotedUTF8(ByteBuffer buffer) throws IOException {
+            return quoted().putQuotedUTF8(buffer);
+        }
+        
+        private SerializedString quoted() {
+            return new SerializedString(getValue());
+        }
+        
+        @Override
+        public String toString() {
+            return getValue();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.riceapi.cache;
+
+import com.example.riceapi.repository.OrderStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "riceapi.response-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(ResponseCacheProperties.class)
+public class ResponseCacheConfig {
+    
+    @Bean
+    public OrderJsonCache orderJsonCache(OrderStore store,
+                                         ResponseCacheProperties properties,
+                                         MeterRegistry registry) {
+        OrderJsonCache cache = new OrderJsonCache(properties.getMaxSize().toBytes());
+        store.addChangeListener(cache);
+        CaffeineCacheMetrics.monitor(registry, cache.getEntries(), "riceapi.order.json");
+        return cache;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.riceapi.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "riceapi.response-cache")
+public class ResponseCacheProperties {
+    private boolean enabled = true;
+    private DataSize maxSize = DataSize.ofMegabytes(64);  // Total size of the cached JSON
+}
@@ -0,0 +1,99 @@
+package com.example.riceapi.controller;
+
+import com.example.riceapi.analytics.ItemDimension;
+import com.example.riceapi.analytics.OrderItemColumns;
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.dto.OrderItemAggregate;
+import com.example.riceapi.modal.RiceOrder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Menu analytics over the order items, answered from {@link OrderItemColumns}
+ * rather than from the orders themselves.
+ */
+@RestController
+@RequestMapping("/api/v1/analytics")
+@ConditionalOnProperty(prefix = "riceapi.analytics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class AnalyticsController {
+    
+    private final OrderItemColumns columns;
+    
+    public AnalyticsController(OrderItemColumns columns) {
+        this.columns = columns;
+    }
+    
+    /**
+     * GET /api/v1/analytics/order-items?groupBy=riceType,hour&status=DELIVERED&from={from}&to={to} -
+     * Item count, units and revenue of the order items, grouped by any of riceType,
+     * spiceLevel and one of hour or day of the order date. Statuses are comma-separated;
+     * bounds are ISO-8601 local date-times and filter the order date to [from, to).
+     */
+    @GetMapping("/order-items")
+    public ResponseEntity<ApiResponse<List<OrderItemAggregate>>> getOrderItemAggregates(
+            @RequestParam(required = false) String groupBy,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        Set<ItemDimension> dimensions = EnumSet.noneOf(ItemDimension.class);
+        Set<RiceOrder.OrderStatus> statuses = EnumSet.noneOf(RiceOrder.OrderStatus.class);
+        LocalDateTime fromTime;
+        LocalDateTime toTime;
+        try {
+            for (String name : split(groupBy)) {
+                dimensions.add(ItemDimension.fromParameterName(name));
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+        for (String name : split(status)) {
+            try {
+                statuses.add(RiceOrder.OrderStatus.valueOf(name.toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("Unknown status: " + name));
+            }
+        }
+        try {
+            fromTime = from != null && !from.isEmpty() ? LocalDateTime.parse(from) : null;
+            toTime = to != null && !to.isEmpty() ? LocalDateTime.parse(to) : null;
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Invalid date-time: " + e.getParsedString()));
+        }
+        
+        List<OrderItemColumns.ItemGroup> groups;
+        try {
+            groups = columns.aggregate(dimensions, statuses, fromTime, toTime);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+        List<OrderItemAggregate> response = groups.stream()
+                .map(group -> OrderItemAggregate.builder()
+                        .riceType(group.getRiceType())
+                        .spiceLevel(group.getSpiceLevel())
+                        .period(group.getPeriod())
+                        .itemCount(group.getItemCount())
+                        .units(group.getUnits())
+                        .revenue(group.getRevenue())
+                        .build())
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(ApiResponse.success(response, "Retrieved " + response.size() + " groups successfully"));
+    }
+    
+    private static List<String> split(String values) {
+        if (values == null || values.isBlank()) {
+            return List.of();
+        }
+        return List.of(values.split(",")).stream()
+                .map(String::trim)
+                .filter(value -> !value.isEmpty())
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.riceapi.controller;
+
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.dto.CustomerDto;
+import com.example.riceapi.dto.RiceOrderResponse;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.OrderStore;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Customers as known from their orders. A customer has the details of its latest
+ * order written with customer details, and exists as long as it has orders.
+ */
+@RestController
+@RequestMapping("/api/v1/customers")
+public class CustomerController {
+    
+    private final OrderStore repository;
+    private final RiceOrderMapper mapper;
+    
+    public CustomerController(OrderStore repository, RiceOrderMapper mapper) {
+        this.repository = repository;
+        this.mapper = mapper;
+    }
+    
+    /**
+     * GET /api/v1/customers/{customerId} - Retrieve one customer
+     */
+    @GetMapping("/{customerId}")
+    public ResponseEntity<ApiResponse<CustomerDto>> getCustomer(@PathVariable String customerId) {
+        Optional<Customer> customer = repository.getCustomerById(customerId);
+        if (customer.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("Customer not found: " + customerId));
+        }
+        return ResponseEntity.ok(
+                ApiResponse.success(mapper.toCustomerDto(customer.get()), "Retrieved customer successfully")
+        );
+    }
+    
+    /**
+     * GET /api/v1/customers/{customerId}/orders - Retrieve the orders of one customer.
+     * Served from the customer's own order IDs, so the cost grows with the number of
+     * its orders rather than with all orders.
+     */
+    @GetMapping("/{customerId}/orders")
+    public ResponseEntity<ApiResponse<List<RiceOrderResponse>>> getCustomerOrders(@PathVariable String customerId) {
+        List<RiceOrder> orders = repository.getOrdersByCustomerId(customerId);
+        if (orders.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("Customer not found: " + customerId));
+        }
+        List<RiceOrderResponse> responses = orders.stream()
+                .map(mapper::toResponse)
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(
+                ApiResponse.success(responses, "Retrieved " + responses.size() + " orders successfully")
+        );
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.riceapi.controller;
+
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.feed.ChangeFeedProperties;
+import com.example.riceapi.feed.OrderChangeEvent;
+import com.example.riceapi.feed.OrderChangeFeed;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Change feed of the order store. Clients load the orders once, then follow
+ * the changes from an offset instead of polling GET /api/v1/orders.
+ * 
+ * 1. GET /api/v1/orders/changes returns the current offset without waiting.
+ * 2. GET /api/v1/orders loads the orders.
+ * 3. GET /api/v1/orders/changes?from=offset, repeated with the returned nextOffset,
+ *    or GET /api/v1/orders/changes/stream for Server-Sent Events.
+ * 
+ * On a reset the offset is no longer in the feed, e.g. because it was handed out
+ * before a restart: reload the orders and continue from the returned nextOffset.
+ */
+@RestController
+@RequestMapping("/api/v1/orders/changes")
+@ConditionalOnProperty(prefix = "riceapi.change-feed", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OrderChangeController {
+    
+    private static final int MAX_LIMIT = 1000;
+    
+    // Events sent per SSE write before checking for more
+    private static final int STREAM_BATCH_SIZE = 256;
+    
+    private final OrderChangeFeed feed;
+    private final ChangeFeedProperties properties;
+    
+    // Sends SSE events; a virtual thread per drain, so a slow client only parks its own thread
+    private final ExecutorService streamSender = Executors.newVirtualThreadPerTaskExecutor();
+    
+    public OrderChangeController(OrderChangeFeed feed, ChangeFeedProperties properties) {
+        this.feed = feed;
+        this.properties = properties;
+    }
+    
+    /**
+     * GET /api/v1/orders/changes - Long-poll for changes
+     * 
+     * @param from Offset to read from; without it the current offset is returned right away
+     * @param limit Maximum number of events to return
+     * @param timeout Longest time to wait for a change, capped by riceapi.change-feed.max-poll-timeout
+     */
+    @GetMapping
+    public DeferredResult<ResponseEntity<ApiResponse<OrderChangeFeed.Batch>>> getChanges(
+            @RequestParam(required = false) Long from,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "PT25S") Duration timeout) {
+        DeferredResult<ResponseEntity<ApiResponse<OrderChangeFeed.Batch>>> result = new DeferredResult<>();
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            result.setResult(ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Limit must be between 1 and " + MAX_LIMIT)));
+            return result;
+        }
+        if (timeout.isNegative()) {
+            result.setResult(ResponseEntity.badRequest().body(ApiResponse.error("Timeout cannot be negative")));
+            return result;
+        }
+        long offset = from != null ? from : feed.getHeadOffset();
+        OrderChangeFeed.Batch batch = feed.read(offset, limit);
+        if (from == null || !batch.getEvents().isEmpty() || batch.isReset() || timeout.isZero()) {
+            result.setResult(changes(batch));
+            return result;
+        }
+        
+        // Nothing new yet: answer on the next change or when the timeout expires
+        Duration wait = timeout.compareTo(properties.getMaxPollTimeout()) > 0 ? properties.getMaxPollTimeout() : timeout;
+        DeferredResult<ResponseEntity<ApiResponse<OrderChangeFeed.Batch>>> waiting =
+                new DeferredResult<>(wait.toMillis(), () -> changes(feed.read(offset, limit)));
+        Runnable wake = () -> waiting.setResult(changes(feed.read(offset, limit)));
+        waiting.onCompletion(() -> feed.cancelWait(wake));
+        if (!feed.awaitEvents(offset, wake)) {
+            // A change arrived between the read and the registration
+            wake.run();
+        }
+        return waiting;
+    }
+    
+    /**
+     * GET /api/v1/orders/changes/stream - Server-Sent Events of changes. Each event
+     * has the change type as name and its offset as ID, so a reconnecting client
+     * resumes through the Last-Event-ID header. A reset is sent as an event named
+     * reset whose data is the offset to continue from after reloading, also when
+     * the Last-Event-ID is from before a restart.
+     * 
+     * @param lastEventId Offset of the last event received, sent by reconnecting clients
+     * @param from Offset to start from when there is no Last-Event-ID; the current offset if absent
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId,
+                                    @RequestParam(required = false) Long from) {
+        long offset;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                offset = Long.parseLong(lastEventId.trim()) + 1;
+            } catch (NumberFormatException e) {
+                // Not an ID this feed handed out; let the client reload
+                offset = -1;
+            }
+        } else {
+            offset = from != null ? from : feed.getHeadOffset();
+        }
+        SseEmitter emitter = new SseEmitter(properties.getStreamTimeout().toMillis());
+        new StreamSubscription(emitter, offset).start();
+        return emitter;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        streamSender.shutdownNow();
+    }
+    
+    private static ResponseEntity<ApiResponse<OrderChangeFeed.Batch>> changes(OrderChangeFeed.Batch batch) {
+        String message = batch.isReset()
+                ? "Offset is no longer available; reload the orders and continue from nextOffset"
+                : "Retrieved " + batch.getEvents().size() + " changes successfully";
+        return ResponseEntity.ok(ApiResponse.success(batch, message));
+    }
+    
+    /**
+     * Sends the events of one SSE client. At most one drain runs at a time; when it
+     * has sent everything it registers with the feed to be woken by the next change.
+     */
+    private final class StreamSubscription {
+        
+        private final SseEmitter emitter;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final Runnable wake = this::schedule;
+        private long offset;
+        
+        StreamSubscription(SseEmitter emitter, long offset) {
+            this.emitter = emitter;
+            this.offset = offset;
+        }
+        
+        void start() {
+            emitter.onCompletion(this::close);
+            emitter.onTimeout(this::close);
+            emitter.onError(error -> close());
+            schedule();
+        }
+        
+        private void schedule() {
+            if (!closed.get() && draining.compareAndSet(false, true)) {
+                streamSender.execute(this::drain);
+            }
+        }
+        
+        private void drain() {
+            try {
+                while (!closed.get()) {
+                    OrderChangeFeed.Batch batch = feed.read(offset, STREAM_BATCH_SIZE);
+                    if (batch.isReset()) {
+                        emitter.send(SseEmitter.event().name("reset").data(batch.getNextOffset()));
+                    }
+                    for (OrderChangeEvent event : batch.getEvents()) {
+                        emitter.send(SseEmitter.event()
+                                .id(Long.toString(event.getOffset()))
+                                .name(event.getType().name())
+                                .data(event, MediaType.APPLICATION_JSON));
+                    }
+                    offset = batch.getNextOffset();
+                    if (batch.isReset() || !batch.getEvents().isEmpty()) {
+                        continue;
+                    }
+                    // Caught up: clear the flag before registering, so a wake right after it starts a new drain
+                    draining.set(false);
+                    if (feed.awaitEvents(offset, wake) || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away or the emitter has completed
+                close();
+                emitter.completeWithError(e);
+            }
+        }
+        
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                feed.cancelWait(wake);
+            }
+        }
+    }
+}
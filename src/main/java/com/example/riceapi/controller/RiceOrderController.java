@@ -3,39 +3,557 @@ package com.example.riceapi.controller;
 import com.example.riceapi.dto.*;
 import com.example.riceapi.mapper.RiceOrderMapper;
 import com.example.riceapi.modal.RiceOrder;
-import com.example.riceapi.repository.RiceOrderRepository;
+import com.example.riceapi.query.OrderQuery;
+import com.example.riceapi.repository.OrderVersionConflictException;
+import com.example.riceapi.repository.OrderStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @RestController
 @RequestMapping("/api/v1/orders")
 public class RiceOrderController {
     
-    private final RiceOrderRepository repository;
+    static final int MAX_PAGE_SIZE = 1000;
+    static final int MAX_BATCH_SIZE = 1000;
+    static final String NDJSON = "application/x-ndjson";
+    
+    // Flush the export stream every N orders so clients see progress without a flush per line
+    private static final int EXPORT_FLUSH_INTERVAL = 256;
+    
+    private final OrderStore repository;
     private final RiceOrderMapper mapper;
+    private final ObjectMapper objectMapper;
     
-    public RiceOrderController(RiceOrderRepository repository, RiceOrderMapper mapper) {
+    public RiceOrderController(OrderStore repository, RiceOrderMapper mapper, ObjectMapper objectMapper) {
         this.repository = repository;
         
         this.mapper = mapper;
+        this.objectMapper = objectMapper;
     }
     
     /**
      * GET /api/v1/orders - Retrieve all orders
+     * 
+     * The reads return RiceOrder, which RiceOrderJsonSerializer writes in the
+     * RiceOrderResponse shape without building response DTOs, copying the cached
+     * JSON of delivered and cancelled orders where there is one.
+     * 
+     * The list reads below carry the store version as ETag. A request whose
+     * If-None-Match still lists it gets 304 Not Modified before any order is read.
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<RiceOrderResponse>>> getAllOrders() {
+    public ResponseEntity<ApiResponse<List<RiceOrder>>> getAllOrders(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = storeTag();
+        if (isNotModified(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
         List<RiceOrder> orders = repository.getAllOrders();
-        List<RiceOrderResponse> response = orders.stream()
-                .map(mapper::toResponse)
+        
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(ApiResponse.success(orders, "Retrieved " + orders.size() + " orders successfully"));
+    }
+    
+    /**
+     * GET /api/v1/orders?limit={limit}&cursor={cursor} - Retrieve one page of orders
+     */
+    @GetMapping(params = "limit")
+    public ResponseEntity<ApiResponse<PageResponse<RiceOrder>>> getOrdersPage(
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        String afterOrderId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            afterOrderId = decodeCursor(cursor);
+            if (afterOrderId == null) {
+                return ResponseEntity.badRequest().body(ApiResponse.error("Invalid cursor"));
+            }
+        }
+        
+        String etag = storeTag();
+        if (isNotModified(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        
+        // Fetch one extra order to find out whether another page follows
+        List<RiceOrder> orders = repository.getOrdersPage(afterOrderId, limit + 1);
+        boolean hasMore = orders.size() > limit;
+        if (hasMore) {
+            orders = orders.subList(0, limit);
+        }
+        
+        PageResponse<RiceOrder> page = PageResponse.<RiceOrder>builder()
+                .items(orders)
+                .limit(limit)
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? encodeCursor(orders.get(orders.size() - 1).getOrderId()) : null)
+                .build();
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(ApiResponse.success(page, "Retrieved " + orders.size() + " orders successfully"));
+    }
+    
+    /**
+     * GET /api/v1/orders/export - Stream all orders as newline-delimited JSON
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = storeTag();
+        if (isNotModified(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        StreamingResponseBody body = out -> {
+            ObjectWriter writer = objectMapper.writerFor(RiceOrder.class)
+                    .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                // The servlet container owns the response stream
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                
+                Iterator<RiceOrder> orders = repository.streamAllOrders().iterator();
+                int written = 0;
+                while (orders.hasNext()) {
+                    writer.writeValue(generator, orders.next());
+                    generator.writeRaw('\n');
+                    // Flush the first line right away, then in batches
+                    if (++written % EXPORT_FLUSH_INTERVAL == 1) {
+                        generator.flush();
+                    }
+                }
+            }
+        };
+        return ResponseEntity.ok().eTag(etag).body(body);
+    }
+    
+    /**
+     * GET /api/v1/orders/range?from={from}&to={to}&field={orderDate|deliveryTime} -
+     * Retrieve orders whose order date (default) or delivery time lies in [from, to).
+     * Either bound may be omitted; bounds are ISO-8601 local date-times.
+     */
+    @GetMapping("/range")
+    public ResponseEntity<ApiResponse<List<RiceOrder>>> getOrdersInTimeRange(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "orderDate") String field,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (!field.equals("orderDate") && !field.equals("deliveryTime")) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Field must be orderDate or deliveryTime"));
+        }
+        LocalDateTime fromTime;
+        LocalDateTime toTime;
+        try {
+            fromTime = from != null && !from.isEmpty() ? LocalDateTime.parse(from) : null;
+            toTime = to != null && !to.isEmpty() ? LocalDateTime.parse(to) : null;
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Invalid date-time: " + e.getParsedString()));
+        }
+        if (fromTime != null && toTime != null && fromTime.isAfter(toTime)) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Range start must not be after range end"));
+        }
+        
+        String etag = storeTag();
+        if (isNotModified(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        
+        List<RiceOrder> orders = field.equals("orderDate")
+                ? repository.getOrdersByOrderDateRange(fromTime, toTime)
+                : repository.getOrdersByDeliveryTimeRange(fromTime, toTime);
+        
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(ApiResponse.success(orders, "Retrieved " + orders.size() + " orders successfully"));
+    }
+    
+    /**
+     * GET /api/v1/orders/query?filter={filter}&limit={limit} - Retrieve up to limit orders
+     * matching a filter such as {@code status in (PENDING, CONFIRMED) and city = Jakarta
+     * and totalAmount >= 50000}; see {@link OrderQuery} for the syntax. Without a filter
+     * any orders are returned.
+     */
+    @GetMapping("/query")
+    public ResponseEntity<ApiResponse<List<RiceOrder>>> queryOrders(
+            @RequestParam(required = false) String filter,
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        OrderQuery query;
+        try {
+            query = OrderQuery.parse(filter);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Invalid filter: " + e.getMessage()));
+        }
+        
+        String etag = storeTag();
+        if (isNotModified(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        
+        List<RiceOrder> orders = repository.findOrders(query, limit);
+        
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(ApiResponse.success(orders, "Found " + orders.size() + " matching orders"));
+    }
+    
+    /**
+     * GET /api/v1/orders/aggregates - Order count and revenue per status
+     */
+    @GetMapping("/aggregates")
+    public ResponseEntity<ApiResponse<OrderAggregatesResponse>> getOrderAggregates(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = storeTag();
+        if (isNotModified(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        
+        Map<String, StatusAggregate> byStatus = new LinkedHashMap<>();
+        repository.getStatusTotals().forEach((status, totals) -> byStatus.put(status.name(),
+                StatusAggregate.builder()
+                        .orderCount(totals.getOrderCount())
+                        .revenue(totals.getRevenue())
+                        .build()));
+        
+        // Totals also cover orders without a status
+        OrderAggregatesResponse response = OrderAggregatesResponse.builder()
+                .totalOrders(repository.getOrderCount())
+                .totalRevenue(repository.getTotalRevenue())
+                .byStatus(byStatus)
+                .build();
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(ApiResponse.success(response, "Retrieved order aggregates successfully"));
+    }
+    
+    /**
+     * GET /api/v1/orders/{orderId} - Retrieve one order. The ETag header carries its
+     * version, to be sent back in If-Match with a later update or in If-None-Match
+     * to get 304 Not Modified while the order is unchanged.
+     */
+    @GetMapping("/{orderId}")
+    public ResponseEntity<ApiResponse<RiceOrder>> getOrderById(
+            @PathVariable String orderId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Optional<RiceOrder> order = repository.getOrderById(orderId);
+        if (order.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("Order not found: " + orderId));
+        }
+        String etag = versionTag(order.get().getVersion());
+        if (isNotModified(ifNoneMatch, etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(ApiResponse.success(order.get(), "Retrieved order successfully"));
+    }
+    
+    /**
+     * PUT /api/v1/orders/{orderId} - Replace an order. With an If-Match header or a
+     * version parameter, the order is only replaced if it still has that version.
+     */
+    @PutMapping("/{orderId}")
+    public ResponseEntity<ApiResponse<RiceOrderResponse>> updateOrder(
+            @PathVariable String orderId,
+            @RequestBody RiceOrderRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestParam(required = false) Long version) {
+        return writeOrder(orderId, request, ifMatch, version, false);
+    }
+    
+    /**
+     * PATCH /api/v1/orders/{orderId} - Change the given fields of an order. With an
+     * If-Match header or a version parameter, the order is only changed if it still
+     * has that version.
+     */
+    @PatchMapping("/{orderId}")
+    public ResponseEntity<ApiResponse<RiceOrderResponse>> partialUpdateOrder(
+            @PathVariable String orderId,
+            @RequestBody RiceOrderRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestParam(required = false) Long version) {
+        return writeOrder(orderId, request, ifMatch, version, true);
+    }
+    
+    private ResponseEntity<ApiResponse<RiceOrderResponse>> writeOrder(String orderId, RiceOrderRequest request,
+                                                                      String ifMatch, Long version, boolean partial) {
+        Long expectedVersion;
+        try {
+            expectedVersion = expectedVersion(ifMatch, version);
+            validateOrderUpdate(orderId, request, partial);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+        
+        Optional<RiceOrder> result;
+        try {
+            RiceOrder changes = mapper.toEntity(request);
+            result = partial
+                    ? repository.partialUpdateOrder(orderId, changes, expectedVersion)
+                    : repository.updateOrder(orderId, changes, expectedVersion);
+        } catch (OrderVersionConflictException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .eTag(versionTag(e.getCurrentVersion()))
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            // An amount with too many decimals or a total out of range
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+        if (result.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error("Order not found: " + orderId));
+        }
+        return ResponseEntity.ok()
+                .eTag(versionTag(result.get().getVersion()))
+                .body(ApiResponse.success(mapper.toResponse(result.get()), "Order updated successfully"));
+    }
+    
+    /**
+     * POST /api/v1/orders/batch - Create many orders in one call
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<BatchOrderResponse>> createOrdersBatch(@RequestBody BatchOrderRequest request) {
+        if (request == null || request.getOrders() == null || request.getOrders().isEmpty()) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("Batch must contain at least one order"));
+        }
+        List<RiceOrderRequest> requests = request.getOrders();
+        if (requests.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Batch cannot contain more than " + MAX_BATCH_SIZE + " orders"));
+        }
+        
+        // Validate and map in parallel; a null entry marks an order that failed validation
+        String[] errors = new String[requests.size()];
+        List<RiceOrder> entities = IntStream.range(0, requests.size())
+                .parallel()
+                .mapToObj(i -> {
+                    try {
+                        validateOrderRequest(requests.get(i));
+                        return mapper.toEntity(requests.get(i));
+                    } catch (IllegalArgumentException e) {
+                        errors[i] = e.getMessage();
+                        return null;
+                    }
+                })
                 .collect(Collectors.toList());
         
-        return ResponseEntity.ok(
-                ApiResponse.success(response, "Retrieved " + response.size() + " orders successfully")
-        );
+        List<RiceOrder> valid = entities.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        Iterator<OrderStore.InsertResult> inserted = repository.addOrders(valid).iterator();
+        
+        List<BatchOrderResult> results = new ArrayList<>(requests.size());
+        int succeeded = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            RiceOrderRequest orderRequest = requests.get(i);
+            BatchOrderResult.BatchOrderResultBuilder result = BatchOrderResult.builder()
+                    .index(i)
+                    .orderId(orderRequest != null ? orderRequest.getOrderId() : null);
+            if (entities.get(i) == null) {
+                result.success(false).message(errors[i]);
+            } else {
+                OrderStore.InsertResult insertResult = inserted.next();
+                if (insertResult.isInserted()) {
+                    succeeded++;
+                    result.success(true)
+                            .message("Order created successfully")
+                            .order(mapper.toResponse(insertResult.getOrder()));
+                } else {
+                    result.success(false).message(insertResult.getError());
+                }
+            }
+            results.add(result.build());
+        }
+        
+        int failed = requests.size() - succeeded;
+        BatchOrderResponse response = BatchOrderResponse.builder()
+                .total(requests.size())
+                .succeeded(succeeded)
+                .failed(failed)
+                .results(results)
+                .build();
+        String message = "Created " + succeeded + " of " + requests.size() + " orders";
+        HttpStatus status = failed == 0 ? HttpStatus.CREATED
+                : succeeded == 0 ? HttpStatus.BAD_REQUEST : HttpStatus.MULTI_STATUS;
+        return ResponseEntity.status(status).body(ApiResponse.<BatchOrderResponse>builder()
+                .success(failed == 0)
+                .message(message)
+                .data(response)
+                .timestamp(LocalDateTime.now())
+                .build());
+    }
+    
+    private static void validateOrderRequest(RiceOrderRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        if (request.getOrderId() == null || request.getOrderId().trim().isEmpty()) {
+            throw new IllegalArgumentException("Order ID cannot be null or empty");
+        }
+        if (request.getOrderItems() == null || request.getOrderItems().isEmpty()) {
+            throw new IllegalArgumentException("Order must contain at least one item");
+        }
+        validateItemsAndStatus(request);
+    }
+    
+    private static void validateOrderUpdate(String orderId, RiceOrderRequest request, boolean partial) {
+        if (request == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        if (request.getOrderId() != null && !request.getOrderId().equals(orderId)) {
+            throw new IllegalArgumentException("Order ID in the body does not match the path");
+        }
+        // A partial update may leave the items out
+        if (!partial && (request.getOrderItems() == null || request.getOrderItems().isEmpty())) {
+            throw new IllegalArgumentException("Order must contain at least one item");
+        }
+        validateItemsAndStatus(request);
+    }
+    
+    private static void validateItemsAndStatus(RiceOrderRequest request) {
+        if (request.getOrderItems() != null) {
+            for (OrderItemDto item : request.getOrderItems()) {
+                if (item == null) {
+                    throw new IllegalArgumentException("Order item cannot be null");
+                }
+                if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                    throw new IllegalArgumentException("Order item quantity must be positive");
+                }
+                if (item.getPricePerUnit() != null && item.getPricePerUnit().signum() < 0) {
+                    throw new IllegalArgumentException("Order item price cannot be negative");
+                }
+            }
+        }
+        if (request.getStatus() != null) {
+            try {
+                RiceOrder.OrderStatus.valueOf(request.getStatus());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid order status: " + request.getStatus());
+            }
+        }
+    }
+    
+    /**
+     * Resolve the version an update is conditional on
+     * 
+     * @param ifMatch If-Match header: one entity tag such as "42", or * for any version
+     * @param version Version request parameter
+     * @return The expected version, or null for an unconditional update
+     * @throws IllegalArgumentException if the header is malformed or disagrees with the parameter
+     */
+    static Long expectedVersion(String ifMatch, Long version) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return version;
+        }
+        String tag = ifMatch.trim();
+        if (tag.equals("*")) {
+            return version;
+        }
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        Long headerVersion = null;
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                headerVersion = Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+        }
+        if (headerVersion == null) {
+            throw new IllegalArgumentException("If-Match must be a single order version tag, e.g. \"42\"");
+        }
+        if (version != null && !version.equals(headerVersion)) {
+            throw new IllegalArgumentException("If-Match and version must not differ");
+        }
+        return headerVersion;
+    }
+    
+    private static String versionTag(long version) {
+        return "\"" + version + "\"";
+    }
+    
+    /**
+     * ETag of reads spanning many orders. Taken before the orders are read, so the
+     * tag is never newer than the data; a write in between only costs the client
+     * one more full response.
+     * 
+     * The tag is weak: it stands for the same data in every negotiated encoding,
+     * and Tomcat does not compress responses that carry a strong ETag.
+     */
+    private String storeTag() {
+        return "W/" + versionTag(repository.getStoreVersion());
+    }
+    
+    /**
+     * Check an If-None-Match header against the current entity tag, using the weak
+     * comparison that RFC 9110 prescribes for it
+     * 
+     * @param ifNoneMatch The If-None-Match header, or null if absent
+     * @param etag The current entity tag
+     * @return true if the client's copy is current and 304 Not Modified can be sent
+     */
+    static boolean isNotModified(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        String current = opaqueTag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || opaqueTag(tag).equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String opaqueTag(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+    
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+    
+    private static String encodeCursor(String orderId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(orderId.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 }
-
@@ -0,0 +1,269 @@
+package com.example.riceapi.controller;
+
+import com.example.riceapi.dto.*;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.query.OrderQuery;
+import com.example.riceapi.repository.OrderStore;
+import com.example.riceapi.repository.OrderVersionConflictException;
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * The shard API: this node's own {@link RiceOrderRepository} for the
+ * HttpOrderStore of other nodes, when riceapi.sharding.enabled. Unlike the
+ * public API it never goes through the ShardedOrderStore, and it carries every
+ * field of an order including its version.
+ * 
+ * Answers mirror the OrderStore methods: a missing order is null data rather
+ * than 404, a bad argument is 400 and a version conflict is 412 with the
+ * current version as ETag.
+ */
+@RestController
+@RequestMapping("/api/v1/shard")
+@ConditionalOnProperty(prefix = "riceapi.sharding", name = "enabled", havingValue = "true")
+public class ShardController {
+    
+    private final RiceOrderRepository repository;
+    private final RiceOrderMapper mapper;
+    
+    public ShardController(RiceOrderRepository repository, RiceOrderMapper mapper) {
+        this.repository = repository;
+        this.mapper = mapper;
+    }
+    
+    /**
+     * GET /api/v1/shard/orders?limit={limit}&after={orderId} - One page of orders by order ID
+     */
+    @GetMapping("/orders")
+    public ApiResponse<List<VersionedOrderDto>> getOrdersPage(@RequestParam int limit,
+                                                              @RequestParam(required = false) String after) {
+        return orders(repository.getOrdersPage(after, limit));
+    }
+    
+    /**
+     * GET /api/v1/shard/orders/{orderId} - One order, null if it does not exist
+     */
+    @GetMapping("/orders/{orderId}")
+    public ApiResponse<VersionedOrderDto> getOrder(@PathVariable String orderId) {
+        return ApiResponse.success(mapper.toVersionedDto(repository.getOrderById(orderId).orElse(null)), null);
+    }
+    
+    /**
+     * GET /api/v1/shard/query/status?status={status} - Orders with a status, or without one if none is given
+     */
+    @GetMapping("/query/status")
+    public ApiResponse<List<VersionedOrderDto>> getOrdersByStatus(
+            @RequestParam(required = false) RiceOrder.OrderStatus status) {
+        return orders(repository.getOrdersByStatus(status));
+    }
+    
+    /**
+     * GET /api/v1/shard/query/order-date?from={from}&to={to} - Orders placed in a time range
+     */
+    @GetMapping("/query/order-date")
+    public ApiResponse<List<VersionedOrderDto>> getOrdersByOrderDate(@RequestParam(required = false) String from,
+                                                                     @RequestParam(required = false) String to) {
+        return orders(repository.getOrdersByOrderDateRange(parseTime(from), parseTime(to)));
+    }
+    
+    /**
+     * GET /api/v1/shard/query/delivery-time?from={from}&to={to} - Orders due in a time range
+     */
+    @GetMapping("/query/delivery-time")
+    public ApiResponse<List<VersionedOrderDto>> getOrdersByDeliveryTime(@RequestParam(required = false) String from,
+                                                                        @RequestParam(required = false) String to) {
+        return orders(repository.getOrdersByDeliveryTimeRange(parseTime(from), parseTime(to)));
+    }
+    
+    /**
+     * GET /api/v1/shard/query/filter?filter={filter}&limit={limit} - Orders matching a filter
+     */
+    @GetMapping("/query/filter")
+    public ApiResponse<List<VersionedOrderDto>> findOrders(@RequestParam(required = false) String filter,
+                                                           @RequestParam int limit) {
+        return orders(repository.findOrders(OrderQuery.parse(filter), limit));
+    }
+    
+    /**
+     * GET /api/v1/shard/customers/{customerId} - A customer's details, null if unknown here
+     */
+    @GetMapping("/customers/{customerId}")
+    public ApiResponse<CustomerRecordDto> getCustomer(@PathVariable String customerId) {
+        CustomerRecordDto record = repository.getCustomerRecord(customerId)
+                .map(found -> new CustomerRecordDto(mapper.toCustomerDto(found.getCustomer()), found.getVersion()))
+                .orElse(null);
+        return ApiResponse.success(record, null);
+    }
+    
+    /**
+     * PUT /api/v1/shard/customers/{customerId} - Store the details of a customer whose orders other nodes hold
+     */
+    @PutMapping("/customers/{customerId}")
+    public ApiResponse<Boolean> putCustomer(@PathVariable String customerId, @RequestBody CustomerDto customer) {
+        if (customer == null || !customerId.equals(customer.getCustomerId())) {
+            throw new IllegalArgumentException("Customer ID must match the path");
+        }
+        Customer details = mapper.toCustomerEntity(customer);
+        repository.putCustomer(details);
+        return ApiResponse.success(true, null);
+    }
+    
+    /**
+     * GET /api/v1/shard/customers/{customerId}/orders - A customer's orders
+     */
+    @GetMapping("/customers/{customerId}/orders")
+    public ApiResponse<List<VersionedOrderDto>> getCustomerOrders(@PathVariable String customerId) {
+        return orders(repository.getOrdersByCustomerId(customerId));
+    }
+    
+    /**
+     * POST /api/v1/shard/orders - Add an order
+     */
+    @PostMapping("/orders")
+    public ApiResponse<VersionedOrderDto> addOrder(@RequestBody RiceOrderRequest request) {
+        return ApiResponse.success(mapper.toVersionedDto(repository.addOrder(mapper.toEntity(request))), null);
+    }
+    
+    /**
+     * POST /api/v1/shard/orders/batch - Add many orders, one result per order in submission order
+     */
+    @PostMapping("/orders/batch")
+    public ApiResponse<List<InsertResultDto>> addOrders(@RequestBody List<RiceOrderRequest> requests) {
+        if (requests == null) {
+            throw new IllegalArgumentException("Batch cannot be null");
+        }
+        // Conversion errors, e.g. an unknown status, fail only their own order
+        List<RiceOrder> batch = new ArrayList<>(requests.size());
+        String[] errors = new String[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            try {
+                batch.add(mapper.toEntity(requests.get(i)));
+            } catch (IllegalArgumentException e) {
+                errors[i] = e.getMessage();
+                batch.add(null);
+            }
+        }
+        List<OrderStore.InsertResult> inserted = repository.addOrders(batch);
+        List<InsertResultDto> results = new ArrayList<>(inserted.size());
+        for (int i = 0; i < inserted.size(); i++) {
+            OrderStore.InsertResult result = inserted.get(i);
+            results.add(result.isInserted()
+                    ? new InsertResultDto(mapper.toVersionedDto(result.getOrder()), null)
+                    : new InsertResultDto(null, errors[i] != null ? errors[i] : result.getError()));
+        }
+        return ApiResponse.success(results, null);
+    }
+    
+    /**
+     * PUT /api/v1/shard/orders/{orderId}?expectedVersion={version} - Replace an order, null if it does not exist
+     */
+    @PutMapping("/orders/{orderId}")
+    public ApiResponse<VersionedOrderDto> updateOrder(@PathVariable String orderId,
+                                                      @RequestParam(required = false) Long expectedVersion,
+                                                      @RequestBody RiceOrderRequest request) {
+        RiceOrder updated = repository.updateOrder(orderId, mapper.toEntity(request), expectedVersion).orElse(null);
+        return ApiResponse.success(mapper.toVersionedDto(updated), null);
+    }
+    
+    /**
+     * PATCH /api/v1/shard/orders/{orderId}?expectedVersion={version} - Update the given fields of an order
+     */
+    @PatchMapping("/orders/{orderId}")
+    public ApiResponse<VersionedOrderDto> partialUpdateOrder(@PathVariable String orderId,
+                                                             @RequestParam(required = false) Long expectedVersion,
+                                                             @RequestBody RiceOrderRequest request) {
+        RiceOrder updated = repository.partialUpdateOrder(orderId, mapper.toEntity(request), expectedVersion)
+                .orElse(null);
+        return ApiResponse.success(mapper.toVersionedDto(updated), null);
+    }
+    
+    /**
+     * DELETE /api/v1/shard/orders/{orderId}?expectedVersion={version} - Remove an order, false if it did not exist
+     */
+    @DeleteMapping("/orders/{orderId}")
+    public ApiResponse<Boolean> removeOrder(@PathVariable String orderId,
+                                            @RequestParam(required = false) Long expectedVersion) {
+        return ApiResponse.success(repository.removeOrder(orderId, expectedVersion), null);
+    }
+    
+    /**
+     * GET /api/v1/shard/count - Number of orders
+     */
+    @GetMapping("/count")
+    public ApiResponse<Integer> getOrderCount() {
+        return ApiResponse.success(repository.getOrderCount(), null);
+    }
+    
+    /**
+     * GET /api/v1/shard/revenue - Revenue of all orders
+     */
+    @GetMapping("/revenue")
+    public ApiResponse<BigDecimal> getTotalRevenue() {
+        return ApiResponse.success(repository.getTotalRevenue(), null);
+    }
+    
+    /**
+     * GET /api/v1/shard/totals - Order count and revenue of every status
+     */
+    @GetMapping("/totals")
+    public ApiResponse<Map<RiceOrder.OrderStatus, StatusAggregate>> getStatusTotals() {
+        Map<RiceOrder.OrderStatus, StatusAggregate> totals = new EnumMap<>(RiceOrder.OrderStatus.class);
+        repository.getStatusTotals().forEach((status, statusTotals) ->
+                totals.put(status, new StatusAggregate(statusTotals.getOrderCount(), statusTotals.getRevenue())));
+        return ApiResponse.success(totals, null);
+    }
+    
+    /**
+     * GET /api/v1/shard/totals/status?status={status} - Order count and revenue of a status, or of
+     * orders without one if none is given
+     */
+    @GetMapping("/totals/status")
+    public ApiResponse<StatusAggregate> getStatusTotals(@RequestParam(required = false) RiceOrder.OrderStatus status) {
+        return ApiResponse.success(new StatusAggregate(
+                repository.getOrderCountByStatus(status), repository.getRevenueByStatus(status)), null);
+    }
+    
+    /**
+     * GET /api/v1/shard/version - Version of this node's store
+     */
+    @GetMapping("/version")
+    public ApiResponse<Long> getStoreVersion() {
+        return ApiResponse.success(repository.getStoreVersion(), null);
+    }
+    
+    @ExceptionHandler({IllegalArgumentException.class, DateTimeParseException.class})
+    public ResponseEntity<ApiResponse<Void>> badRequest(RuntimeException e) {
+        return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+    }
+    
+    @ExceptionHandler(OrderVersionConflictException.class)
+    public ResponseEntity<ApiResponse<Void>> versionConflict(OrderVersionConflictException e) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .eTag("\"" + e.getCurrentVersion() + "\"")
+                .body(ApiResponse.error(e.getMessage()));
+    }
+    
+    private ApiResponse<List<VersionedOrderDto>> orders(List<RiceOrder> orders) {
+        return ApiResponse.success(orders.stream()
+                .map(mapper::toVersionedDto)
+                .collect(Collectors.toList()), null);
+    }
+    
+    private static LocalDateTime parseTime(String value) {
+        return value != null ? LocalDateTime.parse(value) : null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.riceapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOrderResponse {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<BatchOrderResult> results;
+}
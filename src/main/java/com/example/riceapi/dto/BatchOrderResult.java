@@ -0,0 +1,18 @@
+package com.example.riceapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchOrderResult {
+    private int index;  // Position of the order in the submitted batch
+    private String orderId;
+    private boolean success;
+    private String message;
+    private RiceOrderResponse order;  // Only set when the order was created
+}
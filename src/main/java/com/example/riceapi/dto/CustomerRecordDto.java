@@ -0,0 +1,15 @@
+package com.example.riceapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerRecordDto {
+    private CustomerDto customer;
+    private long version;  // Version of the write the details came from, on the node that holds them
+}
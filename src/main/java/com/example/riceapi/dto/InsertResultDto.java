@@ -0,0 +1,15 @@
+package com.example.riceapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InsertResultDto {
+    private VersionedOrderDto order;  // Only set when the order was inserted
+    private String error;
+}
@@ -0,0 +1,19 @@
+package com.example.riceapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderAggregatesResponse {
+    private long totalOrders;
+    private BigDecimal totalRevenue;
+    private Map<String, StatusAggregate> byStatus;
+}
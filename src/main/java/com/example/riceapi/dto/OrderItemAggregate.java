@@ -0,0 +1,22 @@
+package com.example.riceapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderItemAggregate {
+    private String riceType;
+    private String spiceLevel;
+    private LocalDateTime period;
+    private long itemCount;
+    private long units;
+    private BigDecimal revenue;
+}
@@ -0,0 +1,19 @@
+package com.example.riceapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A stored order as the shard API carries it between nodes: every field of the
+ * order, amounts at their own scale, and the version the owning node gave it.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VersionedOrderDto {
+    private RiceOrderRequest order;
+    private long version;
+}
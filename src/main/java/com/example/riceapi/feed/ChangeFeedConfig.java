@@ -0,0 +1,20 @@
+package com.example.riceapi.feed;
+
+import com.example.riceapi.repository.OrderStore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "riceapi.change-feed", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(ChangeFeedProperties.class)
+public class ChangeFeedConfig {
+    
+    @Bean
+    public OrderChangeFeed orderChangeFeed(OrderStore store, ChangeFeedProperties properties) {
+        OrderChangeFeed feed = new OrderChangeFeed(store, properties.getCapacity());
+        store.addChangeListener(feed);
+        return feed;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.riceapi.feed;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "riceapi.change-feed")
+public class ChangeFeedProperties {
+    private boolean enabled = true;
+    private int capacity = 10_000;  // Events kept for clients to resume from
+    private Duration maxPollTimeout = Duration.ofSeconds(30);  // Longest a long-poll request waits
+    private Duration streamTimeout = Duration.ofMinutes(30);  // SSE clients reconnect after this with Last-Event-ID
+}
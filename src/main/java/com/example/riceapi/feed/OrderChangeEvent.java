@@ -0,0 +1,24 @@
+package com.example.riceapi.feed;
+
+import com.example.riceapi.modal.RiceOrder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the {@link OrderChangeFeed}
+ */
+@Value
+public class OrderChangeEvent {
+    
+    public enum Type {
+        UPSERTED,  // The order was added, replaced or updated; order holds its state
+        REMOVED
+    }
+    
+    long offset;
+    Type type;
+    String orderId;
+    RiceOrder order;  // null for REMOVED
+    LocalDateTime changedAt;
+}
@@ -0,0 +1,227 @@
+package com.example.riceapi.feed;
+
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.OrderChangeListener;
+import com.example.riceapi.repository.OrderStore;
+import lombok.Value;
+
+import java.lang.invoke.VarHandle;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded log of order changes that clients read from an offset, so they can
+ * follow the store without downloading it again.
+ * 
+ * Every change notification appends one event holding the order as it is
+ * stored at that moment. There is no lock: a notification claims its offset
+ * from an atomic counter and publishes the event into its slot with a release
+ * store, and readers take events up to the first slot not published yet. The
+ * order is looked up before the offset is claimed, which decodes it if need
+ * be, and read again once claimed. A state read after claiming is at least as
+ * new as the write behind any earlier claim, so for each order the last event
+ * in the feed always shows its latest state, even when notifications for
+ * concurrent writes arrive out of order. Clients that apply events in offset
+ * order therefore converge on the store.
+ * 
+ * The newest capacity events are kept. A client whose offset has been
+ * overwritten, or that comes from before a restart, gets a reset and must
+ * reload the orders before following the feed again. The feed is not
+ * persisted, so offsets start from the clock (in microseconds) when it is
+ * created, like the store version: every offset of an earlier run lies below
+ * the first offset of a later one, unless that run appended more than one
+ * event per microsecond on average.
+ */
+public class OrderChangeFeed implements OrderChangeListener {
+    
+    private final OrderStore store;
+    private final AtomicReferenceArray<OrderChangeEvent> events;
+    
+    // Offset of the first event of this run
+    private final long base;
+    
+    // Offset the next event gets; events[(offset - base) % capacity] holds the event at offset once published
+    private final AtomicLong head;
+    
+    // Callbacks waiting for the next event; each runs once
+    private final Set<Runnable> waiters = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * @param store The store the changed orders are read from
+     * @param capacity Number of events kept
+     */
+    public OrderChangeFeed(OrderStore store, int capacity) {
+        this(store, capacity, System.currentTimeMillis() * 1000);
+    }
+    
+    /**
+     * @param store The store the changed orders are read from
+     * @param capacity Number of events kept
+     * @param base Offset of the first event
+     */
+    OrderChangeFeed(OrderStore store, int capacity, long base) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.store = store;
+        this.events = new AtomicReferenceArray<>(capacity);
+        this.base = base;
+        this.head = new AtomicLong(base);
+    }
+    
+    @Override
+    public void orderChanged(String orderId) {
+        // Looked up before claiming, so a slow lookup does not hold readers back at an unpublished slot
+        Optional<RiceOrder> order = store.getOrderById(orderId);
+        long offset = head.getAndIncrement();
+        try {
+            order = store.getOrderById(orderId);
+        } catch (RuntimeException e) {
+            // Keep the first lookup; the claimed slot must be published regardless
+        }
+        publish(new OrderChangeEvent(offset,
+                order.isPresent() ? OrderChangeEvent.Type.UPSERTED : OrderChangeEvent.Type.REMOVED,
+                orderId, order.orElse(null), LocalDateTime.now()));
+        // Orders the release store before the check for waiters, which awaitEvents does the other way round
+        VarHandle.fullFence();
+        wakeWaiters();
+    }
+    
+    /**
+     * Read events from an offset
+     * 
+     * @param fromOffset Offset of the first event wanted, usually the nextOffset of the previous read
+     * @param limit Maximum number of events to return
+     * @return The events, or a reset if fromOffset is no longer or not yet in the feed, e.g. from before a restart
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    public Batch read(long fromOffset, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        long claimed = head.get();
+        long oldest = oldestOffset(claimed);
+        if (fromOffset < oldest || fromOffset > claimed) {
+            return new Batch(List.of(), oldest, true);
+        }
+        int count = (int) Math.min(limit, claimed - fromOffset);
+        List<OrderChangeEvent> result = new ArrayList<>(count);
+        for (long offset = fromOffset; offset < fromOffset + count; offset++) {
+            OrderChangeEvent event = events.getAcquire(slot(offset));
+            if (event == null || event.getOffset() < offset) {
+                // Claimed but not published yet
+                break;
+            }
+            if (event.getOffset() > offset) {
+                // Overwritten while reading
+                return new Batch(List.of(), getOldestOffset(), true);
+            }
+            result.add(event);
+        }
+        return new Batch(result, fromOffset + result.size(), false);
+    }
+    
+    /**
+     * Register a callback for the first event at or after an offset. If it is
+     * published already, or the offset needs a reset, nothing is registered and
+     * the caller should read right away.
+     * 
+     * The callback runs once, on the thread that appended the next event, and
+     * must not block.
+     * 
+     * @param fromOffset Offset the caller would read from
+     * @param callback Run when the next event has been appended
+     * @return true if the callback was registered, false if the caller can read now
+     */
+    public boolean awaitEvents(long fromOffset, Runnable callback) {
+        if (isReadable(fromOffset)) {
+            return false;
+        }
+        // Checked again after registering, so an event published in between is not missed
+        waiters.add(callback);
+        if (isReadable(fromOffset) && waiters.remove(callback)) {
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * @param callback A callback registered with {@link #awaitEvents(long, Runnable)} that is no longer wanted
+     */
+    public void cancelWait(Runnable callback) {
+        waiters.remove(callback);
+    }
+    
+    /**
+     * @return Offset the next event will get; reading from it returns only newer events
+     */
+    public long getHeadOffset() {
+        return head.get();
+    }
+    
+    /**
+     * @return Offset of the oldest event still kept
+     */
+    public long getOldestOffset() {
+        return oldestOffset(head.get());
+    }
+    
+    private long oldestOffset(long claimed) {
+        return Math.max(base, claimed - events.length());
+    }
+    
+    private int slot(long offset) {
+        return (int) ((offset - base) % events.length());
+    }
+    
+    /**
+     * Store an event in its slot, unless a later lap has overwritten the slot already
+     */
+    private void publish(OrderChangeEvent event) {
+        int slot = slot(event.getOffset());
+        OrderChangeEvent current = events.getAcquire(slot);
+        while ((current == null || current.getOffset() < event.getOffset())
+                && !events.weakCompareAndSetRelease(slot, current, event)) {
+            current = events.getAcquire(slot);
+        }
+    }
+    
+    /**
+     * @return true if a read from the offset returns an event or a reset right away
+     */
+    private boolean isReadable(long offset) {
+        long claimed = head.get();
+        if (offset < oldestOffset(claimed) || offset > claimed) {
+            return true;
+        }
+        OrderChangeEvent event = events.getAcquire(slot(offset));
+        return event != null && event.getOffset() >= offset;
+    }
+    
+    private void wakeWaiters() {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        for (Runnable waiter : waiters) {
+            if (waiters.remove(waiter)) {
+                waiter.run();
+            }
+        }
+    }
+    
+    /**
+     * Result of one {@link #read(long, int)}
+     */
+    @Value
+    public static class Batch {
+        List<OrderChangeEvent> events;
+        long nextOffset;  // Offset to read from next
+        boolean reset;  // The requested offset was not in the feed; reload the orders and read from nextOffset
+    }
+}
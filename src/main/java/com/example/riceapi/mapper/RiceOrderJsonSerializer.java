@@ -0,0 +1,228 @@
+package com.example.riceapi.mapper;
+
+import com.example.riceapi.cache.OrderJsonCache;
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.DeliveryAddress;
+import com.example.riceapi.modal.Money;
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Writes a {@link RiceOrder} straight to JSON in the shape of the
+ * {@link com.example.riceapi.dto.RiceOrderResponse} that
+ * {@link RiceOrderMapper#toResponse(RiceOrder)} would produce, without building
+ * the DTO graph first. The output is byte-for-byte the same as serializing the
+ * mapped response with the same ObjectMapper.
+ *
+ * Money amounts given without decimals are written from their minor units
+ * without creating a BigDecimal. Dates go through the ObjectMapper's own LocalDateTime serializer,
+ * so date formatting follows its configuration.
+ * 
+ * With an {@link OrderJsonCache}, cacheable orders are encoded once per version
+ * and later written by copying the cached bytes. The cache holds JSON only, so
+ * binary formats such as CBOR and Smile are always written field by field.
+ */
+@JsonComponent
+public class RiceOrderJsonSerializer extends StdSerializer<RiceOrder> {
+    
+    private static final SerializedString ORDER_ID = new SerializedString("orderId");
+    private static final SerializedString CUSTOMER = new SerializedString("customer");
+    private static final SerializedString ORDER_ITEMS = new SerializedString("orderItems");
+    private static final SerializedString DELIVERY_ADDRESS = new SerializedString("deliveryAddress");
+    private static final SerializedString STATUS = new SerializedString("status");
+    private static final SerializedString ORDER_DATE = new SerializedString("orderDate");
+    private static final SerializedString DELIVERY_TIME = new SerializedString("deliveryTime");
+    private static final SerializedString PAYMENT_METHOD = new SerializedString("paymentMethod");
+    private static final SerializedString TOTAL_AMOUNT = new SerializedString("totalAmount");
+    private static final SerializedString ITEM_COUNT = new SerializedString("itemCount");
+    
+    private static final SerializedString CUSTOMER_ID = new SerializedString("customerId");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString EMAIL = new SerializedString("email");
+    private static final SerializedString PHONE_NUMBER = new SerializedString("phoneNumber");
+    
+    private static final SerializedString ITEM_ID = new SerializedString("itemId");
+    private static final SerializedString RICE_TYPE = new SerializedString("riceType");
+    private static final SerializedString QUANTITY = new SerializedString("quantity");
+    private static final SerializedString PRICE_PER_UNIT = new SerializedString("pricePerUnit");
+    private static final SerializedString SPICE_LEVEL = new SerializedString("spiceLevel");
+    private static final SerializedString ADDITIONAL_NOTES = new SerializedString("additionalNotes");
+    
+    private static final SerializedString STREET = new SerializedString("street");
+    private static final SerializedString CITY = new SerializedString("city");
+    private static final SerializedString STATE = new SerializedString("state");
+    private static final SerializedString POSTAL_CODE = new SerializedString("postalCode");
+    private static final SerializedString COUNTRY = new SerializedString("country");
+    private static final SerializedString ADDITIONAL_INSTRUCTIONS = new SerializedString("additionalInstructions");
+    
+    private final OrderJsonCache cache;
+    
+    public RiceOrderJsonSerializer() {
+        this((OrderJsonCache) null);
+    }
+    
+    public RiceOrderJsonSerializer(OrderJsonCache cache) {
+        super(RiceOrder.class);
+        this.cache = cache;
+    }
+    
+    @Autowired
+    public RiceOrderJsonSerializer(ObjectProvider<OrderJsonCache> cache) {
+        this(cache.getIfAvailable());
+    }
+    
+    @Override
+    public void serialize(RiceOrder order, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        ObjectCodec codec = gen.getCodec();
+        // Cached bytes are compact JSON, so pretty-printed output is always written field by field
+        if (cache == null || codec == null || gen.getPrettyPrinter() != null || !isJson(codec)
+                || !cache.isCacheable(order)) {
+            writeOrder(order, gen, provider);
+            return;
+        }
+        // Orders are immutable, so the version always describes the fields being encoded
+        long version = order.getVersion();
+        OrderJsonCache.EncodedOrder encoded = cache.get(order.getOrderId(), version);
+        if (encoded == null) {
+            ByteArrayBuilder bytes = new ByteArrayBuilder();
+            try (JsonGenerator encoder = codec.getFactory().createGenerator(bytes)) {
+                writeOrder(order, encoder, provider);
+            }
+            encoded = cache.put(order.getOrderId(), version, bytes.toByteArray());
+        }
+        gen.writeRawValue(encoded);
+    }
+    
+    private static boolean isJson(ObjectCodec codec) {
+        return JsonFactory.FORMAT_NAME_JSON.equals(codec.getFactory().getFormatName());
+    }
+    
+    private static void writeOrder(RiceOrder order, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(order);
+        gen.writeFieldName(ORDER_ID);
+        gen.writeString(order.getOrderId());
+        gen.writeFieldName(CUSTOMER);
+        writeCustomer(gen, order.getCustomer());
+        
+        List<OrderItem> items = order.getOrderItems();
+        gen.writeFieldName(ORDER_ITEMS);
+        gen.writeStartArray(items, items.size());
+        for (int i = 0, n = items.size(); i < n; i++) {
+            writeOrderItem(gen, items.get(i));
+        }
+        gen.writeEndArray();
+        
+        gen.writeFieldName(DELIVERY_ADDRESS);
+        writeDeliveryAddress(gen, order.getDeliveryAddress());
+        gen.writeFieldName(STATUS);
+        gen.writeString(order.getStatus() != null ? order.getStatus().name() : null);
+        gen.writeFieldName(ORDER_DATE);
+        writeDateTime(gen, provider, order.getOrderDate());
+        gen.writeFieldName(DELIVERY_TIME);
+        writeDateTime(gen, provider, order.getDeliveryTime());
+        gen.writeFieldName(PAYMENT_METHOD);
+        gen.writeString(order.getPaymentMethod());
+        gen.writeFieldName(TOTAL_AMOUNT);
+        writeMoney(gen, order.getTotalAmountMinor(), order.getTotalAmountScale());
+        gen.writeFieldName(ITEM_COUNT);
+        gen.writeNumber(items.size());
+        gen.writeEndObject();
+    }
+    
+    private static void writeCustomer(JsonGenerator gen, Customer customer) throws IOException {
+        if (customer == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject(customer);
+        gen.writeFieldName(CUSTOMER_ID);
+        gen.writeString(customer.getCustomerId());
+        gen.writeFieldName(NAME);
+        gen.writeString(customer.getName());
+        gen.writeFieldName(EMAIL);
+        gen.writeString(customer.getEmail());
+        gen.writeFieldName(PHONE_NUMBER);
+        gen.writeString(customer.getPhoneNumber());
+        gen.writeEndObject();
+    }
+    
+    private static void writeOrderItem(JsonGenerator gen, OrderItem item) throws IOException {
+        if (item == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject(item);
+        gen.writeFieldName(ITEM_ID);
+        gen.writeString(item.getItemId());
+        gen.writeFieldName(RICE_TYPE);
+        gen.writeString(item.getRiceType());
+        gen.writeFieldName(QUANTITY);
+        if (item.getQuantity() != null) {
+            gen.writeNumber(item.getQuantity().intValue());
+        } else {
+            gen.writeNull();
+        }
+        gen.writeFieldName(PRICE_PER_UNIT);
+        writeMoney(gen, item.getPricePerUnitMinor(), item.getPricePerUnitScale());
+        gen.writeFieldName(SPICE_LEVEL);
+        gen.writeString(item.getSpiceLevel());
+        gen.writeFieldName(ADDITIONAL_NOTES);
+        gen.writeString(item.getAdditionalNotes());
+        gen.writeEndObject();
+    }
+    
+    private static void writeDeliveryAddress(JsonGenerator gen, DeliveryAddress address) throws IOException {
+        if (address == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartObject(address);
+        gen.writeFieldName(STREET);
+        gen.writeString(address.getStreet());
+        gen.writeFieldName(CITY);
+        gen.writeString(address.getCity());
+        gen.writeFieldName(STATE);
+        gen.writeString(address.getState());
+        gen.writeFieldName(POSTAL_CODE);
+        gen.writeString(address.getPostalCode());
+        gen.writeFieldName(COUNTRY);
+        gen.writeString(address.getCountry());
+        gen.writeFieldName(ADDITIONAL_INSTRUCTIONS);
+        gen.writeString(address.getAdditionalInstructions());
+        gen.writeEndObject();
+    }
+    
+    private static void writeDateTime(JsonGenerator gen, SerializerProvider provider,
+                                      LocalDateTime dateTime) throws IOException {
+        if (dateTime == null) {
+            gen.writeNull();
+        } else {
+            provider.defaultSerializeValue(dateTime, gen);
+        }
+    }
+    
+    private static void writeMoney(JsonGenerator gen, long minor, int scale) throws IOException {
+        if (minor == Money.ABSENT) {
+            gen.writeNull();
+        } else if (scale == 0) {
+            // Same text as the BigDecimal the mapper would produce, e.g. 45000
+            gen.writeNumber(Money.wholeUnits(minor));
+        } else {
+            gen.writeNumber(Money.toDecimal(minor, scale));
+        }
+    }
+}
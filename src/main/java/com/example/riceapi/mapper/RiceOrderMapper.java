@@ -3,12 +3,17 @@ package com.example.riceapi.mapper;
 import com.example.riceapi.dto.*;
 import com.example.riceapi.modal.Customer;
 import com.example.riceapi.modal.DeliveryAddress;
+import com.example.riceapi.modal.Money;
 import com.example.riceapi.modal.OrderItem;
 import com.example.riceapi.modal.RiceOrder;
 import org.springframework.stereotype.Component;
 
 import java.util.stream.Collectors;
 
+/**
+ * Converts between the API DTOs and the model. Money is held as long minor units
+ * in the model (see {@link Money}) and only becomes a BigDecimal here.
+ */
 @Component
 public class RiceOrderMapper {
     
@@ -56,7 +61,45 @@ public class RiceOrderMapper {
                 .build();
     }
     
-    private Customer toCustomerEntity(CustomerDto dto) {
+    /**
+     * The inverse of {@link #toEntity(RiceOrderRequest)}: every field of the order,
+     * with amounts at the scale they were given with
+     */
+    public RiceOrderRequest toRequest(RiceOrder entity) {
+        if (entity == null) {
+            return null;
+        }
+        
+        return RiceOrderRequest.builder()
+                .orderId(entity.getOrderId())
+                .customer(toCustomerDto(entity.getCustomer()))
+                .orderItems(entity.getOrderItems().stream()
+                        .map(this::toOrderItemDto)
+                        .collect(Collectors.toList()))
+                .deliveryAddress(toDeliveryAddressDto(entity.getDeliveryAddress()))
+                .status(entity.getStatus() != null ? entity.getStatus().name() : null)
+                .orderDate(entity.getOrderDate())
+                .deliveryTime(entity.getDeliveryTime())
+                .paymentMethod(entity.getPaymentMethod())
+                .totalAmount(entity.getTotalAmount())
+                .build();
+    }
+    
+    public VersionedOrderDto toVersionedDto(RiceOrder entity) {
+        if (entity == null) {
+            return null;
+        }
+        return new VersionedOrderDto(toRequest(entity), entity.getVersion());
+    }
+    
+    public RiceOrder toEntity(VersionedOrderDto dto) {
+        if (dto == null) {
+            return null;
+        }
+        return toEntity(dto.getOrder()).withVersion(dto.getVersion());
+    }
+    
+    public Customer toCustomerEntity(CustomerDto dto) {
         if (dto == null) {
             return null;
         }
@@ -68,7 +111,7 @@ public class RiceOrderMapper {
                 .build();
     }
     
-    private CustomerDto toCustomerDto(Customer entity) {
+    public CustomerDto toCustomerDto(Customer entity) {
         if (entity == null) {
             return null;
         }
@@ -0,0 +1,95 @@
+package com.example.riceapi.metrics;
+
+import com.sun.management.ThreadMXBean;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records latency and heap allocation of every public RiceOrderMapper method.
+ * 
+ * Allocation is read from the JVM's per-thread allocation counter, so it includes
+ * everything the method allocates, e.g. the nested DTOs and item lists. Virtual
+ * threads do not support that counter; calls on them only record latency.
+ * 
+ * toResponse runs once per order on the list and batch endpoints, so the two
+ * counter reads and the timer add up there. The aspect is off unless
+ * riceapi.metrics.mapper.enabled is set, e.g. while profiling the mapper.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "riceapi.metrics.mapper", name = "enabled", havingValue = "true")
+public class MapperMetricsAspect {
+    
+    private static final ThreadMXBean THREADS = allocationCounter();
+    
+    private final MeterRegistry registry;
+    private final Map<String, MethodMeters> meters = new ConcurrentHashMap<>();
+    
+    public MapperMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+    
+    @Around("execution(public * com.example.riceapi.mapper.RiceOrderMapper.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodMeters methodMeters = meters.computeIfAbsent(joinPoint.getSignature().getName(), this::newMeters);
+        long allocatedBefore = allocatedBytes();
+        long started = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            methodMeters.latency.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            long allocatedAfter = allocatedBytes();
+            if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+                methodMeters.allocation.record(allocatedAfter - allocatedBefore);
+            }
+        }
+    }
+    
+    private MethodMeters newMeters(String method) {
+        return new MethodMeters(
+                Timer.builder("riceapi.mapper")
+                        .description("Time spent in RiceOrderMapper methods")
+                        .tag("method", method)
+                        .publishPercentileHistogram()
+                        .register(registry),
+                DistributionSummary.builder("riceapi.mapper.allocated")
+                        .description("Heap allocated per RiceOrderMapper call")
+                        .baseUnit("bytes")
+                        .tag("method", method)
+                        .register(registry));
+    }
+    
+    private static long allocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+    
+    private static ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()
+                && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads;
+        }
+        return null;
+    }
+    
+    private static final class MethodMeters {
+        final Timer latency;
+        final DistributionSummary allocation;
+        
+        MethodMeters(Timer latency, DistributionSummary allocation) {
+            this.latency = latency;
+            this.allocation = allocation;
+        }
+    }
+}
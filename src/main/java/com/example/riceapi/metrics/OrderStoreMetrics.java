@@ -0,0 +1,40 @@
+package com.example.riceapi.metrics;
+
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.OrderStore;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gauges for the size of the order store, in total and per status, and revenue per status.
+ * All are read from counters the repository maintains, so scraping is cheap.
+ * With sharding they are summed over the shards.
+ */
+@Component
+public class OrderStoreMetrics implements MeterBinder {
+    
+    private final OrderStore repository;
+    
+    public OrderStoreMetrics(OrderStore repository) {
+        this.repository = repository;
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("riceapi.orders.stored", repository, OrderStore::getOrderCount)
+                .description("Number of orders in the store")
+                .register(registry);
+        for (RiceOrder.OrderStatus status : RiceOrder.OrderStatus.values()) {
+            Gauge.builder("riceapi.orders.by.status", repository, repo -> repo.getOrderCountByStatus(status))
+                    .description("Number of orders per status")
+                    .tag("status", status.name())
+                    .register(registry);
+            Gauge.builder("riceapi.orders.revenue", repository, repo -> repo.getRevenueByStatus(status).doubleValue())
+                    .description("Summed total amount of orders per status")
+                    .tag("status", status.name())
+                    .register(registry);
+        }
+    }
+}
@@ -1,18 +1,13 @@
 package com.example.riceapi.modal;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
+@Value
+@Builder(toBuilder = true)
 public class Customer {
     private String customerId;
     private String name;
     private String email;
     private String phoneNumber;
 }
-
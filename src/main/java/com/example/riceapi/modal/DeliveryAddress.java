@@ -1,14 +1,10 @@
 package com.example.riceapi.modal;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
+@Value
+@Builder(toBuilder = true)
 public class DeliveryAddress {
     private String street;
     private String city;
@@ -16,5 +12,16 @@ public class DeliveryAddress {
     private String postalCode;
     private String country;
     private String additionalInstructions;
+    
+    public DeliveryAddress(String street, String city, String state, String postalCode, String country,
+                           String additionalInstructions) {
+        // Region fields repeat across orders and are shared; street, postal code and instructions
+        // are kept as given, as they are close to unique per address
+        this.street = street;
+        this.city = OrderValues.canonical(city);
+        this.state = OrderValues.canonical(state);
+        this.postalCode = postalCode;
+        this.country = OrderValues.canonical(country);
+        this.additionalInstructions = additionalInstructions;
+    }
 }
-
@@ -0,0 +1,126 @@
+package com.example.riceapi.modal;
+
+import java.math.BigDecimal;
+
+/**
+ * Conversions between BigDecimal amounts and the long minor units used to store
+ * and sum money inside the model. One minor unit is 10^-{@link #SCALE}.
+ *
+ * An amount keeps the scale it was given with next to its minor units, so
+ * 45000.50 comes back as 45000.50 and 100000 as 100000.
+ */
+public final class Money {
+    
+    public static final int SCALE = 2;
+    
+    private static final long MINOR_PER_UNIT = 100;
+    
+    /**
+     * Minor-unit value standing in for an absent (null) amount
+     */
+    public static final long ABSENT = Long.MIN_VALUE;
+    
+    private Money() {
+    }
+    
+    /**
+     * Convert an amount to minor units
+     *
+     * @param amount Amount to convert, may be null
+     * @return Amount in minor units, or {@link #ABSENT} for null
+     * @throws IllegalArgumentException if the amount has more than {@link #SCALE} decimals
+     *                                  or does not fit in a long
+     */
+    public static long toMinor(BigDecimal amount) {
+        if (amount == null) {
+            return ABSENT;
+        }
+        try {
+            // Exact, so an amount with more decimals fails instead of being rounded
+            long minor = amount.setScale(SCALE).unscaledValue().longValueExact();
+            if (minor == ABSENT) {
+                throw new ArithmeticException("Overflow");
+            }
+            return minor;
+        } catch (ArithmeticException e) {
+            if (amount.stripTrailingZeros().scale() > SCALE) {
+                throw new IllegalArgumentException("Amount cannot have more than " + SCALE + " decimals: "
+                        + amount.toPlainString());
+            }
+            throw new IllegalArgumentException("Amount is out of range: " + amount.toPlainString());
+        }
+    }
+    
+    /**
+     * @param amount Amount as given, may be null
+     * @return The scale to give the amount back with, between 0 and {@link #SCALE}
+     */
+    public static int scaleOf(BigDecimal amount) {
+        if (amount == null) {
+            return SCALE;
+        }
+        return Math.max(0, Math.min(amount.scale(), SCALE));
+    }
+    
+    /**
+     * Convert minor units back to an amount
+     *
+     * @param minor Amount in minor units
+     * @param scale Scale of the amount, between 0 and {@link #SCALE}; the minor units
+     *              must not have decimals beyond it
+     * @return Amount, or null for {@link #ABSENT}
+     */
+    public static BigDecimal toDecimal(long minor, int scale) {
+        if (minor == ABSENT) {
+            return null;
+        }
+        if (scale == 0) {
+            return BigDecimal.valueOf(wholeUnits(minor));
+        }
+        return BigDecimal.valueOf(minor, SCALE).setScale(scale);
+    }
+    
+    /**
+     * @param minor Amount in minor units, with no fractional part
+     * @return The amount in whole units
+     */
+    public static long wholeUnits(long minor) {
+        return minor / MINOR_PER_UNIT;
+    }
+    
+    /**
+     * @param minor Amount in minor units
+     * @return 0 for {@link #ABSENT}, otherwise the amount itself
+     */
+    public static long orZero(long minor) {
+        return minor == ABSENT ? 0 : minor;
+    }
+    
+    /**
+     * @param minor Amount in minor units
+     * @param factor Number to multiply by
+     * @return The product in minor units
+     * @throws IllegalArgumentException if the product does not fit in a long
+     */
+    public static long multiply(long minor, long factor) {
+        try {
+            return Math.multiplyExact(minor, factor);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount is out of range");
+        }
+    }
+    
+    /**
+     * @param minor Amount in minor units
+     * @param other Amount in minor units to add
+     * @return The sum in minor units
+     * @throws IllegalArgumentException if the sum does not fit in a long
+     */
+    public static long add(long minor, long other) {
+        try {
+            return Math.addExact(minor, other);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Amount is out of range");
+        }
+    }
+}
@@ -1,29 +1,63 @@
 package com.example.riceapi.modal;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
 import java.math.BigDecimal;
 
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
+@Value
+@Builder(toBuilder = true)
 public class OrderItem {
     private String itemId;
     private String riceType;  // e.g., "Nasi Goreng Special", "Nasi Goreng Ayam", "Nasi Goreng Seafood"
     private Integer quantity;
-    private BigDecimal pricePerUnit;
+    private long pricePerUnitMinor;  // in Money minor units, Money.ABSENT when not set
+    private int pricePerUnitScale;  // scale the price was given with
     private String spiceLevel;  // e.g., "Mild", "Medium", "Hot", "Extra Hot"
     private String additionalNotes;
     
+    public OrderItem(String itemId, String riceType, Integer quantity, long pricePerUnitMinor,
+                     int pricePerUnitScale, String spiceLevel, String additionalNotes) {
+        // Menu values repeat across orders and are shared; IDs and notes are kept as given
+        this.itemId = itemId;
+        this.riceType = OrderValues.canonical(riceType);
+        this.quantity = quantity;
+        this.pricePerUnitMinor = pricePerUnitMinor;
+        this.pricePerUnitScale = pricePerUnitScale;
+        this.spiceLevel = OrderValues.canonical(spiceLevel);
+        this.additionalNotes = additionalNotes;
+    }
+    
+    public BigDecimal getPricePerUnit() {
+        return Money.toDecimal(pricePerUnitMinor, pricePerUnitScale);
+    }
+    
+    // Whether the item counts towards the order total
+    public boolean isPriced() {
+        return pricePerUnitMinor != Money.ABSENT && quantity != null;
+    }
+    
+    // Subtotal in minor units, computed without allocating
+    public long getSubtotalMinor() {
+        if (!isPriced()) {
+            return 0;
+        }
+        return Money.multiply(pricePerUnitMinor, quantity.longValue());
+    }
+    
+    // Subtotal with the scale of the price, or 0 when the item is not priced
     public BigDecimal getSubtotal() {
-        if (pricePerUnit == null || quantity == null) {
-            return BigDecimal.ZERO;
+        return Money.toDecimal(getSubtotalMinor(), isPriced() ? pricePerUnitScale : 0);
+    }
+    
+    public static class OrderItemBuilder {
+        private long pricePerUnitMinor = Money.ABSENT;
+        private int pricePerUnitScale = Money.SCALE;
+        
+        public OrderItemBuilder pricePerUnit(BigDecimal pricePerUnit) {
+            this.pricePerUnitMinor = Money.toMinor(pricePerUnit);
+            this.pricePerUnitScale = Money.scaleOf(pricePerUnit);
+            return this;
         }
-        return pricePerUnit.multiply(BigDecimal.valueOf(quantity));
     }
 }
-
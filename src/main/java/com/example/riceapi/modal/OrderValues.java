@@ -0,0 +1,70 @@
+package com.example.riceapi.modal;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical instances of the short string values that repeat across orders, such
+ * as rice types, spice levels, cities and payment methods. The model constructors
+ * pass those fields through {@link #canonical(String)}, so every order naming
+ * "Nasi Goreng Special" shares one String, however the order was built: by the
+ * API mapper, by a repository write or when decoding persisted orders.
+ *
+ * The pool never evicts, so only fields with few distinct values belong in it.
+ * IDs, postal codes and free text would fill it with values that never repeat
+ * and leave no room for the ones that do. It is also bounded in entries and in
+ * value length: once it is full, new values are kept as given, so unusual input
+ * cannot grow it without limit. The menu's rice types and spice levels are
+ * registered up front.
+ */
+public final class OrderValues {
+    
+    static final int MAX_ENTRIES = 16_384;
+    
+    // Longer values are free text such as notes, which rarely repeat
+    static final int MAX_LENGTH = 64;
+    
+    private static final ConcurrentHashMap<String, String> POOL = new ConcurrentHashMap<>();
+    
+    static {
+        for (String value : List.of(
+                "Nasi Goreng Special", "Nasi Goreng Ayam", "Nasi Goreng Seafood",
+                "Nasi Goreng Kampung", "Nasi Goreng Pete",
+                "Mild", "Medium", "Hot", "Extra Hot")) {
+            POOL.put(value, value);
+        }
+    }
+    
+    private OrderValues() {
+    }
+    
+    /**
+     * Get the shared instance of a value
+     *
+     * @param value The value to look up, may be null
+     * @return An equal String shared by all callers, or value itself if it is null,
+     *         too long or the pool is full
+     */
+    public static String canonical(String value) {
+        if (value == null || value.length() > MAX_LENGTH) {
+            return value;
+        }
+        String pooled = POOL.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        // The bound is approximate under concurrent inserts, which is fine for a cap
+        if (POOL.size() >= MAX_ENTRIES) {
+            return value;
+        }
+        pooled = POOL.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+    
+    /**
+     * @return Number of pooled values
+     */
+    static int size() {
+        return POOL.size();
+    }
+}
@@ -1,29 +1,59 @@
 package com.example.riceapi.modal;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Value;
+import lombok.With;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
-@Data
-@Builder
-@NoArgsConstructor
-@AllArgsConstructor
+/**
+ * One immutable state of an order. A change builds a new RiceOrder with
+ * toBuilder() or a with method, and the repository publishes it in place of
+ * the old one, so a RiceOrder can be read and serialized without locks or copies.
+ *
+ * Repeated short values such as the payment method are shared through
+ * {@link OrderValues}, here and in {@link OrderItem} and {@link DeliveryAddress}.
+ */
+@Value
+@Builder(toBuilder = true)
+@With
 public class RiceOrder {
     private String orderId;
     private Customer customer;
-    private List<OrderItem> orderItems;
+    private List<OrderItem> orderItems;  // unmodifiable, empty when not set
     private DeliveryAddress deliveryAddress;
     private OrderStatus status;
     private LocalDateTime orderDate;
     private LocalDateTime deliveryTime;
     private String paymentMethod;
-    private BigDecimal totalAmount;
+    private long totalAmountMinor;  // in Money minor units, Money.ABSENT when not set
+    private int totalAmountScale;  // scale the total was given or calculated with
+    
+    // Assigned by the repository on every write and never reused, so an (orderId, version)
+    // pair identifies one state of the order. Not part of equality.
+    @EqualsAndHashCode.Exclude
+    private long version;
+    
+    public RiceOrder(String orderId, Customer customer, List<OrderItem> orderItems,
+                     DeliveryAddress deliveryAddress, OrderStatus status, LocalDateTime orderDate,
+                     LocalDateTime deliveryTime, String paymentMethod, long totalAmountMinor, int totalAmountScale,
+                     long version) {
+        this.orderId = orderId;
+        this.customer = customer;
+        // List.copyOf returns an already unmodifiable list as is, so copies of an order share it
+        this.orderItems = orderItems != null ? List.copyOf(orderItems) : List.of();
+        this.deliveryAddress = deliveryAddress;
+        this.status = status;
+        this.orderDate = orderDate;
+        this.deliveryTime = deliveryTime;
+        this.paymentMethod = OrderValues.canonical(paymentMethod);
+        this.totalAmountMinor = totalAmountMinor;
+        this.totalAmountScale = totalAmountScale;
+        this.version = version;
+    }
     
     public enum OrderStatus {
         PENDING,
@@ -36,20 +66,53 @@ public class RiceOrder {
     
     // Helper method to calculate total amount
     public BigDecimal calculateTotalAmount() {
-        if (orderItems == null || orderItems.isEmpty()) {
-            return BigDecimal.ZERO;
+        return Money.toDecimal(calculateTotalAmountMinor(), calculateTotalAmountScale());
+    }
+    
+    // Total amount in minor units, summed without allocating
+    public long calculateTotalAmountMinor() {
+        long total = 0;
+        for (int i = 0, n = orderItems.size(); i < n; i++) {
+            total = Money.add(total, orderItems.get(i).getSubtotalMinor());
         }
-        return orderItems.stream()
-                .map(OrderItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return total;
     }
     
-    // Initialize orderItems list if null
-    public List<OrderItem> getOrderItems() {
-        if (orderItems == null) {
-            orderItems = new ArrayList<>();
+    // Scale of the calculated total: the largest scale of the priced items, as a BigDecimal sum has
+    public int calculateTotalAmountScale() {
+        int scale = 0;
+        for (int i = 0, n = orderItems.size(); i < n; i++) {
+            OrderItem item = orderItems.get(i);
+            if (item.isPriced()) {
+                scale = Math.max(scale, item.getPricePerUnitScale());
+            }
+        }
+        return scale;
+    }
+    
+    /**
+     * @return This order with its total amount calculated from the items
+     * @throws IllegalArgumentException if the total is out of range
+     */
+    public RiceOrder withCalculatedTotalAmount() {
+        return toBuilder()
+                .totalAmountMinor(calculateTotalAmountMinor())
+                .totalAmountScale(calculateTotalAmountScale())
+                .build();
+    }
+    
+    public BigDecimal getTotalAmount() {
+        return Money.toDecimal(totalAmountMinor, totalAmountScale);
+    }
+    
+    public static class RiceOrderBuilder {
+        private long totalAmountMinor = Money.ABSENT;
+        private int totalAmountScale = Money.SCALE;
+        
+        public RiceOrderBuilder totalAmount(BigDecimal totalAmount) {
+            this.totalAmountMinor = Money.toMinor(totalAmount);
+            this.totalAmountScale = Money.scaleOf(totalAmount);
+            return this;
         }
-        return orderItems;
     }
 }
-
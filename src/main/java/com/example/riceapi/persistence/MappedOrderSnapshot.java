@@ -0,0 +1,189 @@
+package com.example.riceapi.persistence;
+
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.LazyOrderSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * A snapshot mapped into memory with {@link FileChannel#map}. Opening
+ * it only reads the index region; each order is decoded from the mapping the first
+ * time the repository takes it.
+ */
+final class MappedOrderSnapshot implements LazyOrderSource {
+    
+    private static final RiceOrder.OrderStatus[] STATUSES = RiceOrder.OrderStatus.values();
+    
+    private final ByteBuffer[] windows;
+    private final int windowShift;
+    private final long windowMask;
+    private final long coveredSegment;
+    private final int orderCount;
+    private final long indexOffset;
+    
+    // Record offset of every order that has not been taken yet
+    private final Map<String, Long> pending;
+    
+    private MappedOrderSnapshot(ByteBuffer[] windows, ByteBuffer header) {
+        this.windows = windows;
+        this.windowShift = header.getInt();
+        this.windowMask = (1L << windowShift) - 1;
+        this.coveredSegment = header.getLong();
+        this.orderCount = header.getInt();
+        this.indexOffset = header.getLong();
+        this.pending = new ConcurrentHashMap<>(Math.max(16, (int) (orderCount / 0.75f) + 1));
+        forEachIndexEntry((stub, offset) -> pending.put(stub.getOrderId(), offset));
+    }
+    
+    /**
+     * Map a snapshot
+     * 
+     * @param directory Directory holding the snapshot
+     * @return The mapped snapshot
+     */
+    static MappedOrderSnapshot open(Path directory) throws IOException {
+        Path file = directory.resolve(OrderSnapshots.FILE_NAME);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(OrderSnapshots.HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // read until the header is complete
+            }
+            header.flip();
+            int magic = header.remaining() >= OrderSnapshots.HEADER_SIZE ? header.getInt() : 0;
+            if (magic != OrderSnapshots.SNAPSHOT_MAGIC) {
+                throw new IOException("Not an order snapshot: " + file);
+            }
+            int windowShift = header.getInt(header.position());
+            long windowSize = 1L << windowShift;
+            
+            // Mappings stay valid after the channel is closed
+            int windowCount = (int) ((size + windowSize - 1) >>> windowShift);
+            ByteBuffer[] windows = new ByteBuffer[windowCount];
+            for (int i = 0; i < windowCount; i++) {
+                long start = (long) i << windowShift;
+                windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+            }
+            return new MappedOrderSnapshot(windows, header);
+        }
+    }
+    
+    long getCoveredSegment() {
+        return coveredSegment;
+    }
+    
+    @Override
+    public void forEachPending(Consumer<RiceOrder> visitor) {
+        forEachIndexEntry((stub, offset) -> {
+            if (pending.containsKey(stub.getOrderId())) {
+                visitor.accept(stub);
+            }
+        });
+    }
+    
+    @Override
+    public RiceOrder take(String orderId) {
+        Long offset = pending.remove(orderId);
+        return offset != null ? decode(orderId, offset) : null;
+    }
+    
+    @Override
+    public boolean isPending(String orderId) {
+        return pending.containsKey(orderId);
+    }
+    
+    @Override
+    public int pendingCount() {
+        return pending.size();
+    }
+    
+    private void forEachIndexEntry(IndexEntryVisitor visitor) {
+        long position = indexOffset;
+        int visited = 0;
+        while (visited < orderCount) {
+            ByteBuffer entry = slice(position);
+            if (!entry.hasRemaining() || entry.get() == 0) {
+                // Padding up to the next window boundary
+                position = (position | windowMask) + 1;
+                continue;
+            }
+            RiceOrder stub = readIndexStub(entry);
+            long offset = entry.getLong();
+            visitor.visit(stub, offset);
+            position += entry.position() - (position & windowMask);
+            visited++;
+        }
+    }
+    
+    /**
+     * Read the indexed fields of one entry
+     */
+    private RiceOrder readIndexStub(ByteBuffer entry) {
+        RiceOrder.RiceOrderBuilder stub = RiceOrder.builder().orderId(readString(entry));
+        byte status = entry.get();
+        stub.status(status >= 0 ? STATUSES[status] : null);
+        String customerId = readString(entry);
+        stub.customer(customerId != null ? Customer.builder().customerId(customerId).build() : null);
+        stub.totalAmountMinor(entry.getLong());
+        stub.totalAmountScale(entry.get());
+        stub.orderDate(readDateTime(entry));
+        stub.deliveryTime(readDateTime(entry));
+        return stub.build();
+    }
+    
+    private RiceOrder decode(String orderId, long offset) {
+        ByteBuffer record = slice(offset);
+        byte[] bytes = new byte[record.getInt()];
+        record.get(bytes);
+        try {
+            return OrderCodec.readOrder(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt snapshot record for order " + orderId, e);
+        }
+    }
+    
+    /**
+     * @return A buffer positioned at the given file offset, private to the caller
+     */
+    private ByteBuffer slice(long offset) {
+        ByteBuffer window = windows[(int) (offset >>> windowShift)].duplicate();
+        window.position((int) (offset & windowMask));
+        return window;
+    }
+    
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static LocalDateTime readDateTime(ByteBuffer buffer) {
+        if (buffer.get() == 0) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+    }
+    
+    @FunctionalInterface
+    private interface IndexEntryVisitor {
+        void visit(RiceOrder stub, long offset);
+    }
+}
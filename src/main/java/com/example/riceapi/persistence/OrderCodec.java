@@ -0,0 +1,192 @@
+package com.example.riceapi.persistence;
+
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.DeliveryAddress;
+import com.example.riceapi.modal.Money;
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of {@link RiceOrder} shared by the write-ahead log and snapshots.
+ * Nullable values are written with a presence marker so that a restored order is
+ * identical to the one that was persisted. Amounts are written as their long minor
+ * units and scale, as the model holds them.
+ */
+final class OrderCodec {
+    
+    private static final RiceOrder.OrderStatus[] STATUSES = RiceOrder.OrderStatus.values();
+    
+    private OrderCodec() {
+    }
+    
+    static void writeOrder(DataOutput out, RiceOrder order) throws IOException {
+        writeString(out, order.getOrderId());
+        writeCustomer(out, order.getCustomer());
+        List<OrderItem> items = order.getOrderItems();
+        out.writeInt(items.size());
+        for (OrderItem item : items) {
+            writeOrderItem(out, item);
+        }
+        writeDeliveryAddress(out, order.getDeliveryAddress());
+        out.writeByte(order.getStatus() != null ? order.getStatus().ordinal() : -1);
+        writeDateTime(out, order.getOrderDate());
+        writeDateTime(out, order.getDeliveryTime());
+        writeString(out, order.getPaymentMethod());
+        writeMoney(out, order.getTotalAmountMinor(), order.getTotalAmountScale());
+    }
+    
+    static RiceOrder readOrder(DataInput in) throws IOException {
+        String orderId = readString(in);
+        Customer customer = readCustomer(in);
+        int itemCount = in.readInt();
+        List<OrderItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(readOrderItem(in));
+        }
+        DeliveryAddress address = readDeliveryAddress(in);
+        byte status = in.readByte();
+        return RiceOrder.builder()
+                .orderId(orderId)
+                .customer(customer)
+                .orderItems(items)
+                .deliveryAddress(address)
+                .status(status >= 0 ? STATUSES[status] : null)
+                .orderDate(readDateTime(in))
+                .deliveryTime(readDateTime(in))
+                .paymentMethod(readString(in))
+                .totalAmountMinor(in.readLong())
+                .totalAmountScale(in.readByte())
+                .build();
+    }
+    
+    private static void writeCustomer(DataOutput out, Customer customer) throws IOException {
+        out.writeBoolean(customer != null);
+        if (customer != null) {
+            writeString(out, customer.getCustomerId());
+            writeString(out, customer.getName());
+            writeString(out, customer.getEmail());
+            writeString(out, customer.getPhoneNumber());
+        }
+    }
+    
+    private static Customer readCustomer(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return Customer.builder()
+                .customerId(readString(in))
+                .name(readString(in))
+                .email(readString(in))
+                .phoneNumber(readString(in))
+                .build();
+    }
+    
+    private static void writeOrderItem(DataOutput out, OrderItem item) throws IOException {
+        out.writeBoolean(item != null);
+        if (item != null) {
+            writeString(out, item.getItemId());
+            writeString(out, item.getRiceType());
+            out.writeBoolean(item.getQuantity() != null);
+            if (item.getQuantity() != null) {
+                out.writeInt(item.getQuantity());
+            }
+            writeMoney(out, item.getPricePerUnitMinor(), item.getPricePerUnitScale());
+            writeString(out, item.getSpiceLevel());
+            writeString(out, item.getAdditionalNotes());
+        }
+    }
+    
+    private static OrderItem readOrderItem(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return OrderItem.builder()
+                .itemId(readString(in))
+                .riceType(readString(in))
+                .quantity(in.readBoolean() ? in.readInt() : null)
+                .pricePerUnitMinor(in.readLong())
+                .pricePerUnitScale(in.readByte())
+                .spiceLevel(readString(in))
+                .additionalNotes(readString(in))
+                .build();
+    }
+    
+    private static void writeDeliveryAddress(DataOutput out, DeliveryAddress address) throws IOException {
+        out.writeBoolean(address != null);
+        if (address != null) {
+            writeString(out, address.getStreet());
+            writeString(out, address.getCity());
+            writeString(out, address.getState());
+            writeString(out, address.getPostalCode());
+            writeString(out, address.getCountry());
+            writeString(out, address.getAdditionalInstructions());
+        }
+    }
+    
+    private static DeliveryAddress readDeliveryAddress(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return DeliveryAddress.builder()
+                .street(readString(in))
+                .city(readString(in))
+                .state(readString(in))
+                .postalCode(readString(in))
+                .country(readString(in))
+                .additionalInstructions(readString(in))
+                .build();
+    }
+    
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Write an amount as [long minor units][byte scale]; an absent amount is written
+     * as {@link Money#ABSENT}. Read back with readLong and readByte.
+     */
+    static void writeMoney(DataOutput out, long minor, int scale) throws IOException {
+        out.writeLong(minor);
+        out.writeByte(scale);
+    }
+    
+    static void writeDateTime(DataOutput out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(value.getNano());
+        }
+    }
+    
+    static LocalDateTime readDateTime(DataInput in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+}
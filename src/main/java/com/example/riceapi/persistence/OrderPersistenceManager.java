@@ -0,0 +1,152 @@
+package com.example.riceapi.persistence;
+
+import com.example.riceapi.repository.RiceOrderRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restores {@link RiceOrderRepository} from disk on startup and keeps it durable afterwards:
+ * every mutation goes to the write-ahead log, and a snapshot is taken periodically so
+ * that recovery only has to replay the log written since the last snapshot.
+ */
+@Slf4j
+public class OrderPersistenceManager {
+    
+    private final RiceOrderRepository repository;
+    private final PersistenceProperties properties;
+    private final Path directory;
+    private final Object snapshotLock = new Object();
+    private final Thread.Builder threads;
+    
+    private WriteAheadLog writeAheadLog;
+    private ScheduledExecutorService scheduler;
+    
+    public OrderPersistenceManager(RiceOrderRepository repository, PersistenceProperties properties) {
+        this(repository, properties, Thread.ofPlatform().daemon(true));
+    }
+    
+    /**
+     * @param repository The repository to restore and journal
+     * @param properties Persistence settings
+     * @param threads Builder for the warm-up and snapshot threads, e.g. virtual threads.
+     *                The log writer always runs on a platform thread since it blocks in fsync.
+     */
+    public OrderPersistenceManager(RiceOrderRepository repository, PersistenceProperties properties,
+                                   Thread.Builder threads) {
+        this.repository = repository;
+        this.properties = properties;
+        this.directory = Paths.get(properties.getDirectory());
+        this.threads = threads;
+    }
+    
+    /**
+     * Rebuild the repository from the latest snapshot plus the log written after it,
+     * then start logging new mutations
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        long started = System.nanoTime();
+        
+        // Persisted state replaces the demo seed data
+        repository.removeAllOrders();
+        long coveredSegment = -1;
+        if (OrderSnapshots.exists(directory)) {
+            // Orders are indexed now and decoded from the mapping on first access
+            MappedOrderSnapshot snapshot = MappedOrderSnapshot.open(directory);
+            repository.attachLazySource(snapshot);
+            coveredSegment = snapshot.getCoveredSegment();
+        }
+        long restored = repository.getOrderCount();
+        
+        long replayed = 0;
+        long lastSegment = coveredSegment;
+        List<Long> segments = WriteAheadLog.listSegments(directory);
+        for (long segment : segments) {
+            if (segment > coveredSegment) {
+                replayed += WriteAheadLog.replay(WriteAheadLog.segmentPath(directory, segment), repository);
+            }
+            lastSegment = Math.max(lastSegment, segment);
+        }
+        log.info("Recovered {} orders ({} from snapshot, {} log entries) in {} ms",
+                repository.getOrderCount(), restored, replayed,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        
+        writeAheadLog = new WriteAheadLog(directory, lastSegment + 1,
+                properties.isSyncWrites(), properties.getMaxBatchSize());
+        repository.setJournal(writeAheadLog);
+        
+        if (properties.isWarmUp()) {
+            threads.name("order-snapshot-warm-up").start(this::warmUp);
+        }
+        
+        long interval = properties.getSnapshotInterval().toMillis();
+        if (interval > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(threads.name("order-snapshot").factory());
+            scheduler.scheduleWithFixedDelay(this::snapshotQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Write a snapshot of the current store and delete the log segments it covers
+     * 
+     * @return Number of orders in the snapshot
+     */
+    public long snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long sealedSegment = writeAheadLog.rotate().join();
+            // Writes racing with the snapshot land in the new segment and are replayed on top of it
+            long written = OrderSnapshots.write(directory, sealedSegment, repository.streamAllOrders().iterator());
+            for (long segment : WriteAheadLog.listSegments(directory)) {
+                if (segment <= sealedSegment) {
+                    Files.deleteIfExists(WriteAheadLog.segmentPath(directory, segment));
+                }
+            }
+            return written;
+        }
+    }
+    
+    @PreDestroy
+    public void stop() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        repository.setJournal(null);
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+        }
+    }
+    
+    /**
+     * Decode every order still backed by the mapped snapshot so the mapping can be released
+     */
+    private void warmUp() {
+        long started = System.nanoTime();
+        long count = repository.streamAllOrders().count();
+        if (repository.detachLazySourceIfDrained()) {
+            log.info("Materialized {} orders from snapshot in {} ms", count,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        }
+    }
+    
+    private void snapshotQuietly() {
+        try {
+            long started = System.nanoTime();
+            long written = snapshot();
+            log.info("Wrote snapshot of {} orders in {} ms", written,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to write order snapshot", e);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.riceapi.persistence;
+
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.RiceOrder;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads and writes compact snapshots of the whole order store.
+ * 
+ * A snapshot records the number of the last log segment it covers; recovery
+ * loads the snapshot and then replays only the segments after that one.
+ * 
+ * Layout, designed to be memory-mapped by {@link MappedOrderSnapshot}:
+ * <pre>
+ * header  magic, window shift, covered segment, order count, index offset
+ * records [int length][encoded order] per order
+ * index   [marker 1][orderId][status][customerId][totalAmount minor][scale][orderDate][deliveryTime][record offset] per order
+ * </pre>
+ * The file is mapped in windows of 2^shift bytes. No record or index entry
+ * crosses a window boundary; the gap before a boundary is zero padding, which
+ * readers of the index recognize by its zero marker byte.
+ */
+final class OrderSnapshots {
+    
+    static final String FILE_NAME = "orders.snapshot";
+    static final int SNAPSHOT_MAGIC = 0x52534E32;  // "RSN2"
+    static final int HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES;
+    static final int DEFAULT_WINDOW_SHIFT = 30;  // 1 GiB mapping windows
+    private static final int BUFFER_SIZE = 1 << 16;
+    
+    private OrderSnapshots() {
+    }
+    
+    static long write(Path directory, long coveredSegment, Iterator<RiceOrder> orders) throws IOException {
+        return write(directory, coveredSegment, orders, DEFAULT_WINDOW_SHIFT);
+    }
+    
+    /**
+     * Write a snapshot next to the live one and atomically swap it in
+     * 
+     * @param directory Directory holding the snapshot
+     * @param coveredSegment Number of the last log segment reflected in the snapshot
+     * @param orders The orders to write
+     * @param windowShift log2 of the mapping window size
+     * @return Number of orders written
+     */
+    static long write(Path directory, long coveredSegment, Iterator<RiceOrder> orders, int windowShift)
+            throws IOException {
+        Path target = directory.resolve(FILE_NAME);
+        Path temp = directory.resolve(FILE_NAME + ".tmp");
+        
+        // Indexed fields are collected while writing the records and appended afterwards
+        List<RiceOrder> stubs = new ArrayList<>();
+        long[] offsets = new long[1024];
+        
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            WindowedOutput out = new WindowedOutput(Channels.newOutputStream(channel), windowShift);
+            out.write(new byte[HEADER_SIZE]);
+            
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+            DataOutputStream record = new DataOutputStream(bytes);
+            while (orders.hasNext()) {
+                RiceOrder order = orders.next();
+                bytes.reset();
+                record.writeInt(0);
+                OrderCodec.writeOrder(record, order);
+                byte[] encoded = bytes.toByteArray();
+                ByteBuffer.wrap(encoded).putInt(encoded.length - Integer.BYTES);
+                
+                int count = stubs.size();
+                if (count == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, count * 2);
+                }
+                offsets[count] = out.writeUnsplit(encoded);
+                stubs.add(indexStub(order));
+            }
+            
+            long indexOffset = out.position();
+            for (int i = 0; i < stubs.size(); i++) {
+                RiceOrder stub = stubs.get(i);
+                bytes.reset();
+                record.writeByte(1);
+                OrderCodec.writeString(record, stub.getOrderId());
+                record.writeByte(stub.getStatus() != null ? stub.getStatus().ordinal() : -1);
+                OrderCodec.writeString(record, stub.getCustomer() != null ? stub.getCustomer().getCustomerId() : null);
+                OrderCodec.writeMoney(record, stub.getTotalAmountMinor(), stub.getTotalAmountScale());
+                OrderCodec.writeDateTime(record, stub.getOrderDate());
+                OrderCodec.writeDateTime(record, stub.getDeliveryTime());
+                record.writeLong(offsets[i]);
+                out.writeUnsplit(bytes.toByteArray());
+            }
+            out.flush();
+            
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(SNAPSHOT_MAGIC)
+                    .putInt(windowShift)
+                    .putLong(coveredSegment)
+                    .putInt(stubs.size())
+                    .putLong(indexOffset)
+                    .flip();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return stubs.size();
+    }
+    
+    /**
+     * Reduce an order to the fields stored in the snapshot index, which are the
+     * fields the repository indexes and aggregates on
+     */
+    private static RiceOrder indexStub(RiceOrder order) {
+        return RiceOrder.builder()
+                .orderId(order.getOrderId())
+                .status(order.getStatus())
+                .customer(order.getCustomer() != null
+                        ? Customer.builder().customerId(order.getCustomer().getCustomerId()).build()
+                        : null)
+                .totalAmountMinor(order.getTotalAmountMinor())
+                .totalAmountScale(order.getTotalAmountScale())
+                .orderDate(order.getOrderDate())
+                .deliveryTime(order.getDeliveryTime())
+                .build();
+    }
+    
+    /**
+     * @return true if a snapshot has been written to the directory
+     */
+    static boolean exists(Path directory) {
+        return Files.exists(directory.resolve(FILE_NAME));
+    }
+    
+    /**
+     * Buffered output that pads to the next window boundary instead of letting a chunk straddle it
+     */
+    private static final class WindowedOutput {
+        private final OutputStream out;
+        private final long windowSize;
+        private long position;
+        
+        WindowedOutput(OutputStream out, int windowShift) {
+            this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+            this.windowSize = 1L << windowShift;
+        }
+        
+        void write(byte[] bytes) throws IOException {
+            out.write(bytes);
+            position += bytes.length;
+        }
+        
+        /**
+         * @return Offset at which the chunk was written
+         */
+        long writeUnsplit(byte[] chunk) throws IOException {
+            if (chunk.length > windowSize) {
+                throw new IOException("Snapshot entry of " + chunk.length + " bytes exceeds the mapping window");
+            }
+            long used = position & (windowSize - 1);
+            if (used + chunk.length > windowSize) {
+                write(new byte[(int) (windowSize - used)]);
+            }
+            long offset = position;
+            write(chunk);
+            return offset;
+        }
+        
+        long position() {
+            return position;
+        }
+        
+        void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
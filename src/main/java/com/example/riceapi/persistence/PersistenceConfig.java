@@ -0,0 +1,26 @@
+package com.example.riceapi.persistence;
+
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+@ConditionalOnProperty(prefix = "riceapi.persistence", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(PersistenceProperties.class)
+public class PersistenceConfig {
+    
+    @Bean
+    public OrderPersistenceManager orderPersistenceManager(RiceOrderRepository repository,
+                                                           PersistenceProperties properties,
+                                                           Environment environment) {
+        // Follow spring.threads.virtual.enabled for background work as well
+        Thread.Builder threads = Threading.VIRTUAL.isActive(environment)
+                ? Thread.ofVirtual()
+                : Thread.ofPlatform().daemon(true);
+        return new OrderPersistenceManager(repository, properties, threads);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.riceapi.persistence;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "riceapi.persistence")
+public class PersistenceProperties {
+    private boolean enabled = false;
+    private String directory = "data";
+    private boolean syncWrites = true;  // Acknowledge writes only after their group commit is fsynced
+    private int maxBatchSize = 1024;  // Maximum log entries per group commit
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+    private boolean warmUp = true;  // Decode mapped snapshot orders in the background after startup
+}
@@ -0,0 +1,436 @@
+package com.example.riceapi.persistence;
+
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.OrderJournal;
+import com.example.riceapi.repository.RiceOrderRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of repository mutations, split into numbered segment files.
+ * 
+ * Callers only encode and enqueue their entry. A single writer thread drains the
+ * queue, writes everything it found in one go and issues one fsync for the whole
+ * group, so concurrent writers share the cost of each fsync.
+ * 
+ * Every entry carries the full state of the order, so replaying an entry that is
+ * already reflected in a snapshot is harmless.
+ * 
+ * If a group fails to write, the segment is cut back to the end of the last
+ * synced group, so later entries never follow a torn one that replay would stop
+ * at. If even that fails, the log rejects every later entry.
+ */
+@Slf4j
+public class WriteAheadLog implements OrderJournal, Closeable {
+    
+    private static final int SEGMENT_MAGIC = 0x52574C32;  // "RWL2"
+    private static final byte OP_PUT = 1;
+    private static final byte OP_REMOVE = 2;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("wal-(\\d{20})\\.log");
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    
+    // Bound on the body of one entry, so a corrupt length cannot make replay allocate gigabytes
+    static final int MAX_ENTRY_SIZE = 16 << 20;
+    
+    private final Path directory;
+    private final SegmentOpener opener;
+    private final boolean syncWrites;
+    private final int maxBatchSize;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+    
+    // Set once a failed write could not be cut off; every later entry is rejected
+    private volatile IOException failure;
+    
+    // Only touched by the writer thread
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private FileChannel channel;
+    private long segment;
+    private long syncedPosition;  // End of the last group known to be on disk
+    
+    /**
+     * Open a new segment and start the writer thread
+     * 
+     * @param directory Directory holding the log segments
+     * @param segment Number of the first segment to write; must not exist yet
+     * @param syncWrites Whether returned futures wait for the fsync of their group
+     * @param maxBatchSize Maximum number of entries per group commit
+     */
+    public WriteAheadLog(Path directory, long segment, boolean syncWrites, int maxBatchSize) throws IOException {
+        this(directory, segment, syncWrites, maxBatchSize,
+                file -> FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+    }
+    
+    WriteAheadLog(Path directory, long segment, boolean syncWrites, int maxBatchSize, SegmentOpener opener)
+            throws IOException {
+        this.directory = directory;
+        this.opener = opener;
+        this.syncWrites = syncWrites;
+        this.maxBatchSize = maxBatchSize;
+        this.segment = segment;
+        this.channel = openSegment(segment);
+        this.writer = new Thread(this::runWriter, "order-wal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+    
+    @Override
+    public CompletableFuture<Void> logPut(RiceOrder order) {
+        return append(OP_PUT, out -> OrderCodec.writeOrder(out, order));
+    }
+    
+    @Override
+    public CompletableFuture<Void> logRemove(String orderId) {
+        return append(OP_REMOVE, out -> OrderCodec.writeString(out, orderId));
+    }
+    
+    /**
+     * Seal the current segment and continue in a new one. Entries enqueued before
+     * this call end up in the sealed segment, later ones in the new segment.
+     * 
+     * @return Future completed with the number of the sealed segment
+     */
+    public CompletableFuture<Long> rotate() {
+        Entry marker = new Entry(null);
+        if (!running) {
+            marker.done.completeExceptionally(closed());
+        } else if (failure != null) {
+            marker.done.completeExceptionally(failed());
+        } else {
+            enqueue(marker);
+        }
+        return marker.done.thenApply(ignored -> marker.sealedSegment);
+    }
+    
+    /**
+     * Stop accepting entries, write everything still queued and close the segment
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Fail anything that slipped in after the writer stopped instead of leaving callers waiting
+        List<Entry> leftovers = new ArrayList<>();
+        queue.drainTo(leftovers);
+        for (Entry entry : leftovers) {
+            entry.done.completeExceptionally(closed());
+        }
+        channel.close();
+    }
+    
+    private CompletableFuture<Void> append(byte op, PayloadWriter payload) {
+        if (!running) {
+            return CompletableFuture.failedFuture(closed());
+        }
+        if (failure != null) {
+            return CompletableFuture.failedFuture(failed());
+        }
+        Entry entry;
+        try {
+            entry = new Entry(frame(op, payload));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!enqueue(entry)) {
+            return entry.done;
+        }
+        return syncWrites ? entry.done : COMMITTED;
+    }
+    
+    /**
+     * Hand an entry to the writer. close() may have stopped the writer and drained
+     * the queue between the caller's running check and the add, so the entry is
+     * failed here if it is still queued once the log is no longer running.
+     * 
+     * @return false if the entry was failed because the log closed
+     */
+    private boolean enqueue(Entry entry) {
+        queue.add(entry);
+        if (!running && queue.remove(entry)) {
+            entry.done.completeExceptionally(closed());
+            return false;
+        }
+        return true;
+    }
+    
+    private void runWriter() {
+        List<Entry> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            Entry first;
+            try {
+                first = queue.poll(50, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, maxBatchSize - 1);
+            if (failure != null) {
+                // Enqueued before the failure was seen
+                for (Entry entry : batch) {
+                    entry.done.completeExceptionally(failed());
+                }
+            } else {
+                commit(batch);
+            }
+            batch.clear();
+        }
+    }
+    
+    private void commit(List<Entry> batch) {
+        int committed = 0;
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                Entry entry = batch.get(i);
+                if (entry.record == null) {
+                    // Rotation marker: make everything before it durable, then switch segments
+                    sync();
+                    completeAll(batch, committed, i);
+                    entry.sealedSegment = segment;
+                    channel.close();
+                    segment++;
+                    channel = openSegment(segment);
+                    entry.done.complete(null);
+                    committed = i + 1;
+                    continue;
+                }
+                if (entry.record.length > buffer.remaining()) {
+                    drain();
+                }
+                if (entry.record.length > buffer.capacity()) {
+                    ByteBuffer large = ByteBuffer.wrap(entry.record);
+                    while (large.hasRemaining()) {
+                        channel.write(large);
+                    }
+                } else {
+                    buffer.put(entry.record);
+                }
+            }
+            sync();
+            completeAll(batch, committed, batch.size());
+        } catch (IOException e) {
+            log.error("Failed to write order log segment {}", segment, e);
+            buffer.clear();
+            discardUnsynced(e);
+            for (int i = committed; i < batch.size(); i++) {
+                batch.get(i).done.completeExceptionally(e);
+            }
+        }
+    }
+    
+    /**
+     * Cut the segment back to the last synced group after a failed write, which
+     * may have left part of an entry behind
+     */
+    private void discardUnsynced(IOException cause) {
+        try {
+            channel.truncate(syncedPosition);
+            channel.position(syncedPosition);
+            channel.force(false);
+        } catch (IOException e) {
+            cause.addSuppressed(e);
+            failure = cause;
+            log.error("Failed to cut order log segment {} back to {}; rejecting further writes",
+                    segment, syncedPosition, e);
+        }
+    }
+    
+    private IllegalStateException failed() {
+        return new IllegalStateException("Write-ahead log failed", failure);
+    }
+    
+    private static IllegalStateException closed() {
+        return new IllegalStateException("Write-ahead log is closed");
+    }
+    
+    private void sync() throws IOException {
+        drain();
+        channel.force(false);
+        syncedPosition = channel.position();
+    }
+    
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    
+    private static void completeAll(List<Entry> batch, int from, int to) {
+        for (int i = from; i < to; i++) {
+            batch.get(i).done.complete(null);
+        }
+    }
+    
+    private FileChannel openSegment(long number) throws IOException {
+        FileChannel segmentChannel = opener.open(segmentPath(directory, number));
+        ByteBuffer header = ByteBuffer.allocate(Integer.BYTES).putInt(SEGMENT_MAGIC).flip();
+        while (header.hasRemaining()) {
+            segmentChannel.write(header);
+        }
+        syncedPosition = segmentChannel.position();
+        return segmentChannel;
+    }
+    
+    /**
+     * Frame an entry as [length][crc32c][op][payload]
+     */
+    private static byte[] frame(byte op, PayloadWriter payload) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0);
+        out.writeInt(0);
+        out.writeByte(op);
+        payload.write(out);
+        out.flush();
+        
+        byte[] record = bytes.toByteArray();
+        int bodyLength = record.length - HEADER_SIZE;
+        if (bodyLength > MAX_ENTRY_SIZE) {
+            throw new IOException("Log entry of " + bodyLength + " bytes exceeds " + MAX_ENTRY_SIZE);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(record, HEADER_SIZE, bodyLength);
+        ByteBuffer.wrap(record).putInt(bodyLength).putInt((int) crc.getValue());
+        return record;
+    }
+    
+    /**
+     * Apply every intact entry of a segment to the repository. Reading stops at the
+     * first incomplete or corrupt entry, which is what a crash mid-write leaves behind.
+     * A length beyond the rest of the segment or {@link #MAX_ENTRY_SIZE} counts as corrupt.
+     * 
+     * @param file The segment to replay
+     * @param repository The repository to apply the entries to
+     * @return Number of entries applied
+     */
+    public static long replay(Path file, RiceOrderRepository repository) throws IOException {
+        long applied = 0;
+        long remaining = Files.size(file) - Integer.BYTES;
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            DataInputStream in = new DataInputStream(stream);
+            if (in.readInt() != SEGMENT_MAGIC) {
+                throw new IOException("Not an order log segment: " + file);
+            }
+            CRC32C crc = new CRC32C();
+            while (true) {
+                int length;
+                int checksum;
+                byte[] body;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    remaining -= HEADER_SIZE;
+                    if (length <= 0) {
+                        break;
+                    }
+                    if (length > remaining || length > MAX_ENTRY_SIZE) {
+                        log.warn("Stopping replay of {} at entry {} with invalid length {}", file, applied, length);
+                        break;
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                    remaining -= length;
+                } catch (EOFException e) {
+                    break;
+                }
+                crc.reset();
+                crc.update(body);
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("Stopping replay of {} at corrupt entry {}", file, applied);
+                    break;
+                }
+                
+                DataInputStream entry = new DataInputStream(new ByteArrayInputStream(body));
+                byte op = entry.readByte();
+                if (op == OP_PUT) {
+                    repository.restoreOrder(OrderCodec.readOrder(entry));
+                } else if (op == OP_REMOVE) {
+                    repository.removeOrder(OrderCodec.readString(entry));
+                } else {
+                    throw new IOException("Unknown log operation " + op + " in " + file);
+                }
+                applied++;
+            }
+        }
+        return applied;
+    }
+    
+    /**
+     * List the numbers of all segments in a directory, in ascending order
+     */
+    public static List<Long> listSegments(Path directory) throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        segments.sort(null);
+        return segments;
+    }
+    
+    public static Path segmentPath(Path directory, long number) {
+        return directory.resolve(String.format("wal-%020d.log", number));
+    }
+    
+    /**
+     * Creates the file of a new segment, which must not exist yet
+     */
+    @FunctionalInterface
+    interface SegmentOpener {
+        FileChannel open(Path file) throws IOException;
+    }
+    
+    @FunctionalInterface
+    private interface PayloadWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+    
+    private static final class Entry {
+        final byte[] record;  // null for a rotation marker
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        long sealedSegment;
+        
+        Entry(byte[] record) {
+            this.record = record;
+        }
+    }
+}
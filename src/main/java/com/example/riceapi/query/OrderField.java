@@ -0,0 +1,76 @@
+package com.example.riceapi.query;
+
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+
+import java.util.function.Function;
+
+/**
+ * Order fields a filter can test, ordered by how cheap a test is: fields of the
+ * order itself first, then the delivery address, then fields that need a walk
+ * over the order items.
+ */
+enum OrderField {
+    STATUS("status", Kind.STATUS, null),
+    TOTAL_AMOUNT("totalAmount", Kind.AMOUNT, null),
+    ORDER_DATE("orderDate", Kind.TIME, null),
+    DELIVERY_TIME("deliveryTime", Kind.TIME, null),
+    CUSTOMER_ID("customerId", Kind.ID,
+            order -> order.getCustomer() != null ? order.getCustomer().getCustomerId() : null),
+    PAYMENT_METHOD("paymentMethod", Kind.TEXT, RiceOrder::getPaymentMethod),
+    CITY("city", Kind.TEXT,
+            order -> order.getDeliveryAddress() != null ? order.getDeliveryAddress().getCity() : null),
+    RICE_TYPE("riceType", Kind.ITEM_TEXT, null),
+    SPICE_LEVEL("spiceLevel", Kind.ITEM_TEXT, null);
+    
+    enum Kind {
+        STATUS,
+        AMOUNT,
+        TIME,
+        ID,  // Compared exactly, like the customer index
+        TEXT,  // Compared ignoring case
+        ITEM_TEXT  // Compared ignoring case; matches if any order item matches
+    }
+    
+    private final String name;
+    private final Kind kind;
+    private final Function<RiceOrder, String> text;
+    
+    OrderField(String name, Kind kind, Function<RiceOrder, String> text) {
+        this.name = name;
+        this.kind = kind;
+        this.text = text;
+    }
+    
+    String fieldName() {
+        return name;
+    }
+    
+    Kind kind() {
+        return kind;
+    }
+    
+    String textOf(RiceOrder order) {
+        return text.apply(order);
+    }
+    
+    String textOf(OrderItem item) {
+        return this == RICE_TYPE ? item.getRiceType() : item.getSpiceLevel();
+    }
+    
+    /**
+     * @param name A field name as written in filters, e.g. paymentMethod; amount is accepted for totalAmount
+     * @return The field, or null if there is none with that name
+     */
+    static OrderField byName(String name) {
+        if (name.equalsIgnoreCase("amount")) {
+            return TOTAL_AMOUNT;
+        }
+        for (OrderField field : values()) {
+            if (field.name.equalsIgnoreCase(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
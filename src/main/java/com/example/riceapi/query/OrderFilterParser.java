@@ -0,0 +1,213 @@
+package com.example.riceapi.query;
+
+import com.example.riceapi.modal.Money;
+import com.example.riceapi.modal.RiceOrder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recursive-descent parser for the filter syntax described on {@link OrderQuery}:
+ * 
+ * <pre>
+ * filter    = [ condition { "and" condition } ]
+ * condition = field operator value | field "in" "(" value { "," value } ")"
+ * operator  = "=" | "!=" | "&lt;" | "&lt;=" | "&gt;" | "&gt;="
+ * value     = word | "'" text "'" | '"' text '"'
+ * </pre>
+ * 
+ * Keywords and field names are case-insensitive. Inside quotes the quote
+ * character is written twice.
+ */
+final class OrderFilterParser {
+    
+    private final String input;
+    private int position;
+    
+    OrderFilterParser(String input) {
+        this.input = input;
+    }
+    
+    /**
+     * @return The conditions in the order written
+     * @throws IllegalArgumentException if the filter is malformed
+     */
+    List<OrderQuery.Condition> parse() {
+        List<OrderQuery.Condition> conditions = new ArrayList<>();
+        skipSpaces();
+        if (position == input.length()) {
+            return conditions;
+        }
+        do {
+            conditions.add(condition());
+        } while (keyword("and"));
+        skipSpaces();
+        if (position < input.length()) {
+            throw error("Expected and");
+        }
+        return conditions;
+    }
+    
+    private OrderQuery.Condition condition() {
+        skipSpaces();
+        int start = position;
+        String name = word("a field");
+        OrderField field = OrderField.byName(name);
+        if (field == null) {
+            position = start;
+            throw error("Unknown field " + name);
+        }
+        OrderQuery.Operator operator = operator();
+        if (!supports(field, operator)) {
+            throw new IllegalArgumentException(
+                    "Operator " + operator.symbol + " is not supported for " + field.fieldName());
+        }
+        
+        List<Object> values = new ArrayList<>();
+        if (operator == OrderQuery.Operator.IN) {
+            expect('(');
+            do {
+                values.add(convert(field, value()));
+            } while (accept(','));
+            expect(')');
+        } else {
+            values.add(convert(field, value()));
+        }
+        return new OrderQuery.Condition(field, operator, values);
+    }
+    
+    private OrderQuery.Operator operator() {
+        skipSpaces();
+        if (keyword("in")) {
+            return OrderQuery.Operator.IN;
+        }
+        // Two-character operators first, so <= is not read as <
+        for (String symbol : new String[] {"!=", "<=", ">=", "=", "<", ">"}) {
+            if (input.startsWith(symbol, position)) {
+                position += symbol.length();
+                for (OrderQuery.Operator operator : OrderQuery.Operator.values()) {
+                    if (operator.symbol.equals(symbol)) {
+                        return operator;
+                    }
+                }
+            }
+        }
+        throw error("Expected an operator");
+    }
+    
+    private String value() {
+        skipSpaces();
+        if (position < input.length() && (input.charAt(position) == '\'' || input.charAt(position) == '"')) {
+            char quote = input.charAt(position);
+            StringBuilder text = new StringBuilder();
+            int index = position + 1;
+            while (index < input.length()) {
+                char c = input.charAt(index);
+                if (c == quote) {
+                    if (index + 1 < input.length() && input.charAt(index + 1) == quote) {
+                        text.append(quote);
+                        index += 2;
+                        continue;
+                    }
+                    position = index + 1;
+                    return text.toString();
+                }
+                text.append(c);
+                index++;
+            }
+            throw error("Unterminated quoted value");
+        }
+        return word("a value");
+    }
+    
+    private static boolean supports(OrderField field, OrderQuery.Operator operator) {
+        return switch (field.kind()) {
+            case AMOUNT, TIME -> operator != OrderQuery.Operator.IN;
+            default -> operator == OrderQuery.Operator.EQ || operator == OrderQuery.Operator.NE
+                    || operator == OrderQuery.Operator.IN;
+        };
+    }
+    
+    private static Object convert(OrderField field, String value) {
+        switch (field.kind()) {
+            case STATUS:
+                try {
+                    return RiceOrder.OrderStatus.valueOf(value.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown status: " + value);
+                }
+            case AMOUNT:
+                try {
+                    return Money.toMinor(new BigDecimal(value));
+                } catch (NumberFormatException | ArithmeticException e) {
+                    throw new IllegalArgumentException("Invalid amount: " + value);
+                }
+            case TIME:
+                try {
+                    return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException("Invalid date-time: " + value);
+                }
+            default:
+                return value;
+        }
+    }
+    
+    // Letters, digits and the punctuation of dates, amounts and IDs
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '.' || c == ':' || c == '+';
+    }
+    
+    private String word(String expected) {
+        skipSpaces();
+        int start = position;
+        while (position < input.length() && isWordChar(input.charAt(position))) {
+            position++;
+        }
+        if (position == start) {
+            throw error("Expected " + expected);
+        }
+        return input.substring(start, position);
+    }
+    
+    // Consumes the keyword if it comes next as a whole word
+    private boolean keyword(String keyword) {
+        skipSpaces();
+        int end = position + keyword.length();
+        if (input.regionMatches(true, position, keyword, 0, keyword.length())
+                && (end == input.length() || !isWordChar(input.charAt(end)))) {
+            position = end;
+            return true;
+        }
+        return false;
+    }
+    
+    private boolean accept(char c) {
+        skipSpaces();
+        if (position < input.length() && input.charAt(position) == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+    
+    private void expect(char c) {
+        if (!accept(c)) {
+            throw error("Expected " + c);
+        }
+    }
+    
+    private void skipSpaces() {
+        while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+    
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + (position + 1) + " of the filter");
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.riceapi.query;
+
+import com.example.riceapi.modal.Money;
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A filter over orders, parsed and compiled once and then tested against any
+ * number of orders. Filters are conditions joined by and, e.g.
+ * 
+ * <pre>
+ * status in (PENDING, CONFIRMED) and city = Jakarta and paymentMethod = 'Credit Card'
+ *     and riceType = 'Nasi Goreng Ayam' and totalAmount &gt;= 50000 and orderDate &gt;= 2024-03-01
+ * </pre>
+ * 
+ * Fields: status, customerId, paymentMethod, city, riceType and spiceLevel take
+ * =, != and in; totalAmount (or amount), orderDate and deliveryTime take =, !=,
+ * &lt;, &lt;=, &gt; and &gt;=. Text is compared ignoring case, except customerId.
+ * riceType and spiceLevel match if any item of the order matches. != also
+ * matches orders without the field. Values with spaces are quoted with ' or ".
+ * Dates are ISO-8601 local date-times, or dates meaning the start of the day.
+ * 
+ * The compiled conditions run cheapest first, so most orders are rejected
+ * before the delivery address or the items are looked at. The conditions that
+ * an index can answer are also exposed, for the store to pick where to start.
+ */
+public final class OrderQuery {
+    
+    private final String expression;
+    private final List<Predicate<RiceOrder>> chain;
+    
+    // Index hints; null when the filter does not constrain the field
+    private final Set<RiceOrder.OrderStatus> statuses;
+    private final String customerId;
+    private final LocalDateTime orderDateFrom;
+    private final LocalDateTime orderDateTo;
+    private final LocalDateTime deliveryTimeFrom;
+    private final LocalDateTime deliveryTimeTo;
+    
+    private OrderQuery(String expression, List<Condition> conditions) {
+        this.expression = expression;
+        List<Condition> byCost = new ArrayList<>(conditions);
+        byCost.sort(Comparator.comparing(condition -> condition.field));
+        List<Predicate<RiceOrder>> predicates = new ArrayList<>(byCost.size());
+        
+        Set<RiceOrder.OrderStatus> statusHint = null;
+        String customerHint = null;
+        Range orderDates = new Range();
+        Range deliveryTimes = new Range();
+        for (Condition condition : byCost) {
+            predicates.add(condition.compile());
+            boolean equality = condition.operator == Operator.EQ || condition.operator == Operator.IN;
+            switch (condition.field) {
+                case STATUS -> {
+                    if (equality) {
+                        Set<RiceOrder.OrderStatus> allowed = condition.statuses();
+                        if (statusHint == null) {
+                            statusHint = allowed;
+                        } else {
+                            statusHint.retainAll(allowed);
+                        }
+                    }
+                }
+                case CUSTOMER_ID -> {
+                    if (equality && condition.values.size() == 1 && customerHint == null) {
+                        customerHint = (String) condition.values.get(0);
+                    }
+                }
+                case ORDER_DATE -> orderDates.narrow(condition);
+                case DELIVERY_TIME -> deliveryTimes.narrow(condition);
+                default -> {
+                }
+            }
+        }
+        this.chain = List.copyOf(predicates);
+        this.statuses = statusHint != null ? Collections.unmodifiableSet(statusHint) : null;
+        this.customerId = customerHint;
+        this.orderDateFrom = orderDates.from;
+        this.orderDateTo = orderDates.to;
+        this.deliveryTimeFrom = deliveryTimes.from;
+        this.deliveryTimeTo = deliveryTimes.to;
+    }
+    
+    /**
+     * Parse and compile a filter
+     * 
+     * @param expression The filter, or null or blank to match every order
+     * @return The compiled filter
+     * @throws IllegalArgumentException if the filter is malformed, naming the position or value at fault
+     */
+    public static OrderQuery parse(String expression) {
+        String source = expression != null ? expression.trim() : "";
+        return new OrderQuery(source, new OrderFilterParser(source).parse());
+    }
+    
+    /**
+     * @param order The order to test
+     * @return true if the order meets every condition
+     */
+    public boolean matches(RiceOrder order) {
+        for (int i = 0; i < chain.size(); i++) {
+            if (!chain.get(i).test(order)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * @return The filter this query was parsed from, trimmed; parsing it again gives an equivalent query
+     */
+    public String getExpression() {
+        return expression;
+    }
+    
+    /**
+     * @return Statuses a matching order must have, or null if any status matches
+     */
+    public Set<RiceOrder.OrderStatus> getStatuses() {
+        return statuses;
+    }
+    
+    /**
+     * @return Customer ID a matching order must have, or null if any customer matches
+     */
+    public String getCustomerId() {
+        return customerId;
+    }
+    
+    /**
+     * @return Inclusive lower bound on the order date of matching orders, or null
+     */
+    public LocalDateTime getOrderDateFrom() {
+        return orderDateFrom;
+    }
+    
+    /**
+     * @return Exclusive upper bound on the order date of matching orders, or null
+     */
+    public LocalDateTime getOrderDateTo() {
+        return orderDateTo;
+    }
+    
+    /**
+     * @return Inclusive lower bound on the delivery time of matching orders, or null
+     */
+    public LocalDateTime getDeliveryTimeFrom() {
+        return deliveryTimeFrom;
+    }
+    
+    /**
+     * @return Exclusive upper bound on the delivery time of matching orders, or null
+     */
+    public LocalDateTime getDeliveryTimeTo() {
+        return deliveryTimeTo;
+    }
+    
+    @Override
+    public String toString() {
+        return expression;
+    }
+    
+    enum Operator {
+        EQ("="),
+        NE("!="),
+        LT("<"),
+        LE("<="),
+        GT(">"),
+        GE(">="),
+        IN("in");
+        
+        final String symbol;
+        
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+        
+        // Whether a value comparing to the operand as given is accepted
+        boolean accepts(int comparison) {
+            return switch (this) {
+                case EQ, IN -> comparison == 0;
+                case NE -> comparison != 0;
+                case LT -> comparison < 0;
+                case LE -> comparison <= 0;
+                case GT -> comparison > 0;
+                case GE -> comparison >= 0;
+            };
+        }
+    }
+    
+    /**
+     * One parsed condition. Values are already converted for the field: order
+     * statuses, amounts in minor units, date-times or strings.
+     */
+    static final class Condition {
+        
+        final OrderField field;
+        final Operator operator;
+        final List<Object> values;
+        
+        Condition(OrderField field, Operator operator, List<Object> values) {
+            this.field = field;
+            this.operator = operator;
+            this.values = List.copyOf(values);
+        }
+        
+        Predicate<RiceOrder> compile() {
+            boolean negated = operator == Operator.NE;
+            return switch (field.kind()) {
+                case STATUS -> {
+                    Set<RiceOrder.OrderStatus> allowed = statuses();
+                    yield order -> order.getStatus() != null ? allowed.contains(order.getStatus()) != negated : negated;
+                }
+                case AMOUNT -> {
+                    long amount = (Long) values.get(0);
+                    yield order -> order.getTotalAmountMinor() != Money.ABSENT
+                            ? operator.accepts(Long.compare(order.getTotalAmountMinor(), amount))
+                            : negated;
+                }
+                case TIME -> {
+                    LocalDateTime time = (LocalDateTime) values.get(0);
+                    Function<RiceOrder, LocalDateTime> timeOf = field == OrderField.ORDER_DATE
+                            ? RiceOrder::getOrderDate : RiceOrder::getDeliveryTime;
+                    yield order -> {
+                        LocalDateTime value = timeOf.apply(order);
+                        return value != null ? operator.accepts(value.compareTo(time)) : negated;
+                    };
+                }
+                case ID -> {
+                    Set<String> allowed = Set.copyOf(strings());
+                    yield order -> {
+                        String value = field.textOf(order);
+                        return value != null ? allowed.contains(value) != negated : negated;
+                    };
+                }
+                case TEXT -> {
+                    Set<String> allowed = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+                    allowed.addAll(strings());
+                    yield order -> {
+                        String value = field.textOf(order);
+                        return value != null ? allowed.contains(value) != negated : negated;
+                    };
+                }
+                case ITEM_TEXT -> {
+                    Set<String> allowed = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+                    allowed.addAll(strings());
+                    yield order -> anyItemMatches(order, allowed) != negated;
+                }
+            };
+        }
+        
+        private boolean anyItemMatches(RiceOrder order, Set<String> allowed) {
+            if (order.getOrderItems() == null) {
+                return false;
+            }
+            for (OrderItem item : order.getOrderItems()) {
+                String value = item != null ? field.textOf(item) : null;
+                if (value != null && allowed.contains(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        Set<RiceOrder.OrderStatus> statuses() {
+            Set<RiceOrder.OrderStatus> result = EnumSet.noneOf(RiceOrder.OrderStatus.class);
+            for (Object value : values) {
+                result.add((RiceOrder.OrderStatus) value);
+            }
+            return result;
+        }
+        
+        private List<String> strings() {
+            List<String> result = new ArrayList<>(values.size());
+            for (Object value : values) {
+                result.add((String) value);
+            }
+            return result;
+        }
+    }
+    
+    /**
+     * Time range implied by the conditions on one field, [from, to)
+     */
+    private static final class Range {
+        
+        LocalDateTime from;
+        LocalDateTime to;
+        
+        void narrow(Condition condition) {
+            LocalDateTime time = (LocalDateTime) condition.values.get(0);
+            switch (condition.operator) {
+                case EQ -> {
+                    raiseFrom(time);
+                    lowerTo(time.plusNanos(1));
+                }
+                case GT, GE -> raiseFrom(time);
+                case LT -> lowerTo(time);
+                case LE -> lowerTo(time.plusNanos(1));
+                default -> {
+                }
+            }
+        }
+        
+        private void raiseFrom(LocalDateTime time) {
+            if (from == null || time.isAfter(from)) {
+                from = time;
+            }
+        }
+        
+        private void lowerTo(LocalDateTime time) {
+            if (to == null || time.isBefore(to)) {
+                to = time;
+            }
+        }
+    }
+}
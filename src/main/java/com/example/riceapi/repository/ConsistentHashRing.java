@@ -0,0 +1,80 @@
+package com.example.riceapi.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Maps keys to nodes on a hash ring. Each node is placed at several points
+ * (virtual nodes) derived from its ID, and a key belongs to the first point
+ * at or after the key's hash. Adding or removing a node therefore only moves
+ * the keys next to its points, about 1/N of them.
+ * 
+ * Positions depend only on node IDs and keys, never on JVM hash codes, so
+ * every process that builds a ring from the same node IDs routes alike.
+ * 
+ * @param <N> Node type
+ */
+public final class ConsistentHashRing<N> {
+    
+    private final NavigableMap<Long, N> ring = new TreeMap<>();
+    private final Map<String, N> nodes;
+    
+    /**
+     * @param nodes Nodes by ID, at least one
+     * @param virtualNodes Points placed on the ring per node
+     * @throws IllegalArgumentException if there are no nodes or virtualNodes is not positive
+     */
+    public ConsistentHashRing(Map<String, ? extends N> nodes, int virtualNodes) {
+        if (nodes == null || nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one node is required");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes must be positive");
+        }
+        this.nodes = Collections.unmodifiableMap(new LinkedHashMap<>(nodes));
+        for (Map.Entry<String, ? extends N> node : nodes.entrySet()) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // On the rare collision the first node keeps the point
+                ring.putIfAbsent(hash(node.getKey() + "#" + i), node.getValue());
+            }
+        }
+    }
+    
+    /**
+     * @param key The key to place
+     * @return The node owning the key
+     */
+    public N nodeFor(String key) {
+        Map.Entry<Long, N> owner = ring.ceilingEntry(hash(key));
+        return owner != null ? owner.getValue() : ring.firstEntry().getValue();
+    }
+    
+    /**
+     * @return All nodes by ID, in the order they were given
+     */
+    public Map<String, N> getNodes() {
+        return nodes;
+    }
+    
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mix so
+     * that similar keys such as ORD001 and ORD002 land far apart
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
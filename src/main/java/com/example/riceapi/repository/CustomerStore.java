@@ -0,0 +1,207 @@
+package com.example.riceapi.repository;
+
+import com.example.riceapi.modal.Customer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The customers of the orders in a {@link RiceOrderRepository}, keyed by customer
+ * ID. Each customer is held once together with the IDs of its orders, and orders
+ * written with the same customer details share that one Customer instance instead
+ * of holding a copy each.
+ * 
+ * A write that carries customer details upserts them, so the customer has the
+ * details of the latest order written for it. Orders are snapshots and keep the
+ * details they were written with. A customer is dropped with its last order,
+ * unless its details were put for orders another store holds.
+ * 
+ * A customer only known from index stubs of lazily loaded orders is a placeholder
+ * until one of its orders is decoded, and is not handed out before that.
+ * 
+ * An entry is only changed inside customers.compute* for its customer ID.
+ */
+final class CustomerStore {
+    
+    private final Map<String, Entry> customers = new ConcurrentHashMap<>();
+    
+    /**
+     * Attach an order to its customer
+     * 
+     * @param orderId The ID of the order
+     * @param customer The customer of the order, may be null
+     * @param upsert Whether the customer details come from the write and replace the stored ones
+     * @param version The version of the written order
+     * @return The shared Customer if it has the same details, otherwise customer itself
+     */
+    Customer attach(String orderId, Customer customer, boolean upsert, long version) {
+        if (customer == null || customer.getCustomerId() == null) {
+            return customer;
+        }
+        Customer[] shared = new Customer[1];
+        customers.compute(customer.getCustomerId(), (id, entry) -> {
+            Entry current = entry != null ? entry : new Entry(customer, version);
+            if (upsert) {
+                current.customer = current.customer.equals(customer) ? current.customer : customer;
+                current.version = version;
+                current.placeholder = false;
+            }
+            current.orderIds.add(orderId);
+            shared[0] = current.customer.equals(customer) ? current.customer : customer;
+            return current;
+        });
+        return shared[0];
+    }
+    
+    /**
+     * Attach the index stub of a lazily loaded order to its customer. A customer
+     * not known yet is held as a placeholder with only its ID.
+     * 
+     * @param orderId The ID of the order
+     * @param customerId The customer ID of the order, may be null
+     */
+    void attachPlaceholder(String orderId, String customerId) {
+        if (customerId == null) {
+            return;
+        }
+        customers.compute(customerId, (id, entry) -> {
+            Entry current = entry;
+            if (current == null) {
+                current = new Entry(Customer.builder().customerId(customerId).build(), 0);
+                current.placeholder = true;
+            }
+            current.orderIds.add(orderId);
+            return current;
+        });
+    }
+    
+    /**
+     * Share the customer of an order decoded from persisted state. The order is
+     * attached already, through its index stub; if its customer is still a
+     * placeholder, the decoded details replace it.
+     * 
+     * @param customer The customer of the decoded order, may be null
+     * @param version The version the decoded order gets
+     * @return The shared Customer if it has the same details, otherwise customer itself
+     */
+    Customer adopt(Customer customer, long version) {
+        if (customer == null || customer.getCustomerId() == null) {
+            return customer;
+        }
+        Customer[] shared = new Customer[1];
+        customers.computeIfPresent(customer.getCustomerId(), (id, entry) -> {
+            if (entry.placeholder) {
+                entry.customer = customer;
+                entry.version = version;
+                entry.placeholder = false;
+            }
+            shared[0] = entry.customer.equals(customer) ? entry.customer : customer;
+            return entry;
+        });
+        return shared[0] != null ? shared[0] : customer;
+    }
+    
+    /**
+     * Store the details of a customer whose orders another store holds. They replace
+     * the stored ones like those of an order write, and the customer is kept when it
+     * has no orders here.
+     * 
+     * @param customer The customer details
+     * @param version The version of the write
+     */
+    void put(Customer customer, long version) {
+        customers.compute(customer.getCustomerId(), (id, entry) -> {
+            Entry current = entry != null ? entry : new Entry(customer, version);
+            current.customer = current.customer.equals(customer) ? current.customer : customer;
+            current.version = version;
+            current.placeholder = false;
+            current.kept = true;
+            return current;
+        });
+    }
+    
+    /**
+     * Undo the customer details of a rolled back write. If they are still the stored
+     * ones, the details of the order restored in its place replace them; details a
+     * later write stored in between are kept.
+     * 
+     * @param customer The customer of the restored order, may be null
+     * @param version The version of the restored order
+     * @param rolledBackVersion The version of the rolled back write
+     */
+    void revert(Customer customer, long version, long rolledBackVersion) {
+        if (customer == null || customer.getCustomerId() == null) {
+            return;
+        }
+        customers.computeIfPresent(customer.getCustomerId(), (id, entry) -> {
+            if (entry.version == rolledBackVersion) {
+                entry.customer = customer;
+                entry.version = version;
+            }
+            return entry;
+        });
+    }
+    
+    /**
+     * Detach an order from its customer, dropping the customer with its last order
+     * 
+     * @param orderId The ID of the order
+     * @param customerId The customer ID of the order, may be null
+     */
+    void detach(String orderId, String customerId) {
+        if (customerId == null) {
+            return;
+        }
+        customers.computeIfPresent(customerId, (id, entry) -> {
+            entry.orderIds.remove(orderId);
+            return entry.orderIds.isEmpty() && !entry.kept ? null : entry;
+        });
+    }
+    
+    /**
+     * @param customerId The customer ID
+     * @return The customer's latest details with the version of the order they came from,
+     *         or null if no order references it or it is still a placeholder
+     */
+    OrderStore.CustomerRecord get(String customerId) {
+        Entry entry = customers.get(customerId);
+        return entry != null && !entry.placeholder ? entry.record() : null;
+    }
+    
+    /**
+     * @param customerId The customer ID
+     * @return Weakly consistent view of the IDs of the customer's orders
+     */
+    ConcurrentHashMap.KeySetView<String, Boolean> orderIdsOf(String customerId) {
+        Entry entry = customers.get(customerId);
+        return entry != null ? entry.orderIds : ConcurrentHashMap.newKeySet();
+    }
+    
+    /**
+     * @return Number of customers
+     */
+    int size() {
+        return customers.size();
+    }
+    
+    private static final class Entry {
+        
+        volatile Customer customer;
+        volatile long version;
+        // Set while the customer is only known from index stubs
+        volatile boolean placeholder;
+        // Set once details were put for orders another store holds
+        volatile boolean kept;
+        final ConcurrentHashMap.KeySetView<String, Boolean> orderIds = ConcurrentHashMap.newKeySet();
+        
+        Entry(Customer customer, long version) {
+            this.customer = customer;
+            this.version = version;
+        }
+        
+        // Read outside compute, so the pair may straddle a concurrent upsert
+        OrderStore.CustomerRecord record() {
+            return new OrderStore.CustomerRecord(customer, version);
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.example.riceapi.repository;
+
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.dto.CustomerRecordDto;
+import com.example.riceapi.dto.InsertResultDto;
+import com.example.riceapi.dto.RiceOrderRequest;
+import com.example.riceapi.dto.StatusAggregate;
+import com.example.riceapi.dto.VersionedOrderDto;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.query.OrderQuery;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An {@link OrderStore} on another node, reached through that node's shard API
+ * (ShardController). The shard API answers from the node's own
+ * {@link RiceOrderRepository}, so a {@link ShardedOrderStore} can hold this
+ * store as one of its shards without calls going round in circles.
+ * 
+ * Each call is one HTTP request, except that {@link #streamAllOrders()} fetches
+ * a page at a time as the stream is consumed. A 400 answer is thrown as an
+ * IllegalArgumentException and a 412 as an {@link OrderVersionConflictException},
+ * like the repository would; a node that cannot be reached or answers otherwise
+ * fails the call with a RestClientException or IllegalStateException.
+ * 
+ * Change listeners hear of the writes made through this client. Writes other
+ * nodes send to the same repository are not seen here.
+ */
+public class HttpOrderStore implements OrderStore {
+    
+    static final String API_PATH = "/api/v1/shard";
+    
+    // Orders per request when streaming all orders
+    static final int PAGE_SIZE = 1000;
+    
+    private static final ParameterizedTypeReference<ApiResponse<VersionedOrderDto>> ORDER =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiResponse<List<VersionedOrderDto>>> ORDERS =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiResponse<List<InsertResultDto>>> INSERT_RESULTS =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiResponse<CustomerRecordDto>> CUSTOMER =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiResponse<StatusAggregate>> STATUS_TOTALS =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiResponse<Map<RiceOrder.OrderStatus, StatusAggregate>>> ALL_STATUS_TOTALS =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiResponse<Integer>> COUNT =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiResponse<BigDecimal>> AMOUNT =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiResponse<Long>> VERSION =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiResponse<Boolean>> FLAG =
+            new ParameterizedTypeReference<>() {};
+    
+    private final RestClient client;
+    private final RiceOrderMapper mapper;
+    private final List<OrderChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    
+    /**
+     * @param client Client whose base URL is the other node's, e.g. http://node-b:8080
+     * @param mapper Converts orders to and from the shard API's DTOs
+     */
+    public HttpOrderStore(RestClient client, RiceOrderMapper mapper) {
+        this.client = client;
+        this.mapper = mapper;
+    }
+    
+    @Override
+    public List<RiceOrder> getAllOrders() {
+        return streamAllOrders().collect(Collectors.toList());
+    }
+    
+    /**
+     * Stream all orders ordered by order ID, fetching the next page once the
+     * previous one is consumed
+     */
+    @Override
+    public Stream<RiceOrder> streamAllOrders() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                new PageIterator(), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+    
+    @Override
+    public List<RiceOrder> getOrdersPage(String afterOrderId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return orders(get("/orders", variables("limit", limit, "after", afterOrderId)));
+    }
+    
+    @Override
+    public List<RiceOrder> getOrdersByStatus(RiceOrder.OrderStatus status) {
+        return orders(get("/query/status", variables("status", status)));
+    }
+    
+    @Override
+    public Optional<RiceOrder> getOrderById(String orderId) {
+        if (orderId == null || orderId.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        return call(get("/orders/{orderId}", variables("orderId", orderId)), ORDER).map(mapper::toEntity);
+    }
+    
+    @Override
+    public List<RiceOrder> getOrdersByCustomerId(String customerId) {
+        if (customerId == null) {
+            return new ArrayList<>();
+        }
+        return orders(get("/customers/{customerId}/orders", variables("customerId", customerId)));
+    }
+    
+    @Override
+    public Optional<CustomerRecord> getCustomerRecord(String customerId) {
+        if (customerId == null) {
+            return Optional.empty();
+        }
+        return call(get("/customers/{customerId}", variables("customerId", customerId)), CUSTOMER)
+                .map(record -> new CustomerRecord(
+                        mapper.toCustomerEntity(record.getCustomer()), record.getVersion()));
+    }
+    
+    @Override
+    public void putCustomer(Customer customer) {
+        if (customer == null || customer.getCustomerId() == null) {
+            throw new IllegalArgumentException("Customer ID cannot be null");
+        }
+        Map<String, Object> variables = variables("customerId", customer.getCustomerId());
+        call(client.put()
+                .uri(template("/customers/{customerId}", variables), variables)
+                .body(mapper.toCustomerDto(customer)), FLAG);
+    }
+    
+    @Override
+    public List<RiceOrder> getOrdersByOrderDateRange(LocalDateTime from, LocalDateTime to) {
+        return orders(get("/query/order-date", variables("from", from, "to", to)));
+    }
+    
+    @Override
+    public List<RiceOrder> getOrdersByDeliveryTimeRange(LocalDateTime from, LocalDateTime to) {
+        return orders(get("/query/delivery-time", variables("from", from, "to", to)));
+    }
+    
+    @Override
+    public List<RiceOrder> findOrders(OrderQuery query, int limit) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        // The other node compiles the filter again and plans it against its own indexes
+        return orders(get("/query/filter", variables("filter", query.getExpression(), "limit", limit)));
+    }
+    
+    @Override
+    public RiceOrder addOrder(RiceOrder order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        RiceOrder stored = call(client.post()
+                .uri(API_PATH + "/orders")
+                .body(mapper.toRequest(order)), ORDER)
+                .map(mapper::toEntity)
+                .orElseThrow(() -> new IllegalStateException("No order in the answer to adding " + order.getOrderId()));
+        notifyChanged(stored.getOrderId());
+        return stored;
+    }
+    
+    @Override
+    public List<InsertResult> addOrders(List<RiceOrder> batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Batch cannot be null");
+        }
+        List<RiceOrderRequest> requests = batch.stream()
+                .map(mapper::toRequest)
+                .collect(Collectors.toList());
+        List<InsertResultDto> answers = call(client.post()
+                .uri(API_PATH + "/orders/batch")
+                .body(requests), INSERT_RESULTS)
+                .orElseThrow(() -> new IllegalStateException("No results in the answer to a batch"));
+        if (answers.size() != batch.size()) {
+            throw new IllegalStateException("Got " + answers.size() + " results for a batch of " + batch.size());
+        }
+        List<InsertResult> results = new ArrayList<>(answers.size());
+        for (int i = 0; i < answers.size(); i++) {
+            InsertResultDto answer = answers.get(i);
+            if (answer.getOrder() != null) {
+                RiceOrder stored = mapper.toEntity(answer.getOrder());
+                results.add(new InsertResult(stored, null));
+                notifyChanged(stored.getOrderId());
+            } else {
+                results.add(new InsertResult(batch.get(i), answer.getError()));
+            }
+        }
+        return results;
+    }
+    
+    @Override
+    public Optional<RiceOrder> updateOrder(String orderId, RiceOrder updatedOrder, Long expectedVersion) {
+        if (updatedOrder == null) {
+            throw new IllegalArgumentException("Updated order cannot be null");
+        }
+        requireOrderId(orderId);
+        Map<String, Object> variables = variables("orderId", orderId, "expectedVersion", expectedVersion);
+        return written(orderId, call(client.put()
+                .uri(template("/orders/{orderId}", variables), variables)
+                .body(mapper.toRequest(updatedOrder)), ORDER, orderId, expectedVersion));
+    }
+    
+    @Override
+    public Optional<RiceOrder> partialUpdateOrder(String orderId, RiceOrder updates, Long expectedVersion) {
+        if (updates == null) {
+            throw new IllegalArgumentException("Updates cannot be null");
+        }
+        requireOrderId(orderId);
+        Map<String, Object> variables = variables("orderId", orderId, "expectedVersion", expectedVersion);
+        return written(orderId, call(client.patch()
+                .uri(template("/orders/{orderId}", variables), variables)
+                .body(mapper.toRequest(updates)), ORDER, orderId, expectedVersion));
+    }
+    
+    @Override
+    public boolean removeOrder(String orderId, Long expectedVersion) {
+        requireOrderId(orderId);
+        Map<String, Object> variables = variables("orderId", orderId, "expectedVersion", expectedVersion);
+        boolean removed = call(client.delete().uri(template("/orders/{orderId}", variables), variables),
+                FLAG, orderId, expectedVersion).orElse(false);
+        if (removed) {
+            notifyChanged(orderId);
+        }
+        return removed;
+    }
+    
+    /**
+     * Removes the orders one request at a time, so listeners hear of each of them
+     */
+    @Override
+    public void removeAllOrders() {
+        streamAllOrders().forEach(order -> removeOrder(order.getOrderId()));
+    }
+    
+    @Override
+    public int getOrderCount() {
+        return call(get("/count", variables()), COUNT).orElse(0);
+    }
+    
+    @Override
+    public long getOrderCountByStatus(RiceOrder.OrderStatus status) {
+        return statusTotals(status).getOrderCount();
+    }
+    
+    @Override
+    public BigDecimal getRevenueByStatus(RiceOrder.OrderStatus status) {
+        return statusTotals(status).getRevenue();
+    }
+    
+    @Override
+    public Map<RiceOrder.OrderStatus, StatusTotals> getStatusTotals() {
+        Map<RiceOrder.OrderStatus, StatusTotals> result = new EnumMap<>(RiceOrder.OrderStatus.class);
+        call(get("/totals", variables()), ALL_STATUS_TOTALS).orElse(Map.of()).forEach((status, totals) ->
+                result.put(status, new StatusTotals(totals.getOrderCount(), totals.getRevenue())));
+        return result;
+    }
+    
+    @Override
+    public BigDecimal getTotalRevenue() {
+        return call(get("/revenue", variables()), AMOUNT)
+                .orElseThrow(() -> new IllegalStateException("No amount in the answer to a revenue query"));
+    }
+    
+    @Override
+    public long getStoreVersion() {
+        return call(get("/version", variables()), VERSION)
+                .orElseThrow(() -> new IllegalStateException("No version in the answer to a version query"));
+    }
+    
+    @Override
+    public boolean orderExists(String orderId) {
+        return getOrderById(orderId).isPresent();
+    }
+    
+    @Override
+    public void addChangeListener(OrderChangeListener listener) {
+        changeListeners.add(listener);
+    }
+    
+    private StatusAggregate statusTotals(RiceOrder.OrderStatus status) {
+        return call(get("/totals/status", variables("status", status)), STATUS_TOTALS)
+                .orElseThrow(() -> new IllegalStateException("No totals in the answer to a status query"));
+    }
+    
+    private Optional<RiceOrder> written(String orderId, Optional<VersionedOrderDto> answer) {
+        Optional<RiceOrder> stored = answer.map(mapper::toEntity);
+        if (stored.isPresent()) {
+            notifyChanged(orderId);
+        }
+        return stored;
+    }
+    
+    private void notifyChanged(String orderId) {
+        for (OrderChangeListener listener : changeListeners) {
+            listener.orderChanged(orderId);
+        }
+    }
+    
+    private RestClient.RequestHeadersSpec<?> get(String path, Map<String, Object> variables) {
+        return client.get().uri(template(path, variables), variables);
+    }
+    
+    private List<RiceOrder> orders(RestClient.RequestHeadersSpec<?> request) {
+        return call(request, ORDERS).orElse(List.of()).stream()
+                .map(mapper::toEntity)
+                .collect(Collectors.toList());
+    }
+    
+    private <T> Optional<T> call(RestClient.RequestHeadersSpec<?> request, ParameterizedTypeReference<ApiResponse<T>> type) {
+        return call(request, type, null, null);
+    }
+    
+    /**
+     * Send a request and unwrap the data of the ApiResponse it is answered with
+     * 
+     * @param orderId The order a conditional write is for, or null
+     * @param expectedVersion The version a conditional write is based on, or null
+     * @return The data, empty if the answer holds none, e.g. for an order that does not exist
+     */
+    private <T> Optional<T> call(RestClient.RequestHeadersSpec<?> request, ParameterizedTypeReference<ApiResponse<T>> type,
+                                 String orderId, Long expectedVersion) {
+        return request.exchange((clientRequest, response) -> {
+            if (response.getStatusCode().is2xxSuccessful()) {
+                ApiResponse<T> body = response.bodyTo(type);
+                return Optional.ofNullable(body != null ? body.getData() : null);
+            }
+            if (response.getStatusCode().isSameCodeAs(HttpStatus.BAD_REQUEST)) {
+                throw new IllegalArgumentException(message(response));
+            }
+            if (response.getStatusCode().isSameCodeAs(HttpStatus.PRECONDITION_FAILED) && expectedVersion != null) {
+                String etag = response.getHeaders().getETag();
+                if (etag != null) {
+                    throw new OrderVersionConflictException(orderId, expectedVersion,
+                            Long.parseLong(etag.replace("\"", "")));
+                }
+            }
+            throw new IllegalStateException(clientRequest.getMethod() + " " + clientRequest.getURI()
+                    + " failed with " + response.getStatusCode() + ": " + message(response));
+        });
+    }
+    
+    private static String message(RestClient.RequestHeadersSpec.ConvertibleClientHttpResponse response) throws IOException {
+        try {
+            ApiResponse<?> body = response.bodyTo(ApiResponse.class);
+            if (body != null && body.getMessage() != null) {
+                return body.getMessage();
+            }
+        } catch (RestClientException e) {
+            // Not an ApiResponse, e.g. the error page of a node without the shard API
+        }
+        return response.getStatusText();
+    }
+    
+    private static void requireOrderId(String orderId) {
+        if (orderId == null || orderId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Order ID cannot be null or empty");
+        }
+    }
+    
+    /**
+     * @param namesAndValues Variable names each followed by its value; null values are left out
+     */
+    private static Map<String, Object> variables(Object... namesAndValues) {
+        Map<String, Object> variables = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (namesAndValues[i + 1] != null) {
+                variables.put((String) namesAndValues[i], namesAndValues[i + 1]);
+            }
+        }
+        return variables;
+    }
+    
+    /**
+     * URI template of a shard API path, with a query parameter for every variable the
+     * path does not use. Values only enter as variables, so they are encoded in full.
+     */
+    private static String template(String path, Map<String, Object> variables) {
+        StringBuilder template = new StringBuilder(API_PATH).append(path);
+        char separator = '?';
+        for (String name : variables.keySet()) {
+            if (!path.contains("{" + name + "}")) {
+                template.append(separator).append(name).append("={").append(name).append('}');
+                separator = '&';
+            }
+        }
+        return template.toString();
+    }
+    
+    /**
+     * Pages through all orders by order ID, one request per page
+     */
+    private final class PageIterator implements Iterator<RiceOrder> {
+        
+        private List<RiceOrder> page = List.of();
+        private int next;
+        private boolean lastPage;
+        
+        @Override
+        public boolean hasNext() {
+            while (next == page.size()) {
+                if (lastPage) {
+                    return false;
+                }
+                String afterOrderId = page.isEmpty() ? null : page.get(page.size() - 1).getOrderId();
+                page = getOrdersPage(afterOrderId, PAGE_SIZE);
+                next = 0;
+                lastPage = page.size() < PAGE_SIZE;
+            }
+            return true;
+        }
+        
+        @Override
+        public RiceOrder next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return page.get(next++);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.riceapi.repository;
+
+import com.example.riceapi.modal.RiceOrder;
+
+import java.util.function.Consumer;
+
+/**
+ * Orders that {@link RiceOrderRepository} knows about but has not decoded yet,
+ * e.g. the entries of a memory-mapped snapshot. The repository indexes them up
+ * front from their indexed fields and decodes each one on first access.
+ */
+public interface LazyOrderSource {
+    
+    /**
+     * Visit every order that has not been taken yet as an index stub: a RiceOrder
+     * carrying only the fields the repository indexes and aggregates on (order ID,
+     * status, customer ID, total amount, order date and delivery time), with
+     * everything else left null
+     * 
+     * @param visitor Receives one stub per pending order
+     */
+    void forEachPending(Consumer<RiceOrder> visitor);
+    
+    /**
+     * Decode an order and hand it over. Each order can be taken only once;
+     * afterwards the repository owns it.
+     * 
+     * @param orderId The ID of the order to take
+     * @return The decoded order, or null if it is unknown or was already taken
+     */
+    RiceOrder take(String orderId);
+    
+    /**
+     * @param orderId The order ID to check
+     * @return true if the order has not been taken yet
+     */
+    boolean isPending(String orderId);
+    
+    /**
+     * @return Number of orders that have not been taken yet
+     */
+    int pendingCount();
+}
@@ -0,0 +1,17 @@
+package com.example.riceapi.repository;
+
+/**
+ * Told about every order written to or removed from an {@link OrderStore}.
+ * 
+ * Calls are made on the writing thread once the write is durable, or once a
+ * write the journal failed to record has been rolled back. They are made
+ * outside the per-order lock, so they may arrive out of order for concurrent
+ * writes to the same order. Implementations must be cheap and must not block.
+ */
+public interface OrderChangeListener {
+    
+    /**
+     * @param orderId The ID of the order that was inserted, replaced, updated or removed
+     */
+    void orderChanged(String orderId);
+}
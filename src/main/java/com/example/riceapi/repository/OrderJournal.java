@@ -0,0 +1,46 @@
+package com.example.riceapi.repository;
+
+import com.example.riceapi.modal.RiceOrder;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Receives every mutation applied to {@link RiceOrderRepository}.
+ * 
+ * Calls are made while the repository holds the lock for the affected order ID,
+ * so per-order calls arrive in the same order as the writes were applied.
+ * Implementations must therefore not block; they return a future that completes
+ * once the mutation is durable.
+ */
+public interface OrderJournal {
+    
+    OrderJournal NONE = new OrderJournal() {
+        @Override
+        public CompletableFuture<Void> logPut(RiceOrder order) {
+            return COMMITTED;
+        }
+        
+        @Override
+        public CompletableFuture<Void> logRemove(String orderId) {
+            return COMMITTED;
+        }
+    };
+    
+    CompletableFuture<Void> COMMITTED = CompletableFuture.completedFuture(null);
+    
+    /**
+     * Record that an order was inserted or replaced
+     * 
+     * @param order The full state of the order after the write
+     * @return Future completed once the entry is durable
+     */
+    CompletableFuture<Void> logPut(RiceOrder order);
+    
+    /**
+     * Record that an order was removed
+     * 
+     * @param orderId The ID of the removed order
+     * @return Future completed once the entry is durable
+     */
+    CompletableFuture<Void> logRemove(String orderId);
+}
@@ -0,0 +1,320 @@
+package com.example.riceapi.repository;
+
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.query.OrderQuery;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Storage for rice orders. {@link RiceOrderRepository} keeps all orders in this
+ * JVM; {@link HttpOrderStore} reaches the repository of another node; and
+ * {@link ShardedOrderStore} spreads orders over several stores by order ID.
+ * 
+ * Returned orders are immutable snapshots and may be shared freely.
+ */
+public interface OrderStore {
+    
+    /**
+     * Retrieve list of all rice orders
+     * 
+     * @return List of all rice orders
+     */
+    List<RiceOrder> getAllOrders();
+    
+    /**
+     * Stream all rice orders ordered by order ID without copying the store.
+     * The stream is weakly consistent: it reflects some, all or none of the
+     * writes made while it is being consumed.
+     * 
+     * @return Lazy stream over all rice orders
+     */
+    Stream<RiceOrder> streamAllOrders();
+    
+    /**
+     * Retrieve a page of rice orders ordered by order ID
+     * 
+     * @param afterOrderId Exclusive lower bound (the last order ID of the previous page), or null for the first page
+     * @param limit Maximum number of orders to return
+     * @return Up to limit orders whose IDs sort after afterOrderId
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    List<RiceOrder> getOrdersPage(String afterOrderId, int limit);
+    
+    /**
+     * Retrieve list of rice orders filtered by status
+     * 
+     * @param status The order status to filter by
+     * @return List of rice orders with the specified status
+     */
+    List<RiceOrder> getOrdersByStatus(RiceOrder.OrderStatus status);
+    
+    /**
+     * Retrieve a single rice order by ID
+     * 
+     * @param orderId The order ID to search for
+     * @return Optional containing the order if found, empty otherwise
+     */
+    Optional<RiceOrder> getOrderById(String orderId);
+    
+    /**
+     * Retrieve rice orders by customer ID
+     * 
+     * @param customerId The customer ID to search for
+     * @return List of rice orders for the specified customer
+     */
+    List<RiceOrder> getOrdersByCustomerId(String customerId);
+    
+    /**
+     * Retrieve a customer by ID. Customers are known through their orders and
+     * carry the details of the latest order written with customer details.
+     * 
+     * @param customerId The customer ID to search for
+     * @return Optional containing the customer if any order references it, empty otherwise
+     */
+    default Optional<Customer> getCustomerById(String customerId) {
+        return getCustomerRecord(customerId).map(CustomerRecord::getCustomer);
+    }
+    
+    /**
+     * Retrieve a customer by ID together with the version of the write its details
+     * came from
+     * 
+     * @param customerId The customer ID to search for
+     * @return Optional containing the customer record if any order references it, empty otherwise
+     */
+    Optional<CustomerRecord> getCustomerRecord(String customerId);
+    
+    /**
+     * Store the details of a customer written with an order that another store
+     * holds. A {@link ShardedOrderStore} sends every customer's details to the
+     * shard owning the customer ID, whichever shard holds the order. The details
+     * replace the stored ones like those of an order write, and are kept while
+     * this store holds no order of the customer.
+     * 
+     * @param customer The customer details
+     * @throws IllegalArgumentException if customer or its ID is null
+     */
+    void putCustomer(Customer customer);
+    
+    /**
+     * Retrieve rice orders placed within a time range, ordered by order date
+     * 
+     * @param from Inclusive lower bound, or null for no lower bound
+     * @param to Exclusive upper bound, or null for no upper bound
+     * @return List of rice orders whose order date lies in the range
+     * @throws IllegalArgumentException if from is after to
+     */
+    List<RiceOrder> getOrdersByOrderDateRange(LocalDateTime from, LocalDateTime to);
+    
+    /**
+     * Retrieve rice orders due for delivery within a time range, ordered by delivery time
+     * 
+     * @param from Inclusive lower bound, or null for no lower bound
+     * @param to Exclusive upper bound, or null for no upper bound
+     * @return List of rice orders whose delivery time lies in the range
+     * @throws IllegalArgumentException if from is after to
+     */
+    List<RiceOrder> getOrdersByDeliveryTimeRange(LocalDateTime from, LocalDateTime to);
+    
+    /**
+     * Retrieve rice orders matching a filter. The store starts from the index
+     * that leaves the fewest orders to test and stops once limit orders match.
+     * 
+     * @param query The compiled filter
+     * @param limit Maximum number of orders to return
+     * @return Up to limit matching orders, in no particular order
+     * @throws IllegalArgumentException if query is null or limit is not positive
+     */
+    List<RiceOrder> findOrders(OrderQuery query, int limit);
+    
+    /**
+     * Add a new rice order
+     * 
+     * @param order The rice order to add
+     * @return The stored rice order, with its order date, total amount and version filled in
+     * @throws IllegalArgumentException if order is null, orderId is null/empty or the order already exists
+     */
+    RiceOrder addOrder(RiceOrder order);
+    
+    /**
+     * Add many rice orders in one call. Each order is validated and inserted on
+     * its own, so a failing order does not prevent the others from being added.
+     * 
+     * @param batch The rice orders to add
+     * @return One result per submitted order, in submission order
+     * @throws IllegalArgumentException if batch is null
+     */
+    List<InsertResult> addOrders(List<RiceOrder> batch);
+    
+    /**
+     * Update an existing rice order
+     * 
+     * @param orderId The ID of the order to update
+     * @param updatedOrder The updated order data
+     * @return Optional containing the updated order if found, empty otherwise
+     * @throws IllegalArgumentException if updatedOrder is null
+     */
+    default Optional<RiceOrder> updateOrder(String orderId, RiceOrder updatedOrder) {
+        return updateOrder(orderId, updatedOrder, null);
+    }
+    
+    /**
+     * Update an existing rice order if it still has the expected version
+     * 
+     * @param orderId The ID of the order to update
+     * @param updatedOrder The updated order data
+     * @param expectedVersion The version the update is based on, or null to update unconditionally
+     * @return Optional containing the updated order if found, empty otherwise
+     * @throws IllegalArgumentException if updatedOrder is null
+     * @throws OrderVersionConflictException if the order has another version
+     */
+    Optional<RiceOrder> updateOrder(String orderId, RiceOrder updatedOrder, Long expectedVersion);
+    
+    /**
+     * Partially update an existing rice order (only updates non-null fields)
+     * 
+     * @param orderId The ID of the order to update
+     * @param updates The partial updates to apply
+     * @return Optional containing the updated order if found, empty otherwise
+     */
+    default Optional<RiceOrder> partialUpdateOrder(String orderId, RiceOrder updates) {
+        return partialUpdateOrder(orderId, updates, null);
+    }
+    
+    /**
+     * Partially update an existing rice order if it still has the expected version
+     * 
+     * @param orderId The ID of the order to update
+     * @param updates The partial updates to apply
+     * @param expectedVersion The version the updates are based on, or null to update unconditionally
+     * @return Optional containing the updated order if found, empty otherwise
+     * @throws OrderVersionConflictException if the order has another version
+     */
+    Optional<RiceOrder> partialUpdateOrder(String orderId, RiceOrder updates, Long expectedVersion);
+    
+    /**
+     * Remove a rice order by ID
+     * 
+     * @param orderId The ID of the order to remove
+     * @return true if the order was removed, false if it didn't exist
+     */
+    default boolean removeOrder(String orderId) {
+        return removeOrder(orderId, null);
+    }
+    
+    /**
+     * Remove a rice order by ID if it still has the expected version
+     * 
+     * @param orderId The ID of the order to remove
+     * @param expectedVersion The version the removal is based on, or null to remove unconditionally
+     * @return true if the order was removed, false if it didn't exist
+     * @throws OrderVersionConflictException if the order has another version
+     */
+    boolean removeOrder(String orderId, Long expectedVersion);
+    
+    /**
+     * Remove all rice orders
+     */
+    void removeAllOrders();
+    
+    /**
+     * Get the total count of orders
+     * 
+     * @return The number of orders in the store
+     */
+    int getOrderCount();
+    
+    /**
+     * Get the count of orders with a given status
+     * 
+     * @param status The order status to count, or null for orders without a status
+     * @return The number of orders with the specified status
+     */
+    long getOrderCountByStatus(RiceOrder.OrderStatus status);
+    
+    /**
+     * Get the summed total amount of orders with a given status
+     * 
+     * @param status The order status to sum, or null for orders without a status
+     * @return The revenue of orders with the specified status, at a scale of 2
+     */
+    BigDecimal getRevenueByStatus(RiceOrder.OrderStatus status);
+    
+    /**
+     * Get order count and revenue for every status
+     * 
+     * @return Totals per status, in declaration order of the statuses
+     */
+    Map<RiceOrder.OrderStatus, StatusTotals> getStatusTotals();
+    
+    /**
+     * Get the summed total amount of all orders
+     * 
+     * @return The revenue of all orders, at a scale of 2
+     */
+    BigDecimal getTotalRevenue();
+    
+    /**
+     * Get the version of the store as a whole. It changes after every write and
+     * only after the write is visible to readers, so data read after this call
+     * is at least as new as the version. Suitable as an ETag for reads that span
+     * many orders.
+     * 
+     * @return A value that differs for every state of the store
+     */
+    long getStoreVersion();
+    
+    /**
+     * Check if an order exists
+     * 
+     * @param orderId The order ID to check
+     * @return true if the order exists, false otherwise
+     */
+    boolean orderExists(String orderId);
+    
+    /**
+     * Register a listener that is told about every order written or removed
+     * 
+     * @param listener The listener to add
+     */
+    void addChangeListener(OrderChangeListener listener);
+    
+    /**
+     * Order count and revenue of one status at the time it was read
+     */
+    @Value
+    class StatusTotals {
+        long orderCount;
+        BigDecimal revenue;
+    }
+    
+    /**
+     * A customer with the version of the write its details came from. Versions are
+     * only comparable within the store that handed them out.
+     */
+    @Value
+    class CustomerRecord {
+        Customer customer;
+        long version;
+    }
+    
+    /**
+     * Outcome of inserting one order through {@link #addOrders(List)}
+     */
+    @Value
+    class InsertResult {
+        RiceOrder order;
+        String error;  // null when the order was inserted
+        
+        public boolean isInserted() {
+            return error == null;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.riceapi.repository;
+
+import lombok.Getter;
+
+/**
+ * Thrown by a conditional write when the stored order no longer has the version
+ * the caller based its change on. The stored order is left unchanged.
+ */
+@Getter
+public class OrderVersionConflictException extends RuntimeException {
+    
+    private final String orderId;
+    private final long expectedVersion;
+    private final long currentVersion;
+    
+    public OrderVersionConflictException(String orderId, long expectedVersion, long currentVersion) {
+        super("Order " + orderId + " is at version " + currentVersion + ", not " + expectedVersion);
+        this.orderId = orderId;
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.riceapi.repository;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ParallelScanProperties.class)
+public class ParallelScanConfig {
+    
+    @Bean
+    public ParallelScans parallelScans(RiceOrderRepository repository, ParallelScanProperties properties) {
+        ParallelScans scans = properties.getParallelism() > 1
+                ? new ParallelScans(properties.getParallelism(), properties.getThreshold())
+                : ParallelScans.sequential();
+        repository.setParallelScans(scans);
+        return scans;
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.riceapi.repository;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties(prefix = "riceapi.parallel-scan")
+public class ParallelScanProperties {
+    // Scan workers; half the cores leaves the rest to request threads, and 1 disables parallel scans
+    private int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private long threshold = 50_000;  // Elements from which a scan runs in parallel
+}
@@ -0,0 +1,178 @@
+package com.example.riceapi.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs large scans on a dedicated, bounded fork-join pool; scans below a size
+ * threshold stay on the calling thread, where a hand-off would cost more than
+ * it saves.
+ * 
+ * The pool has a fixed number of workers and never adds compensation threads,
+ * so scans share those cores however many requests run them; request threads
+ * only wait for their scan. {@link ConcurrentHashMap}'s bulk operations fork
+ * into the pool of the worker that calls them, which is how they end up here
+ * instead of in the common pool.
+ */
+public final class ParallelScans implements AutoCloseable {
+    
+    // Minimum elements per subtask, so forking stays cheap next to the work
+    static final int MIN_BATCH_SIZE = 1024;
+    
+    private static final ParallelScans SEQUENTIAL = new ParallelScans();
+    
+    private final ForkJoinPool pool;
+    private final int parallelism;
+    private final long threshold;
+    
+    private ParallelScans() {
+        this.pool = null;
+        this.parallelism = 1;
+        this.threshold = Long.MAX_VALUE;
+    }
+    
+    /**
+     * @param parallelism Worker threads of the pool, at least 2
+     * @param threshold Size from which a scan runs in parallel
+     * @throws IllegalArgumentException if parallelism is below 2 or threshold is not positive
+     */
+    public ParallelScans(int parallelism, long threshold) {
+        if (parallelism < 2) {
+            throw new IllegalArgumentException("Parallelism must be at least 2");
+        }
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        this.parallelism = parallelism;
+        this.threshold = threshold;
+        // At the thread limit, a worker waiting in a join keeps helping instead of being replaced
+        this.pool = new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName("order-scan-" + worker.getPoolIndex());
+            worker.setDaemon(true);
+            return worker;
+        }, null, false, 0, parallelism, 1, saturated -> true, 60, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * @return Scans that always run on the calling thread
+     */
+    public static ParallelScans sequential() {
+        return SEQUENTIAL;
+    }
+    
+    /**
+     * @param size Number of elements a scan would visit
+     * @return true if a scan of that size runs in the pool
+     */
+    public boolean isParallel(long size) {
+        return pool != null && size >= threshold;
+    }
+    
+    public int getParallelism() {
+        return parallelism;
+    }
+    
+    /**
+     * Run a task in the pool and wait for its result. Called from a worker of
+     * the pool, the task runs right there.
+     * 
+     * @param task The task, usually one that forks subtasks
+     * @return The task's result
+     * @throws IllegalStateException if these scans are sequential
+     */
+    public <T> T invoke(ForkJoinTask<T> task) {
+        if (pool == null) {
+            throw new IllegalStateException("Sequential scans have no pool");
+        }
+        return ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task);
+    }
+    
+    /**
+     * Transform every key of a set and collect the non-null results, in no
+     * particular order. Large sets are visited with
+     * {@link ConcurrentHashMap#forEachKey(long, Function, java.util.function.Consumer)}.
+     * 
+     * @param keys The keys to visit
+     * @param transformer Maps a key to a result, or to null to skip it; must be thread-safe
+     * @return The non-null results
+     */
+    public <K, T> List<T> collectKeys(ConcurrentHashMap.KeySetView<K, ?> keys,
+                                      Function<? super K, ? extends T> transformer) {
+        if (!isParallel(keys.size())) {
+            List<T> result = new ArrayList<>();
+            for (K key : keys) {
+                T value = transformer.apply(key);
+                if (value != null) {
+                    result.add(value);
+                }
+            }
+            return result;
+        }
+        Buffers<T> buffers = new Buffers<>();
+        invoke(ForkJoinTask.adapt(() -> keys.getMap().forEachKey(MIN_BATCH_SIZE, transformer, buffers::add)));
+        return buffers.drain();
+    }
+    
+    /**
+     * Transform every value of a map and collect the non-null results, in no
+     * particular order. Large maps are visited with
+     * {@link ConcurrentHashMap#forEachValue(long, Function, java.util.function.Consumer)}.
+     * 
+     * @param map The map whose values to visit
+     * @param transformer Maps a value to a result, or to null to skip it; must be thread-safe
+     * @return The non-null results
+     */
+    public <V, T> List<T> collectValues(ConcurrentHashMap<?, V> map, Function<? super V, ? extends T> transformer) {
+        if (!isParallel(map.mappingCount())) {
+            List<T> result = new ArrayList<>();
+            for (V value : map.values()) {
+                T transformed = transformer.apply(value);
+                if (transformed != null) {
+                    result.add(transformed);
+                }
+            }
+            return result;
+        }
+        Buffers<T> buffers = new Buffers<>();
+        invoke(ForkJoinTask.adapt(() -> map.forEachValue(MIN_BATCH_SIZE, transformer, buffers::add)));
+        return buffers.drain();
+    }
+    
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+    
+    /**
+     * One list per thread that adds results, so workers never contend on a shared collection
+     */
+    private static final class Buffers<T> {
+        
+        private final ConcurrentHashMap<Thread, List<T>> lists = new ConcurrentHashMap<>();
+        
+        void add(T value) {
+            lists.computeIfAbsent(Thread.currentThread(), thread -> new ArrayList<>()).add(value);
+        }
+        
+        List<T> drain() {
+            int size = 0;
+            for (List<T> list : lists.values()) {
+                size += list.size();
+            }
+            List<T> result = new ArrayList<>(size);
+            for (List<T> list : lists.values()) {
+                result.addAll(list);
+            }
+            return result;
+        }
+    }
+}
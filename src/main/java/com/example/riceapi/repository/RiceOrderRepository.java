@@ -2,8 +2,11 @@ package com.example.riceapi.repository;
 
 import com.example.riceapi.modal.Customer;
 import com.example.riceapi.modal.DeliveryAddress;
+import com.example.riceapi.modal.Money;
 import com.example.riceapi.modal.OrderItem;
 import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.query.OrderQuery;
+import io.micrometer.core.annotation.Timed;
 import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Repository;
 
@@ -11,17 +14,91 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.Objects;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
-public class RiceOrderRepository {
+public class RiceOrderRepository implements OrderStore {
     
-    // In-memory storage using ConcurrentHashMap for thread safety
-    private final Map<String, RiceOrder> orders = new ConcurrentHashMap<>();
+    // Timer of the scans and writes; O(1) lookups and counters are left untimed, as timing would
+    // cost about as much as the call
+    private static final String TIMER = "riceapi.repository";
+    private static final String TIMER_DESCRIPTION = "Time spent in RiceOrderRepository scans and writes";
+    
+    // In-memory storage using ConcurrentHashMap for thread safety. The stored orders are
+    // immutable; every write publishes a new RiceOrder under the order ID, so readers
+    // never need a lock or a copy.
+    private final ConcurrentHashMap<String, RiceOrder> orders = new ConcurrentHashMap<>();
+    
+    // Secondary indexes (status -> order IDs, customers with their order IDs).
+    // They are only modified inside orders.compute* for the affected order ID,
+    // so index updates for one order are serialized with the write to that order.
+    private final Map<RiceOrder.OrderStatus, ConcurrentHashMap.KeySetView<String, Boolean>> statusIndex =
+            new EnumMap<>(RiceOrder.OrderStatus.class);
+    private final CustomerStore customers = new CustomerStore();
+    
+    // Sorted (timestamp, order ID) keys for range scans; orders without the timestamp are not indexed
+    private final NavigableSet<TimeKey> orderDateIndex = new ConcurrentSkipListSet<>();
+    private final NavigableSet<TimeKey> deliveryTimeIndex = new ConcurrentSkipListSet<>();
+    
+    // Ordered view of order IDs used for keyset pagination
+    private final NavigableSet<String> orderIds = new ConcurrentSkipListSet<>();
+    
+    // Size of orderIds, which counts decoded and pending orders alike
+    private final AtomicInteger orderCount = new AtomicInteger();
+    
+    // Running order count and revenue per status, plus a last slot for orders without
+    // a status. Updated alongside the secondary indexes, so reading them is O(1).
+    private static final int NO_STATUS_SLOT = RiceOrder.OrderStatus.values().length;
+    private final StatusTotalsCounter[] statusTotals = new StatusTotalsCounter[NO_STATUS_SLOT + 1];
+    
+    // Receives every mutation, e.g. the write-ahead log when persistence is enabled
+    private volatile OrderJournal journal = OrderJournal.NONE;
+    
+    // Runs scans over the whole store or a large index set, in parallel from a size threshold
+    private volatile ParallelScans scans = ParallelScans.sequential();
+    
+    // Notified after each write has been applied, e.g. to drop cached responses
+    private final List<OrderChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    
+    // Source of RiceOrder versions; every write takes the next value. Versions are not
+    // persisted, so the sequence follows the clock (in microseconds) to stay above any
+    // version handed out before a restart, and restored orders get fresh versions.
+    private final AtomicLong versionSequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    
+    // Version of the store as a whole, taken after each write has been applied. Starts
+    // from the clock for the same reason as versionSequence.
+    private final AtomicLong storeVersion = new AtomicLong(System.currentTimeMillis() * 1000);
+    
+    // Orders that are indexed but not decoded yet, e.g. from a memory-mapped snapshot
+    private volatile LazyOrderSource lazySource;
+    
+    public RiceOrderRepository() {
+        for (RiceOrder.OrderStatus status : RiceOrder.OrderStatus.values()) {
+            statusIndex.put(status, ConcurrentHashMap.newKeySet());
+        }
+        for (int i = 0; i < statusTotals.length; i++) {
+            statusTotals[i] = new StatusTotalsCounter();
+        }
+    }
     
     /**
      * Initialize repository with mock data
@@ -255,11 +332,11 @@ public class RiceOrderRepository {
                 .build();
         
         // Add all orders to the repository
-        orders.put(order1.getOrderId(), order1);
-        orders.put(order2.getOrderId(), order2);
-        orders.put(order3.getOrderId(), order3);
-        orders.put(order4.getOrderId(), order4);
-        orders.put(order5.getOrderId(), order5);
+        putOrder(order1);
+        putOrder(order2);
+        putOrder(order3);
+        putOrder(order4);
+        putOrder(order5);
     }
     
     /**
@@ -267,20 +344,81 @@ public class RiceOrderRepository {
      * 
      * @return List of all rice orders
      */
+    @Override
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
     public List<RiceOrder> getAllOrders() {
+        if (lazySource != null) {
+            return streamAllOrders().collect(Collectors.toList());
+        }
         return new ArrayList<>(orders.values());
     }
     
+    /**
+     * Stream all rice orders ordered by order ID without copying the store.
+     * The stream is weakly consistent: it reflects some, all or none of the
+     * writes made while it is being consumed.
+     * 
+     * @return Lazy stream over all rice orders
+     */
+    @Override
+    public Stream<RiceOrder> streamAllOrders() {
+        return orderIds.stream()
+                .map(this::resolve)
+                .filter(Objects::nonNull);
+    }
+    
+    /**
+     * Retrieve a page of rice orders ordered by order ID
+     * 
+     * @param afterOrderId Exclusive lower bound (the last order ID of the previous page), or null for the first page
+     * @param limit Maximum number of orders to return
+     * @return Up to limit orders whose IDs sort after afterOrderId
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    @Override
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public List<RiceOrder> getOrdersPage(String afterOrderId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        NavigableSet<String> remaining = afterOrderId == null ? orderIds : orderIds.tailSet(afterOrderId, false);
+        List<RiceOrder> page = new ArrayList<>(Math.min(limit, 1024));
+        for (String orderId : remaining) {
+            RiceOrder order = resolve(orderId);
+            // Skip IDs whose removal is still in flight
+            if (order != null) {
+                page.add(order);
+                if (page.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return page;
+    }
+    
     /**
      * Retrieve list of rice orders filtered by status
      * 
      * @param status The order status to filter by
      * @return List of rice orders with the specified status
      */
+    @Override
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
     public List<RiceOrder> getOrdersByStatus(RiceOrder.OrderStatus status) {
-        return orders.values().stream()
-                .filter(order -> order.getStatus() == status)
-                .collect(Collectors.toList());
+        if (status == null) {
+            // Orders without a status are not indexed; pending lazy orders are only reachable through orderIds
+            if (lazySource != null) {
+                return streamAllOrders()
+                        .filter(order -> order.getStatus() == null)
+                        .collect(Collectors.toList());
+            }
+            return scans.collectValues(orders, order -> order.getStatus() == null ? order : null);
+        }
+        return scans.collectKeys(statusIndex.get(status), orderId -> {
+            RiceOrder order = resolve(orderId);
+            // Re-check against the stored order in case a transition is in flight
+            return order != null && order.getStatus() == status ? order : null;
+        });
     }
     
     /**
@@ -289,8 +427,9 @@ public class RiceOrderRepository {
      * @param orderId The order ID to search for
      * @return Optional containing the order if found, empty otherwise
      */
+    @Override
     public Optional<RiceOrder> getOrderById(String orderId) {
-        return Optional.ofNullable(orders.get(orderId));
+        return Optional.ofNullable(orderId != null ? resolve(orderId) : null);
     }
     
     /**
@@ -299,54 +438,254 @@ public class RiceOrderRepository {
      * @param customerId The customer ID to search for
      * @return List of rice orders for the specified customer
      */
+    @Override
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
     public List<RiceOrder> getOrdersByCustomerId(String customerId) {
-        return orders.values().stream()
-                .filter(order -> order.getCustomer() != null && 
-                                customerId.equals(order.getCustomer().getCustomerId()))
+        if (customerId == null) {
+            return new ArrayList<>();
+        }
+        return scans.collectKeys(customers.orderIdsOf(customerId), orderId -> {
+            RiceOrder order = resolve(orderId);
+            // Re-check against the stored order in case a customer change is in flight
+            return order != null && customerId.equals(customerIdOf(order)) ? order : null;
+        });
+    }
+    
+    /**
+     * Retrieve a customer by ID
+     * 
+     * @param customerId The customer ID to search for
+     * @return Optional containing the details of the customer's latest written order and its version,
+     *         empty if it has no orders and no details were put for it
+     */
+    @Override
+    public Optional<CustomerRecord> getCustomerRecord(String customerId) {
+        if (customerId == null) {
+            return Optional.empty();
+        }
+        CustomerRecord record = customers.get(customerId);
+        // A placeholder gets its details once one of its orders is decoded
+        Iterator<String> customerOrderIds = customers.orderIdsOf(customerId).iterator();
+        while (record == null && customerOrderIds.hasNext()) {
+            resolve(customerOrderIds.next());
+            record = customers.get(customerId);
+        }
+        return Optional.ofNullable(record);
+    }
+    
+    /**
+     * Store the details of a customer whose orders another store holds. They are
+     * not journaled and do not survive a restart.
+     * 
+     * @param customer The customer details
+     * @throws IllegalArgumentException if customer or its ID is null
+     */
+    @Override
+    public void putCustomer(Customer customer) {
+        if (customer == null || customer.getCustomerId() == null) {
+            throw new IllegalArgumentException("Customer ID cannot be null");
+        }
+        customers.put(customer, nextVersion());
+    }
+    
+    /**
+     * Get the number of distinct customers
+     * 
+     * @return The number of customers with at least one order or with details put for other stores
+     */
+    public int getCustomerCount() {
+        return customers.size();
+    }
+    
+    /**
+     * Retrieve rice orders placed within a time range, ordered by order date
+     * 
+     * @param from Inclusive lower bound, or null for no lower bound
+     * @param to Exclusive upper bound, or null for no upper bound
+     * @return List of rice orders whose order date lies in the range
+     * @throws IllegalArgumentException if from is after to
+     */
+    @Override
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public List<RiceOrder> getOrdersByOrderDateRange(LocalDateTime from, LocalDateTime to) {
+        return scanTimeRange(orderDateIndex, from, to, RiceOrder::getOrderDate);
+    }
+    
+    /**
+     * Retrieve rice orders due for delivery within a time range, ordered by delivery time
+     * 
+     * @param from Inclusive lower bound, or null for no lower bound
+     * @param to Exclusive upper bound, or null for no upper bound
+     * @return List of rice orders whose delivery time lies in the range
+     * @throws IllegalArgumentException if from is after to
+     */
+    @Override
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public List<RiceOrder> getOrdersByDeliveryTimeRange(LocalDateTime from, LocalDateTime to) {
+        return scanTimeRange(deliveryTimeIndex, from, to, RiceOrder::getDeliveryTime);
+    }
+    
+    /**
+     * Retrieve rice orders matching a filter. The candidates come from the most
+     * selective of the status index, the customer's orders, the order date and
+     * delivery time indexes, or all orders; each candidate is tested against the
+     * whole filter, and the scan stops as soon as limit orders match.
+     * 
+     * @param query The compiled filter
+     * @param limit Maximum number of orders to return
+     * @return Up to limit matching orders, in no particular order
+     * @throws IllegalArgumentException if query is null or limit is not positive
+     */
+    @Override
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public List<RiceOrder> findOrders(OrderQuery query, int limit) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        // Candidates are re-checked against the stored order, so in-flight index changes do no harm.
+        // An order moving between two of the scanned statuses shows up in both; it is returned once.
+        return planQuery(query).candidates.get()
+                .distinct()
+                .map(this::resolve)
+                .filter(Objects::nonNull)
+                .filter(query::matches)
+                .limit(limit)
                 .collect(Collectors.toList());
     }
     
+    /**
+     * @param query The compiled filter
+     * @return The index {@link #findOrders(OrderQuery, int)} would start from:
+     *         status, customerId, orderDate, deliveryTime, or all for a scan of every order
+     */
+    public String explainQuery(OrderQuery query) {
+        return planQuery(query).index;
+    }
+    
+    // Picks the candidate source with the fewest order IDs; range sizes are only counted up to the best so far
+    private QueryPlan planQuery(OrderQuery query) {
+        QueryPlan best = new QueryPlan("all", orderCount.get(), orderIds::stream);
+        
+        Set<RiceOrder.OrderStatus> statuses = query.getStatuses();
+        if (statuses != null) {
+            long size = 0;
+            for (RiceOrder.OrderStatus status : statuses) {
+                size += statusIndex.get(status).size();
+            }
+            if (size < best.size) {
+                best = new QueryPlan("status", size,
+                        () -> statuses.stream().flatMap(status -> statusIndex.get(status).stream()));
+            }
+        }
+        if (query.getCustomerId() != null) {
+            Set<String> customerOrderIds = customers.orderIdsOf(query.getCustomerId());
+            if (customerOrderIds.size() < best.size) {
+                best = new QueryPlan("customerId", customerOrderIds.size(), customerOrderIds::stream);
+            }
+        }
+        best = planTimeRange(best, "orderDate", orderDateIndex, query.getOrderDateFrom(), query.getOrderDateTo());
+        best = planTimeRange(best, "deliveryTime", deliveryTimeIndex,
+                query.getDeliveryTimeFrom(), query.getDeliveryTimeTo());
+        return best;
+    }
+    
+    private static QueryPlan planTimeRange(QueryPlan best, String name, NavigableSet<TimeKey> index,
+                                           LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return best;
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            // Contradictory bounds: nothing can match
+            return new QueryPlan(name, 0, Stream::empty);
+        }
+        NavigableSet<TimeKey> range = index;
+        if (from != null) {
+            range = range.tailSet(new TimeKey(from, ""), true);
+        }
+        if (to != null) {
+            range = range.headSet(new TimeKey(to, ""), false);
+        }
+        long size = 0;
+        for (Iterator<TimeKey> keys = range.iterator(); keys.hasNext() && size < best.size; keys.next()) {
+            size++;
+        }
+        if (size >= best.size) {
+            return best;
+        }
+        NavigableSet<TimeKey> candidates = range;
+        return new QueryPlan(name, size, () -> candidates.stream().map(key -> key.orderId));
+    }
+    
     /**
      * Add a new rice order
      * 
      * @param order The rice order to add
-     * @return The added rice order
+     * @return The stored rice order, with its order date, total amount and version filled in
      * @throws IllegalArgumentException if order is null or orderId is null/empty
      */
+    @Override
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
     public RiceOrder addOrder(RiceOrder order) {
-        if (order == null) {
-            throw new IllegalArgumentException("Order cannot be null");
-        }
-        if (order.getOrderId() == null || order.getOrderId().trim().isEmpty()) {
-            throw new IllegalArgumentException("Order ID cannot be null or empty");
-        }
-        if (orders.containsKey(order.getOrderId())) {
-            throw new IllegalArgumentException("Order with ID " + order.getOrderId() + " already exists");
+        validateNewOrder(order);
+        PendingWrite write = insert(order, LocalDateTime.now());
+        awaitDurable(write);
+        return write.written;
+    }
+    
+    /**
+     * Add many rice orders in one call. Each order is validated and inserted on
+     * its own, so a failing order does not prevent the others from being added.
+     * 
+     * @param batch The rice orders to add
+     * @return One result per submitted order, in submission order
+     * @throws IllegalArgumentException if batch is null
+     */
+    @Override
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public List<InsertResult> addOrders(List<RiceOrder> batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Batch cannot be null");
         }
-        
-        // Set order date if not already set
-        if (order.getOrderDate() == null) {
-            order.setOrderDate(LocalDateTime.now());
+        InsertResult[] results = new InsertResult[batch.size()];
+        PendingWrite[] writes = new PendingWrite[batch.size()];
+        // One timestamp for the whole batch
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < batch.size(); i++) {
+            RiceOrder order = batch.get(i);
+            try {
+                validateNewOrder(order);
+                writes[i] = insert(order, now);
+            } catch (IllegalArgumentException e) {
+                results[i] = new InsertResult(order, e.getMessage());
+            }
         }
-        
-        // Calculate and set total amount if not already set
-        if (order.getTotalAmount() == null) {
-            order.setTotalAmount(order.calculateTotalAmount());
+        // All inserts are journaled before the first wait, so the journal can commit them as a group
+        for (int i = 0; i < batch.size(); i++) {
+            if (writes[i] != null) {
+                results[i] = settle(writes[i]) == null
+                        ? new InsertResult(writes[i].written, null)
+                        : new InsertResult(batch.get(i), "Failed to persist order");
+            }
         }
-        
-        orders.put(order.getOrderId(), order);
-        return order;
+        return Arrays.asList(results);
     }
     
     /**
-     * Update an existing rice order
+     * Update an existing rice order if it still has the expected version
      * 
      * @param orderId The ID of the order to update
      * @param updatedOrder The updated order data
+     * @param expectedVersion The version the update is based on, or null to update unconditionally
      * @return Optional containing the updated order if found, empty otherwise
      * @throws IllegalArgumentException if updatedOrder is null
+     * @throws OrderVersionConflictException if the order has another version
      */
-    public Optional<RiceOrder> updateOrder(String orderId, RiceOrder updatedOrder) {
+    @Override
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public Optional<RiceOrder> updateOrder(String orderId, RiceOrder updatedOrder, Long expectedVersion) {
         if (updatedOrder == null) {
             throw new IllegalArgumentException("Updated order cannot be null");
         }
@@ -354,34 +693,55 @@ public class RiceOrderRepository {
             throw new IllegalArgumentException("Order ID cannot be null or empty");
         }
         
-        if (!orders.containsKey(orderId)) {
-            return Optional.empty();
-        }
+        // Recalculate total amount, before the compute like in insert
+        RiceOrder priced = updatedOrder.getTotalAmountMinor() == Money.ABSENT
+                ? updatedOrder.withCalculatedTotalAmount() : updatedOrder;
         
-        // Preserve the orderId and orderDate from the original order
-        RiceOrder existingOrder = orders.get(orderId);
-        updatedOrder.setOrderId(orderId);
-        if (updatedOrder.getOrderDate() == null) {
-            updatedOrder.setOrderDate(existingOrder.getOrderDate());
+        PendingWrite[] write = new PendingWrite[1];
+        RiceOrder[] conflict = new RiceOrder[1];
+        RiceOrder result = orders.compute(orderId, (id, storedOrder) -> {
+            RiceOrder existingOrder = storedOrder != null ? storedOrder : takeLazy(id);
+            if (existingOrder == null) {
+                return null;
+            }
+            if (expectedVersion != null && existingOrder.getVersion() != expectedVersion) {
+                // Keep the stored order; throwing here would drop an order just taken from the lazy source
+                conflict[0] = existingOrder;
+                return existingOrder;
+            }
+            
+            // Preserve the orderId and orderDate from the original order
+            RiceOrder.RiceOrderBuilder replacement = priced.toBuilder().orderId(id);
+            if (updatedOrder.getOrderDate() == null) {
+                replacement.orderDate(existingOrder.getOrderDate());
+            }
+            
+            RiceOrder replaced = replacement.version(nextVersion()).build();
+            unindex(id, existingOrder);
+            RiceOrder stored = index(id, replaced, true);
+            write[0] = new PendingWrite(id, existingOrder, stored, journal.logPut(stored));
+            return stored;
+        });
+        if (conflict[0] != null) {
+            throw new OrderVersionConflictException(orderId, expectedVersion, conflict[0].getVersion());
         }
-        
-        // Recalculate total amount
-        if (updatedOrder.getTotalAmount() == null) {
-            updatedOrder.setTotalAmount(updatedOrder.calculateTotalAmount());
-        }
-        
-        orders.put(orderId, updatedOrder);
-        return Optional.of(updatedOrder);
+        awaitDurable(write[0]);
+        return Optional.ofNullable(result);
     }
     
     /**
-     * Partially update an existing rice order (only updates non-null fields)
+     * Partially update an existing rice order if it still has the expected version.
+     * The changes are applied to a copy that replaces the stored order.
      * 
      * @param orderId The ID of the order to update
      * @param updates The partial updates to apply
+     * @param expectedVersion The version the updates are based on, or null to update unconditionally
      * @return Optional containing the updated order if found, empty otherwise
+     * @throws OrderVersionConflictException if the order has another version
      */
-    public Optional<RiceOrder> partialUpdateOrder(String orderId, RiceOrder updates) {
+    @Override
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public Optional<RiceOrder> partialUpdateOrder(String orderId, RiceOrder updates, Long expectedVersion) {
         if (updates == null) {
             throw new IllegalArgumentException("Updates cannot be null");
         }
@@ -389,59 +749,189 @@ public class RiceOrderRepository {
             throw new IllegalArgumentException("Order ID cannot be null or empty");
         }
         
-        RiceOrder existingOrder = orders.get(orderId);
-        if (existingOrder == null) {
-            return Optional.empty();
-        }
-        
-        // Apply partial updates
-        if (updates.getCustomer() != null) {
-            existingOrder.setCustomer(updates.getCustomer());
-        }
-        if (updates.getOrderItems() != null) {
-            existingOrder.setOrderItems(updates.getOrderItems());
-        }
-        if (updates.getDeliveryAddress() != null) {
-            existingOrder.setDeliveryAddress(updates.getDeliveryAddress());
-        }
-        if (updates.getStatus() != null) {
-            existingOrder.setStatus(updates.getStatus());
-        }
-        if (updates.getDeliveryTime() != null) {
-            existingOrder.setDeliveryTime(updates.getDeliveryTime());
-        }
-        if (updates.getPaymentMethod() != null) {
-            existingOrder.setPaymentMethod(updates.getPaymentMethod());
-        }
+        // A missing item list reads as an empty one, so an empty list means the
+        // items were not part of the update; new items get their total recalculated
+        boolean itemsUpdated = !updates.getOrderItems().isEmpty();
+        RiceOrder priced = itemsUpdated ? updates.withCalculatedTotalAmount() : updates;
         
-        // Recalculate total amount if order items were updated
-        if (updates.getOrderItems() != null) {
-            existingOrder.setTotalAmount(existingOrder.calculateTotalAmount());
-        } else if (updates.getTotalAmount() != null) {
-            existingOrder.setTotalAmount(updates.getTotalAmount());
+        PendingWrite[] write = new PendingWrite[1];
+        RiceOrder[] conflict = new RiceOrder[1];
+        RiceOrder result = orders.compute(orderId, (id, storedOrder) -> {
+            RiceOrder existingOrder = storedOrder != null ? storedOrder : takeLazy(id);
+            if (existingOrder == null) {
+                return null;
+            }
+            if (expectedVersion != null && existingOrder.getVersion() != expectedVersion) {
+                conflict[0] = existingOrder;
+                return existingOrder;
+            }
+            
+            // Apply partial updates
+            RiceOrder.RiceOrderBuilder changed = existingOrder.toBuilder();
+            if (updates.getCustomer() != null) {
+                changed.customer(updates.getCustomer());
+            }
+            if (itemsUpdated) {
+                changed.orderItems(updates.getOrderItems());
+            }
+            if (updates.getDeliveryAddress() != null) {
+                changed.deliveryAddress(updates.getDeliveryAddress());
+            }
+            if (updates.getStatus() != null) {
+                changed.status(updates.getStatus());
+            }
+            if (updates.getDeliveryTime() != null) {
+                changed.deliveryTime(updates.getDeliveryTime());
+            }
+            if (updates.getPaymentMethod() != null) {
+                changed.paymentMethod(updates.getPaymentMethod());
+            }
+            
+            // Take the total recalculated if order items were updated, or the given one
+            if (priced.getTotalAmountMinor() != Money.ABSENT) {
+                changed.totalAmountMinor(priced.getTotalAmountMinor())
+                        .totalAmountScale(priced.getTotalAmountScale());
+            }
+            
+            RiceOrder changedOrder = changed.version(nextVersion()).build();
+            unindex(id, existingOrder);
+            RiceOrder updatedOrder = index(id, changedOrder, updates.getCustomer() != null);
+            write[0] = new PendingWrite(id, existingOrder, updatedOrder, journal.logPut(updatedOrder));
+            return updatedOrder;
+        });
+        if (conflict[0] != null) {
+            throw new OrderVersionConflictException(orderId, expectedVersion, conflict[0].getVersion());
         }
-        
-        return Optional.of(existingOrder);
+        awaitDurable(write[0]);
+        return Optional.ofNullable(result);
     }
     
     /**
-     * Remove a rice order by ID
+     * Remove a rice order by ID if it still has the expected version
      * 
      * @param orderId The ID of the order to remove
+     * @param expectedVersion The version the removal is based on, or null to remove unconditionally
      * @return true if the order was removed, false if it didn't exist
+     * @throws OrderVersionConflictException if the order has another version
      */
-    public boolean removeOrder(String orderId) {
+    @Override
+    @Timed(value = TIMER, description = TIMER_DESCRIPTION, histogram = true)
+    public boolean removeOrder(String orderId, Long expectedVersion) {
         if (orderId == null || orderId.trim().isEmpty()) {
             throw new IllegalArgumentException("Order ID cannot be null or empty");
         }
-        return orders.remove(orderId) != null;
+        RiceOrder[] conflict = new RiceOrder[1];
+        PendingWrite write = remove(orderId, expectedVersion, conflict);
+        if (conflict[0] != null) {
+            throw new OrderVersionConflictException(orderId, expectedVersion, conflict[0].getVersion());
+        }
+        if (write == null) {
+            return false;
+        }
+        awaitDurable(write);
+        return true;
     }
     
     /**
      * Remove all rice orders
      */
+    @Override
     public void removeAllOrders() {
-        orders.clear();
+        // Remove one key at a time so each index update stays paired with its map removal
+        List<PendingWrite> writes = new ArrayList<>();
+        for (String orderId : orderIds) {
+            PendingWrite write = remove(orderId);
+            if (write != null) {
+                writes.add(write);
+            }
+        }
+        Throwable failure = null;
+        for (PendingWrite write : writes) {
+            Throwable writeFailure = settle(write);
+            if (failure == null) {
+                failure = writeFailure;
+            }
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Failed to persist order change", failure);
+        }
+    }
+    
+    /**
+     * Insert or replace an order exactly as given, without defaulting any field
+     * and without recording it in the journal. The order gets a new version.
+     * Used to rebuild the store from persisted state.
+     * 
+     * @param order The rice order to restore
+     * @throws IllegalArgumentException if order is null or orderId is null/empty
+     */
+    public void restoreOrder(RiceOrder order) {
+        validateNewOrder(order);
+        putOrder(order);
+    }
+    
+    /**
+     * Attach the journal that records every subsequent mutation
+     * 
+     * @param journal The journal to use, or null to stop journaling
+     */
+    public void setJournal(OrderJournal journal) {
+        this.journal = journal != null ? journal : OrderJournal.NONE;
+    }
+    
+    /**
+     * Attach the pool that large status and customer scans run on
+     * 
+     * @param scans The scans to use, or null to scan on the calling thread only
+     */
+    public void setParallelScans(ParallelScans scans) {
+        this.scans = scans != null ? scans : ParallelScans.sequential();
+    }
+    
+    /**
+     * Register a listener that is told about every order written or removed
+     * 
+     * @param listener The listener to add
+     */
+    @Override
+    public void addChangeListener(OrderChangeListener listener) {
+        changeListeners.add(Objects.requireNonNull(listener, "listener"));
+    }
+    
+    /**
+     * Make the pending orders of a lazy source visible. They are indexed right away
+     * and decoded on first access. Must be called before the repository takes traffic.
+     * 
+     * @param source The source of not yet decoded orders
+     */
+    public void attachLazySource(LazyOrderSource source) {
+        source.forEachPending(stub -> {
+            String orderId = stub.getOrderId();
+            // Ahead of index, so a customer only known from stubs is held as a placeholder
+            customers.attachPlaceholder(orderId, customerIdOf(stub));
+            index(orderId, stub, false);
+            if (orderIds.add(orderId)) {
+                orderCount.incrementAndGet();
+            }
+        });
+        this.lazySource = source;
+    }
+    
+    /**
+     * Release the lazy source once every order in it has been decoded
+     * 
+     * @return true if the source was released, false if orders are still pending
+     */
+    public boolean detachLazySourceIfDrained() {
+        LazyOrderSource source = lazySource;
+        if (source == null) {
+            return true;
+        }
+        if (source.pendingCount() > 0) {
+            return false;
+        }
+        lazySource = null;
+        return true;
     }
     
     /**
@@ -449,8 +939,71 @@ public class RiceOrderRepository {
      * 
      * @return The number of orders in the repository
      */
+    @Override
     public int getOrderCount() {
-        return orders.size();
+        return orderCount.get();
+    }
+    
+    /**
+     * Get the count of orders with a given status from the running totals
+     * 
+     * @param status The order status to count, or null for orders without a status
+     * @return The number of orders with the specified status
+     */
+    @Override
+    public long getOrderCountByStatus(RiceOrder.OrderStatus status) {
+        return statusTotals[totalsSlot(status)].orderCount.sum();
+    }
+    
+    /**
+     * Get the summed total amount of orders with a given status from the running totals
+     * 
+     * @param status The order status to sum, or null for orders without a status
+     * @return The revenue of orders with the specified status, at a scale of 2
+     */
+    @Override
+    public BigDecimal getRevenueByStatus(RiceOrder.OrderStatus status) {
+        return BigDecimal.valueOf(statusTotals[totalsSlot(status)].revenue.sum(), Money.SCALE);
+    }
+    
+    /**
+     * Get order count and revenue for every status. Each figure is maintained
+     * incrementally, so this does not depend on the size of the store. Under
+     * concurrent writes the figures may reflect slightly different moments.
+     * 
+     * @return Totals per status, in declaration order of the statuses
+     */
+    @Override
+    public Map<RiceOrder.OrderStatus, StatusTotals> getStatusTotals() {
+        Map<RiceOrder.OrderStatus, StatusTotals> result = new EnumMap<>(RiceOrder.OrderStatus.class);
+        for (RiceOrder.OrderStatus status : RiceOrder.OrderStatus.values()) {
+            result.put(status, new StatusTotals(getOrderCountByStatus(status), getRevenueByStatus(status)));
+        }
+        return result;
+    }
+    
+    /**
+     * Get the summed total amount of all orders from the running totals
+     * 
+     * @return The revenue of all orders, at a scale of 2
+     */
+    @Override
+    public BigDecimal getTotalRevenue() {
+        long revenue = 0;
+        for (StatusTotalsCounter totals : statusTotals) {
+            revenue += totals.revenue.sum();
+        }
+        return BigDecimal.valueOf(revenue, Money.SCALE);
+    }
+    
+    /**
+     * Get the version of the repository as a whole, bumped after every applied write
+     * 
+     * @return The current store version
+     */
+    @Override
+    public long getStoreVersion() {
+        return storeVersion.get();
     }
     
     /**
@@ -459,11 +1012,377 @@ public class RiceOrderRepository {
      * @param orderId The order ID to check
      * @return true if the order exists, false otherwise
      */
+    @Override
     public boolean orderExists(String orderId) {
         if (orderId == null) {
             return false;
         }
-        return orders.containsKey(orderId);
+        if (orders.containsKey(orderId)) {
+            return true;
+        }
+        LazyOrderSource source = lazySource;
+        if (source == null) {
+            return false;
+        }
+        if (source.isPending(orderId)) {
+            return true;
+        }
+        // The order may be in the middle of being decoded; this waits for that to finish
+        return orders.computeIfAbsent(orderId, this::takeLazy) != null;
+    }
+    
+    static void validateNewOrder(RiceOrder order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        if (order.getOrderId() == null || order.getOrderId().trim().isEmpty()) {
+            throw new IllegalArgumentException("Order ID cannot be null or empty");
+        }
+    }
+    
+    /**
+     * Insert a new order, keeping the secondary indexes in sync
+     * 
+     * @param order The validated rice order to insert
+     * @param now Order date to use when the order has none
+     * @return The pending insert, to be settled once the journal has it
+     * @throws IllegalArgumentException if an order with the same ID already exists
+     */
+    private PendingWrite insert(RiceOrder order, LocalDateTime now) {
+        // Priced before the compute, where a total out of range would drop an order taken from the lazy source
+        RiceOrder priced = order.getTotalAmountMinor() == Money.ABSENT ? order.withCalculatedTotalAmount() : order;
+        boolean[] duplicate = new boolean[1];
+        PendingWrite[] write = new PendingWrite[1];
+        orders.compute(order.getOrderId(), (orderId, storedOrder) -> {
+            RiceOrder existing = storedOrder != null ? storedOrder : takeLazy(orderId);
+            if (existing != null) {
+                // Keep the existing order; throwing here would drop an order just taken from the lazy source
+                duplicate[0] = true;
+                return existing;
+            }
+            
+            RiceOrder.RiceOrderBuilder stored = priced.toBuilder();
+            
+            // Set order date if not already set
+            if (order.getOrderDate() == null) {
+                stored.orderDate(now);
+            }
+            
+            RiceOrder inserted = index(orderId, stored.version(nextVersion()).build(), true);
+            if (orderIds.add(orderId)) {
+                orderCount.incrementAndGet();
+            }
+            write[0] = new PendingWrite(orderId, null, inserted, journal.logPut(inserted));
+            return inserted;
+        });
+        if (duplicate[0]) {
+            throw new IllegalArgumentException("Order with ID " + order.getOrderId() + " already exists");
+        }
+        return write[0];
+    }
+    
+    /**
+     * Remove an order, keeping the secondary indexes in sync
+     * 
+     * @return The pending removal, or null if there was no such order
+     */
+    private PendingWrite remove(String orderId) {
+        return remove(orderId, null, new RiceOrder[1]);
+    }
+    
+    /**
+     * Remove an order if it has the expected version, keeping the secondary indexes in sync
+     * 
+     * @param conflict Receives the stored order if it has another version
+     * @return The pending removal, or null if there was no such order or it has another version
+     */
+    private PendingWrite remove(String orderId, Long expectedVersion, RiceOrder[] conflict) {
+        PendingWrite[] write = new PendingWrite[1];
+        orders.compute(orderId, (id, storedOrder) -> {
+            RiceOrder existingOrder = storedOrder != null ? storedOrder : takeLazy(id);
+            if (existingOrder != null && expectedVersion != null && existingOrder.getVersion() != expectedVersion) {
+                // Keep the stored order; throwing here would drop an order just taken from the lazy source
+                conflict[0] = existingOrder;
+                return existingOrder;
+            }
+            if (existingOrder != null) {
+                unindex(id, existingOrder);
+                if (orderIds.remove(id)) {
+                    orderCount.decrementAndGet();
+                }
+                write[0] = new PendingWrite(id, existingOrder, null, journal.logRemove(id));
+            }
+            return null;
+        });
+        return write[0];
+    }
+    
+    /**
+     * Insert or replace an order, keeping the secondary indexes in sync
+     * 
+     * @param order The rice order to store
+     */
+    private void putOrder(RiceOrder order) {
+        orders.compute(order.getOrderId(), (orderId, storedOrder) -> {
+            RiceOrder existingOrder = storedOrder != null ? storedOrder : takeLazy(orderId);
+            if (existingOrder != null) {
+                unindex(orderId, existingOrder);
+            }
+            RiceOrder stored = index(orderId, order.withVersion(nextVersion()), true);
+            if (orderIds.add(orderId)) {
+                orderCount.incrementAndGet();
+            }
+            return stored;
+        });
+        notifyChanged(order.getOrderId());
+    }
+    
+    private void notifyChanged(String orderId) {
+        storeVersion.incrementAndGet();
+        for (OrderChangeListener listener : changeListeners) {
+            listener.orderChanged(orderId);
+        }
+    }
+    
+    private void awaitDurable(PendingWrite write) {
+        if (write == null) {
+            return;
+        }
+        Throwable failure = settle(write);
+        if (failure != null) {
+            throw new IllegalStateException("Failed to persist order change", failure);
+        }
+    }
+    
+    /**
+     * Wait until a write is durable, then tell the listeners about it. A write
+     * the journal failed to record is rolled back first, and the listeners are
+     * told about the rollback instead, so nothing built from the write outlives it.
+     * 
+     * @return The cause if the journal failed to record the write, otherwise null
+     */
+    private Throwable settle(PendingWrite write) {
+        Throwable failure = null;
+        try {
+            write.commit.join();
+        } catch (CompletionException e) {
+            failure = e.getCause();
+            rollBack(write);
+        }
+        notifyChanged(write.orderId);
+        return failure;
+    }
+    
+    /**
+     * Restore the order a failed write replaced, unless a later write has already superseded it
+     */
+    private void rollBack(PendingWrite write) {
+        orders.compute(write.orderId, (id, storedOrder) -> {
+            if (storedOrder != write.written) {
+                return storedOrder;
+            }
+            if (write.written != null) {
+                unindex(id, write.written);
+            }
+            if (write.previous == null) {
+                if (orderIds.remove(id)) {
+                    orderCount.decrementAndGet();
+                }
+                return null;
+            }
+            // Not an upsert: another order of the customer may have stored newer details meanwhile
+            RiceOrder restored = index(id, write.previous, false);
+            if (write.written != null) {
+                customers.revert(restored.getCustomer(), restored.getVersion(), write.written.getVersion());
+            }
+            if (orderIds.add(id)) {
+                orderCount.incrementAndGet();
+            }
+            return restored;
+        });
+    }
+    
+    /**
+     * @return The version for the next write: the clock in microseconds, or one more
+     *         than the last version if the clock has not moved past it
+     */
+    private long nextVersion() {
+        long now = System.currentTimeMillis() * 1000;
+        return versionSequence.updateAndGet(last -> Math.max(last + 1, now));
+    }
+    
+    /**
+     * Look up an order, decoding it from the lazy source on first access.
+     * Must not be called from inside an orders.compute* function.
+     */
+    private RiceOrder resolve(String orderId) {
+        RiceOrder order = orders.get(orderId);
+        if (order == null && lazySource != null) {
+            order = orders.computeIfAbsent(orderId, this::takeLazy);
+        }
+        return order;
+    }
+    
+    /**
+     * Take an order from the lazy source. Only called while holding the lock for orderId.
+     */
+    private RiceOrder takeLazy(String orderId) {
+        LazyOrderSource source = lazySource;
+        RiceOrder order = source != null ? source.take(orderId) : null;
+        if (order != null) {
+            // Versions are not persisted; a decoded order starts at a fresh one
+            long version = nextVersion();
+            order = order.toBuilder()
+                    .customer(customers.adopt(order.getCustomer(), version))
+                    .version(version)
+                    .build();
+        }
+        return order;
+    }
+    
+    /**
+     * Add an order to the secondary indexes
+     * 
+     * @param customerWritten Whether the write supplied the customer, whose details then replace the stored ones
+     * @return The order to store, holding the shared Customer where the details match
+     */
+    private RiceOrder index(String orderId, RiceOrder order, boolean customerWritten) {
+        RiceOrder.OrderStatus status = order.getStatus();
+        if (status != null) {
+            statusIndex.get(status).add(orderId);
+        }
+        StatusTotalsCounter totals = statusTotals[totalsSlot(status)];
+        totals.orderCount.increment();
+        totals.revenue.add(Money.orZero(order.getTotalAmountMinor()));
+        
+        if (order.getOrderDate() != null) {
+            orderDateIndex.add(new TimeKey(order.getOrderDate(), orderId));
+        }
+        if (order.getDeliveryTime() != null) {
+            deliveryTimeIndex.add(new TimeKey(order.getDeliveryTime(), orderId));
+        }
+        
+        Customer customer = customers.attach(orderId, order.getCustomer(), customerWritten, order.getVersion());
+        return customer == order.getCustomer() ? order : order.withCustomer(customer);
+    }
+    
+    private void unindex(String orderId, RiceOrder order) {
+        if (order.getStatus() != null) {
+            statusIndex.get(order.getStatus()).remove(orderId);
+        }
+        StatusTotalsCounter totals = statusTotals[totalsSlot(order.getStatus())];
+        totals.orderCount.decrement();
+        totals.revenue.add(-Money.orZero(order.getTotalAmountMinor()));
+        
+        if (order.getOrderDate() != null) {
+            orderDateIndex.remove(new TimeKey(order.getOrderDate(), orderId));
+        }
+        if (order.getDeliveryTime() != null) {
+            deliveryTimeIndex.remove(new TimeKey(order.getDeliveryTime(), orderId));
+        }
+        
+        customers.detach(orderId, customerIdOf(order));
+    }
+    
+    /**
+     * Walk the part of a time index between two bounds. Costs log(n) to find the
+     * start plus one step per matching order.
+     */
+    private List<RiceOrder> scanTimeRange(NavigableSet<TimeKey> index, LocalDateTime from, LocalDateTime to,
+                                          Function<RiceOrder, LocalDateTime> timeOf) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Range start must not be after range end");
+        }
+        // An empty order ID sorts before every real one, so these keys bound all orders at that time
+        NavigableSet<TimeKey> range = index;
+        if (from != null) {
+            range = range.tailSet(new TimeKey(from, ""), true);
+        }
+        if (to != null) {
+            range = range.headSet(new TimeKey(to, ""), false);
+        }
+        List<RiceOrder> result = new ArrayList<>();
+        for (TimeKey key : range) {
+            RiceOrder order = resolve(key.orderId);
+            // Re-check against the stored order in case a change is in flight
+            if (order != null && key.time.equals(timeOf.apply(order))) {
+                result.add(order);
+            }
+        }
+        return result;
+    }
+    
+    private static String customerIdOf(RiceOrder order) {
+        return order.getCustomer() != null ? order.getCustomer().getCustomerId() : null;
+    }
+    
+    private static int totalsSlot(RiceOrder.OrderStatus status) {
+        return status != null ? status.ordinal() : NO_STATUS_SLOT;
+    }
+    
+    /**
+     * A write applied in memory whose journal entry may not be durable yet
+     */
+    private static final class PendingWrite {
+        final String orderId;
+        final RiceOrder previous;  // null if the order did not exist
+        final RiceOrder written;  // null for a removal
+        final CompletableFuture<Void> commit;
+        
+        PendingWrite(String orderId, RiceOrder previous, RiceOrder written, CompletableFuture<Void> commit) {
+            this.orderId = orderId;
+            this.previous = previous;
+            this.written = written;
+            this.commit = commit;
+        }
+    }
+    
+    /**
+     * Where a filter query takes its candidate order IDs from
+     */
+    private static final class QueryPlan {
+        final String index;
+        final long size;  // Number of candidates, exact when the plan was chosen
+        final Supplier<Stream<String>> candidates;
+        
+        QueryPlan(String index, long size, Supplier<Stream<String>> candidates) {
+            this.index = index;
+            this.size = size;
+            this.candidates = candidates;
+        }
+    }
+    
+    /**
+     * Index key ordering orders by a timestamp, with the order ID as tie-breaker
+     */
+    private static final class TimeKey implements Comparable<TimeKey> {
+        final LocalDateTime time;
+        final String orderId;
+        
+        TimeKey(LocalDateTime time, String orderId) {
+            this.time = time;
+            this.orderId = orderId;
+        }
+        
+        @Override
+        public int compareTo(TimeKey other) {
+            int byTime = time.compareTo(other.time);
+            return byTime != 0 ? byTime : orderId.compareTo(other.orderId);
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof TimeKey key && time.equals(key.time) && orderId.equals(key.orderId);
+        }
+        
+        @Override
+        public int hashCode() {
+            return 31 * time.hashCode() + orderId.hashCode();
+        }
+    }
+    
+    private static final class StatusTotalsCounter {
+        final LongAdder orderCount = new LongAdder();
+        final LongAdder revenue = new LongAdder();  // in Money minor units
     }
 }
-
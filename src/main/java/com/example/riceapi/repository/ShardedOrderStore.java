@@ -0,0 +1,592 @@
+package com.example.riceapi.repository;
+
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.Money;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.query.OrderQuery;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Partitions orders over several stores by order ID on a {@link ConsistentHashRing}.
+ * 
+ * Reads and writes of one order go to the shard that owns its ID. Queries over
+ * many orders are sent to every shard and the answers merged, keeping the order
+ * each query promises (by order ID, order date or delivery time). Counts and
+ * revenue are summed.
+ * 
+ * A customer's orders may lie on several shards, so its details are kept by
+ * the shard that owns the customer ID on the same ring: every write carrying
+ * customer details is passed on to that shard, which thereby sees all of them
+ * in one order whichever node they come from.
+ * 
+ * A shard can be any {@link OrderStore}: a {@link RiceOrderRepository} in this
+ * JVM, or an {@link HttpOrderStore} for the repository of another node. Scatter
+ * queries run on the given executor; by default they run one shard after another
+ * on the calling thread, which suits shards in this JVM. Changing the set of
+ * shards does not move orders that are already stored until {@link #rebalance()}
+ * is called.
+ * 
+ * With riceapi.sharding.enabled, {@link ShardingConfig} serves the API from a
+ * store of several {@link RiceOrderRepository} shards in this JVM, or of this
+ * node's repository and the other nodes' ones.
+ */
+public class ShardedOrderStore implements OrderStore {
+    
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+    
+    private static final Comparator<RiceOrder> BY_ORDER_ID = Comparator.comparing(RiceOrder::getOrderId);
+    private static final Comparator<RiceOrder> BY_ORDER_DATE =
+            Comparator.comparing(RiceOrder::getOrderDate).thenComparing(BY_ORDER_ID);
+    private static final Comparator<RiceOrder> BY_DELIVERY_TIME =
+            Comparator.comparing(RiceOrder::getDeliveryTime).thenComparing(BY_ORDER_ID);
+    
+    private final ConsistentHashRing<OrderStore> ring;
+    private final List<OrderStore> shards;
+    private final Executor executor;
+    
+    /**
+     * @param shards Shards by node ID; the IDs decide which shard owns which orders
+     */
+    public ShardedOrderStore(Map<String, ? extends OrderStore> shards) {
+        this(shards, DEFAULT_VIRTUAL_NODES, Runnable::run);
+    }
+    
+    /**
+     * @param shards Shards by node ID; the IDs decide which shard owns which orders
+     * @param virtualNodes Points per shard on the hash ring
+     * @param executor Runs the per-shard parts of scatter queries
+     */
+    public ShardedOrderStore(Map<String, ? extends OrderStore> shards, int virtualNodes, Executor executor) {
+        this.ring = new ConsistentHashRing<>(shards, virtualNodes);
+        this.shards = List.copyOf(ring.getNodes().values());
+        this.executor = executor;
+    }
+    
+    /**
+     * @param orderId The order ID to route
+     * @return The shard owning the order
+     * @throws IllegalArgumentException if orderId is null/empty
+     */
+    public OrderStore shardFor(String orderId) {
+        if (orderId == null || orderId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Order ID cannot be null or empty");
+        }
+        return ring.nodeFor(orderId);
+    }
+    
+    /**
+     * @return The shards by node ID
+     */
+    public Map<String, OrderStore> getShards() {
+        return ring.getNodes();
+    }
+    
+    @Override
+    public List<RiceOrder> getAllOrders() {
+        return concat(scatter(OrderStore::getAllOrders));
+    }
+    
+    @Override
+    public Stream<RiceOrder> streamAllOrders() {
+        List<Iterator<RiceOrder>> streams = new ArrayList<>(shards.size());
+        for (OrderStore shard : shards) {
+            streams.add(shard.streamAllOrders().iterator());
+        }
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                new MergingIterator(streams, BY_ORDER_ID), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+    
+    @Override
+    public List<RiceOrder> getOrdersPage(String afterOrderId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        // Each shard returns its own first limit orders; the page is the first limit of their union
+        return merge(scatter(shard -> shard.getOrdersPage(afterOrderId, limit)), BY_ORDER_ID, limit);
+    }
+    
+    @Override
+    public List<RiceOrder> getOrdersByStatus(RiceOrder.OrderStatus status) {
+        return concat(scatter(shard -> shard.getOrdersByStatus(status)));
+    }
+    
+    @Override
+    public Optional<RiceOrder> getOrderById(String orderId) {
+        if (orderId == null || orderId.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        return shardFor(orderId).getOrderById(orderId);
+    }
+    
+    @Override
+    public List<RiceOrder> getOrdersByCustomerId(String customerId) {
+        if (customerId == null) {
+            return new ArrayList<>();
+        }
+        return concat(scatter(shard -> shard.getOrdersByCustomerId(customerId)));
+    }
+    
+    /**
+     * The shard owning the customer ID has the customer's latest details. It keeps
+     * them after the last of the customer's orders is removed, so the customer is
+     * only known while some shard still holds one of its orders.
+     */
+    @Override
+    public Optional<CustomerRecord> getCustomerRecord(String customerId) {
+        if (customerId == null) {
+            return Optional.empty();
+        }
+        Optional<CustomerRecord> record = ring.nodeFor(customerId).getCustomerRecord(customerId);
+        if (record.isEmpty()) {
+            return record;
+        }
+        for (List<RiceOrder> orders : scatter(shard -> shard.getOrdersByCustomerId(customerId))) {
+            if (!orders.isEmpty()) {
+                return record;
+            }
+        }
+        return Optional.empty();
+    }
+    
+    @Override
+    public void putCustomer(Customer customer) {
+        if (customer == null || customer.getCustomerId() == null) {
+            throw new IllegalArgumentException("Customer ID cannot be null");
+        }
+        ring.nodeFor(customer.getCustomerId()).putCustomer(customer);
+    }
+    
+    @Override
+    public List<RiceOrder> getOrdersByOrderDateRange(LocalDateTime from, LocalDateTime to) {
+        return merge(scatter(shard -> shard.getOrdersByOrderDateRange(from, to)), BY_ORDER_DATE, Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public List<RiceOrder> getOrdersByDeliveryTimeRange(LocalDateTime from, LocalDateTime to) {
+        return merge(scatter(shard -> shard.getOrdersByDeliveryTimeRange(from, to)), BY_DELIVERY_TIME,
+                Integer.MAX_VALUE);
+    }
+    
+    @Override
+    public List<RiceOrder> findOrders(OrderQuery query, int limit) {
+        if (query == null) {
+            throw new IllegalArgumentException("Query cannot be null");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        // Each shard plans against its own indexes and stops at limit; any limit of their union will do
+        List<RiceOrder> result = concat(scatter(shard -> shard.findOrders(query, limit)));
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+    
+    @Override
+    public RiceOrder addOrder(RiceOrder order) {
+        RiceOrderRepository.validateNewOrder(order);
+        OrderStore shard = shardFor(order.getOrderId());
+        RiceOrder stored = shard.addOrder(order);
+        shareCustomer(shard, stored.getCustomer());
+        return stored;
+    }
+    
+    @Override
+    public List<InsertResult> addOrders(List<RiceOrder> batch) {
+        if (batch == null) {
+            throw new IllegalArgumentException("Batch cannot be null");
+        }
+        // One sub-batch per shard, so each shard can still commit its part as a group
+        InsertResult[] results = new InsertResult[batch.size()];
+        Map<OrderStore, List<Integer>> positions = new IdentityHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            RiceOrder order = batch.get(i);
+            try {
+                RiceOrderRepository.validateNewOrder(order);
+            } catch (IllegalArgumentException e) {
+                results[i] = new InsertResult(order, e.getMessage());
+                continue;
+            }
+            positions.computeIfAbsent(shardFor(order.getOrderId()), shard -> new ArrayList<>()).add(i);
+        }
+        
+        List<CompletableFuture<Void>> parts = new ArrayList<>(positions.size());
+        for (Map.Entry<OrderStore, List<Integer>> part : positions.entrySet()) {
+            List<Integer> indexes = part.getValue();
+            parts.add(CompletableFuture.runAsync(() -> {
+                List<RiceOrder> subBatch = new ArrayList<>(indexes.size());
+                for (int index : indexes) {
+                    subBatch.add(batch.get(index));
+                }
+                List<InsertResult> inserted = part.getKey().addOrders(subBatch);
+                for (int i = 0; i < indexes.size(); i++) {
+                    results[indexes.get(i)] = inserted.get(i);
+                    if (inserted.get(i).isInserted()) {
+                        shareCustomer(part.getKey(), inserted.get(i).getOrder().getCustomer());
+                    }
+                }
+            }, executor));
+        }
+        for (CompletableFuture<Void> part : parts) {
+            join(part);
+        }
+        return List.of(results);
+    }
+    
+    @Override
+    public Optional<RiceOrder> updateOrder(String orderId, RiceOrder updatedOrder, Long expectedVersion) {
+        OrderStore shard = shardFor(orderId);
+        Optional<RiceOrder> updated = shard.updateOrder(orderId, updatedOrder, expectedVersion);
+        updated.ifPresent(order -> shareCustomer(shard, order.getCustomer()));
+        return updated;
+    }
+    
+    @Override
+    public Optional<RiceOrder> partialUpdateOrder(String orderId, RiceOrder updates, Long expectedVersion) {
+        OrderStore shard = shardFor(orderId);
+        Optional<RiceOrder> updated = shard.partialUpdateOrder(orderId, updates, expectedVersion);
+        if (updates != null && updates.getCustomer() != null) {
+            updated.ifPresent(order -> shareCustomer(shard, order.getCustomer()));
+        }
+        return updated;
+    }
+    
+    @Override
+    public boolean removeOrder(String orderId, Long expectedVersion) {
+        return shardFor(orderId).removeOrder(orderId, expectedVersion);
+    }
+    
+    @Override
+    public void removeAllOrders() {
+        scatter(shard -> {
+            shard.removeAllOrders();
+            return null;
+        });
+    }
+    
+    @Override
+    public int getOrderCount() {
+        int count = 0;
+        for (int shardCount : scatter(OrderStore::getOrderCount)) {
+            count += shardCount;
+        }
+        return count;
+    }
+    
+    @Override
+    public long getOrderCountByStatus(RiceOrder.OrderStatus status) {
+        long count = 0;
+        for (long shardCount : scatter(shard -> shard.getOrderCountByStatus(status))) {
+            count += shardCount;
+        }
+        return count;
+    }
+    
+    @Override
+    public BigDecimal getRevenueByStatus(RiceOrder.OrderStatus status) {
+        return sum(scatter(shard -> shard.getRevenueByStatus(status)));
+    }
+    
+    @Override
+    public Map<RiceOrder.OrderStatus, StatusTotals> getStatusTotals() {
+        List<Map<RiceOrder.OrderStatus, StatusTotals>> perShard = scatter(OrderStore::getStatusTotals);
+        Map<RiceOrder.OrderStatus, StatusTotals> result = new EnumMap<>(RiceOrder.OrderStatus.class);
+        for (RiceOrder.OrderStatus status : RiceOrder.OrderStatus.values()) {
+            long orderCount = 0;
+            BigDecimal revenue = BigDecimal.valueOf(0, Money.SCALE);
+            for (Map<RiceOrder.OrderStatus, StatusTotals> totals : perShard) {
+                StatusTotals shardTotals = totals.get(status);
+                if (shardTotals != null) {
+                    orderCount += shardTotals.getOrderCount();
+                    revenue = revenue.add(shardTotals.getRevenue());
+                }
+            }
+            result.put(status, new StatusTotals(orderCount, revenue));
+        }
+        return result;
+    }
+    
+    @Override
+    public BigDecimal getTotalRevenue() {
+        return sum(scatter(OrderStore::getTotalRevenue));
+    }
+    
+    @Override
+    public long getStoreVersion() {
+        // Every shard version only grows, so the sum changes with each write to any shard
+        long version = 0;
+        for (OrderStore shard : shards) {
+            version += shard.getStoreVersion();
+        }
+        return version;
+    }
+    
+    @Override
+    public boolean orderExists(String orderId) {
+        if (orderId == null || orderId.trim().isEmpty()) {
+            return false;
+        }
+        return shardFor(orderId).orderExists(orderId);
+    }
+    
+    /**
+     * Registers the listener with every shard
+     */
+    @Override
+    public void addChangeListener(OrderChangeListener listener) {
+        for (OrderStore shard : shards) {
+            shard.addChangeListener(listener);
+        }
+    }
+    
+    /**
+     * Move every order held by a shard that does not own it to its owning shard,
+     * e.g. the orders a store already held when it became a shard, and hand the
+     * details of each shard's customers to the shards owning them. Meant to be
+     * called before the store takes traffic.
+     * 
+     * Each order is copied first and removed from the shard holding it only once
+     * its owner has it, and only if it has not changed in the meantime. An order
+     * that changed stays where it is, and a later call moves it.
+     * 
+     * @return The number of orders moved
+     */
+    public int rebalance() {
+        int moved = 0;
+        for (OrderStore shard : shards) {
+            List<RiceOrder> held = shard.streamAllOrders().toList();
+            // Before the moves, which drop a customer from the shard with its last order
+            shareCustomers(shard, held, false);
+            for (RiceOrder order : held) {
+                OrderStore owner = ring.nodeFor(order.getOrderId());
+                if (owner != shard && move(order, shard, owner)) {
+                    moved++;
+                }
+            }
+        }
+        return moved;
+    }
+    
+    /**
+     * Drop the orders a shard does not own, keeping the details of the customers it
+     * owns. For orders that every node starts with, e.g. the mock orders, of which
+     * the owning node has its own copy.
+     * 
+     * @param shard One of the shards
+     * @return The number of orders dropped
+     */
+    public int retainOwnedOrders(OrderStore shard) {
+        List<RiceOrder> held = shard.streamAllOrders().toList();
+        shareCustomers(shard, held, true);
+        int dropped = 0;
+        for (RiceOrder order : held) {
+            if (ring.nodeFor(order.getOrderId()) != shard && removeIfUnchanged(shard, order)) {
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+    
+    /**
+     * Copy an order to its owner, then remove it from the shard holding it if it is unchanged
+     * 
+     * @return true if the order was moved
+     */
+    private static boolean move(RiceOrder order, OrderStore from, OrderStore to) {
+        RiceOrder copy = null;
+        try {
+            copy = to.addOrder(order);
+        } catch (IllegalArgumentException e) {
+            // The owner may hold the order already, e.g. after a move cut short before the
+            // removal; it has taken the writes since, so its copy is the one to keep
+        }
+        if (!to.orderExists(order.getOrderId())) {
+            return false;
+        }
+        if (removeIfUnchanged(from, order)) {
+            return true;
+        }
+        if (copy != null) {
+            // Changed on its old shard after the copy was taken; the copy is stale
+            removeIfUnchanged(to, copy);
+        }
+        return false;
+    }
+    
+    /**
+     * @return true if the order was removed or was gone already, false if it has another version
+     */
+    private static boolean removeIfUnchanged(OrderStore shard, RiceOrder order) {
+        try {
+            shard.removeOrder(order.getOrderId(), order.getVersion());
+            return true;
+        } catch (OrderVersionConflictException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Hand the details of the customers of a shard's orders to the shards owning them
+     * 
+     * @param ownedOnly Whether to keep only the details of the customers the shard owns itself
+     */
+    private void shareCustomers(OrderStore shard, List<RiceOrder> held, boolean ownedOnly) {
+        Set<String> customerIds = new HashSet<>();
+        for (RiceOrder order : held) {
+            if (order.getCustomer() != null && order.getCustomer().getCustomerId() != null) {
+                customerIds.add(order.getCustomer().getCustomerId());
+            }
+        }
+        for (String customerId : customerIds) {
+            OrderStore owner = ring.nodeFor(customerId);
+            if (!ownedOnly || owner == shard) {
+                // The shard's own record has the details of its latest write for the customer
+                shard.getCustomerRecord(customerId).ifPresent(record -> owner.putCustomer(record.getCustomer()));
+            }
+        }
+    }
+    
+    /**
+     * Pass customer details written with an order on to the shard owning the customer,
+     * unless the order is on that shard and its write stored them already
+     */
+    private void shareCustomer(OrderStore orderShard, Customer customer) {
+        if (customer == null || customer.getCustomerId() == null) {
+            return;
+        }
+        OrderStore owner = ring.nodeFor(customer.getCustomerId());
+        if (owner != orderShard) {
+            owner.putCustomer(customer);
+        }
+    }
+    
+    /**
+     * Run a query on every shard
+     * 
+     * @return The answer of each shard, in shard order
+     */
+    private <T> List<T> scatter(Function<OrderStore, T> query) {
+        List<CompletableFuture<T>> answers = new ArrayList<>(shards.size());
+        for (OrderStore shard : shards) {
+            answers.add(CompletableFuture.supplyAsync(() -> query.apply(shard), executor));
+        }
+        List<T> result = new ArrayList<>(answers.size());
+        for (CompletableFuture<T> answer : answers) {
+            result.add(join(answer));
+        }
+        return result;
+    }
+    
+    private static <T> T join(CompletableFuture<T> answer) {
+        try {
+            return answer.join();
+        } catch (CompletionException e) {
+            // Surface the shard's own exception, e.g. an IllegalArgumentException for bad input
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    private static List<RiceOrder> concat(List<List<RiceOrder>> parts) {
+        int size = 0;
+        for (List<RiceOrder> part : parts) {
+            size += part.size();
+        }
+        List<RiceOrder> result = new ArrayList<>(size);
+        for (List<RiceOrder> part : parts) {
+            result.addAll(part);
+        }
+        return result;
+    }
+    
+    /**
+     * Merge lists that are each sorted by the comparator, keeping at most limit orders
+     */
+    private static List<RiceOrder> merge(List<List<RiceOrder>> parts, Comparator<RiceOrder> order, int limit) {
+        List<Iterator<RiceOrder>> iterators = new ArrayList<>(parts.size());
+        for (List<RiceOrder> part : parts) {
+            iterators.add(part.iterator());
+        }
+        Iterator<RiceOrder> merged = new MergingIterator(iterators, order);
+        List<RiceOrder> result = new ArrayList<>();
+        while (result.size() < limit && merged.hasNext()) {
+            result.add(merged.next());
+        }
+        return result;
+    }
+    
+    private static BigDecimal sum(List<BigDecimal> amounts) {
+        BigDecimal total = BigDecimal.valueOf(0, Money.SCALE);
+        for (BigDecimal amount : amounts) {
+            total = total.add(amount);
+        }
+        return total;
+    }
+    
+    /**
+     * K-way merge of iterators that are each sorted by the same comparator
+     */
+    private static final class MergingIterator implements Iterator<RiceOrder> {
+        
+        private final PriorityQueue<Head> heads;
+        
+        MergingIterator(List<Iterator<RiceOrder>> sources, Comparator<RiceOrder> order) {
+            this.heads = new PriorityQueue<>(Math.max(1, sources.size()),
+                    (a, b) -> order.compare(a.order, b.order));
+            for (Iterator<RiceOrder> source : sources) {
+                if (source.hasNext()) {
+                    heads.add(new Head(source.next(), source));
+                }
+            }
+        }
+        
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+        
+        @Override
+        public RiceOrder next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            if (head.source.hasNext()) {
+                heads.add(new Head(head.source.next(), head.source));
+            }
+            return head.order;
+        }
+        
+        private static final class Head {
+            final RiceOrder order;
+            final Iterator<RiceOrder> source;
+            
+            Head(RiceOrder order, Iterator<RiceOrder> source) {
+                this.order = order;
+                this.source = source;
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.riceapi.repository;
+
+import com.example.riceapi.mapper.RiceOrderMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Serves the API from a {@link ShardedOrderStore}, the application's own
+ * {@link RiceOrderRepository} being one of the shards.
+ * 
+ * Without riceapi.sharding.endpoints the other shards are further repositories
+ * in this JVM. With them, each endpoint is another node running this
+ * application, reached through an {@link HttpOrderStore}, and every node must
+ * list the same nodes: its own riceapi.sharding.node-id plus the endpoints.
+ * 
+ * The change feed, analytics and response cache listen to every shard in this
+ * JVM, and to the writes this node sends to other nodes. The write-ahead log
+ * only covers a single repository, so persistence must stay off. Analytics
+ * mirrors every order, which a node cannot do for the writes of other nodes,
+ * so it must be off as well with endpoints.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "riceapi.sharding", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+    
+    @Bean
+    @Primary
+    public ShardedOrderStore shardedOrderStore(RiceOrderRepository repository, ParallelScans scans,
+                                               ShardingProperties properties, Environment environment,
+                                               RiceOrderMapper mapper) {
+        if (environment.getProperty("riceapi.persistence.enabled", Boolean.class, false)) {
+            throw new IllegalStateException("riceapi.sharding.enabled cannot be combined with riceapi.persistence.enabled");
+        }
+        if (!properties.getEndpoints().isEmpty()) {
+            return nodeShards(repository, properties, environment, mapper);
+        }
+        if (properties.getShards() < 1) {
+            throw new IllegalStateException("riceapi.sharding.shards must be at least 1");
+        }
+        Map<String, RiceOrderRepository> shards = new LinkedHashMap<>();
+        shards.put("shard-0", repository);
+        for (int i = 1; i < properties.getShards(); i++) {
+            RiceOrderRepository shard = new RiceOrderRepository();
+            shard.setParallelScans(scans);
+            shards.put("shard-" + i, shard);
+        }
+        ShardedOrderStore store = new ShardedOrderStore(shards, properties.getVirtualNodes(), Runnable::run);
+        // The seed orders were added to the application's repository before it became a shard
+        store.rebalance();
+        return store;
+    }
+    
+    private static ShardedOrderStore nodeShards(RiceOrderRepository repository, ShardingProperties properties,
+                                                Environment environment, RiceOrderMapper mapper) {
+        if (environment.getProperty("riceapi.analytics.enabled", Boolean.class, true)) {
+            throw new IllegalStateException("riceapi.sharding.endpoints cannot be combined with riceapi.analytics.enabled");
+        }
+        String nodeId = properties.getNodeId();
+        if (nodeId == null || nodeId.isBlank()) {
+            throw new IllegalStateException("riceapi.sharding.node-id must be set with riceapi.sharding.endpoints");
+        }
+        if (properties.getEndpoints().containsKey(nodeId)) {
+            throw new IllegalStateException("riceapi.sharding.endpoints must not list this node, " + nodeId);
+        }
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(properties.getTimeout())
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(properties.getTimeout());
+        
+        Map<String, OrderStore> shards = new LinkedHashMap<>();
+        shards.put(nodeId, repository);
+        // A plain builder rather than the application's: its converters use the ObjectMapper, whose
+        // order serializer reads the response cache that listens to this store
+        properties.getEndpoints().forEach((id, endpoint) -> shards.put(id, new HttpOrderStore(
+                RestClient.builder().baseUrl(endpoint).requestFactory(requestFactory).build(), mapper)));
+        // Calls to other nodes mostly wait, so each shard's part of a scatter query gets a virtual thread
+        ShardedOrderStore store = new ShardedOrderStore(shards, properties.getVirtualNodes(), Thread::startVirtualThread);
+        // Every node starts with the same seed orders and keeps the ones it owns, without
+        // waiting for the other nodes to come up
+        store.retainOwnedOrders(repository);
+        return store;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.riceapi.repository;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "riceapi.sharding")
+public class ShardingProperties {
+    private boolean enabled = false;
+    private int shards = 4;  // Shards in this JVM, the application's own repository included; unused with endpoints
+    private int virtualNodes = ShardedOrderStore.DEFAULT_VIRTUAL_NODES;  // Points per shard on the hash ring
+    private String nodeId;  // This node's ID on the ring, required with endpoints
+    private Map<String, String> endpoints = new LinkedHashMap<>();  // Base URLs of the other nodes by node ID
+    private Duration timeout = Duration.ofSeconds(5);  // Connect and read timeout of calls to other nodes
+}
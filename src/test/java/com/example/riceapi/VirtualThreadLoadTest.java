@@ -0,0 +1,227 @@
+package com.example.riceapi;
+
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.OrderJournal;
+import com.example.riceapi.repository.RiceOrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares request throughput with platform and virtual request threads while
+ * every order write blocks on a slow downstream commit.
+ *
+ * Excluded from the regular build; run it with
+ * {@code ./mvnw -Pload-test test -Dloadtest.connections=10000}.
+ * Client and server share this JVM, so the open file limit must be
+ * comfortably above twice the number of connections.
+ */
+@Slf4j
+@Tag("load")
+@DisplayName("Virtual Thread Load Test")
+class VirtualThreadLoadTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("loadtest.connections", 10_000);
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 15));
+    private static final Duration WARM_UP = Duration.ofSeconds(Long.getLong("loadtest.warm-up-seconds", 5));
+    private static final Duration DOWNSTREAM_LATENCY =
+            Duration.ofMillis(Long.getLong("loadtest.downstream-latency-millis", 100));
+    
+    private static final AtomicLong ORDER_SEQUENCE = new AtomicLong();
+    
+    @Test
+    @DisplayName("Virtual threads should sustain more requests than the platform thread pool")
+    void virtualThreadsShouldBeatPlatformThreads() throws Exception {
+        double platform = measureThroughput(false);
+        double virtual = measureThroughput(true);
+        
+        log.info("Throughput at {} connections: platform {} req/s, virtual {} req/s",
+                CONNECTIONS, Math.round(platform), Math.round(virtual));
+        assertTrue(virtual > platform,
+                "Expected virtual threads (" + virtual + " req/s) to beat platform threads (" + platform + " req/s)");
+    }
+    
+    /**
+     * Start the application in the given thread mode and drive it with one client per connection
+     *
+     * @return Successful requests per second
+     */
+    private static double measureThroughput(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(RiceapiApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "server.tomcat.max-connections=" + (CONNECTIONS + 100),
+                        "server.tomcat.accept-count=" + CONNECTIONS,
+                        "logging.level.root=WARN",
+                        "logging.level." + VirtualThreadLoadTest.class.getName() + "=INFO")
+                .run()) {
+            // Stands in for the payment and courier calls of the wrapper layer: each write
+            // parks its request thread until the downstream answers
+            context.getBean(RiceOrderRepository.class).setJournal(new SlowDownstreamJournal(DOWNSTREAM_LATENCY));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            
+            AtomicLong completed = new AtomicLong();
+            AtomicLong failed = new AtomicLong();
+            long warmUpEnds = System.nanoTime() + WARM_UP.toNanos();
+            long measurementEnds = warmUpEnds + DURATION.toNanos();
+            AtomicLong measured = new AtomicLong();
+            
+            try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<CompletableFuture<Void>> connections = new ArrayList<>(CONNECTIONS);
+                for (int i = 0; i < CONNECTIONS; i++) {
+                    connections.add(CompletableFuture.runAsync(() -> {
+                        try {
+                            runClient(port, measurementEnds, warmUpEnds, completed, measured);
+                        } catch (IOException e) {
+                            failed.incrementAndGet();
+                        }
+                    }, clients));
+                }
+                CompletableFuture.allOf(connections.toArray(CompletableFuture[]::new))
+                        .get(WARM_UP.plus(DURATION).toSeconds() + 60, TimeUnit.SECONDS);
+            }
+            
+            log.info("{} threads: {} requests ({} measured), {} failed connections",
+                    virtualThreads ? "Virtual" : "Platform", completed.get(), measured.get(), failed.get());
+            return measured.get() / (double) DURATION.toSeconds();
+        }
+    }
+    
+    /**
+     * Send single-order batch requests over one keep-alive connection until the deadline
+     */
+    private static void runClient(int port, long deadline, long measureFrom,
+                                  AtomicLong completed, AtomicLong measured) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress("localhost", port), 60_000);
+            socket.setSoTimeout(60_000);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            while (System.nanoTime() < deadline) {
+                byte[] body = orderJson("LOAD" + ORDER_SEQUENCE.incrementAndGet()).getBytes(StandardCharsets.UTF_8);
+                out.write(("POST /api/v1/orders/batch HTTP/1.1\r\n"
+                        + "Host: localhost\r\n"
+                        + "Content-Type: application/json\r\n"
+                        + "Content-Length: " + body.length + "\r\n"
+                        + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.write(body);
+                out.flush();
+                
+                int status = readResponse(in);
+                if (status != 201) {
+                    throw new IOException("Unexpected status " + status);
+                }
+                completed.incrementAndGet();
+                long now = System.nanoTime();
+                if (now >= measureFrom && now < deadline) {
+                    measured.incrementAndGet();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Read one HTTP/1.1 response, fixed-length or chunked, and return its status code
+     */
+    private static int readResponse(InputStream in) throws IOException {
+        String statusLine = readLine(in);
+        int status = Integer.parseInt(statusLine.split(" ")[1]);
+        long contentLength = 0;
+        boolean chunked = false;
+        String header;
+        while (!(header = readLine(in)).isEmpty()) {
+            String name = header.substring(0, header.indexOf(':')).trim();
+            String value = header.substring(header.indexOf(':') + 1).trim();
+            if (name.equalsIgnoreCase("Content-Length")) {
+                contentLength = Long.parseLong(value);
+            } else if (name.equalsIgnoreCase("Transfer-Encoding") && value.equalsIgnoreCase("chunked")) {
+                chunked = true;
+            }
+        }
+        if (!chunked) {
+            in.skipNBytes(contentLength);
+            return status;
+        }
+        long chunkSize;
+        while ((chunkSize = Long.parseLong(readLine(in).trim(), 16)) > 0) {
+            in.skipNBytes(chunkSize);
+            readLine(in);
+        }
+        readLine(in);
+        return status;
+    }
+    
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                throw new IOException("Connection closed by server");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+    
+    private static String orderJson(String orderId) {
+        return """
+                {"orders":[{"orderId":"%s",
+                "customer":{"customerId":"CUST001","name":"Load Test","email":"load@test.com"},
+                "orderItems":[{"itemId":"ITEM001","riceType":"Nasi Goreng Special","quantity":1,"pricePerUnit":45000}],
+                "deliveryAddress":{"street":"Jl. Sudirman No. 1","city":"Jakarta","country":"Indonesia"},
+                "status":"PENDING","paymentMethod":"Cash"}]}
+                """.formatted(orderId);
+    }
+    
+    /**
+     * Journal whose commits complete after a fixed delay, like a synchronous call to another service
+     */
+    private static final class SlowDownstreamJournal implements OrderJournal {
+    
+        private final long latencyMillis;
+        
+        SlowDownstreamJournal(Duration latency) {
+            this.latencyMillis = latency.toMillis();
+        }
+        
+        @Override
+        public CompletableFuture<Void> logPut(RiceOrder order) {
+            return delayed();
+        }
+        
+        @Override
+        public CompletableFuture<Void> logRemove(String orderId) {
+            return delayed();
+        }
+        
+        private CompletableFuture<Void> delayed() {
+            return CompletableFuture.runAsync(() -> { },
+                    CompletableFuture.delayedExecutor(latencyMillis, TimeUnit.MILLISECONDS, Runnable::run));
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.riceapi.analytics;
+
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.ParallelScans;
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Order Item Columns Tests")
+class OrderItemColumnsTest {
+    
+    private static final LocalDateTime MORNING = LocalDateTime.of(2024, 3, 1, 9, 15);
+    private static final LocalDateTime EVENING = LocalDateTime.of(2024, 3, 1, 19, 40);
+    
+    private RiceOrderRepository repository;
+    private OrderItemColumns columns;
+    
+    @BeforeEach
+    void setUp() {
+        repository = new RiceOrderRepository();
+        columns = new OrderItemColumns(repository);
+        repository.addChangeListener(columns);
+    }
+    
+    @Test
+    @DisplayName("Should group units and revenue by rice type")
+    void shouldGroupByRiceType() {
+        repository.addOrder(order("ORD001", MORNING, RiceOrder.OrderStatus.DELIVERED,
+                item("Nasi Goreng Ayam", 2, "25000", "Mild"), item("Nasi Goreng Seafood", 1, "35000", "Hot")));
+        repository.addOrder(order("ORD002", EVENING, RiceOrder.OrderStatus.PENDING,
+                item("Nasi Goreng Ayam", 3, "25000", "Hot")));
+        
+        List<OrderItemColumns.ItemGroup> groups = columns.aggregate(EnumSet.of(ItemDimension.RICE_TYPE),
+                Set.of(), null, null);
+        
+        assertEquals(2, groups.size());
+        assertEquals("Nasi Goreng Ayam", groups.get(0).getRiceType());
+        assertNull(groups.get(0).getSpiceLevel());
+        assertEquals(2, groups.get(0).getItemCount());
+        assertEquals(5, groups.get(0).getUnits());
+        assertEquals(0, new BigDecimal("125000").compareTo(groups.get(0).getRevenue()));
+        assertEquals("Nasi Goreng Seafood", groups.get(1).getRiceType());
+        assertEquals(1, groups.get(1).getUnits());
+    }
+    
+    @Test
+    @DisplayName("Should bucket by hour and filter by status and order date")
+    void shouldGroupByHourWithFilters() {
+        repository.addOrder(order("ORD001", MORNING, RiceOrder.OrderStatus.DELIVERED,
+                item("Nasi Goreng Ayam", 2, "25000", "Mild")));
+        repository.addOrder(order("ORD002", EVENING, RiceOrder.OrderStatus.DELIVERED,
+                item("Nasi Goreng Ayam", 3, "25000", "Mild")));
+        repository.addOrder(order("ORD003", EVENING, RiceOrder.OrderStatus.CANCELLED,
+                item("Nasi Goreng Ayam", 7, "25000", "Mild")));
+        
+        List<OrderItemColumns.ItemGroup> byHour = columns.aggregate(
+                EnumSet.of(ItemDimension.HOUR, ItemDimension.SPICE_LEVEL),
+                EnumSet.of(RiceOrder.OrderStatus.DELIVERED), null, null);
+        
+        assertEquals(2, byHour.size());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 9, 0), byHour.get(0).getPeriod());
+        assertEquals("Mild", byHour.get(0).getSpiceLevel());
+        assertEquals(2, byHour.get(0).getUnits());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 19, 0), byHour.get(1).getPeriod());
+        assertEquals(3, byHour.get(1).getUnits());
+        
+        List<OrderItemColumns.ItemGroup> evening = columns.aggregate(EnumSet.noneOf(ItemDimension.class),
+                Set.of(), LocalDateTime.of(2024, 3, 1, 12, 0), null);
+        assertEquals(1, evening.size());
+        assertEquals(10, evening.get(0).getUnits());
+    }
+    
+    @Test
+    @DisplayName("Should replace the items of updated orders and drop removed orders")
+    void shouldFollowUpdatesAndRemovals() {
+        repository.addOrder(order("ORD001", MORNING, RiceOrder.OrderStatus.PENDING,
+                item("Nasi Goreng Ayam", 2, "25000", "Mild")));
+        repository.addOrder(order("ORD002", MORNING, RiceOrder.OrderStatus.PENDING,
+                item("Nasi Goreng Ayam", 1, "25000", "Mild")));
+        
+        repository.updateOrder("ORD001", order("ORD001", MORNING, RiceOrder.OrderStatus.CONFIRMED,
+                item("Nasi Goreng Seafood", 4, "35000", "Hot")));
+        repository.partialUpdateOrder("ORD001", RiceOrder.builder().status(RiceOrder.OrderStatus.DELIVERED).build());
+        repository.removeOrder("ORD002");
+        
+        List<OrderItemColumns.ItemGroup> groups = columns.aggregate(EnumSet.of(ItemDimension.RICE_TYPE),
+                EnumSet.of(RiceOrder.OrderStatus.DELIVERED), null, null);
+        
+        assertEquals(1, columns.getItemCount());
+        assertEquals(1, groups.size());
+        assertEquals("Nasi Goreng Seafood", groups.get(0).getRiceType());
+        assertEquals(4, groups.get(0).getUnits());
+    }
+    
+    @Test
+    @DisplayName("Should keep totals when dead rows are compacted")
+    void shouldCompactDeadRows() {
+        repository.addOrder(order("ORD001", MORNING, RiceOrder.OrderStatus.PENDING,
+                item("Nasi Goreng Ayam", 1, "25000", "Mild")));
+        repository.addOrder(order("ORD002", EVENING, RiceOrder.OrderStatus.PENDING,
+                item("Nasi Goreng Seafood", 2, "35000", "Hot")));
+        for (int i = 1; i <= 3000; i++) {
+            repository.updateOrder("ORD001", order("ORD001", MORNING, RiceOrder.OrderStatus.PENDING,
+                    item("Nasi Goreng Ayam", i, "25000", "Mild")));
+        }
+        
+        List<OrderItemColumns.ItemGroup> groups = columns.aggregate(EnumSet.of(ItemDimension.RICE_TYPE),
+                Set.of(), null, null);
+        
+        assertEquals(2, columns.getItemCount());
+        assertEquals(3000, groups.get(0).getUnits());
+        assertEquals(2, groups.get(1).getUnits());
+    }
+    
+    @Test
+    @DisplayName("Should aggregate the same totals when the scan runs in parallel")
+    void shouldMatchSequentialAggregateInParallel() {
+        String[] riceTypes = {"Nasi Goreng Ayam", "Nasi Goreng Seafood", "Nasi Goreng Pete"};
+        for (int i = 0; i < 20_000; i++) {
+            repository.addOrder(order("ORD" + i, MORNING.plusMinutes(i), RiceOrder.OrderStatus.DELIVERED,
+                    item(riceTypes[i % riceTypes.length], 1 + i % 4, "25000", "Mild")));
+        }
+        Set<ItemDimension> groupBy = EnumSet.of(ItemDimension.RICE_TYPE, ItemDimension.DAY);
+        List<OrderItemColumns.ItemGroup> sequential = columns.aggregate(groupBy, Set.of(), null, null);
+        
+        try (ParallelScans scans = new ParallelScans(4, 1000)) {
+            OrderItemColumns parallel = new OrderItemColumns(repository, scans);
+            parallel.loadAll();
+            
+            assertEquals(sequential, parallel.aggregate(groupBy, Set.of(), null, null));
+        }
+    }
+    
+    @Test
+    @DisplayName("Should mirror orders written before it was registered")
+    void shouldLoadExistingOrders() {
+        RiceOrderRepository existing = new RiceOrderRepository();
+        existing.addOrder(order("ORD001", MORNING, RiceOrder.OrderStatus.DELIVERED,
+                item("Nasi Goreng Ayam", 2, "25000", "Mild")));
+        OrderItemColumns loaded = new OrderItemColumns(existing);
+        
+        loaded.loadAll();
+        loaded.loadAll();
+        
+        assertEquals(1, loaded.getItemCount());
+        assertThrows(IllegalArgumentException.class, () -> loaded.aggregate(
+                EnumSet.of(ItemDimension.HOUR, ItemDimension.DAY), Set.of(), null, null));
+    }
+    
+    private static RiceOrder order(String orderId, LocalDateTime orderDate, RiceOrder.OrderStatus status,
+                                   OrderItem... items) {
+        return RiceOrder.builder()
+                .orderId(orderId)
+                .orderDate(orderDate)
+                .status(status)
+                .orderItems(List.of(items))
+                .build();
+    }
+    
+    private static OrderItem item(String riceType, int quantity, String price, String spiceLevel) {
+        return OrderItem.builder()
+                .riceType(riceType)
+                .quantity(quantity)
+                .pricePerUnit(new BigDecimal(price))
+                .spiceLevel(spiceLevel)
+                .build();
+    }
+}
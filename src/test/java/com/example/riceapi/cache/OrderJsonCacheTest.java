@@ -0,0 +1,177 @@
+package com.example.riceapi.cache;
+
+import com.example.riceapi.mapper.RiceOrderJsonSerializer;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("OrderJsonCache Tests")
+class OrderJsonCacheTest {
+    
+    private RiceOrderRepository repository;
+    private OrderJsonCache cache;
+    private ObjectMapper objectMapper;
+    private ObjectMapper uncachedMapper;
+    
+    @BeforeEach
+    void setUp() {
+        repository = new RiceOrderRepository();
+        cache = new OrderJsonCache(1024 * 1024);
+        repository.addChangeListener(cache);
+        objectMapper = objectMapper(new RiceOrderJsonSerializer(cache));
+        uncachedMapper = objectMapper(new RiceOrderJsonSerializer());
+    }
+    
+    @Test
+    @DisplayName("Should serve delivered orders from the cache with unchanged output")
+    void shouldServeDeliveredOrdersFromCache() throws Exception {
+        RiceOrder order = order("ORD001", RiceOrder.OrderStatus.DELIVERED, "Extra sambal");
+        repository.addOrder(order);
+        String expected = uncachedMapper.writeValueAsString(new RiceOrderMapper().toResponse(order));
+        
+        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), objectMapper.writeValueAsBytes(order));
+        OrderJsonCache.EncodedOrder encoded = cache.get("ORD001", order.getVersion());
+        assertNotNull(encoded);
+        
+        // Later writes copy the cached bytes
+        assertEquals("[" + expected + "," + expected + "]", objectMapper.writeValueAsString(List.of(order, order)));
+        assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), objectMapper.writeValueAsBytes(order));
+        assertSame(encoded, cache.get("ORD001", order.getVersion()));
+    }
+    
+    @Test
+    @DisplayName("Should write binary formats field by field, bypassing the JSON cache")
+    void shouldBypassCacheForBinaryFormats() throws Exception {
+        RiceOrder order = order("ORD001", RiceOrder.OrderStatus.DELIVERED, "Extra sambal");
+        repository.addOrder(order);
+        String json = objectMapper.writeValueAsString(order);
+        OrderJsonCache.EncodedOrder encoded = cache.get("ORD001", order.getVersion());
+        ObjectMapper cborMapper = Jackson2ObjectMapperBuilder.cbor()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .serializerByType(RiceOrder.class, new RiceOrderJsonSerializer(cache))
+                .build();
+        
+        byte[] cbor = cborMapper.writeValueAsBytes(order);
+        
+        assertEquals(objectMapper.readTree(json), cborMapper.readTree(cbor));
+        assertSame(encoded, cache.get("ORD001", order.getVersion()));
+    }
+    
+    @Test
+    @DisplayName("Should not cache orders that can still change")
+    void shouldNotCacheActiveOrders() throws Exception {
+        RiceOrder order = order("ORD001", RiceOrder.OrderStatus.PREPARING, null);
+        repository.addOrder(order);
+        
+        objectMapper.writeValueAsBytes(order);
+        
+        assertNull(cache.get("ORD001", order.getVersion()));
+        assertEquals(0, cache.size());
+    }
+    
+    @Test
+    @DisplayName("Should drop entries when orders are updated or removed")
+    void shouldInvalidateOnWrites() throws Exception {
+        repository.addOrder(order("ORD001", RiceOrder.OrderStatus.DELIVERED, null));
+        repository.addOrder(order("ORD002", RiceOrder.OrderStatus.CANCELLED, null));
+        repository.addOrder(order("ORD003", RiceOrder.OrderStatus.DELIVERED, null));
+        objectMapper.writeValueAsBytes(repository.getAllOrders());
+        assertEquals(3, cache.size());
+        
+        repository.updateOrder("ORD001", order("ORD001", RiceOrder.OrderStatus.DELIVERED, "Changed"));
+        repository.partialUpdateOrder("ORD002", RiceOrder.builder().paymentMethod("Cash").build());
+        repository.removeOrder("ORD003");
+        
+        assertEquals(0, cache.size());
+        RiceOrder updated = repository.getOrderById("ORD001").orElseThrow();
+        assertTrue(objectMapper.writeValueAsString(updated).contains("\"additionalNotes\":\"Changed\""));
+        RiceOrder partiallyUpdated = repository.getOrderById("ORD002").orElseThrow();
+        assertTrue(objectMapper.writeValueAsString(partiallyUpdated).contains("\"paymentMethod\":\"Cash\""));
+    }
+    
+    @Test
+    @DisplayName("Should not serve an entry encoded from another version")
+    void shouldIgnoreOtherVersions() throws Exception {
+        RiceOrder order = order("ORD001", RiceOrder.OrderStatus.DELIVERED, null);
+        repository.addOrder(order);
+        cache.put("ORD001", order.getVersion() - 1, "{\"stale\":true}".getBytes(StandardCharsets.UTF_8));
+        
+        assertNull(cache.get("ORD001", order.getVersion()));
+        assertFalse(objectMapper.writeValueAsString(order).contains("stale"));
+    }
+    
+    @Test
+    @DisplayName("Should write cached orders larger than the generator buffer")
+    void shouldWriteLargeCachedOrders() throws Exception {
+        RiceOrder order = order("ORD001", RiceOrder.OrderStatus.DELIVERED, "x".repeat(20_000));
+        repository.addOrder(order);
+        String expected = uncachedMapper.writeValueAsString(order);
+        
+        objectMapper.writeValueAsBytes(order);
+        
+        assertNotNull(cache.get("ORD001", order.getVersion()));
+        assertEquals(expected, new String(objectMapper.writeValueAsBytes(List.of(order)), StandardCharsets.UTF_8)
+                .substring(1, expected.length() + 1));
+    }
+    
+    @Test
+    @DisplayName("Should stay within its size bound")
+    void shouldEvictBeyondMaxSize() throws Exception {
+        cache = new OrderJsonCache(16 * 1024);
+        objectMapper = objectMapper(new RiceOrderJsonSerializer(cache));
+        List<RiceOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            RiceOrder order = order(String.format("ORD%03d", i), RiceOrder.OrderStatus.DELIVERED, null);
+            repository.addOrder(order);
+            orders.add(order);
+        }
+        
+        objectMapper.writeValueAsBytes(orders);
+        
+        assertTrue(cache.size() < 200, "Expected evictions, cache holds " + cache.size());
+        assertTrue(cache.size() > 0);
+    }
+    
+    private static ObjectMapper objectMapper(RiceOrderJsonSerializer serializer) {
+        // Same date handling as the Spring Boot auto-configured mapper
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .serializerByType(RiceOrder.class, serializer)
+                .build();
+    }
+    
+    private static RiceOrder order(String orderId, RiceOrder.OrderStatus status, String notes) {
+        List<OrderItem> items = new ArrayList<>();
+        items.add(OrderItem.builder()
+                .itemId("ITEM001")
+                .riceType("Nasi Goreng Special")
+                .quantity(2)
+                .pricePerUnit(new BigDecimal("45000"))
+                .additionalNotes(notes)
+                .build());
+        return RiceOrder.builder()
+                .orderId(orderId)
+                .customer(Customer.builder().customerId("CUST001").name("Siti Nurhaliza").build())
+                .orderItems(items)
+                .status(status)
+                .orderDate(LocalDateTime.of(2024, 1, 15, 12, 30))
+                .paymentMethod("E-Wallet")
+                .build();
+    }
+}
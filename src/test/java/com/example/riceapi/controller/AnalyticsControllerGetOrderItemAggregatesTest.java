@@ -0,0 +1,78 @@
+package com.example.riceapi.controller;
+
+import com.example.riceapi.analytics.OrderItemColumns;
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.dto.OrderItemAggregate;
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AnalyticsController - getOrderItemAggregates() Tests")
+class AnalyticsControllerGetOrderItemAggregatesTest {
+    
+    private AnalyticsController controller;
+    
+    @BeforeEach
+    void setUp() {
+        RiceOrderRepository repository = new RiceOrderRepository();
+        OrderItemColumns columns = new OrderItemColumns(repository);
+        repository.addChangeListener(columns);
+        controller = new AnalyticsController(columns);
+        repository.addOrder(RiceOrder.builder()
+                .orderId("ORD001")
+                .orderDate(LocalDateTime.of(2024, 3, 1, 9, 15))
+                .status(RiceOrder.OrderStatus.DELIVERED)
+                .orderItems(List.of(
+                        OrderItem.builder().riceType("Nasi Goreng Ayam").quantity(2)
+                                .pricePerUnit(new BigDecimal("25000")).spiceLevel("Mild").build(),
+                        OrderItem.builder().riceType("Nasi Goreng Ayam").quantity(1)
+                                .pricePerUnit(new BigDecimal("25000")).spiceLevel("Hot").build()))
+                .build());
+    }
+    
+    @Test
+    @DisplayName("Should return one aggregate per group")
+    void shouldReturnGroups() {
+        ResponseEntity<ApiResponse<List<OrderItemAggregate>>> response =
+                controller.getOrderItemAggregates("riceType, spiceLevel", "delivered", null, null);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        List<OrderItemAggregate> groups = response.getBody().getData();
+        assertEquals(2, groups.size());
+        assertEquals("Hot", groups.get(0).getSpiceLevel());
+        assertEquals(1, groups.get(0).getUnits());
+        assertEquals("Mild", groups.get(1).getSpiceLevel());
+        assertEquals(0, new BigDecimal("50000").compareTo(groups.get(1).getRevenue()));
+    }
+    
+    @Test
+    @DisplayName("Should aggregate all items into one group without groupBy")
+    void shouldReturnSingleGroup() {
+        List<OrderItemAggregate> groups = controller.getOrderItemAggregates(null, null, null, null).getBody().getData();
+        
+        assertEquals(1, groups.size());
+        assertEquals(2, groups.get(0).getItemCount());
+        assertEquals(3, groups.get(0).getUnits());
+    }
+    
+    @Test
+    @DisplayName("Should reject unknown dimensions and statuses and conflicting buckets")
+    void shouldRejectInvalidParameters() {
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getOrderItemAggregates("week", null, null, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getOrderItemAggregates(null, "LOST", null, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.getOrderItemAggregates("hour,day", null, null, null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                controller.getOrderItemAggregates(null, null, "yesterday", null).getStatusCode());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.riceapi.controller;
+
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.dto.CustomerDto;
+import com.example.riceapi.dto.RiceOrderResponse;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CustomerController - getCustomerOrders() Tests")
+class CustomerControllerGetCustomerOrdersTest {
+    
+    private RiceOrderRepository repository;
+    private CustomerController controller;
+    
+    @BeforeEach
+    void setUp() {
+        repository = new RiceOrderRepository();
+        controller = new CustomerController(repository, new RiceOrderMapper());
+        Customer customer = Customer.builder().customerId("CUST001").name("Ahmad Rizki").build();
+        repository.addOrder(RiceOrder.builder().orderId("ORD001").customer(customer).build());
+        repository.addOrder(RiceOrder.builder().orderId("ORD002").customer(customer).build());
+        repository.addOrder(RiceOrder.builder().orderId("ORD003")
+                .customer(Customer.builder().customerId("CUST002").build()).build());
+    }
+    
+    @Test
+    @DisplayName("Should return only the orders of the customer")
+    void shouldReturnCustomerOrders() {
+        ResponseEntity<ApiResponse<List<RiceOrderResponse>>> response = controller.getCustomerOrders("CUST001");
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of("ORD001", "ORD002"), response.getBody().getData().stream()
+                .map(RiceOrderResponse::getOrderId).sorted().toList());
+    }
+    
+    @Test
+    @DisplayName("Should return the customer with its latest details")
+    void shouldReturnCustomer() {
+        ResponseEntity<ApiResponse<CustomerDto>> response = controller.getCustomer("CUST001");
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Ahmad Rizki", response.getBody().getData().getName());
+    }
+    
+    @Test
+    @DisplayName("Should return 404 for a customer without orders")
+    void shouldReturnNotFound() {
+        assertEquals(HttpStatus.NOT_FOUND, controller.getCustomerOrders("CUST999").getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, controller.getCustomer("CUST999").getStatusCode());
+    }
+}
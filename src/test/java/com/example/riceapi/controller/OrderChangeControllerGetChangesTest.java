@@ -0,0 +1,102 @@
+package com.example.riceapi.controller;
+
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.feed.ChangeFeedProperties;
+import com.example.riceapi.feed.OrderChangeFeed;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("OrderChangeController - getChanges() Tests")
+class OrderChangeControllerGetChangesTest {
+    
+    private RiceOrderRepository repository;
+    private OrderChangeFeed feed;
+    private OrderChangeController controller;
+    private long start;
+    
+    @BeforeEach
+    void setUp() {
+        repository = new RiceOrderRepository();
+        feed = new OrderChangeFeed(repository, 100);
+        repository.addChangeListener(feed);
+        controller = new OrderChangeController(feed, new ChangeFeedProperties());
+        start = feed.getHeadOffset();
+    }
+    
+    @Test
+    @DisplayName("Should return the current offset right away when no offset is given")
+    void shouldReturnHeadOffset() {
+        repository.addOrder(RiceOrder.builder().orderId("ORD001").build());
+        
+        ApiResponse<OrderChangeFeed.Batch> body = result(controller.getChanges(null, 100, Duration.ofSeconds(25)));
+        
+        assertTrue(body.getData().getEvents().isEmpty());
+        assertEquals(start + 1, body.getData().getNextOffset());
+    }
+    
+    @Test
+    @DisplayName("Should return pending changes right away")
+    void shouldReturnPendingChanges() {
+        repository.addOrder(RiceOrder.builder().orderId("ORD001").build());
+        repository.removeOrder("ORD001");
+        
+        ApiResponse<OrderChangeFeed.Batch> body = result(controller.getChanges(start, 100, Duration.ofSeconds(25)));
+        
+        assertEquals(2, body.getData().getEvents().size());
+        assertEquals(start + 2, body.getData().getNextOffset());
+        assertEquals("Retrieved 2 changes successfully", body.getMessage());
+    }
+    
+    @Test
+    @DisplayName("Should hold the request until the next change")
+    void shouldWaitForNextChange() {
+        DeferredResult<ResponseEntity<ApiResponse<OrderChangeFeed.Batch>>> pending =
+                controller.getChanges(start, 100, Duration.ofSeconds(25));
+        assertFalse(pending.hasResult());
+        
+        repository.addOrder(RiceOrder.builder().orderId("ORD001").build());
+        
+        ApiResponse<OrderChangeFeed.Batch> body = result(pending);
+        assertEquals("ORD001", body.getData().getEvents().get(0).getOrderId());
+        assertEquals(start + 1, body.getData().getNextOffset());
+    }
+    
+    @Test
+    @DisplayName("Should signal a reset for an offset the feed does not have, e.g. from before a restart")
+    void shouldSignalReset() {
+        ApiResponse<OrderChangeFeed.Batch> body = result(controller.getChanges(42L, 100, Duration.ofSeconds(25)));
+        
+        assertTrue(body.getData().isReset());
+        assertEquals(start, body.getData().getNextOffset());
+    }
+    
+    @Test
+    @DisplayName("Should return 400 for an invalid limit")
+    void shouldRejectInvalidLimit() {
+        @SuppressWarnings("unchecked")
+        ResponseEntity<ApiResponse<OrderChangeFeed.Batch>> response =
+                (ResponseEntity<ApiResponse<OrderChangeFeed.Batch>>) controller.getChanges(0L, 0, Duration.ZERO).getResult();
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static ApiResponse<OrderChangeFeed.Batch> result(
+            DeferredResult<ResponseEntity<ApiResponse<OrderChangeFeed.Batch>>> deferred) {
+        assertTrue(deferred.hasResult());
+        ResponseEntity<ApiResponse<OrderChangeFeed.Batch>> response =
+                (ResponseEntity<ApiResponse<OrderChangeFeed.Batch>>) deferred.getResult();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+}
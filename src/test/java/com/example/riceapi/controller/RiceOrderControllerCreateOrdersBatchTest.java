@@ -0,0 +1,115 @@
+package com.example.riceapi.controller;
+
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.dto.BatchOrderRequest;
+import com.example.riceapi.dto.BatchOrderResponse;
+import com.example.riceapi.dto.CustomerDto;
+import com.example.riceapi.dto.OrderItemDto;
+import com.example.riceapi.dto.RiceOrderRequest;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RiceOrderController - createOrdersBatch() Tests")
+class RiceOrderControllerCreateOrdersBatchTest {
+    
+    private RiceOrderRepository repository;
+    private RiceOrderController controller;
+    
+    @BeforeEach
+    void setUp() {
+        // Real repository and mapper so the bulk insert path is exercised end to end
+        repository = new RiceOrderRepository();
+        controller = new RiceOrderController(repository, new RiceOrderMapper(), null);
+    }
+    
+    @Test
+    @DisplayName("Should create all orders and return HTTP 201")
+    void shouldCreateAllOrders() {
+        BatchOrderRequest request = new BatchOrderRequest(Arrays.asList(
+                orderRequest("BATCH001", "PENDING"),
+                orderRequest("BATCH002", "CONFIRMED")));
+        
+        ResponseEntity<ApiResponse<BatchOrderResponse>> response = controller.createOrdersBatch(request);
+        
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertTrue(response.getBody().isSuccess());
+        BatchOrderResponse data = response.getBody().getData();
+        assertEquals(2, data.getSucceeded());
+        assertEquals(0, data.getFailed());
+        assertEquals(new BigDecimal("90000"), data.getResults().get(0).getOrder().getTotalAmount());
+        assertEquals(2, repository.getOrderCount());
+        assertEquals(1, repository.getOrdersByStatus(RiceOrder.OrderStatus.CONFIRMED).size());
+    }
+    
+    @Test
+    @DisplayName("Should report per-item failures and return HTTP 207")
+    void shouldReportPerItemFailures() {
+        RiceOrderRequest noItems = orderRequest("BATCH003", "PENDING");
+        noItems.setOrderItems(Collections.emptyList());
+        BatchOrderRequest request = new BatchOrderRequest(Arrays.asList(
+                orderRequest("BATCH001", "PENDING"),
+                orderRequest("BATCH002", "NOT_A_STATUS"),
+                orderRequest("BATCH001", "PENDING"),
+                noItems));
+        
+        ResponseEntity<ApiResponse<BatchOrderResponse>> response = controller.createOrdersBatch(request);
+        
+        assertEquals(HttpStatus.MULTI_STATUS, response.getStatusCode());
+        assertFalse(response.getBody().isSuccess());
+        BatchOrderResponse data = response.getBody().getData();
+        assertEquals(4, data.getTotal());
+        assertEquals(1, data.getSucceeded());
+        assertEquals(3, data.getFailed());
+        assertTrue(data.getResults().get(0).isSuccess());
+        assertEquals("Invalid order status: NOT_A_STATUS", data.getResults().get(1).getMessage());
+        assertTrue(data.getResults().get(2).getMessage().contains("already exists"));
+        assertEquals("Order must contain at least one item", data.getResults().get(3).getMessage());
+        assertEquals(3, data.getResults().get(3).getIndex());
+        assertEquals(1, repository.getOrderCount());
+    }
+    
+    @Test
+    @DisplayName("Should reject empty and oversized batches")
+    void shouldRejectEmptyAndOversizedBatches() {
+        assertEquals(HttpStatus.BAD_REQUEST,
+                controller.createOrdersBatch(new BatchOrderRequest(Collections.emptyList())).getStatusCode());
+        
+        List<RiceOrderRequest> tooMany = new ArrayList<>();
+        for (int i = 0; i <= RiceOrderController.MAX_BATCH_SIZE; i++) {
+            tooMany.add(orderRequest("BATCH" + i, "PENDING"));
+        }
+        assertEquals(HttpStatus.BAD_REQUEST,
+                controller.createOrdersBatch(new BatchOrderRequest(tooMany)).getStatusCode());
+        assertEquals(0, repository.getOrderCount());
+    }
+    
+    private static RiceOrderRequest orderRequest(String orderId, String status) {
+        return RiceOrderRequest.builder()
+                .orderId(orderId)
+                .customer(CustomerDto.builder().customerId("CUST001").name("John Doe").build())
+                .orderItems(new ArrayList<>(List.of(OrderItemDto.builder()
+                        .itemId("ITEM001")
+                        .riceType("Nasi Goreng Special")
+                        .quantity(2)
+                        .pricePerUnit(new BigDecimal("45000"))
+                        .spiceLevel("Medium")
+                        .build())))
+                .status(status)
+                .paymentMethod("Cash")
+                .build();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.riceapi.controller;
+
+import com.example.riceapi.cache.OrderJsonCache;
+import com.example.riceapi.mapper.RiceOrderJsonSerializer;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("RiceOrderController - exportOrders() Tests")
+class RiceOrderControllerExportOrdersTest {
+    
+    private RiceOrderRepository repository;
+    private RiceOrderMapper mapper;
+    private OrderJsonCache cache;
+    private ObjectMapper objectMapper;
+    private RiceOrderController controller;
+    
+    @BeforeEach
+    void setUp() {
+        repository = mock(RiceOrderRepository.class);
+        mapper = mock(RiceOrderMapper.class);
+        cache = new OrderJsonCache(1024 * 1024);
+        // Same date handling and order serializer as the Spring Boot auto-configured mapper
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .serializerByType(RiceOrder.class, new RiceOrderJsonSerializer(cache))
+                .build();
+        controller = new RiceOrderController(repository, mapper, objectMapper);
+    }
+    
+    @Test
+    @DisplayName("Should write one JSON document per line")
+    void shouldWriteOneDocumentPerLine() throws IOException {
+        // Arrange
+        RiceOrder order1 = RiceOrder.builder()
+                .orderId("ORD001")
+                .status(RiceOrder.OrderStatus.PENDING)
+                .orderDate(LocalDateTime.of(2024, 1, 15, 12, 30))
+                .totalAmount(new BigDecimal("45000"))
+                .build();
+        RiceOrder order2 = RiceOrder.builder().orderId("ORD002").status(RiceOrder.OrderStatus.DELIVERED).build();
+        when(repository.streamAllOrders()).thenReturn(Stream.of(order1, order2));
+        
+        // Act
+        String body = export();
+        
+        // Assert
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(body.endsWith("\n"));
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals("ORD001", first.get("orderId").asText());
+        assertEquals("2024-01-15T12:30:00", first.get("orderDate").asText());
+        assertEquals(45000, first.get("totalAmount").asLong());
+        assertEquals("ORD002", objectMapper.readTree(lines[1]).get("orderId").asText());
+        verifyNoInteractions(mapper);
+    }
+    
+    @Test
+    @DisplayName("Should write delivered orders from the JSON cache")
+    void shouldWriteCachedOrders() throws IOException {
+        RiceOrder order = RiceOrder.builder().orderId("ORD001").status(RiceOrder.OrderStatus.DELIVERED).build();
+        when(repository.streamAllOrders()).thenAnswer(invocation -> Stream.of(order));
+        
+        String first = export();
+        OrderJsonCache.EncodedOrder encoded = cache.get("ORD001", order.getVersion());
+        String second = export();
+        
+        assertNotNull(encoded);
+        assertSame(encoded, cache.get("ORD001", order.getVersion()));
+        assertEquals(first, second);
+    }
+    
+    @Test
+    @DisplayName("Should write empty body when there are no orders")
+    void shouldWriteEmptyBodyWhenNoOrders() throws IOException {
+        when(repository.streamAllOrders()).thenReturn(Stream.empty());
+        
+        assertEquals("", export());
+        verifyNoInteractions(mapper);
+    }
+    
+    private String export() throws IOException {
+        ResponseEntity<StreamingResponseBody> response = controller.exportOrders(null);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -1,10 +1,6 @@
 package com.example.riceapi.controller;
 
 import com.example.riceapi.dto.ApiResponse;
-import com.example.riceapi.dto.CustomerDto;
-import com.example.riceapi.dto.DeliveryAddressDto;
-import com.example.riceapi.dto.OrderItemDto;
-import com.example.riceapi.dto.RiceOrderResponse;
 import com.example.riceapi.mapper.RiceOrderMapper;
 import com.example.riceapi.modal.Customer;
 import com.example.riceapi.modal.DeliveryAddress;
@@ -47,9 +43,6 @@ class RiceOrderControllerGetAllOrdersTest {
     private RiceOrder testOrder1;
     private RiceOrder testOrder2;
     private RiceOrder testOrder3;
-    private RiceOrderResponse testResponse1;
-    private RiceOrderResponse testResponse2;
-    private RiceOrderResponse testResponse3;
     
     @BeforeEach
     void setUp() {
@@ -121,67 +114,6 @@ class RiceOrderControllerGetAllOrdersTest {
                 .paymentMethod("E-Wallet")
                 .totalAmount(new BigDecimal("100000"))
                 .build();
-        
-        // Setup test responses
-        CustomerDto customerDto1 = CustomerDto.builder()
-                .customerId("CUST001")
-                .name("John Doe")
-                .email("john.doe@test.com")
-                .phoneNumber("+1-555-0001")
-                .build();
-        
-        CustomerDto customerDto2 = CustomerDto.builder()
-                .customerId("CUST002")
-                .name("Jane Smith")
-                .email("jane.smith@test.com")
-                .phoneNumber("+1-555-0002")
-                .build();
-        
-        DeliveryAddressDto addressDto = DeliveryAddressDto.builder()
-                .street("123 Main St")
-                .city("New York")
-                .state("NY")
-                .postalCode("10001")
-                .country("USA")
-                .build();
-        
-        OrderItemDto itemDto = OrderItemDto.builder()
-                .itemId("ITEM001")
-                .riceType("Nasi Goreng Special")
-                .quantity(2)
-                .pricePerUnit(new BigDecimal("50000"))
-                .spiceLevel("Medium")
-                .build();
-        
-        testResponse1 = RiceOrderResponse.builder()
-                .orderId("ORD001")
-                .customer(customerDto1)
-                .orderItems(Arrays.asList(itemDto))
-                .deliveryAddress(addressDto)
-                .status("PENDING")
-                .totalAmount(new BigDecimal("100000"))
-                .itemCount(1)
-                .build();
-        
-        testResponse2 = RiceOrderResponse.builder()
-                .orderId("ORD002")
-                .customer(customerDto2)
-                .orderItems(Arrays.asList(itemDto))
-                .deliveryAddress(addressDto)
-                .status("CONFIRMED")
-                .totalAmount(new BigDecimal("100000"))
-                .itemCount(1)
-                .build();
-        
-        testResponse3 = RiceOrderResponse.builder()
-                .orderId("ORD003")
-                .customer(customerDto1)
-                .orderItems(Arrays.asList(itemDto))
-                .deliveryAddress(addressDto)
-                .status("DELIVERED")
-                .totalAmount(new BigDecimal("100000"))
-                .itemCount(1)
-                .build();
     }
     
     @Test
@@ -190,12 +122,9 @@ class RiceOrderControllerGetAllOrdersTest {
         // Arrange
         List<RiceOrder> orders = Arrays.asList(testOrder1, testOrder2, testOrder3);
         when(repository.getAllOrders()).thenReturn(orders);
-        when(mapper.toResponse(testOrder1)).thenReturn(testResponse1);
-        when(mapper.toResponse(testOrder2)).thenReturn(testResponse2);
-        when(mapper.toResponse(testOrder3)).thenReturn(testResponse3);
         
         // Act
-        ResponseEntity<ApiResponse<List<RiceOrderResponse>>> response = controller.getAllOrders();
+        ResponseEntity<ApiResponse<List<RiceOrder>>> response = controller.getAllOrders(null);
         
         // Assert
         assertNotNull(response);
@@ -207,16 +136,14 @@ class RiceOrderControllerGetAllOrdersTest {
         assertEquals(3, response.getBody().getData().size());
         
         // Verify the order of responses
-        List<RiceOrderResponse> responseData = response.getBody().getData();
+        List<RiceOrder> responseData = response.getBody().getData();
         assertEquals("ORD001", responseData.get(0).getOrderId());
         assertEquals("ORD002", responseData.get(1).getOrderId());
         assertEquals("ORD003", responseData.get(2).getOrderId());
         
         // Verify interactions
         verify(repository, times(1)).getAllOrders();
-        verify(mapper, times(1)).toResponse(testOrder1);
-        verify(mapper, times(1)).toResponse(testOrder2);
-        verify(mapper, times(1)).toResponse(testOrder3);
+        verifyNoInteractions(mapper);
     }
     
     @Test
@@ -227,7 +154,7 @@ class RiceOrderControllerGetAllOrdersTest {
         when(repository.getAllOrders()).thenReturn(emptyOrders);
         
         // Act
-        ResponseEntity<ApiResponse<List<RiceOrderResponse>>> response = controller.getAllOrders();
+        ResponseEntity<ApiResponse<List<RiceOrder>>> response = controller.getAllOrders(null);
         
         // Assert
         assertNotNull(response);
@@ -240,7 +167,7 @@ class RiceOrderControllerGetAllOrdersTest {
         
         // Verify interactions
         verify(repository, times(1)).getAllOrders();
-        verify(mapper, never()).toResponse(any(RiceOrder.class));
+        verifyNoInteractions(mapper);
     }
     
     @Test
@@ -249,10 +176,9 @@ class RiceOrderControllerGetAllOrdersTest {
         // Arrange
         List<RiceOrder> singleOrder = Arrays.asList(testOrder1);
         when(repository.getAllOrders()).thenReturn(singleOrder);
-        when(mapper.toResponse(testOrder1)).thenReturn(testResponse1);
         
         // Act
-        ResponseEntity<ApiResponse<List<RiceOrderResponse>>> response = controller.getAllOrders();
+        ResponseEntity<ApiResponse<List<RiceOrder>>> response = controller.getAllOrders(null);
         
         // Assert
         assertNotNull(response);
@@ -265,42 +191,39 @@ class RiceOrderControllerGetAllOrdersTest {
         
         // Verify interactions
         verify(repository, times(1)).getAllOrders();
-        verify(mapper, times(1)).toResponse(testOrder1);
+        verifyNoInteractions(mapper);
     }
     
     @Test
-    @DisplayName("Should map all orders correctly to response DTOs")
-    void shouldMapAllOrdersCorrectly() {
+    @DisplayName("Should return all order fields correctly")
+    void shouldReturnAllOrderFieldsCorrectly() {
         // Arrange
         List<RiceOrder> orders = Arrays.asList(testOrder1, testOrder2);
         when(repository.getAllOrders()).thenReturn(orders);
-        when(mapper.toResponse(testOrder1)).thenReturn(testResponse1);
-        when(mapper.toResponse(testOrder2)).thenReturn(testResponse2);
         
         // Act
-        ResponseEntity<ApiResponse<List<RiceOrderResponse>>> response = controller.getAllOrders();
+        ResponseEntity<ApiResponse<List<RiceOrder>>> response = controller.getAllOrders(null);
         
         // Assert
         assertNotNull(response.getBody());
-        List<RiceOrderResponse> responseData = response.getBody().getData();
+        List<RiceOrder> responseData = response.getBody().getData();
         
-        // Verify first order mapping
+        // Verify first order
         assertEquals("ORD001", responseData.get(0).getOrderId());
         assertEquals("CUST001", responseData.get(0).getCustomer().getCustomerId());
         assertEquals("John Doe", responseData.get(0).getCustomer().getName());
-        assertEquals("PENDING", responseData.get(0).getStatus());
+        assertEquals(RiceOrder.OrderStatus.PENDING, responseData.get(0).getStatus());
         assertEquals(new BigDecimal("100000"), responseData.get(0).getTotalAmount());
         
-        // Verify second order mapping
+        // Verify second order
         assertEquals("ORD002", responseData.get(1).getOrderId());
         assertEquals("CUST002", responseData.get(1).getCustomer().getCustomerId());
         assertEquals("Jane Smith", responseData.get(1).getCustomer().getName());
-        assertEquals("CONFIRMED", responseData.get(1).getStatus());
+        assertEquals(RiceOrder.OrderStatus.CONFIRMED, responseData.get(1).getStatus());
         assertEquals(new BigDecimal("100000"), responseData.get(1).getTotalAmount());
         
-        // Verify mapper was called for each order
-        verify(mapper, times(1)).toResponse(testOrder1);
-        verify(mapper, times(1)).toResponse(testOrder2);
+        // Orders are serialized directly, without response DTOs
+        verifyNoInteractions(mapper);
     }
     
     @Test
@@ -309,12 +232,11 @@ class RiceOrderControllerGetAllOrdersTest {
         // Arrange
         List<RiceOrder> orders = Arrays.asList(testOrder1);
         when(repository.getAllOrders()).thenReturn(orders);
-        when(mapper.toResponse(testOrder1)).thenReturn(testResponse1);
         
         LocalDateTime beforeCall = LocalDateTime.now();
         
         // Act
-        ResponseEntity<ApiResponse<List<RiceOrderResponse>>> response = controller.getAllOrders();
+        ResponseEntity<ApiResponse<List<RiceOrder>>> response = controller.getAllOrders(null);
         
         LocalDateTime afterCall = LocalDateTime.now();
         
@@ -334,7 +256,6 @@ class RiceOrderControllerGetAllOrdersTest {
         // Arrange
         int numberOfOrders = 100;
         List<RiceOrder> largeOrderList = new ArrayList<>();
-        List<RiceOrderResponse> largeResponseList = new ArrayList<>();
         
         for (int i = 0; i < numberOfOrders; i++) {
             RiceOrder order = RiceOrder.builder()
@@ -347,22 +268,12 @@ class RiceOrderControllerGetAllOrdersTest {
                     .totalAmount(new BigDecimal("50000"))
                     .build();
             largeOrderList.add(order);
-            
-            RiceOrderResponse response = RiceOrderResponse.builder()
-                    .orderId("ORD" + String.format("%03d", i))
-                    .status("PENDING")
-                    .totalAmount(new BigDecimal("50000"))
-                    .itemCount(1)
-                    .build();
-            largeResponseList.add(response);
-            
-            when(mapper.toResponse(order)).thenReturn(response);
         }
         
         when(repository.getAllOrders()).thenReturn(largeOrderList);
         
         // Act
-        ResponseEntity<ApiResponse<List<RiceOrderResponse>>> response = controller.getAllOrders();
+        ResponseEntity<ApiResponse<List<RiceOrder>>> response = controller.getAllOrders(null);
         
         // Assert
         assertNotNull(response);
@@ -374,8 +285,8 @@ class RiceOrderControllerGetAllOrdersTest {
         
         // Verify repository was called once
         verify(repository, times(1)).getAllOrders();
-        // Verify mapper was called exactly 100 times
-        verify(mapper, times(100)).toResponse(any(RiceOrder.class));
+        // Verify no order was mapped to a DTO
+        verifyNoInteractions(mapper);
     }
     
     @Test
@@ -384,16 +295,13 @@ class RiceOrderControllerGetAllOrdersTest {
         // Arrange
         List<RiceOrder> orderedList = Arrays.asList(testOrder3, testOrder1, testOrder2);
         when(repository.getAllOrders()).thenReturn(orderedList);
-        when(mapper.toResponse(testOrder3)).thenReturn(testResponse3);
-        when(mapper.toResponse(testOrder1)).thenReturn(testResponse1);
-        when(mapper.toResponse(testOrder2)).thenReturn(testResponse2);
         
         // Act
-        ResponseEntity<ApiResponse<List<RiceOrderResponse>>> response = controller.getAllOrders();
+        ResponseEntity<ApiResponse<List<RiceOrder>>> response = controller.getAllOrders(null);
         
         // Assert
         assertNotNull(response.getBody());
-        List<RiceOrderResponse> responseData = response.getBody().getData();
+        List<RiceOrder> responseData = response.getBody().getData();
         
         // Verify order is maintained
         assertEquals("ORD003", responseData.get(0).getOrderId());
@@ -407,10 +315,9 @@ class RiceOrderControllerGetAllOrdersTest {
         // Arrange
         List<RiceOrder> orders = Arrays.asList(testOrder1);
         when(repository.getAllOrders()).thenReturn(orders);
-        when(mapper.toResponse(testOrder1)).thenReturn(testResponse1);
         
         // Act
-        ResponseEntity<ApiResponse<List<RiceOrderResponse>>> response = controller.getAllOrders();
+        ResponseEntity<ApiResponse<List<RiceOrder>>> response = controller.getAllOrders(null);
         
         // Assert
         assertNotNull(response.getBody());
@@ -421,35 +328,33 @@ class RiceOrderControllerGetAllOrdersTest {
         assertNotNull(response.getBody().getData());
         assertNotNull(response.getBody().getTimestamp());
         
-        // Verify RiceOrderResponse structure
-        RiceOrderResponse orderResponse = response.getBody().getData().get(0);
+        // Verify order structure
+        RiceOrder orderResponse = response.getBody().getData().get(0);
         assertNotNull(orderResponse.getOrderId());
         assertNotNull(orderResponse.getCustomer());
         assertNotNull(orderResponse.getOrderItems());
         assertNotNull(orderResponse.getDeliveryAddress());
         assertNotNull(orderResponse.getStatus());
         assertNotNull(orderResponse.getTotalAmount());
-        assertNotNull(orderResponse.getItemCount());
+        assertEquals(1, orderResponse.getOrderItems().size());
     }
     
     @Test
-    @DisplayName("Should call repository and mapper in correct sequence")
-    void shouldCallServicesInCorrectSequence() {
+    @DisplayName("Should return the repository's orders without mapping them")
+    void shouldReturnRepositoryOrdersUnmapped() {
         // Arrange
         List<RiceOrder> orders = Arrays.asList(testOrder1, testOrder2);
         when(repository.getAllOrders()).thenReturn(orders);
-        when(mapper.toResponse(testOrder1)).thenReturn(testResponse1);
-        when(mapper.toResponse(testOrder2)).thenReturn(testResponse2);
         
         // Act
-        controller.getAllOrders();
-        
-        // Assert - verify order of invocations
-        var inOrder = inOrder(repository, mapper);
-        inOrder.verify(repository).getAllOrders();
-        inOrder.verify(mapper).toResponse(testOrder1);
-        inOrder.verify(mapper).toResponse(testOrder2);
-        inOrder.verifyNoMoreInteractions();
+        ResponseEntity<ApiResponse<List<RiceOrder>>> response = controller.getAllOrders(null);
+        
+        // Assert
+        assertSame(orders, response.getBody().getData());
+        verify(repository).getStoreVersion();
+        verify(repository).getAllOrders();
+        verifyNoMoreInteractions(repository);
+        verifyNoInteractions(mapper);
     }
     
     @Test
@@ -459,11 +364,43 @@ class RiceOrderControllerGetAllOrdersTest {
         when(repository.getAllOrders()).thenReturn(Collections.emptyList());
         
         // Act
-        controller.getAllOrders();
+        controller.getAllOrders(null);
         
         // Assert
         verify(repository, times(1)).getAllOrders();
         verifyNoInteractions(mapper);
     }
+    
+    @Test
+    @DisplayName("Should return the store version as ETag")
+    void shouldReturnStoreVersionAsETag() {
+        // Arrange
+        when(repository.getStoreVersion()).thenReturn(42L);
+        when(repository.getAllOrders()).thenReturn(Arrays.asList(testOrder1));
+        
+        // Act
+        ResponseEntity<ApiResponse<List<RiceOrder>>> response = controller.getAllOrders("\"41\"");
+        
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("W/\"42\"", response.getHeaders().getETag());
+        assertEquals(1, response.getBody().getData().size());
+    }
+    
+    @Test
+    @DisplayName("Should return 304 without reading orders when If-None-Match is current")
+    void shouldReturnNotModifiedWhenETagMatches() {
+        // Arrange
+        when(repository.getStoreVersion()).thenReturn(42L);
+        
+        // Act
+        ResponseEntity<ApiResponse<List<RiceOrder>>> response = controller.getAllOrders("\"17\", W/\"42\"");
+        
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("W/\"42\"", response.getHeaders().getETag());
+        assertNull(response.getBody());
+        verify(repository, never()).getAllOrders();
+        verifyNoInteractions(mapper);
+    }
 }
-
@@ -0,0 +1,69 @@
+package com.example.riceapi.controller;
+
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.dto.OrderAggregatesResponse;
+import com.example.riceapi.dto.StatusAggregate;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RiceOrderController - getOrderAggregates() Tests")
+class RiceOrderControllerGetOrderAggregatesTest {
+    
+    private RiceOrderRepository repository;
+    private RiceOrderController controller;
+    
+    @BeforeEach
+    void setUp() {
+        // Real repository so the running totals are exercised end to end
+        repository = new RiceOrderRepository();
+        repository.initializeMockData();
+        controller = new RiceOrderController(repository, new RiceOrderMapper(), null);
+    }
+    
+    @Test
+    @DisplayName("Should return totals that match the stored orders")
+    void shouldReturnTotalsMatchingStoredOrders() {
+        ResponseEntity<ApiResponse<OrderAggregatesResponse>> response = controller.getOrderAggregates(null);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().isSuccess());
+        OrderAggregatesResponse aggregates = response.getBody().getData();
+        assertEquals(5, aggregates.getTotalOrders());
+        assertEquals(RiceOrder.OrderStatus.values().length, aggregates.getByStatus().size());
+        
+        BigDecimal expectedTotal = BigDecimal.ZERO;
+        for (RiceOrder.OrderStatus status : RiceOrder.OrderStatus.values()) {
+            BigDecimal expectedRevenue = repository.getOrdersByStatus(status).stream()
+                    .map(RiceOrder::getTotalAmount)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            StatusAggregate aggregate = aggregates.getByStatus().get(status.name());
+            assertEquals(repository.getOrdersByStatus(status).size(), aggregate.getOrderCount());
+            assertEquals(0, expectedRevenue.compareTo(aggregate.getRevenue()));
+            expectedTotal = expectedTotal.add(expectedRevenue);
+        }
+        assertEquals(0, expectedTotal.compareTo(aggregates.getTotalRevenue()));
+    }
+    
+    @Test
+    @DisplayName("Should reflect status changes")
+    void shouldReflectStatusChanges() {
+        repository.partialUpdateOrder("ORD001", RiceOrder.builder()
+                .status(RiceOrder.OrderStatus.CANCELLED)
+                .build());
+        
+        OrderAggregatesResponse aggregates = controller.getOrderAggregates(null).getBody().getData();
+        
+        assertEquals(1, aggregates.getByStatus().get("CANCELLED").getOrderCount());
+        assertEquals(5, aggregates.getTotalOrders());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.riceapi.controller;
+
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.cache.OrderJsonCache;
+import com.example.riceapi.mapper.RiceOrderJsonSerializer;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("RiceOrderController - getOrderById() Tests")
+class RiceOrderControllerGetOrderByIdTest {
+    
+    private RiceOrderRepository repository;
+    private RiceOrderMapper mapper;
+    private RiceOrderController controller;
+    private String etag;
+    
+    @BeforeEach
+    void setUp() {
+        repository = new RiceOrderRepository();
+        mapper = spy(new RiceOrderMapper());
+        controller = new RiceOrderController(repository, mapper, null);
+        repository.addOrder(RiceOrder.builder()
+                .orderId("ORD001")
+                .orderItems(List.of(OrderItem.builder()
+                        .itemId("ITEM001")
+                        .riceType("Nasi Goreng Special")
+                        .quantity(1)
+                        .pricePerUnit(new BigDecimal("45000"))
+                        .build()))
+                .status(RiceOrder.OrderStatus.PENDING)
+                .build());
+        etag = "\"" + repository.getOrderById("ORD001").orElseThrow().getVersion() + "\"";
+    }
+    
+    @Test
+    @DisplayName("Should return the order with its version as ETag")
+    void shouldReturnOrderWithETag() {
+        ResponseEntity<ApiResponse<RiceOrder>> response = controller.getOrderById("ORD001", null);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(etag, response.getHeaders().getETag());
+        assertEquals("ORD001", response.getBody().getData().getOrderId());
+    }
+    
+    @Test
+    @DisplayName("Should encode a delivered order once and write the cached JSON on later reads")
+    void shouldWriteCachedJsonOfDeliveredOrder() throws Exception {
+        OrderJsonCache cache = spy(new OrderJsonCache(1024 * 1024));
+        repository.addChangeListener(cache);
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .serializerByType(RiceOrder.class, new RiceOrderJsonSerializer(cache))
+                .build();
+        repository.partialUpdateOrder("ORD001", RiceOrder.builder().status(RiceOrder.OrderStatus.DELIVERED).build());
+        
+        String first = objectMapper.writeValueAsString(controller.getOrderById("ORD001", null).getBody());
+        String second = objectMapper.writeValueAsString(controller.getOrderById("ORD001", null).getBody());
+        
+        assertEquals(objectMapper.readTree(first).get("data"), objectMapper.readTree(second).get("data"));
+        assertEquals("DELIVERED", objectMapper.readTree(second).get("data").get("status").asText());
+        verify(cache, times(1)).put(eq("ORD001"), anyLong(), any());
+        verify(cache, times(2)).get(eq("ORD001"), anyLong());
+        verify(mapper, never()).toResponse(any());
+    }
+    
+    @Test
+    @DisplayName("Should return 304 without mapping when If-None-Match is current")
+    void shouldReturnNotModifiedWhenETagMatches() {
+        ResponseEntity<ApiResponse<RiceOrder>> strong = controller.getOrderById("ORD001", etag);
+        ResponseEntity<ApiResponse<RiceOrder>> weak = controller.getOrderById("ORD001", "\"1\", W/" + etag);
+        ResponseEntity<ApiResponse<RiceOrder>> any = controller.getOrderById("ORD001", "*");
+        
+        assertEquals(HttpStatus.NOT_MODIFIED, strong.getStatusCode());
+        assertEquals(etag, strong.getHeaders().getETag());
+        assertNull(strong.getBody());
+        assertEquals(HttpStatus.NOT_MODIFIED, weak.getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, any.getStatusCode());
+        verify(mapper, never()).toResponse(any());
+    }
+    
+    @Test
+    @DisplayName("Should return the order again once it has changed")
+    void shouldReturnChangedOrder() {
+        repository.partialUpdateOrder("ORD001", RiceOrder.builder().status(RiceOrder.OrderStatus.CONFIRMED).build());
+        
+        ResponseEntity<ApiResponse<RiceOrder>> response = controller.getOrderById("ORD001", etag);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotEquals(etag, response.getHeaders().getETag());
+        assertEquals(RiceOrder.OrderStatus.CONFIRMED, response.getBody().getData().getStatus());
+    }
+    
+    @Test
+    @DisplayName("Should return 404 for an unknown order even with If-None-Match")
+    void shouldReturnNotFound() {
+        ResponseEntity<ApiResponse<RiceOrder>> response = controller.getOrderById("ORD999", "*");
+        
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.riceapi.controller;
+
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RiceOrderController - getOrdersInTimeRange() Tests")
+class RiceOrderControllerGetOrdersInTimeRangeTest {
+    
+    @Mock
+    private RiceOrderRepository repository;
+    
+    @Mock
+    private RiceOrderMapper mapper;
+    
+    @InjectMocks
+    private RiceOrderController controller;
+    
+    @Test
+    @DisplayName("Should query the order date index by default")
+    void shouldQueryOrderDateByDefault() {
+        // Arrange
+        RiceOrder order = RiceOrder.builder().orderId("ORD001").build();
+        LocalDateTime from = LocalDateTime.of(2024, 1, 15, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 1, 16, 0, 0);
+        when(repository.getOrdersByOrderDateRange(from, to)).thenReturn(List.of(order));
+        
+        // Act
+        ResponseEntity<ApiResponse<List<RiceOrder>>> response =
+                controller.getOrdersInTimeRange("2024-01-15T00:00:00", "2024-01-16T00:00", "orderDate", null);
+        
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of(order), response.getBody().getData());
+        assertEquals("Retrieved 1 orders successfully", response.getBody().getMessage());
+        verify(repository, never()).getOrdersByDeliveryTimeRange(any(), any());
+    }
+    
+    @Test
+    @DisplayName("Should query the delivery time index with an open upper bound")
+    void shouldQueryDeliveryTimeWithOpenBound() {
+        // Arrange
+        LocalDateTime from = LocalDateTime.of(2024, 1, 15, 12, 30);
+        when(repository.getOrdersByDeliveryTimeRange(from, null)).thenReturn(Collections.emptyList());
+        
+        // Act
+        ResponseEntity<ApiResponse<List<RiceOrder>>> response =
+                controller.getOrdersInTimeRange("2024-01-15T12:30", null, "deliveryTime", null);
+        
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().getData().isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Should return 400 for an unparseable bound")
+    void shouldRejectInvalidDateTime() {
+        ResponseEntity<ApiResponse<List<RiceOrder>>> response =
+                controller.getOrdersInTimeRange("yesterday", null, "orderDate", null);
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid date-time: yesterday", response.getBody().getMessage());
+        verifyNoInteractions(repository);
+    }
+    
+    @Test
+    @DisplayName("Should return 400 for an unknown field or inverted range")
+    void shouldRejectUnknownFieldAndInvertedRange() {
+        assertEquals(HttpStatus.BAD_REQUEST,
+                controller.getOrdersInTimeRange(null, null, "createdAt", null).getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST,
+                controller.getOrdersInTimeRange("2024-01-16T00:00", "2024-01-15T00:00", "orderDate", null).getStatusCode());
+        verifyNoInteractions(repository);
+    }
+}
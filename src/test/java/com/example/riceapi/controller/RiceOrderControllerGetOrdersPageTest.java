@@ -0,0 +1,111 @@
+package com.example.riceapi.controller;
+
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.dto.PageResponse;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RiceOrderController - getOrdersPage() Tests")
+class RiceOrderControllerGetOrdersPageTest {
+    
+    @Mock
+    private RiceOrderRepository repository;
+    
+    @Mock
+    private RiceOrderMapper mapper;
+    
+    @InjectMocks
+    private RiceOrderController controller;
+    
+    private RiceOrder testOrder1;
+    private RiceOrder testOrder2;
+    private RiceOrder testOrder3;
+    
+    @BeforeEach
+    void setUp() {
+        testOrder1 = RiceOrder.builder().orderId("ORD001").status(RiceOrder.OrderStatus.PENDING).build();
+        testOrder2 = RiceOrder.builder().orderId("ORD002").status(RiceOrder.OrderStatus.CONFIRMED).build();
+        testOrder3 = RiceOrder.builder().orderId("ORD003").status(RiceOrder.OrderStatus.DELIVERED).build();
+    }
+    
+    @Test
+    @DisplayName("Should return page with next cursor when more orders exist")
+    void shouldReturnPageWithNextCursor() {
+        // Arrange
+        when(repository.getOrdersPage(null, 3)).thenReturn(Arrays.asList(testOrder1, testOrder2, testOrder3));
+        
+        // Act
+        ResponseEntity<ApiResponse<PageResponse<RiceOrder>>> response = controller.getOrdersPage(2, null, null);
+        
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        PageResponse<RiceOrder> page = response.getBody().getData();
+        assertEquals(List.of(testOrder1, testOrder2), page.getItems());
+        assertTrue(page.isHasMore());
+        assertNotNull(page.getNextCursor());
+        // Orders are written by RiceOrderJsonSerializer, so no response DTOs are built
+        verifyNoInteractions(mapper);
+    }
+    
+    @Test
+    @DisplayName("Should resume from the order encoded in the cursor")
+    void shouldResumeFromCursor() {
+        // Arrange
+        when(repository.getOrdersPage(null, 2)).thenReturn(Arrays.asList(testOrder1, testOrder2));
+        String cursor = controller.getOrdersPage(1, null, null).getBody().getData().getNextCursor();
+        
+        when(repository.getOrdersPage("ORD001", 2)).thenReturn(Collections.singletonList(testOrder2));
+        
+        // Act
+        ResponseEntity<ApiResponse<PageResponse<RiceOrder>>> response = controller.getOrdersPage(1, cursor, null);
+        
+        // Assert
+        PageResponse<RiceOrder> page = response.getBody().getData();
+        assertEquals(1, page.getItems().size());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        verify(repository).getOrdersPage("ORD001", 2);
+    }
+    
+    @Test
+    @DisplayName("Should reject limit outside the allowed range")
+    void shouldRejectInvalidLimit() {
+        ResponseEntity<ApiResponse<PageResponse<RiceOrder>>> response =
+                controller.getOrdersPage(RiceOrderController.MAX_PAGE_SIZE + 1, null, null);
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertFalse(response.getBody().isSuccess());
+        verify(repository, never()).getOrdersPage(any(), anyInt());
+    }
+    
+    @Test
+    @DisplayName("Should reject malformed cursor")
+    void shouldRejectMalformedCursor() {
+        ResponseEntity<ApiResponse<PageResponse<RiceOrder>>> response =
+                controller.getOrdersPage(10, "not*base64!", null);
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid cursor", response.getBody().getMessage());
+        verifyNoInteractions(repository);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.riceapi.controller;
+
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.dto.OrderItemDto;
+import com.example.riceapi.dto.RiceOrderRequest;
+import com.example.riceapi.dto.RiceOrderResponse;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RiceOrderController - partialUpdateOrder() Tests")
+class RiceOrderControllerPartialUpdateOrderTest {
+    
+    private RiceOrderRepository repository;
+    private RiceOrderController controller;
+    private long version;
+    
+    @BeforeEach
+    void setUp() {
+        repository = new RiceOrderRepository();
+        controller = new RiceOrderController(repository, new RiceOrderMapper(), null);
+        repository.addOrder(RiceOrder.builder()
+                .orderId("ORD001")
+                .orderItems(List.of(OrderItem.builder()
+                        .itemId("ITEM001")
+                        .riceType("Nasi Goreng Special")
+                        .quantity(2)
+                        .pricePerUnit(new BigDecimal("45000"))
+                        .build()))
+                .status(RiceOrder.OrderStatus.PENDING)
+                .paymentMethod("Cash")
+                .build());
+        version = repository.getOrderById("ORD001").orElseThrow().getVersion();
+    }
+    
+    @Test
+    @DisplayName("Should change only the given fields when If-Match is current")
+    void shouldChangeGivenFields() {
+        RiceOrderRequest request = RiceOrderRequest.builder().status("CONFIRMED").build();
+        
+        ResponseEntity<ApiResponse<RiceOrderResponse>> response =
+                controller.partialUpdateOrder("ORD001", request, "\"" + version + "\"", null);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        RiceOrderResponse data = response.getBody().getData();
+        assertEquals("CONFIRMED", data.getStatus());
+        assertEquals("Cash", data.getPaymentMethod());
+        assertEquals(new BigDecimal("90000"), data.getTotalAmount());
+    }
+    
+    @Test
+    @DisplayName("Should return 412 when the order changed since it was read")
+    void shouldRejectStaleVersion() {
+        controller.partialUpdateOrder("ORD001", RiceOrderRequest.builder().status("CONFIRMED").build(), null, version);
+        
+        ResponseEntity<ApiResponse<RiceOrderResponse>> response = controller.partialUpdateOrder(
+                "ORD001", RiceOrderRequest.builder().status("CANCELLED").build(), null, version);
+        
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        assertEquals(RiceOrder.OrderStatus.CONFIRMED, repository.getOrderById("ORD001").orElseThrow().getStatus());
+    }
+    
+    @Test
+    @DisplayName("Should return 400 for an invalid item")
+    void shouldRejectInvalidItem() {
+        RiceOrderRequest request = RiceOrderRequest.builder()
+                .orderItems(List.of(OrderItemDto.builder().itemId("ITEM001").quantity(0).build()))
+                .build();
+        
+        ResponseEntity<ApiResponse<RiceOrderResponse>> response = controller.partialUpdateOrder("ORD001", request, null, null);
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Order item quantity must be positive", response.getBody().getMessage());
+    }
+    
+    @Test
+    @DisplayName("Should return 404 for an unknown order")
+    void shouldReturnNotFound() {
+        ResponseEntity<ApiResponse<RiceOrderResponse>> response = controller.partialUpdateOrder(
+                "ORD999", RiceOrderRequest.builder().status("CONFIRMED").build(), null, null);
+        
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+}
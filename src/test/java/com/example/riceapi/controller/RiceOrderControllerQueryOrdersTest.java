@@ -0,0 +1,68 @@
+package com.example.riceapi.controller;
+
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.DeliveryAddress;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RiceOrderController - queryOrders() Tests")
+class RiceOrderControllerQueryOrdersTest {
+    
+    private RiceOrderController controller;
+    
+    @BeforeEach
+    void setUp() {
+        RiceOrderRepository repository = new RiceOrderRepository();
+        controller = new RiceOrderController(repository, new RiceOrderMapper(), new ObjectMapper());
+        String[] cities = {"Jakarta", "Bandung", "Jakarta"};
+        for (int i = 0; i < cities.length; i++) {
+            repository.addOrder(RiceOrder.builder()
+                    .orderId("ORD00" + i)
+                    .deliveryAddress(DeliveryAddress.builder().city(cities[i]).build())
+                    .status(i == 2 ? RiceOrder.OrderStatus.DELIVERED : RiceOrder.OrderStatus.PENDING)
+                    .build());
+        }
+    }
+    
+    @Test
+    @DisplayName("Should return the orders matching the filter")
+    void shouldReturnMatchingOrders() {
+        ResponseEntity<ApiResponse<List<RiceOrder>>> response =
+                controller.queryOrders("city = jakarta and status in (PENDING, CONFIRMED)", 100, null);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(List.of("ORD000"), response.getBody().getData().stream()
+                .map(RiceOrder::getOrderId).toList());
+        assertEquals("Found 1 matching orders", response.getBody().getMessage());
+        assertNotNull(response.getHeaders().getETag());
+    }
+    
+    @Test
+    @DisplayName("Should cap the result at limit")
+    void shouldApplyLimit() {
+        assertEquals(2, controller.queryOrders(null, 2, null).getBody().getData().size());
+        assertEquals(HttpStatus.BAD_REQUEST, controller.queryOrders(null, 0, null).getStatusCode());
+    }
+    
+    @Test
+    @DisplayName("Should return 400 with the parse error for a malformed filter")
+    void shouldRejectMalformedFilter() {
+        ResponseEntity<ApiResponse<List<RiceOrder>>> response =
+                controller.queryOrders("city ~ Jakarta", 100, null);
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid filter: Expected an operator at position 6 of the filter",
+                response.getBody().getMessage());
+    }
+}
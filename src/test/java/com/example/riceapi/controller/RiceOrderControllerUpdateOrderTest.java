@@ -0,0 +1,175 @@
+package com.example.riceapi.controller;
+
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.dto.CustomerDto;
+import com.example.riceapi.dto.OrderItemDto;
+import com.example.riceapi.dto.RiceOrderRequest;
+import com.example.riceapi.dto.RiceOrderResponse;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RiceOrderController - updateOrder() Tests")
+class RiceOrderControllerUpdateOrderTest {
+    
+    private RiceOrderRepository repository;
+    private RiceOrderController controller;
+    private long version;
+    
+    @BeforeEach
+    void setUp() {
+        repository = new RiceOrderRepository();
+        controller = new RiceOrderController(repository, new RiceOrderMapper(), null);
+        repository.addOrder(RiceOrder.builder()
+                .orderId("ORD001")
+                .orderItems(List.of(OrderItem.builder()
+                        .itemId("ITEM001")
+                        .riceType("Nasi Goreng Special")
+                        .quantity(1)
+                        .pricePerUnit(new BigDecimal("45000"))
+                        .build()))
+                .status(RiceOrder.OrderStatus.PENDING)
+                .build());
+        version = repository.getOrderById("ORD001").orElseThrow().getVersion();
+    }
+    
+    @Test
+    @DisplayName("Should replace the order when If-Match carries the current version")
+    void shouldReplaceWhenIfMatchIsCurrent() {
+        ResponseEntity<ApiResponse<RiceOrderResponse>> response =
+                controller.updateOrder("ORD001", request(3), "\"" + version + "\"", null);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(new BigDecimal("135000"), response.getBody().getData().getTotalAmount());
+        long newVersion = repository.getOrderById("ORD001").orElseThrow().getVersion();
+        assertNotEquals(version, newVersion);
+        assertEquals("\"" + newVersion + "\"", response.getHeaders().getETag());
+    }
+    
+    @Test
+    @DisplayName("Should replace the order without a precondition")
+    void shouldReplaceUnconditionally() {
+        repository.updateOrder("ORD001", repository.getOrderById("ORD001").orElseThrow());
+        
+        ResponseEntity<ApiResponse<RiceOrderResponse>> response = controller.updateOrder("ORD001", request(2), null, null);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("Order updated successfully", response.getBody().getMessage());
+    }
+    
+    @Test
+    @DisplayName("Should return 412 with the current ETag for a stale version")
+    void shouldRejectStaleVersion() {
+        controller.updateOrder("ORD001", request(2), null, version);
+        long current = repository.getOrderById("ORD001").orElseThrow().getVersion();
+        
+        ResponseEntity<ApiResponse<RiceOrderResponse>> response = controller.updateOrder("ORD001", request(5), null, version);
+        
+        assertEquals(HttpStatus.PRECONDITION_FAILED, response.getStatusCode());
+        assertEquals("\"" + current + "\"", response.getHeaders().getETag());
+        assertFalse(response.getBody().isSuccess());
+        assertEquals(2, repository.getOrderById("ORD001").orElseThrow().getOrderItems().get(0).getQuantity());
+    }
+    
+    @Test
+    @DisplayName("Should return 404 for an unknown order")
+    void shouldReturnNotFound() {
+        RiceOrderRequest request = request(1);
+        request.setOrderId(null);
+        
+        ResponseEntity<ApiResponse<RiceOrderResponse>> response = controller.updateOrder("ORD999", request, null, null);
+        
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("Order not found: ORD999", response.getBody().getMessage());
+    }
+    
+    @Test
+    @DisplayName("Should return 400 when the body is for another order")
+    void shouldRejectMismatchedOrderId() {
+        RiceOrderRequest request = request(1);
+        request.setOrderId("ORD002");
+        
+        ResponseEntity<ApiResponse<RiceOrderResponse>> response = controller.updateOrder("ORD001", request, null, null);
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Order ID in the body does not match the path", response.getBody().getMessage());
+    }
+    
+    @Test
+    @DisplayName("Should keep the scale of the given prices in the response")
+    void shouldKeepPriceScale() {
+        RiceOrderRequest request = request(3);
+        request.getOrderItems().get(0).setPricePerUnit(new BigDecimal("45000.50"));
+        
+        ResponseEntity<ApiResponse<RiceOrderResponse>> response = controller.updateOrder("ORD001", request, null, null);
+        
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("45000.50", response.getBody().getData().getOrderItems().get(0).getPricePerUnit().toPlainString());
+        assertEquals("135001.50", response.getBody().getData().getTotalAmount().toPlainString());
+    }
+    
+    @Test
+    @DisplayName("Should return 400 for a price with more than two decimals or a total out of range")
+    void shouldRejectInvalidAmounts() {
+        RiceOrderRequest request = request(1);
+        request.getOrderItems().get(0).setPricePerUnit(new BigDecimal("45000.505"));
+        
+        ResponseEntity<ApiResponse<RiceOrderResponse>> response = controller.updateOrder("ORD001", request, null, null);
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        
+        request = request(Integer.MAX_VALUE);
+        request.getOrderItems().get(0).setPricePerUnit(new BigDecimal("90000000000000000"));
+        
+        response = controller.updateOrder("ORD001", request, null, null);
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(version, repository.getOrderById("ORD001").orElseThrow().getVersion());
+    }
+    
+    @Test
+    @DisplayName("Should return 400 for a malformed If-Match header")
+    void shouldRejectMalformedIfMatch() {
+        ResponseEntity<ApiResponse<RiceOrderResponse>> response = controller.updateOrder("ORD001", request(1), "42", null);
+        
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+    
+    @Test
+    @DisplayName("Should parse If-Match tags and reject a conflicting version parameter")
+    void shouldParseIfMatch() {
+        assertNull(RiceOrderController.expectedVersion(null, null));
+        assertNull(RiceOrderController.expectedVersion("*", null));
+        assertEquals(7L, RiceOrderController.expectedVersion("*", 7L));
+        assertEquals(42L, RiceOrderController.expectedVersion("\"42\"", null));
+        assertEquals(42L, RiceOrderController.expectedVersion(" W/\"42\" ", 42L));
+        assertThrows(IllegalArgumentException.class, () -> RiceOrderController.expectedVersion("\"42\", \"43\"", null));
+        assertThrows(IllegalArgumentException.class, () -> RiceOrderController.expectedVersion("\"abc\"", null));
+        assertThrows(IllegalArgumentException.class, () -> RiceOrderController.expectedVersion("\"42\"", 43L));
+    }
+    
+    private static RiceOrderRequest request(int quantity) {
+        return RiceOrderRequest.builder()
+                .orderId("ORD001")
+                .customer(CustomerDto.builder().customerId("CUST001").name("John Doe").build())
+                .orderItems(List.of(OrderItemDto.builder()
+                        .itemId("ITEM001")
+                        .riceType("Nasi Goreng Special")
+                        .quantity(quantity)
+                        .pricePerUnit(new BigDecimal("45000"))
+                        .build()))
+                .status("CONFIRMED")
+                .build();
+    }
+}
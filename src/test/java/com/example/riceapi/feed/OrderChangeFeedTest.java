@@ -0,0 +1,217 @@
+package com.example.riceapi.feed;
+
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.OrderStore;
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("Order Change Feed Tests")
+class OrderChangeFeedTest {
+    
+    private RiceOrderRepository repository;
+    private OrderChangeFeed feed;
+    
+    @BeforeEach
+    void setUp() {
+        repository = new RiceOrderRepository();
+        // Offsets from 0 keep the expected values readable; the clock-seeded base has its own test
+        feed = new OrderChangeFeed(repository, 4, 0);
+        repository.addChangeListener(feed);
+    }
+    
+    @Test
+    @DisplayName("Should emit one event per add, update, partial update and removal")
+    void shouldEmitEventPerWrite() {
+        long start = feed.getHeadOffset();
+        repository.addOrder(order("ORD001"));
+        repository.updateOrder("ORD001", order("ORD001").withPaymentMethod("Cash"));
+        repository.partialUpdateOrder("ORD001", RiceOrder.builder().status(RiceOrder.OrderStatus.DELIVERED).build());
+        repository.removeOrder("ORD001");
+        
+        OrderChangeFeed.Batch batch = feed.read(start, 10);
+        
+        assertFalse(batch.isReset());
+        assertEquals(start + 4, batch.getNextOffset());
+        List<OrderChangeEvent> events = batch.getEvents();
+        assertEquals(4, events.size());
+        assertEquals(OrderChangeEvent.Type.UPSERTED, events.get(0).getType());
+        assertEquals("Cash", events.get(1).getOrder().getPaymentMethod());
+        assertEquals(RiceOrder.OrderStatus.DELIVERED, events.get(2).getOrder().getStatus());
+        assertEquals(OrderChangeEvent.Type.REMOVED, events.get(3).getType());
+        assertNull(events.get(3).getOrder());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(start + i, events.get(i).getOffset());
+            assertEquals("ORD001", events.get(i).getOrderId());
+        }
+    }
+    
+    @Test
+    @DisplayName("Should read in pages and return nothing at the head")
+    void shouldReadInPages() {
+        repository.addOrder(order("ORD001"));
+        repository.addOrder(order("ORD002"));
+        repository.addOrder(order("ORD003"));
+        
+        OrderChangeFeed.Batch first = feed.read(0, 2);
+        OrderChangeFeed.Batch second = feed.read(first.getNextOffset(), 2);
+        OrderChangeFeed.Batch third = feed.read(second.getNextOffset(), 2);
+        
+        assertEquals(2, first.getEvents().size());
+        assertEquals("ORD003", second.getEvents().get(0).getOrderId());
+        assertTrue(third.getEvents().isEmpty());
+        assertFalse(third.isReset());
+        assertEquals(3, third.getNextOffset());
+    }
+    
+    @Test
+    @DisplayName("Should ask for a reset once an offset has been overwritten or lies ahead")
+    void shouldResetForUnavailableOffsets() {
+        for (int i = 1; i <= 6; i++) {
+            repository.addOrder(order("ORD00" + i));
+        }
+        
+        OrderChangeFeed.Batch overwritten = feed.read(1, 10);
+        OrderChangeFeed.Batch ahead = feed.read(100, 10);
+        
+        assertTrue(overwritten.isReset());
+        assertEquals(2, overwritten.getNextOffset());
+        assertTrue(ahead.isReset());
+        OrderChangeFeed.Batch resumed = feed.read(overwritten.getNextOffset(), 10);
+        assertEquals(4, resumed.getEvents().size());
+        assertEquals("ORD003", resumed.getEvents().get(0).getOrderId());
+    }
+    
+    @Test
+    @DisplayName("Should start offsets from the clock and reset offsets of an earlier run")
+    void shouldResetOffsetsOfEarlierRun() {
+        long before = System.currentTimeMillis() * 1000;
+        OrderChangeFeed clockFeed = new OrderChangeFeed(repository, 4);
+        assertTrue(clockFeed.getHeadOffset() >= before);
+        
+        OrderChangeFeed earlier = new OrderChangeFeed(repository, 4, 1_000_000);
+        OrderChangeFeed later = new OrderChangeFeed(repository, 4, 2_000_000);
+        repository.addChangeListener(earlier);
+        repository.addOrder(order("ORD001"));
+        repository.addOrder(order("ORD002"));
+        repository.addChangeListener(later);
+        repository.addOrder(order("ORD003"));
+        
+        // An offset handed out by the earlier run never reads as an event of the later one
+        OrderChangeFeed.Batch stale = later.read(earlier.read(1_000_000, 10).getNextOffset(), 10);
+        assertTrue(stale.isReset());
+        assertEquals(2_000_000, stale.getNextOffset());
+        assertEquals("ORD003", later.read(stale.getNextOffset(), 10).getEvents().get(0).getOrderId());
+    }
+    
+    @Test
+    @DisplayName("Should wake a registered waiter once, and not register when events are pending")
+    void shouldWakeWaiters() {
+        AtomicInteger woken = new AtomicInteger();
+        Runnable waiter = woken::incrementAndGet;
+        
+        assertTrue(feed.awaitEvents(feed.getHeadOffset(), waiter));
+        repository.addOrder(order("ORD001"));
+        repository.addOrder(order("ORD002"));
+        
+        assertEquals(1, woken.get());
+        assertFalse(feed.awaitEvents(0, waiter));
+        
+        assertTrue(feed.awaitEvents(feed.getHeadOffset(), waiter));
+        feed.cancelWait(waiter);
+        repository.addOrder(order("ORD003"));
+        assertEquals(1, woken.get());
+    }
+    
+    @Test
+    @DisplayName("Should stop reading at a claimed event that is not published yet")
+    void shouldStopAtUnpublishedEvent() throws Exception {
+        OrderStore store = mock(OrderStore.class);
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // The second lookup runs after the offset has been claimed
+        when(store.getOrderById("ORD001")).thenReturn(Optional.of(order("ORD001"))).thenAnswer(invocation -> {
+            claimed.countDown();
+            release.await();
+            return Optional.of(order("ORD001"));
+        });
+        when(store.getOrderById("ORD002")).thenReturn(Optional.of(order("ORD002")));
+        OrderChangeFeed slowFeed = new OrderChangeFeed(store, 4, 0);
+        AtomicInteger woken = new AtomicInteger();
+        
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> slowFeed.orderChanged("ORD001"));
+        assertTrue(claimed.await(5, TimeUnit.SECONDS));
+        slowFeed.orderChanged("ORD002");
+        
+        OrderChangeFeed.Batch pending = slowFeed.read(0, 10);
+        assertTrue(pending.getEvents().isEmpty());
+        assertFalse(pending.isReset());
+        assertEquals(0, pending.getNextOffset());
+        assertTrue(slowFeed.awaitEvents(0, woken::incrementAndGet));
+        
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        
+        assertEquals(1, woken.get());
+        assertEquals(List.of("ORD001", "ORD002"), slowFeed.read(0, 10).getEvents().stream()
+                .map(OrderChangeEvent::getOrderId).toList());
+    }
+    
+    @Test
+    @DisplayName("Should end with the latest state of every order under concurrent writes")
+    void shouldConvergeUnderConcurrentWrites() throws InterruptedException {
+        OrderChangeFeed largeFeed = new OrderChangeFeed(repository, 100_000);
+        repository.addChangeListener(largeFeed);
+        for (int i = 0; i < 10; i++) {
+            repository.addOrder(order("ORD00" + i));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    String orderId = "ORD00" + (i % 10);
+                    RiceOrder.OrderStatus status = RiceOrder.OrderStatus.values()[i % 6];
+                    repository.partialUpdateOrder(orderId, RiceOrder.builder().status(status).build());
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        
+        // Apply the feed like a subscriber would and compare with the store
+        Map<String, RiceOrder> replica = new HashMap<>();
+        for (OrderChangeEvent event : largeFeed.read(largeFeed.getOldestOffset(), 100_000).getEvents()) {
+            replica.put(event.getOrderId(), event.getOrder());
+        }
+        for (int i = 0; i < 10; i++) {
+            String orderId = "ORD00" + i;
+            assertSame(repository.getOrderById(orderId).orElseThrow(), replica.get(orderId));
+        }
+    }
+    
+    private static RiceOrder order(String orderId) {
+        return RiceOrder.builder()
+                .orderId(orderId)
+                .orderItems(List.of(OrderItem.builder().itemId("ITEM001").quantity(1)
+                        .pricePerUnit(new BigDecimal("45000")).build()))
+                .status(RiceOrder.OrderStatus.PENDING)
+                .build();
+    }
+}
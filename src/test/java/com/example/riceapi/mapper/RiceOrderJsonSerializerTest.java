@@ -0,0 +1,114 @@
+package com.example.riceapi.mapper;
+
+import com.example.riceapi.dto.ApiResponse;
+import com.example.riceapi.dto.RiceOrderResponse;
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.DeliveryAddress;
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RiceOrderJsonSerializer Tests")
+class RiceOrderJsonSerializerTest {
+    
+    private RiceOrderMapper mapper;
+    private ObjectMapper objectMapper;
+    
+    @BeforeEach
+    void setUp() {
+        mapper = new RiceOrderMapper();
+        // Same date handling as the Spring Boot auto-configured mapper
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .serializerByType(RiceOrder.class, new RiceOrderJsonSerializer())
+                .build();
+    }
+    
+    @Test
+    @DisplayName("Should write the same bytes as the mapped response for a complete order")
+    void shouldMatchMappedResponseForCompleteOrder() throws Exception {
+        RiceOrder order = RiceOrder.builder()
+                .orderId("ORD001")
+                .customer(Customer.builder()
+                        .customerId("CUST001")
+                        .name("Budi \"Santoso\"")
+                        .email("budi@test.com")
+                        .phoneNumber("+62-812-0001")
+                        .build())
+                .orderItems(Arrays.asList(
+                        OrderItem.builder()
+                                .itemId("ITEM001")
+                                .riceType("Nasi Goreng Special")
+                                .quantity(2)
+                                .pricePerUnit(new BigDecimal("45000"))
+                                .spiceLevel("Hot")
+                                .additionalNotes("Extra telur\nno onions")
+                                .build(),
+                        OrderItem.builder()
+                                .itemId("ITEM002")
+                                .riceType("Nasi Goreng Seafood")
+                                .quantity(1)
+                                .pricePerUnit(new BigDecimal("55000.50"))
+                                .build()))
+                .deliveryAddress(DeliveryAddress.builder()
+                        .street("Jl. Sudirman No. 1")
+                        .city("Jakarta")
+                        .state("DKI Jakarta")
+                        .postalCode("10220")
+                        .country("Indonesia")
+                        .additionalInstructions("Gate 2")
+                        .build())
+                .status(RiceOrder.OrderStatus.OUT_FOR_DELIVERY)
+                .orderDate(LocalDateTime.of(2024, 1, 15, 12, 30, 5, 123_000_000))
+                .deliveryTime(LocalDateTime.of(2024, 1, 15, 13, 0))
+                .paymentMethod("E-Wallet")
+                .totalAmount(new BigDecimal("145000.50"))
+                .build();
+        
+        assertEquals(objectMapper.writeValueAsString(mapper.toResponse(order)), objectMapper.writeValueAsString(order));
+    }
+    
+    @Test
+    @DisplayName("Should write the same bytes as the mapped response when fields are missing")
+    void shouldMatchMappedResponseForSparseOrder() throws Exception {
+        RiceOrder withNulls = RiceOrder.builder()
+                .orderId("ORD002")
+                .orderItems(List.of(OrderItem.builder().itemId("ITEM001").build()))
+                .build();
+        RiceOrder empty = RiceOrder.builder().build();
+        
+        assertEquals(objectMapper.writeValueAsString(mapper.toResponse(withNulls)), objectMapper.writeValueAsString(withNulls));
+        assertEquals(objectMapper.writeValueAsString(mapper.toResponse(empty)), objectMapper.writeValueAsString(empty));
+    }
+    
+    @Test
+    @DisplayName("Should write an API response of entities like one of mapped responses")
+    void shouldMatchMappedApiResponse() throws Exception {
+        RiceOrder order = RiceOrder.builder()
+                .orderId("ORD003")
+                .status(RiceOrder.OrderStatus.PENDING)
+                .totalAmount(new BigDecimal("90000"))
+                .build();
+        ApiResponse<List<RiceOrder>> entities = ApiResponse.success(List.of(order), "Retrieved 1 orders successfully");
+        ApiResponse<List<RiceOrderResponse>> mapped = ApiResponse.<List<RiceOrderResponse>>builder()
+                .success(true)
+                .message(entities.getMessage())
+                .data(List.of(mapper.toResponse(order)))
+                .timestamp(entities.getTimestamp())
+                .build();
+        
+        assertEquals(objectMapper.writeValueAsString(mapped), objectMapper.writeValueAsString(entities));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.riceapi.metrics;
+
+import com.example.riceapi.dto.RiceOrderResponse;
+import com.example.riceapi.mapper.RiceOrderMapper;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Order Metrics Tests")
+class OrderMetricsTest {
+    
+    private SimpleMeterRegistry registry;
+    private RiceOrderRepository repository;
+    
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        repository = new RiceOrderRepository();
+        repository.initializeMockData();
+    }
+    
+    @Nested
+    @DisplayName("Store Gauge Tests")
+    class StoreGaugeTests {
+        
+        @BeforeEach
+        void bind() {
+            new OrderStoreMetrics(repository).bindTo(registry);
+        }
+        
+        @Test
+        @DisplayName("Should report stored order count")
+        void shouldReportStoredOrderCount() {
+            assertEquals(5, registry.get("riceapi.orders.stored").gauge().value());
+            
+            repository.removeOrder("ORD001");
+            
+            assertEquals(4, registry.get("riceapi.orders.stored").gauge().value());
+        }
+        
+        @Test
+        @DisplayName("Should report order count per status")
+        void shouldReportOrderCountPerStatus() {
+            for (RiceOrder.OrderStatus status : RiceOrder.OrderStatus.values()) {
+                assertEquals(repository.getOrdersByStatus(status).size(),
+                        registry.get("riceapi.orders.by.status").tag("status", status.name()).gauge().value());
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("Mapper Aspect Tests")
+    class MapperAspectTests {
+        
+        private RiceOrderMapper mapper;
+        
+        @BeforeEach
+        void proxyMapper() {
+            AspectJProxyFactory factory = new AspectJProxyFactory(new RiceOrderMapper());
+            factory.addAspect(new MapperMetricsAspect(registry));
+            mapper = factory.getProxy();
+        }
+        
+        @Test
+        @DisplayName("Should time mapper calls per method")
+        void shouldTimeMapperCalls() {
+            RiceOrder order = repository.getOrderById("ORD001").orElseThrow();
+            
+            RiceOrderResponse response = mapper.toResponse(order);
+            mapper.toResponse(order);
+            
+            assertEquals("ORD001", response.getOrderId());
+            Timer timer = registry.get("riceapi.mapper").tag("method", "toResponse").timer();
+            assertEquals(2, timer.count());
+            assertTrue(timer.totalTime(TimeUnit.NANOSECONDS) > 0);
+        }
+        
+        @Test
+        @DisplayName("Should record bytes allocated by mapper calls")
+        void shouldRecordAllocation() {
+            mapper.toResponse(repository.getOrderById("ORD001").orElseThrow());
+            
+            DistributionSummary allocated = registry.get("riceapi.mapper.allocated").tag("method", "toResponse").summary();
+            assertEquals(1, allocated.count());
+            assertTrue(allocated.totalAmount() > 0);
+        }
+        
+        @Test
+        @DisplayName("Should only measure mapper calls when enabled")
+        void shouldOnlyMeasureWhenEnabled() {
+            ApplicationContextRunner runner = new ApplicationContextRunner()
+                    .withBean(MeterRegistry.class, () -> registry)
+                    .withUserConfiguration(MapperMetricsAspect.class);
+            
+            runner.run(context -> assertTrue(context.getBeansOfType(MapperMetricsAspect.class).isEmpty()));
+            runner.withPropertyValues("riceapi.metrics.mapper.enabled=true")
+                    .run(context -> assertEquals(1, context.getBeansOfType(MapperMetricsAspect.class).size()));
+        }
+    }
+}
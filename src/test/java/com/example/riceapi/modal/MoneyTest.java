@@ -0,0 +1,86 @@
+package com.example.riceapi.modal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Money Tests")
+class MoneyTest {
+    
+    @Test
+    @DisplayName("Should round trip amounts through minor units with their scale")
+    void shouldRoundTripAmounts() {
+        assertEquals(10_000_000L, Money.toMinor(new BigDecimal("100000")));
+        assertRoundTrip("100000");
+        assertRoundTrip("100000.00");
+        assertRoundTrip("45000.50");
+        assertRoundTrip("45000.5");
+        assertRoundTrip("-12.34");
+        assertEquals(new BigDecimal("12.50"), roundTrip(new BigDecimal("12.500")));
+        assertEquals(new BigDecimal("1000"), roundTrip(new BigDecimal("1E+3")));
+    }
+    
+    @Test
+    @DisplayName("Should map null to the absent marker and back")
+    void shouldMapNullToAbsent() {
+        assertEquals(Money.ABSENT, Money.toMinor(null));
+        assertNull(Money.toDecimal(Money.ABSENT, Money.SCALE));
+        assertEquals(0, Money.orZero(Money.ABSENT));
+    }
+    
+    @Test
+    @DisplayName("Should reject amounts with more than two decimals instead of rounding them")
+    void shouldRejectExtraDecimals() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> Money.toMinor(new BigDecimal("0.005")));
+        assertTrue(e.getMessage().contains("decimals"));
+    }
+    
+    @Test
+    @DisplayName("Should reject amounts and totals that do not fit in a long")
+    void shouldRejectOverflow() {
+        assertThrows(IllegalArgumentException.class, () -> Money.toMinor(new BigDecimal("1e30")));
+        
+        RiceOrder order = RiceOrder.builder()
+                .orderItems(List.of(OrderItem.builder()
+                        .quantity(Integer.MAX_VALUE)
+                        .pricePerUnit(new BigDecimal("90000000000000000"))
+                        .build()))
+                .build();
+        assertThrows(IllegalArgumentException.class, order::calculateTotalAmountMinor);
+    }
+    
+    @Test
+    @DisplayName("Should keep amounts unset until given and compute totals in minor units")
+    void shouldComputeTotalsInMinorUnits() {
+        RiceOrder order = RiceOrder.builder()
+                .orderItems(List.of(
+                        OrderItem.builder().quantity(2).pricePerUnit(new BigDecimal("45000.25")).build(),
+                        OrderItem.builder().quantity(3).build(),
+                        OrderItem.builder().pricePerUnit(new BigDecimal("10000")).build()))
+                .build();
+        
+        assertNull(order.getTotalAmount());
+        assertNull(RiceOrder.builder().build().getTotalAmount());
+        assertNull(OrderItem.builder().build().getPricePerUnit());
+        assertEquals(9_000_050L, order.calculateTotalAmountMinor());
+        assertEquals(new BigDecimal("90000.50"), order.calculateTotalAmount());
+        assertEquals(BigDecimal.ZERO, RiceOrder.builder().build().calculateTotalAmount());
+        assertEquals(new BigDecimal("20000"), RiceOrder.builder()
+                .orderItems(List.of(OrderItem.builder().quantity(2).pricePerUnit(new BigDecimal("10000")).build()))
+                .build()
+                .calculateTotalAmount());
+    }
+    
+    private static BigDecimal roundTrip(BigDecimal amount) {
+        return Money.toDecimal(Money.toMinor(amount), Money.scaleOf(amount));
+    }
+    
+    private static void assertRoundTrip(String amount) {
+        assertEquals(new BigDecimal(amount), roundTrip(new BigDecimal(amount)));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.riceapi.modal;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("OrderValues Tests")
+class OrderValuesTest {
+    
+    @Test
+    @DisplayName("Should return one shared instance per value")
+    void shouldShareEqualValues() {
+        String first = new String("Padang");
+        String second = new String("Padang");
+        
+        assertSame(OrderValues.canonical(first), OrderValues.canonical(second));
+        assertEquals("Padang", OrderValues.canonical(second));
+        assertNull(OrderValues.canonical(null));
+    }
+    
+    @Test
+    @DisplayName("Should keep long values as given")
+    void shouldNotPoolLongValues() {
+        String notes = "x".repeat(OrderValues.MAX_LENGTH + 1);
+        int size = OrderValues.size();
+        
+        assertSame(notes, OrderValues.canonical(notes));
+        assertEquals(size, OrderValues.size());
+    }
+    
+    @Test
+    @DisplayName("Should share repeated fields of items, addresses and orders")
+    void shouldShareModelFields() {
+        OrderItem item1 = item(new String("Nasi Goreng Special"), new String("Medium"), new String("Extra sambal"));
+        OrderItem item2 = item(new String("Nasi Goreng Special"), new String("Medium"), new String("Extra sambal"));
+        DeliveryAddress address1 = address(new String("Jakarta"), new String("Jl. Sudirman No. 1"));
+        DeliveryAddress address2 = address(new String("Jakarta"), new String("Jl. Sudirman No. 1"));
+        RiceOrder order1 = RiceOrder.builder().orderId("ORD001").paymentMethod(new String("E-Wallet")).build();
+        RiceOrder order2 = RiceOrder.builder().orderId("ORD002").paymentMethod(new String("E-Wallet")).build();
+        
+        assertSame(item1.getRiceType(), item2.getRiceType());
+        assertSame(item1.getSpiceLevel(), item2.getSpiceLevel());
+        assertNotSame(item1.getAdditionalNotes(), item2.getAdditionalNotes());
+        assertSame(address1.getCity(), address2.getCity());
+        assertSame(address1.getCountry(), address2.getCountry());
+        assertSame(address1.getState(), address2.getState());
+        assertNotSame(address1.getStreet(), address2.getStreet());
+        assertSame(order1.getPaymentMethod(), order2.getPaymentMethod());
+        assertSame(order1.getPaymentMethod(), order1.withStatus(RiceOrder.OrderStatus.PENDING).getPaymentMethod());
+    }
+    
+    @Test
+    @DisplayName("Should keep unique item IDs and postal codes out of the pool")
+    void shouldNotPoolUniqueFields() {
+        int size = OrderValues.size();
+        
+        for (int i = 0; i < 100; i++) {
+            OrderItem.builder().itemId("ITEM-UNIQUE-" + i).build();
+            DeliveryAddress.builder().postalCode("P-UNIQUE-" + i).build();
+        }
+        
+        assertEquals(size, OrderValues.size());
+    }
+    
+    private static OrderItem item(String riceType, String spiceLevel, String notes) {
+        return OrderItem.builder()
+                .itemId(new String("ITEM001"))
+                .riceType(riceType)
+                .quantity(1)
+                .spiceLevel(spiceLevel)
+                .additionalNotes(notes)
+                .build();
+    }
+    
+    private static DeliveryAddress address(String city, String street) {
+        return DeliveryAddress.builder()
+                .street(street)
+                .city(city)
+                .state(new String("DKI Jakarta"))
+                .postalCode(new String("10220"))
+                .country(new String("Indonesia"))
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.riceapi.persistence;
+
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MappedOrderSnapshot Tests")
+class MappedOrderSnapshotTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    @DisplayName("Should read back every order across many small mapping windows")
+    void shouldReadOrdersAcrossWindows() throws IOException {
+        List<RiceOrder> orders = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            orders.add(order(i));
+        }
+        // 512 byte windows force padding before many records and index entries
+        assertEquals(200, OrderSnapshots.write(directory, 7, orders.iterator(), 9));
+        
+        MappedOrderSnapshot snapshot = MappedOrderSnapshot.open(directory);
+        
+        assertEquals(7, snapshot.getCoveredSegment());
+        assertEquals(200, snapshot.pendingCount());
+        Map<String, RiceOrder> stubs = new HashMap<>();
+        snapshot.forEachPending(stub -> stubs.put(stub.getOrderId(), stub));
+        assertEquals(200, stubs.size());
+        for (RiceOrder order : orders) {
+            RiceOrder stub = stubs.get(order.getOrderId());
+            assertEquals(order.getStatus(), stub.getStatus());
+            assertEquals(order.getCustomer().getCustomerId(), stub.getCustomer().getCustomerId());
+            assertEquals(order.getTotalAmount(), stub.getTotalAmount());
+            assertEquals(order.getTotalAmountScale(), stub.getTotalAmountScale());
+            assertEquals(order.getOrderDate(), stub.getOrderDate());
+            assertNull(stub.getDeliveryAddress());
+            assertEquals(order, snapshot.take(order.getOrderId()));
+        }
+        assertEquals(0, snapshot.pendingCount());
+    }
+    
+    @Test
+    @DisplayName("Should hand out each order only once")
+    void shouldTakeEachOrderOnce() throws IOException {
+        OrderSnapshots.write(directory, 0, List.of(order(1)).iterator());
+        MappedOrderSnapshot snapshot = MappedOrderSnapshot.open(directory);
+        
+        assertTrue(snapshot.isPending("ORD1"));
+        assertNotNull(snapshot.take("ORD1"));
+        assertNull(snapshot.take("ORD1"));
+        assertFalse(snapshot.isPending("ORD1"));
+        assertNull(snapshot.take("UNKNOWN"));
+    }
+    
+    private static RiceOrder order(int i) {
+        RiceOrder.OrderStatus[] statuses = RiceOrder.OrderStatus.values();
+        return RiceOrder.builder()
+                .orderId("ORD" + i)
+                .customer(Customer.builder().customerId("CUST" + (i % 7)).name("Customer " + i).build())
+                .orderItems(List.of(OrderItem.builder()
+                        .itemId("ITEM" + i)
+                        .riceType("Nasi Goreng Special")
+                        .quantity(1 + i % 3)
+                        .pricePerUnit(new BigDecimal(i % 2 == 0 ? "45000" : "45000.5"))
+                        .additionalNotes("x".repeat(i % 50))
+                        .build()))
+                .status(i % 10 == 0 ? null : statuses[i % statuses.length])
+                .orderDate(LocalDateTime.of(2024, 1, 1, 12, 0).plusMinutes(i))
+                .totalAmount(i % 5 == 0 ? null : new BigDecimal(45000 * (1 + i % 3)))
+                .build();
+    }
+}
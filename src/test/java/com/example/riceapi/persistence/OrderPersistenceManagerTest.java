@@ -0,0 +1,215 @@
+package com.example.riceapi.persistence;
+
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.DeliveryAddress;
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("OrderPersistenceManager Tests")
+class OrderPersistenceManagerTest {
+    
+    @TempDir
+    Path directory;
+    
+    private final List<OrderPersistenceManager> managers = new ArrayList<>();
+    
+    @BeforeEach
+    void setUp() {
+        managers.clear();
+    }
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        for (OrderPersistenceManager manager : managers) {
+            manager.stop();
+        }
+    }
+    
+    @Test
+    @DisplayName("Should recover orders from the write-ahead log")
+    void shouldRecoverFromWriteAheadLog() throws IOException {
+        RiceOrderRepository repository = startRepository();
+        repository.addOrder(order("ORD001", RiceOrder.OrderStatus.PENDING));
+        repository.addOrder(order("ORD002", RiceOrder.OrderStatus.PENDING));
+        repository.partialUpdateOrder("ORD001", RiceOrder.builder()
+                .status(RiceOrder.OrderStatus.DELIVERED)
+                .build());
+        repository.removeOrder("ORD002");
+        RiceOrder beforeRestart = repository.getOrderById("ORD001").orElseThrow();
+        stopAll();
+        
+        RiceOrderRepository recovered = startRepository();
+        
+        assertEquals(1, recovered.getOrderCount());
+        RiceOrder order = recovered.getOrderById("ORD001").orElseThrow();
+        assertEquals(beforeRestart, order);
+        assertEquals(RiceOrder.OrderStatus.DELIVERED, order.getStatus());
+        assertEquals(1, recovered.getOrdersByStatus(RiceOrder.OrderStatus.DELIVERED).size());
+    }
+    
+    @Test
+    @DisplayName("Should recover from snapshot plus the log written after it")
+    void shouldRecoverFromSnapshotAndLaterLog() throws IOException {
+        RiceOrderRepository repository = startRepository();
+        repository.addOrder(order("ORD001", RiceOrder.OrderStatus.PENDING));
+        repository.addOrder(order("ORD002", RiceOrder.OrderStatus.PENDING));
+        assertEquals(2, managers.get(0).snapshot());
+        repository.addOrder(order("ORD003", RiceOrder.OrderStatus.CONFIRMED));
+        repository.removeOrder("ORD001");
+        stopAll();
+        
+        // Only the segment written after the snapshot is left
+        assertEquals(1, WriteAheadLog.listSegments(directory).size());
+        
+        RiceOrderRepository recovered = startRepository();
+        
+        assertFalse(recovered.orderExists("ORD001"));
+        assertTrue(recovered.orderExists("ORD002"));
+        assertTrue(recovered.orderExists("ORD003"));
+        assertEquals(1, recovered.getOrdersByStatus(RiceOrder.OrderStatus.CONFIRMED).size());
+    }
+    
+    @Test
+    @DisplayName("Should serve snapshot orders lazily from the mapped file")
+    void shouldServeSnapshotOrdersLazily() throws IOException {
+        RiceOrderRepository repository = startRepository();
+        repository.addOrder(order("ORD001", RiceOrder.OrderStatus.PENDING));
+        repository.addOrder(order("ORD002", RiceOrder.OrderStatus.DELIVERED));
+        repository.addOrder(order("ORD003", RiceOrder.OrderStatus.DELIVERED));
+        RiceOrder beforeRestart = repository.getOrderById("ORD002").orElseThrow();
+        managers.get(0).snapshot();
+        stopAll();
+        
+        RiceOrderRepository recovered = new RiceOrderRepository();
+        start(recovered, false);
+        
+        // Counts and indexes are available before any order is decoded
+        assertEquals(3, recovered.getOrderCount());
+        assertTrue(recovered.orderExists("ORD003"));
+        assertFalse(recovered.detachLazySourceIfDrained());
+        assertEquals(2, recovered.getOrderCountByStatus(RiceOrder.OrderStatus.DELIVERED));
+        assertEquals(new BigDecimal("180002.00"), recovered.getRevenueByStatus(RiceOrder.OrderStatus.DELIVERED));
+        assertEquals(3, recovered.getOrdersByOrderDateRange(LocalDateTime.of(2024, 1, 15, 0, 0), null).size());
+        assertEquals(2, recovered.getOrdersByStatus(RiceOrder.OrderStatus.DELIVERED).size());
+        assertEquals(beforeRestart, recovered.getOrderById("ORD002").orElseThrow());
+        
+        // Writes to orders that were never decoded behave like writes to any other order
+        assertTrue(recovered.removeOrder("ORD001"));
+        assertTrue(recovered.partialUpdateOrder("ORD003", RiceOrder.builder()
+                .paymentMethod("E-Wallet")
+                .build()).isPresent());
+        assertEquals(2, recovered.getOrderCount());
+        assertTrue(recovered.getOrdersByStatus(RiceOrder.OrderStatus.PENDING).isEmpty());
+        assertEquals(new BigDecimal("180002.00"), recovered.getTotalRevenue());
+        assertTrue(recovered.detachLazySourceIfDrained());
+        stopAll();
+        
+        RiceOrderRepository restartedAgain = startRepository();
+        assertEquals(2, restartedAgain.getOrderCount());
+        assertEquals("E-Wallet", restartedAgain.getOrderById("ORD003").orElseThrow().getPaymentMethod());
+    }
+    
+    @Test
+    @DisplayName("Should ignore a torn entry at the end of the log")
+    void shouldIgnoreTornTail() throws IOException {
+        RiceOrderRepository repository = startRepository();
+        repository.addOrder(order("ORD001", RiceOrder.OrderStatus.PENDING));
+        repository.addOrder(order("ORD002", RiceOrder.OrderStatus.PENDING));
+        stopAll();
+        
+        // Simulate a crash in the middle of writing the last entry
+        Path segment = WriteAheadLog.segmentPath(directory, WriteAheadLog.listSegments(directory).get(0));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(segment) - 10);
+        }
+        
+        RiceOrderRepository recovered = startRepository();
+        
+        assertEquals(1, recovered.getOrderCount());
+        assertTrue(recovered.orderExists("ORD001"));
+    }
+    
+    @Test
+    @DisplayName("Should replace seed data with persisted state")
+    void shouldReplaceSeedData() throws IOException {
+        RiceOrderRepository repository = new RiceOrderRepository();
+        repository.initializeMockData();
+        start(repository);
+        
+        assertEquals(0, repository.getOrderCount());
+    }
+    
+    private RiceOrderRepository startRepository() throws IOException {
+        RiceOrderRepository repository = new RiceOrderRepository();
+        start(repository);
+        return repository;
+    }
+    
+    private void start(RiceOrderRepository repository) throws IOException {
+        start(repository, true);
+    }
+    
+    private void start(RiceOrderRepository repository, boolean warmUp) throws IOException {
+        PersistenceProperties properties = new PersistenceProperties();
+        properties.setEnabled(true);
+        properties.setDirectory(directory.toString());
+        properties.setSnapshotInterval(Duration.ZERO);
+        properties.setWarmUp(warmUp);
+        OrderPersistenceManager manager = new OrderPersistenceManager(repository, properties);
+        manager.start();
+        managers.add(manager);
+    }
+    
+    private void stopAll() throws IOException {
+        for (OrderPersistenceManager manager : managers) {
+            manager.stop();
+        }
+        managers.clear();
+    }
+    
+    private static RiceOrder order(String orderId, RiceOrder.OrderStatus status) {
+        return RiceOrder.builder()
+                .orderId(orderId)
+                .customer(Customer.builder()
+                        .customerId("CUST001")
+                        .name("John Doe")
+                        .email("john.doe@test.com")
+                        .build())
+                .orderItems(Arrays.asList(OrderItem.builder()
+                        .itemId("ITEM001")
+                        .riceType("Nasi Goreng Special")
+                        .quantity(2)
+                        .pricePerUnit(new BigDecimal("45000.50"))
+                        .spiceLevel("Medium")
+                        .build()))
+                .deliveryAddress(DeliveryAddress.builder()
+                        .street("Jl. Sudirman No. 123")
+                        .city("Jakarta")
+                        .country("Indonesia")
+                        .build())
+                .status(status)
+                .orderDate(LocalDateTime.of(2024, 1, 15, 12, 30, 15, 123456789))
+                .paymentMethod("Cash")
+                .build();
+    }
+}
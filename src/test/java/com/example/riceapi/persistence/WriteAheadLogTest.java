@@ -0,0 +1,269 @@
+package com.example.riceapi.persistence;
+
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.repository.RiceOrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("WriteAheadLog Tests")
+class WriteAheadLogTest {
+    
+    @TempDir
+    Path directory;
+    
+    private FailingChannel channel;
+    private WriteAheadLog log;
+    
+    @AfterEach
+    void tearDown() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+    }
+    
+    @Test
+    @DisplayName("Should cut a torn entry off and keep logging after a failed write")
+    void shouldCutTornEntryAfterFailedWrite() throws IOException {
+        open();
+        log.logPut(order("ORD001")).join();
+        
+        channel.failNextWrite = true;
+        assertThrows(CompletionException.class, () -> log.logPut(order("ORD002")).join());
+        log.logPut(order("ORD003")).join();
+        log.close();
+        log = null;
+        
+        RiceOrderRepository recovered = replay();
+        assertEquals(2, recovered.getOrderCount());
+        assertTrue(recovered.orderExists("ORD001"));
+        assertFalse(recovered.orderExists("ORD002"));
+        assertTrue(recovered.orderExists("ORD003"));
+    }
+    
+    @Test
+    @DisplayName("Should reject every later entry when a failed write cannot be cut off")
+    void shouldRejectEntriesWhenTornEntryRemains() throws IOException {
+        open();
+        log.logPut(order("ORD001")).join();
+        
+        channel.failNextWrite = true;
+        channel.failTruncate = true;
+        assertThrows(CompletionException.class, () -> log.logPut(order("ORD002")).join());
+        
+        CompletionException rejected = assertThrows(CompletionException.class,
+                () -> log.logPut(order("ORD003")).join());
+        assertInstanceOf(IllegalStateException.class, rejected.getCause());
+        assertThrows(CompletionException.class, () -> log.logRemove("ORD001").join());
+        assertThrows(CompletionException.class, () -> log.rotate().join());
+        log.close();
+        log = null;
+        
+        RiceOrderRepository recovered = replay();
+        assertEquals(1, recovered.getOrderCount());
+        assertTrue(recovered.orderExists("ORD001"));
+    }
+    
+    @Test
+    @DisplayName("Should stop replay at an entry whose length runs past the segment")
+    void shouldStopReplayAtCorruptLength() throws IOException {
+        open();
+        log.logPut(order("ORD001")).join();
+        log.logPut(order("ORD002")).join();
+        log.close();
+        log = null;
+        
+        Path segment = WriteAheadLog.segmentPath(directory, 0);
+        try (FileChannel file = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            file.read(length, Integer.BYTES);
+            long second = 3L * Integer.BYTES + length.flip().getInt();
+            file.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, Integer.MAX_VALUE - 8), second);
+        }
+        
+        RiceOrderRepository recovered = replay();
+        assertEquals(1, recovered.getOrderCount());
+        assertTrue(recovered.orderExists("ORD001"));
+    }
+    
+    @Test
+    @DisplayName("Should complete every entry appended while the log closes")
+    void shouldCompleteEntriesRacingClose() throws Exception {
+        open();
+        List<CompletableFuture<Void>> futures = new CopyOnWriteArrayList<>();
+        Thread appender = new Thread(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                futures.add(log.logPut(order("ORD" + i)));
+            }
+        });
+        appender.start();
+        while (futures.size() < 100) {
+            Thread.onSpinWait();
+        }
+        log.close();
+        appender.join();
+        log = null;
+        
+        for (CompletableFuture<Void> future : futures) {
+            assertDoesNotThrow(() -> future.handle((ignored, error) -> null).get(5, TimeUnit.SECONDS));
+        }
+    }
+    
+    private void open() throws IOException {
+        log = new WriteAheadLog(directory, 0, true, 64, file -> {
+            channel = new FailingChannel(FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE));
+            return channel;
+        });
+    }
+    
+    private RiceOrderRepository replay() throws IOException {
+        RiceOrderRepository repository = new RiceOrderRepository();
+        WriteAheadLog.replay(WriteAheadLog.segmentPath(directory, 0), repository);
+        return repository;
+    }
+    
+    private static RiceOrder order(String orderId) {
+        return RiceOrder.builder()
+                .orderId(orderId)
+                .customer(Customer.builder()
+                        .customerId("CUST001")
+                        .name("John Doe")
+                        .build())
+                .status(RiceOrder.OrderStatus.PENDING)
+                .paymentMethod("Cash")
+                .totalAmount(new BigDecimal("45000.50"))
+                .build();
+    }
+    
+    /**
+     * File channel that can fail like a full disk: a failing write stores half
+     * of its bytes before throwing
+     */
+    private static final class FailingChannel extends FileChannel {
+        
+        private final FileChannel delegate;
+        volatile boolean failNextWrite;
+        volatile boolean failTruncate;
+        
+        FailingChannel(FileChannel delegate) {
+            this.delegate = delegate;
+        }
+        
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (failNextWrite) {
+                failNextWrite = false;
+                ByteBuffer half = src.slice(src.position(), src.remaining() / 2);
+                delegate.write(half);
+                throw new IOException("No space left on device");
+            }
+            return delegate.write(src);
+        }
+        
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            if (failTruncate) {
+                throw new IOException("Input/output error");
+            }
+            delegate.truncate(size);
+            return this;
+        }
+        
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+        
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+        
+        @Override
+        public void force(boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+        
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+        
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+        
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+        
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+        
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+        
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+        
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+        
+        @Override
+        public int write(ByteBuffer src, long position) throws IOException {
+            return delegate.write(src, position);
+        }
+        
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+        
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+        
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+        
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+}
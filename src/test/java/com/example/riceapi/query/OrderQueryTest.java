@@ -0,0 +1,92 @@
+package com.example.riceapi.query;
+
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.DeliveryAddress;
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("OrderQuery Tests")
+class OrderQueryTest {
+    
+    private static final RiceOrder ORDER = RiceOrder.builder()
+            .orderId("ORD001")
+            .customer(Customer.builder().customerId("CUST001").build())
+            .deliveryAddress(DeliveryAddress.builder().city("Jakarta").build())
+            .orderItems(List.of(
+                    OrderItem.builder().riceType("Nasi Goreng Ayam").quantity(2)
+                            .pricePerUnit(new BigDecimal("25000")).spiceLevel("Hot").build(),
+                    OrderItem.builder().riceType("Nasi Goreng Pete").quantity(1)
+                            .pricePerUnit(new BigDecimal("30000")).spiceLevel("Mild").build()))
+            .status(RiceOrder.OrderStatus.CONFIRMED)
+            .orderDate(LocalDateTime.of(2024, 3, 1, 12, 30))
+            .totalAmount(new BigDecimal("80000"))
+            .paymentMethod("Credit Card")
+            .build();
+    
+    @Test
+    @DisplayName("Should match an order meeting every combined condition")
+    void shouldMatchCombinedConditions() {
+        OrderQuery query = OrderQuery.parse("status IN (pending, Confirmed) AND city = jakarta"
+                + " and paymentMethod = 'credit card' and riceType = \"Nasi Goreng Pete\""
+                + " and amount >= 80000 and totalAmount < 80000.01 and orderDate >= 2024-03-01"
+                + " and customerId != CUST002");
+        
+        assertTrue(query.matches(ORDER));
+        assertFalse(OrderQuery.parse("status = DELIVERED").matches(ORDER));
+        assertFalse(OrderQuery.parse("spiceLevel = Medium").matches(ORDER));
+        assertFalse(OrderQuery.parse("customerId = cust001").matches(ORDER));
+        assertFalse(OrderQuery.parse("orderDate > 2024-03-01T12:30").matches(ORDER));
+        assertTrue(OrderQuery.parse("  ").matches(ORDER));
+    }
+    
+    @Test
+    @DisplayName("Should treat missing fields as matching only !=")
+    void shouldHandleMissingFields() {
+        RiceOrder bare = RiceOrder.builder().orderId("ORD002").build();
+        
+        assertTrue(OrderQuery.parse("status != PENDING and city != Jakarta and riceType != 'Nasi Goreng Ayam'")
+                .matches(bare));
+        assertFalse(OrderQuery.parse("deliveryTime < 2030-01-01").matches(bare));
+        assertFalse(OrderQuery.parse("riceType = 'Nasi Goreng Ayam'").matches(bare));
+    }
+    
+    @Test
+    @DisplayName("Should expose the conditions an index can answer")
+    void shouldExposeIndexHints() {
+        OrderQuery query = OrderQuery.parse("status in (PENDING, CONFIRMED) and status != PENDING"
+                + " and status = CONFIRMED and customerId = CUST001 and orderDate >= 2024-03-01 and orderDate <= 2024-03-02T00:00"
+                + " and orderDate > 2024-02-01");
+        
+        assertEquals(EnumSet.of(RiceOrder.OrderStatus.CONFIRMED), query.getStatuses());
+        assertEquals("CUST001", query.getCustomerId());
+        assertEquals(LocalDateTime.of(2024, 3, 1, 0, 0), query.getOrderDateFrom());
+        assertEquals(LocalDateTime.of(2024, 3, 2, 0, 0).plusNanos(1), query.getOrderDateTo());
+        assertNull(query.getDeliveryTimeFrom());
+        assertNull(OrderQuery.parse("city = Jakarta").getStatuses());
+    }
+    
+    @Test
+    @DisplayName("Should reject malformed filters with a reason")
+    void shouldRejectMalformedFilters() {
+        assertEquals("Unknown field colour at position 1 of the filter",
+                assertThrows(IllegalArgumentException.class, () -> OrderQuery.parse("colour = red")).getMessage());
+        assertEquals("Operator < is not supported for city",
+                assertThrows(IllegalArgumentException.class, () -> OrderQuery.parse("city < B")).getMessage());
+        assertEquals("Unknown status: LOST",
+                assertThrows(IllegalArgumentException.class, () -> OrderQuery.parse("status = LOST")).getMessage());
+        assertThrows(IllegalArgumentException.class, () -> OrderQuery.parse("status = PENDING or city = Jakarta"));
+        assertThrows(IllegalArgumentException.class, () -> OrderQuery.parse("status in (PENDING"));
+        assertThrows(IllegalArgumentException.class, () -> OrderQuery.parse("paymentMethod = 'Cash"));
+        assertThrows(IllegalArgumentException.class, () -> OrderQuery.parse("amount >= lots"));
+        assertThrows(IllegalArgumentException.class, () -> OrderQuery.parse("orderDate in (2024-03-01)"));
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.riceapi.repository;
+
+import com.example.riceapi.RiceapiApplication;
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.query.OrderQuery;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two instances of the application on their own ports, each serving the API
+ * from a ShardedOrderStore over its own repository and an HttpOrderStore for
+ * the other node
+ */
+@DisplayName("HttpOrderStore Tests")
+class HttpOrderStoreTest {
+    
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 15, 12, 0);
+    
+    private static int portA;
+    private static int portB;
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    
+    @BeforeAll
+    static void startNodes() throws IOException {
+        portA = freePort();
+        portB = freePort();
+        nodeA = startNode("node-a", portA, "node-b", portB);
+        nodeB = startNode("node-b", portB, "node-a", portA);
+    }
+    
+    @AfterAll
+    static void stopNodes() {
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+    }
+    
+    @Test
+    @DisplayName("Should split the seed orders between the nodes and serve all of them from either node")
+    void shouldSplitSeedOrders() {
+        RiceOrderRepository seeded = new RiceOrderRepository();
+        seeded.initializeMockData();
+        Set<String> seedIds = seeded.getAllOrders().stream().map(RiceOrder::getOrderId).collect(Collectors.toSet());
+        
+        for (ConfigurableApplicationContext node : List.of(nodeA, nodeB)) {
+            Set<String> served = store(node).getAllOrders().stream()
+                    .map(RiceOrder::getOrderId)
+                    .filter(seedIds::contains)
+                    .collect(Collectors.toSet());
+            assertEquals(seedIds, served);
+            assertEquals(seeded.getCustomerById("CUST001").orElseThrow(),
+                    store(node).getCustomerById("CUST001").orElseThrow());
+        }
+        for (String orderId : seedIds) {
+            assertNotEquals(local(nodeA).orderExists(orderId), local(nodeB).orderExists(orderId), orderId);
+        }
+    }
+    
+    @Test
+    @DisplayName("Should store orders written through either node on the owning node only")
+    void shouldRouteWritesToOwningNode() throws Exception {
+        for (int i = 0; i < 40; i++) {
+            store(i % 2 == 0 ? nodeA : nodeB).addOrder(order("ROUTE" + i, "CUST9001"));
+        }
+        
+        int onA = 0;
+        for (int i = 0; i < 40; i++) {
+            String orderId = "ROUTE" + i;
+            boolean ownedByA = store(nodeA).shardFor(orderId) == local(nodeA);
+            assertEquals(ownedByA, local(nodeA).orderExists(orderId), orderId);
+            assertEquals(!ownedByA, local(nodeB).orderExists(orderId), orderId);
+            assertEquals(orderId, store(nodeB).getOrderById(orderId).orElseThrow().getOrderId());
+            onA += ownedByA ? 1 : 0;
+        }
+        assertTrue(onA > 0 && onA < 40, "Orders on node-a: " + onA);
+        
+        // Scatter queries merge both nodes, whichever node is asked
+        for (ConfigurableApplicationContext node : List.of(nodeA, nodeB)) {
+            assertEquals(40, store(node).getOrdersByCustomerId("CUST9001").size());
+            assertEquals(40, store(node).findOrders(OrderQuery.parse("customerId = CUST9001"), 100).size());
+            List<RiceOrder> page = store(node).getOrdersPage("ROUTE", 5);
+            assertEquals(List.of("ROUTE0", "ROUTE1", "ROUTE10", "ROUTE11", "ROUTE12"),
+                    page.stream().map(RiceOrder::getOrderId).collect(Collectors.toList()));
+        }
+        
+        // The public API of one node answers for an order the other node holds
+        String remoteId = local(nodeB).getAllOrders().stream()
+                .map(RiceOrder::getOrderId)
+                .filter(orderId -> orderId.startsWith("ROUTE"))
+                .findFirst().orElseThrow();
+        HttpResponse<String> response = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + portA + "/api/v1/orders/" + remoteId)).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"orderId\":\"" + remoteId + "\""), response.body());
+    }
+    
+    @Test
+    @DisplayName("Should answer a customer with the details written last, whichever node wrote them")
+    void shouldResolveCustomerAcrossNodes() {
+        // One order on each node, each written through the other node
+        String onA = orderIdOwnedBy(nodeA, "CUSTX");
+        String onB = orderIdOwnedBy(nodeB, "CUSTX");
+        store(nodeB).addOrder(order(onA, "CUST9002").withCustomer(customer("First")));
+        store(nodeA).addOrder(order(onB, "CUST9002").withCustomer(customer("Second")));
+        
+        assertEquals("Second", store(nodeA).getCustomerById("CUST9002").orElseThrow().getName());
+        assertEquals("Second", store(nodeB).getCustomerById("CUST9002").orElseThrow().getName());
+        
+        // An update of the older order makes its details the latest
+        store(nodeB).partialUpdateOrder(onA, RiceOrder.builder().customer(customer("Third")).build());
+        assertEquals("Third", store(nodeA).getCustomerById("CUST9002").orElseThrow().getName());
+        assertEquals("Third", store(nodeB).getCustomerById("CUST9002").orElseThrow().getName());
+        
+        store(nodeA).removeOrder(onA);
+        store(nodeB).removeOrder(onB);
+        assertTrue(store(nodeA).getCustomerById("CUST9002").isEmpty());
+    }
+    
+    @Test
+    @DisplayName("Should carry versions, conflicts and bad input of the other node over HTTP")
+    void shouldCarryVersionsAndErrors() {
+        String orderId = orderIdOwnedBy(nodeB, "VERSION");
+        RiceOrder added = store(nodeA).addOrder(order(orderId, "CUST9003"));
+        RiceOrder stored = local(nodeB).getOrderById(orderId).orElseThrow();
+        assertEquals(stored.getVersion(), added.getVersion());
+        assertEquals(stored, added);
+        
+        OrderVersionConflictException conflict = assertThrows(OrderVersionConflictException.class,
+                () -> store(nodeA).partialUpdateOrder(orderId,
+                        RiceOrder.builder().status(RiceOrder.OrderStatus.CONFIRMED).build(), added.getVersion() - 1));
+        assertEquals(added.getVersion(), conflict.getCurrentVersion());
+        assertThrows(OrderVersionConflictException.class,
+                () -> store(nodeA).removeOrder(orderId, added.getVersion() - 1));
+        
+        IllegalArgumentException duplicate = assertThrows(IllegalArgumentException.class,
+                () -> store(nodeA).addOrder(order(orderId, "CUST9003")));
+        assertEquals("Order with ID " + orderId + " already exists", duplicate.getMessage());
+        
+        assertTrue(store(nodeA).removeOrder(orderId, added.getVersion()));
+        assertTrue(store(nodeA).getOrderById(orderId).isEmpty());
+    }
+    
+    private static ConfigurableApplicationContext startNode(String nodeId, int port, String otherId, int otherPort) {
+        // As command line arguments, which take precedence over application.properties
+        return new SpringApplicationBuilder(RiceapiApplication.class).run(
+                "--server.port=" + port,
+                "--spring.main.banner-mode=off",
+                "--riceapi.sharding.enabled=true",
+                "--riceapi.analytics.enabled=false",
+                "--riceapi.sharding.node-id=" + nodeId,
+                "--riceapi.sharding.endpoints." + otherId + "=http://localhost:" + otherPort);
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+    
+    private static ShardedOrderStore store(ConfigurableApplicationContext node) {
+        return node.getBean(ShardedOrderStore.class);
+    }
+    
+    private static RiceOrderRepository local(ConfigurableApplicationContext node) {
+        return node.getBean(RiceOrderRepository.class);
+    }
+    
+    /**
+     * @return An order ID with the given prefix that the given node owns
+     */
+    private static String orderIdOwnedBy(ConfigurableApplicationContext node, String prefix) {
+        for (int i = 0; ; i++) {
+            if (store(node).shardFor(prefix + i) == local(node)) {
+                return prefix + i;
+            }
+        }
+    }
+    
+    private static Customer customer(String name) {
+        return Customer.builder().customerId("CUST9002").name(name).build();
+    }
+    
+    private static RiceOrder order(String orderId, String customerId) {
+        return RiceOrder.builder()
+                .orderId(orderId)
+                .customer(Customer.builder().customerId(customerId).name("Customer " + customerId).build())
+                .orderItems(List.of(OrderItem.builder()
+                        .itemId("ITEM001")
+                        .quantity(2)
+                        .pricePerUnit(new BigDecimal("12500.50"))
+                        .build()))
+                .status(RiceOrder.OrderStatus.PENDING)
+                .orderDate(BASE)
+                .deliveryTime(BASE.plusMinutes(45))
+                .build();
+    }
+}
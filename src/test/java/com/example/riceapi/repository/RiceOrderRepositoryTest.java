@@ -2,20 +2,38 @@ package com.example.riceapi.repository;
 
 import com.example.riceapi.modal.Customer;
 import com.example.riceapi.modal.DeliveryAddress;
+import com.example.riceapi.modal.Money;
 import com.example.riceapi.modal.OrderItem;
 import com.example.riceapi.modal.RiceOrder;
+import com.example.riceapi.query.OrderQuery;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Nested;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
 
 @DisplayName("RiceOrderRepository Tests")
 class RiceOrderRepositoryTest {
@@ -134,7 +152,7 @@ class RiceOrderRepositoryTest {
         @Test
         @DisplayName("Should set order date when adding order without date")
         void shouldSetOrderDateWhenMissing() {
-            testOrder1.setOrderDate(null);
+            testOrder1 = testOrder1.withOrderDate(null);
             RiceOrder result = repository.addOrder(testOrder1);
             
             assertNotNull(result.getOrderDate());
@@ -143,7 +161,7 @@ class RiceOrderRepositoryTest {
         @Test
         @DisplayName("Should calculate total amount when adding order")
         void shouldCalculateTotalAmountWhenMissing() {
-            testOrder1.setTotalAmount(null);
+            testOrder1 = testOrder1.withTotalAmountMinor(Money.ABSENT);
             RiceOrder result = repository.addOrder(testOrder1);
             
             assertNotNull(result.getTotalAmount());
@@ -163,7 +181,7 @@ class RiceOrderRepositoryTest {
         @Test
         @DisplayName("Should throw exception when adding order with null ID")
         void shouldThrowExceptionWhenOrderIdIsNull() {
-            testOrder1.setOrderId(null);
+            testOrder1 = testOrder1.withOrderId(null);
             
             Exception exception = assertThrows(IllegalArgumentException.class, () -> {
                 repository.addOrder(testOrder1);
@@ -175,7 +193,7 @@ class RiceOrderRepositoryTest {
         @Test
         @DisplayName("Should throw exception when adding order with empty ID")
         void shouldThrowExceptionWhenOrderIdIsEmpty() {
-            testOrder1.setOrderId("");
+            testOrder1 = testOrder1.withOrderId("");
             
             Exception exception = assertThrows(IllegalArgumentException.class, () -> {
                 repository.addOrder(testOrder1);
@@ -197,6 +215,41 @@ class RiceOrderRepositoryTest {
         }
     }
     
+    @Nested
+    @DisplayName("Bulk Add Order Tests")
+    class BulkAddOrderTests {
+        
+        @Test
+        @DisplayName("Should add every valid order and report failures per order")
+        void shouldAddValidOrdersAndReportFailures() {
+            testOrder2 = testOrder2.withOrderId(" ");
+            testOrder3 = testOrder3.withTotalAmountMinor(Money.ABSENT);
+            
+            List<RiceOrderRepository.InsertResult> results = repository.addOrders(
+                    Arrays.asList(testOrder1, testOrder2, null, testOrder3, testOrder1));
+            
+            assertEquals(5, results.size());
+            assertTrue(results.get(0).isInserted());
+            assertEquals("Order ID cannot be null or empty", results.get(1).getError());
+            assertEquals("Order cannot be null", results.get(2).getError());
+            assertTrue(results.get(3).isInserted());
+            assertEquals(new BigDecimal("100000"), results.get(3).getOrder().getTotalAmount());
+            assertTrue(results.get(4).getError().contains("already exists"));
+            assertEquals(2, repository.getOrderCount());
+            assertEquals(2, repository.getOrdersByCustomerId("CUST001").size());
+        }
+        
+        @Test
+        @DisplayName("Should throw exception when batch is null")
+        void shouldThrowExceptionWhenBatchIsNull() {
+            Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+                repository.addOrders(null);
+            });
+            
+            assertEquals("Batch cannot be null", exception.getMessage());
+        }
+    }
+    
     @Nested
     @DisplayName("Retrieve Order Tests")
     class RetrieveOrderTests {
@@ -288,8 +341,7 @@ class RiceOrderRepositoryTest {
         @Test
         @DisplayName("Should update existing order")
         void shouldUpdateExistingOrder() {
-            testOrder1.setStatus(RiceOrder.OrderStatus.DELIVERED);
-            testOrder1.setPaymentMethod("E-Wallet");
+            testOrder1 = testOrder1.withStatus(RiceOrder.OrderStatus.DELIVERED).withPaymentMethod("E-Wallet");
             
             Optional<RiceOrder> result = repository.updateOrder("TEST001", testOrder1);
             
@@ -301,7 +353,7 @@ class RiceOrderRepositoryTest {
         @Test
         @DisplayName("Should preserve order ID when updating")
         void shouldPreserveOrderIdWhenUpdating() {
-            testOrder1.setOrderId("DIFFERENT_ID");
+            testOrder1 = testOrder1.withOrderId("DIFFERENT_ID");
             
             Optional<RiceOrder> result = repository.updateOrder("TEST001", testOrder1);
             
@@ -339,7 +391,7 @@ class RiceOrderRepositoryTest {
         @Test
         @DisplayName("Should recalculate total amount when updating")
         void shouldRecalculateTotalAmountWhenUpdating() {
-            testOrder1.setTotalAmount(null);
+            testOrder1 = testOrder1.withTotalAmountMinor(Money.ABSENT);
             
             Optional<RiceOrder> result = repository.updateOrder("TEST001", testOrder1);
             
@@ -397,6 +449,8 @@ class RiceOrderRepositoryTest {
             assertTrue(result.isPresent());
             assertEquals(RiceOrder.OrderStatus.CONFIRMED, result.get().getStatus());
             assertEquals("John Doe", result.get().getCustomer().getName()); // Other fields unchanged
+            assertEquals(1, result.get().getOrderItems().size());
+            assertEquals(new BigDecimal("100000"), result.get().getTotalAmount());
         }
         
         @Test
@@ -583,6 +637,285 @@ class RiceOrderRepositoryTest {
         }
     }
     
+    @Nested
+    @DisplayName("Secondary Index Tests")
+    class SecondaryIndexTests {
+        
+        @BeforeEach
+        void addTestOrders() {
+            repository.addOrder(testOrder1);
+            repository.addOrder(testOrder2);
+            repository.addOrder(testOrder3);
+        }
+        
+        @Test
+        @DisplayName("Should move order between status lookups on partial update")
+        void shouldReindexStatusOnPartialUpdate() {
+            repository.partialUpdateOrder("TEST001", RiceOrder.builder()
+                    .status(RiceOrder.OrderStatus.DELIVERED)
+                    .build());
+            
+            assertEquals(1, repository.getOrdersByStatus(RiceOrder.OrderStatus.PENDING).size());
+            List<RiceOrder> delivered = repository.getOrdersByStatus(RiceOrder.OrderStatus.DELIVERED);
+            assertEquals(1, delivered.size());
+            assertEquals("TEST001", delivered.get(0).getOrderId());
+            assertEquals(1, repository.getOrderCountByStatus(RiceOrder.OrderStatus.PENDING));
+            assertEquals(1, repository.getOrderCountByStatus(RiceOrder.OrderStatus.DELIVERED));
+        }
+        
+        @Test
+        @DisplayName("Should reindex customer when order is replaced")
+        void shouldReindexCustomerOnUpdate() {
+            RiceOrder replacement = RiceOrder.builder()
+                    .customer(testOrder2.getCustomer())
+                    .orderItems(testOrder1.getOrderItems())
+                    .status(RiceOrder.OrderStatus.CONFIRMED)
+                    .build();
+            
+            repository.updateOrder("TEST001", replacement);
+            
+            assertEquals(1, repository.getOrdersByCustomerId("CUST001").size());
+            assertEquals(2, repository.getOrdersByCustomerId("CUST002").size());
+            assertEquals(2, repository.getOrdersByStatus(RiceOrder.OrderStatus.CONFIRMED).size());
+        }
+        
+        @Test
+        @DisplayName("Should drop removed orders from lookups")
+        void shouldDropRemovedOrdersFromIndexes() {
+            repository.removeOrder("TEST002");
+            
+            assertTrue(repository.getOrdersByCustomerId("CUST002").isEmpty());
+            assertTrue(repository.getOrdersByStatus(RiceOrder.OrderStatus.CONFIRMED).isEmpty());
+            
+            repository.removeAllOrders();
+            
+            assertTrue(repository.getOrdersByCustomerId("CUST001").isEmpty());
+            assertTrue(repository.getOrdersByStatus(RiceOrder.OrderStatus.PENDING).isEmpty());
+        }
+        
+        @Test
+        @DisplayName("Should keep status lookups consistent under concurrent transitions")
+        void shouldKeepStatusIndexConsistentUnderConcurrentTransitions() throws InterruptedException {
+            RiceOrder.OrderStatus[] statuses = RiceOrder.OrderStatus.values();
+            int threads = 8;
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            CountDownLatch start = new CountDownLatch(1);
+            
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 500; i++) {
+                        repository.partialUpdateOrder("TEST001", RiceOrder.builder()
+                                .status(statuses[(i + offset) % statuses.length])
+                                .build());
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+            
+            RiceOrder.OrderStatus finalStatus = repository.getOrderById("TEST001").orElseThrow().getStatus();
+            for (RiceOrder.OrderStatus status : statuses) {
+                boolean listed = repository.getOrdersByStatus(status).stream()
+                        .anyMatch(o -> "TEST001".equals(o.getOrderId()));
+                assertEquals(status == finalStatus, listed);
+            }
+        }
+    }
+    
+    @Nested
+    @DisplayName("Pagination Tests")
+    class PaginationTests {
+        
+        @BeforeEach
+        void addTestOrders() {
+            repository.addOrder(testOrder3);
+            repository.addOrder(testOrder1);
+            repository.addOrder(testOrder2);
+        }
+        
+        @Test
+        @DisplayName("Should return first page ordered by order ID")
+        void shouldReturnFirstPageInOrderIdOrder() {
+            List<RiceOrder> page = repository.getOrdersPage(null, 2);
+            
+            assertEquals(2, page.size());
+            assertEquals("TEST001", page.get(0).getOrderId());
+            assertEquals("TEST002", page.get(1).getOrderId());
+        }
+        
+        @Test
+        @DisplayName("Should continue after the given order ID")
+        void shouldContinueAfterGivenOrderId() {
+            List<RiceOrder> page = repository.getOrdersPage("TEST002", 2);
+            
+            assertEquals(1, page.size());
+            assertEquals("TEST003", page.get(0).getOrderId());
+            assertTrue(repository.getOrdersPage("TEST003", 2).isEmpty());
+        }
+        
+        @Test
+        @DisplayName("Should skip removed orders")
+        void shouldSkipRemovedOrders() {
+            repository.removeOrder("TEST002");
+            
+            List<RiceOrder> page = repository.getOrdersPage("TEST001", 5);
+            
+            assertEquals(1, page.size());
+            assertEquals("TEST003", page.get(0).getOrderId());
+        }
+        
+        @Test
+        @DisplayName("Should throw exception when limit is not positive")
+        void shouldThrowExceptionWhenLimitNotPositive() {
+            Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+                repository.getOrdersPage(null, 0);
+            });
+            
+            assertEquals("Limit must be positive", exception.getMessage());
+        }
+    }
+    
+    @Nested
+    @DisplayName("Time Range Tests")
+    class TimeRangeTests {
+        
+        private final LocalDateTime base = LocalDateTime.of(2024, 3, 1, 12, 0);
+        
+        @BeforeEach
+        void addTestOrders() {
+            testOrder1 = testOrder1.withOrderDate(base).withDeliveryTime(base.plusHours(2));
+            testOrder2 = testOrder2.withOrderDate(base.plusHours(1)).withDeliveryTime(base.plusHours(1).plusMinutes(30));
+            testOrder3 = testOrder3.withOrderDate(base.plusHours(2)).withDeliveryTime(base.plusHours(3));
+            repository.addOrder(testOrder3);
+            repository.addOrder(testOrder1);
+            repository.addOrder(testOrder2);
+        }
+        
+        @Test
+        @DisplayName("Should return orders in the order date range ordered by date")
+        void shouldReturnOrdersInOrderDateRange() {
+            List<RiceOrder> orders = repository.getOrdersByOrderDateRange(base, base.plusHours(2));
+            
+            assertEquals(2, orders.size());
+            assertEquals("TEST001", orders.get(0).getOrderId());
+            assertEquals("TEST002", orders.get(1).getOrderId());
+        }
+        
+        @Test
+        @DisplayName("Should treat missing bounds as open")
+        void shouldTreatMissingBoundsAsOpen() {
+            assertEquals(3, repository.getOrdersByOrderDateRange(null, null).size());
+            assertEquals(1, repository.getOrdersByOrderDateRange(base.plusHours(2), null).size());
+            assertEquals(1, repository.getOrdersByOrderDateRange(null, base.plusMinutes(1)).size());
+        }
+        
+        @Test
+        @DisplayName("Should return orders in the delivery time range")
+        void shouldReturnOrdersInDeliveryTimeRange() {
+            List<RiceOrder> orders = repository.getOrdersByDeliveryTimeRange(base.plusHours(1), base.plusHours(3));
+            
+            assertEquals(2, orders.size());
+            assertEquals("TEST002", orders.get(0).getOrderId());
+            assertEquals("TEST001", orders.get(1).getOrderId());
+        }
+        
+        @Test
+        @DisplayName("Should follow updated and removed orders")
+        void shouldFollowUpdatedAndRemovedOrders() {
+            repository.partialUpdateOrder("TEST002", RiceOrder.builder()
+                    .deliveryTime(base.plusHours(5))
+                    .build());
+            repository.removeOrder("TEST003");
+            
+            assertEquals(1, repository.getOrdersByDeliveryTimeRange(base, base.plusHours(3)).size());
+            assertEquals(1, repository.getOrdersByDeliveryTimeRange(base.plusHours(5), null).size());
+            assertEquals(2, repository.getOrdersByOrderDateRange(null, null).size());
+        }
+        
+        @Test
+        @DisplayName("Should throw exception when range start is after range end")
+        void shouldThrowExceptionWhenRangeInverted() {
+            Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+                repository.getOrdersByOrderDateRange(base.plusHours(1), base);
+            });
+            
+            assertEquals("Range start must not be after range end", exception.getMessage());
+        }
+    }
+    
+    @Nested
+    @DisplayName("Aggregate Tests")
+    class AggregateTests {
+        
+        @BeforeEach
+        void addTestOrders() {
+            repository.addOrder(testOrder1);
+            repository.addOrder(testOrder2);
+            repository.addOrder(testOrder3);
+        }
+        
+        @Test
+        @DisplayName("Should count orders and sum revenue per status")
+        void shouldAggregatePerStatus() {
+            assertEquals(2, repository.getOrderCountByStatus(RiceOrder.OrderStatus.PENDING));
+            assertEquals(new BigDecimal("200000.00"), repository.getRevenueByStatus(RiceOrder.OrderStatus.PENDING));
+            assertEquals(1, repository.getOrderCountByStatus(RiceOrder.OrderStatus.CONFIRMED));
+            assertEquals(new BigDecimal("235000.00"), repository.getTotalRevenue());
+            
+            RiceOrderRepository.StatusTotals delivered =
+                    repository.getStatusTotals().get(RiceOrder.OrderStatus.DELIVERED);
+            assertEquals(0, delivered.getOrderCount());
+            assertEquals(new BigDecimal("0.00"), delivered.getRevenue());
+        }
+        
+        @Test
+        @DisplayName("Should move totals between statuses on partial update")
+        void shouldMoveTotalsOnStatusChange() {
+            repository.partialUpdateOrder("TEST002", RiceOrder.builder()
+                    .status(RiceOrder.OrderStatus.DELIVERED)
+                    .build());
+            
+            assertEquals(0, repository.getOrderCountByStatus(RiceOrder.OrderStatus.CONFIRMED));
+            assertEquals(new BigDecimal("0.00"), repository.getRevenueByStatus(RiceOrder.OrderStatus.CONFIRMED));
+            assertEquals(1, repository.getOrderCountByStatus(RiceOrder.OrderStatus.DELIVERED));
+            assertEquals(new BigDecimal("35000.00"), repository.getRevenueByStatus(RiceOrder.OrderStatus.DELIVERED));
+            assertEquals(new BigDecimal("235000.00"), repository.getTotalRevenue());
+        }
+        
+        @Test
+        @DisplayName("Should follow recalculated totals on update")
+        void shouldFollowRecalculatedTotals() {
+            RiceOrder replacement = RiceOrder.builder()
+                    .customer(testOrder1.getCustomer())
+                    .orderItems(testOrder2.getOrderItems())
+                    .status(RiceOrder.OrderStatus.PENDING)
+                    .build();
+            
+            repository.updateOrder("TEST001", replacement);
+            
+            assertEquals(new BigDecimal("135000.00"), repository.getRevenueByStatus(RiceOrder.OrderStatus.PENDING));
+            assertEquals(new BigDecimal("170000.00"), repository.getTotalRevenue());
+        }
+        
+        @Test
+        @DisplayName("Should drop removed orders from totals")
+        void shouldDropRemovedOrders() {
+            repository.removeOrder("TEST001");
+            
+            assertEquals(1, repository.getOrderCountByStatus(RiceOrder.OrderStatus.PENDING));
+            assertEquals(new BigDecimal("135000.00"), repository.getTotalRevenue());
+            
+            repository.removeAllOrders();
+            
+            assertEquals(0, repository.getOrderCountByStatus(RiceOrder.OrderStatus.PENDING));
+            assertEquals(new BigDecimal("0.00"), repository.getTotalRevenue());
+        }
+    }
+    
     @Nested
     @DisplayName("Mock Data Initialization Tests")
     class MockDataInitializationTests {
@@ -639,5 +972,569 @@ class RiceOrderRepositoryTest {
             assertNotNull(orderData.getTotalAmount());
         }
     }
+    
+    @Nested
+    @DisplayName("Immutable Snapshot Tests")
+    class ImmutableSnapshotTests {
+        
+        @Test
+        @DisplayName("Should store its own copy of an added order")
+        void shouldStoreOwnCopyOfAddedOrder() {
+            RiceOrder submitted = testOrder1.withTotalAmountMinor(Money.ABSENT);
+            
+            RiceOrder stored = repository.addOrder(submitted);
+            
+            assertNotSame(submitted, stored);
+            assertNull(submitted.getTotalAmount());
+            assertEquals(new BigDecimal("100000"), stored.getTotalAmount());
+            assertSame(stored, repository.getOrderById("TEST001").orElseThrow());
+        }
+        
+        @Test
+        @DisplayName("Should not let readers change the items of a stored order")
+        void shouldRejectChangesToStoredItems() {
+            RiceOrder stored = repository.addOrder(testOrder1);
+            
+            assertThrows(UnsupportedOperationException.class, () -> stored.getOrderItems().clear());
+            assertThrows(UnsupportedOperationException.class, () -> repository.getAllOrders().get(0).getOrderItems().add(null));
+        }
+        
+        @Test
+        @DisplayName("Should keep a snapshot read before an update unchanged")
+        void shouldKeepEarlierSnapshotUnchanged() {
+            RiceOrder before = repository.addOrder(testOrder1);
+            
+            repository.updateOrder("TEST001", testOrder2);
+            
+            assertEquals("John Doe", before.getCustomer().getName());
+            assertEquals("Jane Smith", repository.getOrderById("TEST001").orElseThrow().getCustomer().getName());
+        }
+    }
+    
+    @Nested
+    @DisplayName("Journal Failure Tests")
+    class JournalFailureTests {
+        
+        private final List<String> changes = new ArrayList<>();
+        private final OrderJournal journal = mock(OrderJournal.class);
+        
+        @BeforeEach
+        void setUp() {
+            when(journal.logPut(any())).thenReturn(OrderJournal.COMMITTED);
+            when(journal.logRemove(any())).thenReturn(OrderJournal.COMMITTED);
+            repository.setJournal(journal);
+            repository.addChangeListener(changes::add);
+        }
+        
+        @Test
+        @DisplayName("Should roll back an update the journal failed to record")
+        void shouldRollBackFailedUpdate() {
+            RiceOrder stored = repository.addOrder(testOrder1);
+            long storeVersion = repository.getStoreVersion();
+            failWrites();
+            
+            assertThrows(IllegalStateException.class, () -> repository.partialUpdateOrder("TEST001",
+                    RiceOrder.builder().status(RiceOrder.OrderStatus.DELIVERED).build()));
+            
+            assertSame(stored, repository.getOrderById("TEST001").orElseThrow());
+            assertEquals(1, repository.getOrdersByStatus(RiceOrder.OrderStatus.PENDING).size());
+            assertTrue(repository.getOrdersByStatus(RiceOrder.OrderStatus.DELIVERED).isEmpty());
+            assertEquals(0, repository.getOrderCountByStatus(RiceOrder.OrderStatus.DELIVERED));
+            // Listeners hear about the rollback, so anything cached from the failed write is dropped
+            assertEquals(List.of("TEST001", "TEST001"), changes);
+            assertTrue(repository.getStoreVersion() > storeVersion);
+        }
+        
+        @Test
+        @DisplayName("Should roll back an insert the journal failed to record")
+        void shouldRollBackFailedInsert() {
+            failWrites();
+            
+            assertThrows(IllegalStateException.class, () -> repository.addOrder(testOrder1));
+            
+            assertFalse(repository.orderExists("TEST001"));
+            assertEquals(0, repository.getOrderCount());
+            assertTrue(repository.getOrdersByCustomerId("CUST001").isEmpty());
+            assertEquals(BigDecimal.valueOf(0, Money.SCALE), repository.getTotalRevenue());
+        }
+        
+        @Test
+        @DisplayName("Should restore an order whose removal the journal failed to record")
+        void shouldRollBackFailedRemoval() {
+            RiceOrder stored = repository.addOrder(testOrder1);
+            failWrites();
+            
+            assertThrows(IllegalStateException.class, () -> repository.removeOrder("TEST001"));
+            
+            assertSame(stored, repository.getOrderById("TEST001").orElseThrow());
+            assertEquals(1, repository.getOrderCount());
+            assertEquals(1, repository.getOrdersByCustomerId("CUST001").size());
+        }
+        
+        @Test
+        @DisplayName("Should restore customer details unless another order wrote newer ones")
+        void shouldRollBackCustomerDetails() throws Exception {
+            repository.addOrder(testOrder1);
+            repository.addOrder(testOrder3);
+            failWrites();
+            
+            assertThrows(IllegalStateException.class, () -> repository.partialUpdateOrder("TEST001",
+                    RiceOrder.builder().customer(customer("Failed Name")).build()));
+            assertEquals("John Doe", repository.getCustomerById("CUST001").orElseThrow().getName());
+            
+            // The other order of the customer is written while the failed write waits for the journal
+            CompletableFuture<Void> pending = new CompletableFuture<>();
+            when(journal.logPut(any())).thenReturn(OrderJournal.COMMITTED);
+            when(journal.logPut(argThat(order -> order.getOrderId().equals("TEST001")))).thenReturn(pending);
+            CompletableFuture<RiceOrder> failing = CompletableFuture.supplyAsync(() -> repository.partialUpdateOrder(
+                    "TEST001", RiceOrder.builder().customer(customer("Failed Name")).build()).orElseThrow());
+            while (!"Failed Name".equals(repository.getCustomerById("CUST001").orElseThrow().getName())) {
+                Thread.onSpinWait();
+            }
+            repository.partialUpdateOrder("TEST003", RiceOrder.builder().customer(customer("Newer Name")).build());
+            pending.completeExceptionally(new IOException("No space left on device"));
+            
+            assertThrows(ExecutionException.class, () -> failing.get(5, TimeUnit.SECONDS));
+            assertEquals("John Doe", repository.getOrderById("TEST001").orElseThrow().getCustomer().getName());
+            assertEquals("Newer Name", repository.getCustomerById("CUST001").orElseThrow().getName());
+        }
+        
+        @Test
+        @DisplayName("Should report the orders of a batch the journal failed to record")
+        void shouldReportFailedBatchOrders() {
+            when(journal.logPut(argThat(order -> order.getOrderId().equals("TEST002"))))
+                    .thenReturn(CompletableFuture.failedFuture(new IOException("No space left on device")));
+            
+            List<OrderStore.InsertResult> results = repository.addOrders(List.of(testOrder1, testOrder2));
+            
+            assertTrue(results.get(0).isInserted());
+            assertFalse(results.get(1).isInserted());
+            assertEquals("Failed to persist order", results.get(1).getError());
+            assertTrue(repository.orderExists("TEST001"));
+            assertFalse(repository.orderExists("TEST002"));
+        }
+        
+        private Customer customer(String name) {
+            return testOrder1.getCustomer().toBuilder().name(name).build();
+        }
+        
+        private void failWrites() {
+            CompletableFuture<Void> failed = CompletableFuture.failedFuture(new IOException("No space left on device"));
+            when(journal.logPut(any())).thenReturn(failed);
+            when(journal.logRemove(any())).thenReturn(failed);
+        }
+    }
+    
+    @Nested
+    @DisplayName("Customer Store Tests")
+    class CustomerStoreTests {
+        
+        @Test
+        @DisplayName("Should share one customer instance between orders with the same details")
+        void shouldShareCustomerBetweenOrders() {
+            repository.addOrder(testOrder1);
+            repository.addOrder(testOrder2);
+            repository.addOrder(testOrder3.withCustomer(testOrder1.getCustomer().toBuilder().build()));
+            
+            Customer first = repository.getOrderById("TEST001").orElseThrow().getCustomer();
+            assertSame(first, repository.getOrderById("TEST003").orElseThrow().getCustomer());
+            assertSame(first, repository.getCustomerById("CUST001").orElseThrow());
+            assertEquals(2, repository.getCustomerCount());
+        }
+        
+        @Test
+        @DisplayName("Should take the customer details of the latest order written with them")
+        void shouldUpsertCustomerDetails() {
+            repository.addOrder(testOrder1);
+            Customer moved = testOrder1.getCustomer().toBuilder().email("john.doe@new.test.com").build();
+            repository.addOrder(testOrder3.withCustomer(moved));
+            
+            // A change without customer details keeps the latest ones
+            repository.partialUpdateOrder("TEST001", RiceOrder.builder().status(RiceOrder.OrderStatus.CONFIRMED).build());
+            
+            assertEquals("john.doe@new.test.com", repository.getCustomerById("CUST001").orElseThrow().getEmail());
+            assertEquals("john.doe@test.com", repository.getOrderById("TEST001").orElseThrow().getCustomer().getEmail());
+            assertSame(repository.getCustomerById("CUST001").orElseThrow(),
+                    repository.getOrderById("TEST003").orElseThrow().getCustomer());
+        }
+        
+        @Test
+        @DisplayName("Should drop a customer with its last order")
+        void shouldDropCustomerWithLastOrder() {
+            repository.addOrder(testOrder1);
+            repository.addOrder(testOrder3);
+            
+            repository.removeOrder("TEST001");
+            assertTrue(repository.getCustomerById("CUST001").isPresent());
+            repository.updateOrder("TEST003", testOrder2);
+            
+            assertTrue(repository.getCustomerById("CUST001").isEmpty());
+            assertEquals("Jane Smith", repository.getCustomerById("CUST002").orElseThrow().getName());
+            assertEquals(1, repository.getCustomerCount());
+        }
+        
+        @Test
+        @DisplayName("Should keep customer details put for orders of another store")
+        void shouldKeepPutCustomerWithoutOrders() {
+            repository.addOrder(testOrder1);
+            repository.putCustomer(testOrder1.getCustomer().toBuilder().name("Put Name").build());
+            repository.putCustomer(Customer.builder().customerId("CUST777").name("Elsewhere").build());
+            
+            repository.removeOrder("TEST001");
+            
+            assertEquals("Put Name", repository.getCustomerById("CUST001").orElseThrow().getName());
+            assertEquals("Elsewhere", repository.getCustomerById("CUST777").orElseThrow().getName());
+            // An order written with other details afterwards replaces them
+            repository.addOrder(testOrder3);
+            assertEquals("John Doe", repository.getCustomerById("CUST001").orElseThrow().getName());
+            assertThrows(IllegalArgumentException.class, () -> repository.putCustomer(Customer.builder().build()));
+        }
+        
+        @Test
+        @DisplayName("Should keep a customer written with only its ID")
+        void shouldKeepCustomerWithOnlyId() {
+            repository.addOrder(testOrder1);
+            repository.addOrder(testOrder3.withCustomer(Customer.builder().customerId("CUST001").build()));
+            
+            repository.partialUpdateOrder("TEST001", RiceOrder.builder().status(RiceOrder.OrderStatus.CONFIRMED).build());
+            
+            Customer customer = repository.getCustomerById("CUST001").orElseThrow();
+            assertEquals("CUST001", customer.getCustomerId());
+            assertNull(customer.getName());
+        }
+        
+        @Test
+        @DisplayName("Should return the details of a lazily loaded customer instead of its placeholder")
+        void shouldResolveLazyCustomer() {
+            Map<String, RiceOrder> pending = new ConcurrentHashMap<>(Map.of("TEST001", testOrder1, "TEST003", testOrder3));
+            repository.attachLazySource(new LazyOrderSource() {
+                @Override
+                public void forEachPending(Consumer<RiceOrder> visitor) {
+                    pending.values().forEach(order -> visitor.accept(order.toBuilder()
+                            .customer(Customer.builder().customerId(order.getCustomer().getCustomerId()).build())
+                            .orderItems(null)
+                            .build()));
+                }
+                
+                @Override
+                public RiceOrder take(String orderId) {
+                    return pending.remove(orderId);
+                }
+                
+                @Override
+                public boolean isPending(String orderId) {
+                    return pending.containsKey(orderId);
+                }
+                
+                @Override
+                public int pendingCount() {
+                    return pending.size();
+                }
+            });
+            
+            assertEquals("John Doe", repository.getCustomerById("CUST001").orElseThrow().getName());
+            assertEquals(1, pending.size());
+            assertTrue(repository.getCustomerById("CUST999").isEmpty());
+        }
+    }
+    
+    @Nested
+    @DisplayName("Optimistic Concurrency Tests")
+    class OptimisticConcurrencyTests {
+        
+        @BeforeEach
+        void addTestOrders() {
+            repository.addOrder(testOrder1);
+        }
+        
+        @Test
+        @DisplayName("Should assign a new version on every write")
+        void shouldAssignNewVersionOnEveryWrite() {
+            long added = repository.getOrderById("TEST001").orElseThrow().getVersion();
+            
+            long updated = repository.updateOrder("TEST001", testOrder2).orElseThrow().getVersion();
+            long patched = repository.partialUpdateOrder("TEST001",
+                    RiceOrder.builder().status(RiceOrder.OrderStatus.PREPARING).build()).orElseThrow().getVersion();
+            
+            assertTrue(updated > added);
+            assertTrue(patched > updated);
+        }
+        
+        @Test
+        @DisplayName("Should remove an order only while it has the expected version")
+        void shouldRemoveOnlyExpectedVersion() {
+            long version = repository.getOrderById("TEST001").orElseThrow().getVersion();
+            
+            OrderVersionConflictException conflict = assertThrows(OrderVersionConflictException.class,
+                    () -> repository.removeOrder("TEST001", version - 1));
+            
+            assertEquals(version, conflict.getCurrentVersion());
+            assertTrue(repository.orderExists("TEST001"));
+            assertTrue(repository.removeOrder("TEST001", version));
+            assertFalse(repository.removeOrder("TEST001", version));
+        }
+        
+        @Test
+        @DisplayName("Should change the store version on every write and only then")
+        void shouldChangeStoreVersionOnEveryWrite() {
+            long added = repository.getStoreVersion();
+            
+            repository.partialUpdateOrder("TEST001", RiceOrder.builder().status(RiceOrder.OrderStatus.PREPARING).build());
+            long patched = repository.getStoreVersion();
+            repository.partialUpdateOrder("MISSING", RiceOrder.builder().status(RiceOrder.OrderStatus.PREPARING).build());
+            assertThrows(IllegalArgumentException.class, () -> repository.addOrder(testOrder1));
+            long unchanged = repository.getStoreVersion();
+            repository.removeOrder("TEST001");
+            long removed = repository.getStoreVersion();
+            
+            assertTrue(patched > added);
+            assertEquals(patched, unchanged);
+            assertTrue(removed > patched);
+        }
+        
+        @Test
+        @DisplayName("Should update when the expected version is current")
+        void shouldUpdateWhenExpectedVersionIsCurrent() {
+            long version = repository.getOrderById("TEST001").orElseThrow().getVersion();
+            
+            Optional<RiceOrder> result = repository.updateOrder("TEST001", testOrder2, version);
+            
+            assertTrue(result.isPresent());
+            assertEquals("Jane Smith", repository.getOrderById("TEST001").orElseThrow().getCustomer().getName());
+        }
+        
+        @Test
+        @DisplayName("Should reject an update based on a stale version")
+        void shouldRejectStaleUpdate() {
+            long stale = repository.getOrderById("TEST001").orElseThrow().getVersion();
+            long current = repository.partialUpdateOrder("TEST001",
+                    RiceOrder.builder().status(RiceOrder.OrderStatus.CONFIRMED).build()).orElseThrow().getVersion();
+            
+            OrderVersionConflictException exception = assertThrows(OrderVersionConflictException.class,
+                    () -> repository.updateOrder("TEST001", testOrder2, stale));
+            
+            assertEquals(stale, exception.getExpectedVersion());
+            assertEquals(current, exception.getCurrentVersion());
+            RiceOrder stored = repository.getOrderById("TEST001").orElseThrow();
+            assertEquals("John Doe", stored.getCustomer().getName());
+            assertEquals(current, stored.getVersion());
+        }
+        
+        @Test
+        @DisplayName("Should reject a partial update based on a stale version and keep the indexes")
+        void shouldRejectStalePartialUpdate() {
+            long stale = repository.getOrderById("TEST001").orElseThrow().getVersion();
+            repository.updateOrder("TEST001", testOrder1);
+            
+            RiceOrder updates = RiceOrder.builder().status(RiceOrder.OrderStatus.CANCELLED).build();
+            assertThrows(OrderVersionConflictException.class,
+                    () -> repository.partialUpdateOrder("TEST001", updates, stale));
+            
+            assertEquals(RiceOrder.OrderStatus.PENDING, repository.getOrderById("TEST001").orElseThrow().getStatus());
+            assertEquals(1, repository.getOrdersByStatus(RiceOrder.OrderStatus.PENDING).size());
+            assertTrue(repository.getOrdersByStatus(RiceOrder.OrderStatus.CANCELLED).isEmpty());
+        }
+        
+        @Test
+        @DisplayName("Should publish a partial update as a new order instance")
+        void shouldPublishPartialUpdateAsNewInstance() {
+            RiceOrder before = repository.getOrderById("TEST001").orElseThrow();
+            
+            RiceOrder after = repository.partialUpdateOrder("TEST001",
+                    RiceOrder.builder().status(RiceOrder.OrderStatus.CONFIRMED).build()).orElseThrow();
+            
+            assertNotSame(before, after);
+            assertEquals(RiceOrder.OrderStatus.PENDING, before.getStatus());
+            assertEquals(RiceOrder.OrderStatus.CONFIRMED, after.getStatus());
+            assertSame(after, repository.getOrderById("TEST001").orElseThrow());
+        }
+        
+        @Test
+        @DisplayName("Should let exactly one of two writers with the same version win")
+        void shouldLetOneConcurrentWriterWin() throws InterruptedException {
+            long version = repository.getOrderById("TEST001").orElseThrow().getVersion();
+            int writers = 8;
+            CountDownLatch start = new CountDownLatch(1);
+            AtomicInteger wins = new AtomicInteger();
+            AtomicInteger conflicts = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(writers);
+            for (int i = 0; i < writers; i++) {
+                executor.submit(() -> {
+                    start.await();
+                    try {
+                        repository.partialUpdateOrder("TEST001",
+                                RiceOrder.builder().status(RiceOrder.OrderStatus.CONFIRMED).build(), version);
+                        wins.incrementAndGet();
+                    } catch (OrderVersionConflictException e) {
+                        conflicts.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+            
+            assertEquals(1, wins.get());
+            assertEquals(writers - 1, conflicts.get());
+        }
+    }
+    
+    @Nested
+    @DisplayName("Parallel Scan Tests")
+    class ParallelScanTests {
+        
+        @Test
+        @DisplayName("Should return the same orders from parallel and sequential status and customer scans")
+        void shouldMatchSequentialScans() {
+            RiceOrder.OrderStatus[] statuses = RiceOrder.OrderStatus.values();
+            for (int i = 0; i < 3000; i++) {
+                repository.addOrder(testOrder1.toBuilder()
+                        .orderId(String.format("SCAN%05d", i))
+                        .customer(Customer.builder().customerId("CUST" + (i % 3)).build())
+                        .status(i % 10 == 0 ? null : statuses[i % statuses.length])
+                        .build());
+            }
+            List<List<String>> sequential = scanResults();
+            
+            try (ParallelScans scans = new ParallelScans(4, 100)) {
+                repository.setParallelScans(scans);
+                assertEquals(sequential, scanResults());
+            } finally {
+                repository.setParallelScans(null);
+            }
+        }
+        
+        @Test
+        @DisplayName("Should run large scans on the scan workers and small ones on the caller")
+        void shouldRunLargeScansOnWorkers() {
+            ConcurrentHashMap.KeySetView<Integer, Boolean> keys = ConcurrentHashMap.newKeySet();
+            for (int i = 0; i < 20_000; i++) {
+                keys.add(i);
+            }
+            Set<String> threads = ConcurrentHashMap.newKeySet();
+            
+            try (ParallelScans scans = new ParallelScans(2, 10_000)) {
+                List<Integer> even = scans.collectKeys(keys, key -> {
+                    threads.add(Thread.currentThread().getName());
+                    return key % 2 == 0 ? key : null;
+                });
+                
+                assertEquals(10_000, even.size());
+                assertTrue(threads.stream().allMatch(name -> name.startsWith("order-scan-")), threads.toString());
+                assertFalse(scans.isParallel(9_999));
+            }
+            assertThrows(IllegalArgumentException.class, () -> new ParallelScans(1, 10_000));
+        }
+        
+        private List<List<String>> scanResults() {
+            List<List<String>> results = new ArrayList<>();
+            for (RiceOrder.OrderStatus status : RiceOrder.OrderStatus.values()) {
+                results.add(sortedIds(repository.getOrdersByStatus(status)));
+            }
+            results.add(sortedIds(repository.getOrdersByStatus(null)));
+            results.add(sortedIds(repository.getOrdersByCustomerId("CUST1")));
+            return results;
+        }
+        
+        private List<String> sortedIds(List<RiceOrder> orders) {
+            return orders.stream().map(RiceOrder::getOrderId).sorted().toList();
+        }
+    }
+    
+    @Nested
+    @DisplayName("Filter Query Tests")
+    class FilterQueryTests {
+        
+        @BeforeEach
+        void addOrders() {
+            RiceOrder.OrderStatus[] statuses = RiceOrder.OrderStatus.values();
+            LocalDateTime start = LocalDateTime.of(2024, 3, 1, 0, 0);
+            for (int i = 0; i < 500; i++) {
+                repository.addOrder(testOrder1.toBuilder()
+                        .orderId(String.format("QRY%04d", i))
+                        .customer(Customer.builder().customerId("CUST" + (i % 50)).build())
+                        .status(statuses[i % statuses.length])
+                        .orderDate(start.plusHours(i))
+                        .paymentMethod(i % 2 == 0 ? "Cash" : "Credit Card")
+                        .build());
+            }
+        }
+        
+        @Test
+        @DisplayName("Should return exactly the orders a full scan would match")
+        void shouldMatchFullScan() {
+            OrderQuery query = OrderQuery.parse("status in (PENDING, DELIVERED) and paymentMethod = cash"
+                    + " and orderDate < 2024-03-10");
+            List<String> expected = repository.getAllOrders().stream()
+                    .filter(query::matches)
+                    .map(RiceOrder::getOrderId)
+                    .sorted()
+                    .toList();
+            
+            List<String> found = repository.findOrders(query, 1000).stream()
+                    .map(RiceOrder::getOrderId)
+                    .sorted()
+                    .toList();
+            
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, found);
+        }
+        
+        @Test
+        @DisplayName("Should start from the most selective index")
+        void shouldPickMostSelectiveIndex() {
+            assertEquals("customerId",
+                    repository.explainQuery(OrderQuery.parse("status = PENDING and customerId = CUST7")));
+            assertEquals("status", repository.explainQuery(
+                    OrderQuery.parse("status = PENDING and orderDate >= 2024-03-01 and orderDate < 2024-03-15")));
+            assertEquals("orderDate", repository.explainQuery(
+                    OrderQuery.parse("status in (PENDING, CONFIRMED) and orderDate >= 2024-03-02"
+                            + " and orderDate < 2024-03-03")));
+            assertEquals("all", repository.explainQuery(OrderQuery.parse("paymentMethod = Cash")));
+            assertTrue(repository.findOrders(OrderQuery.parse("status = PENDING and status = DELIVERED"), 10)
+                    .isEmpty());
+        }
+        
+        @Test
+        @DisplayName("Should return an order once when it moves between the queried statuses")
+        void shouldNotRepeatOrderMovingBetweenStatuses() {
+            RiceOrderRepository store = new RiceOrderRepository();
+            store.addOrder(RiceOrder.builder().orderId("MOV001").status(RiceOrder.OrderStatus.PENDING).build());
+            store.addOrder(RiceOrder.builder().orderId("MOV002").status(RiceOrder.OrderStatus.CONFIRMED).build());
+            store.addOrder(RiceOrder.builder().orderId("MOV003").status(RiceOrder.OrderStatus.DELIVERED).build());
+            OrderQuery query = spy(OrderQuery.parse("status in (PENDING, CONFIRMED)"));
+            assertEquals("status", store.explainQuery(query));
+            // Confirm the pending order while the scan is still on the PENDING set
+            doAnswer(invocation -> {
+                RiceOrder order = invocation.getArgument(0);
+                if (order.getStatus() == RiceOrder.OrderStatus.PENDING) {
+                    store.partialUpdateOrder(order.getOrderId(),
+                            RiceOrder.builder().status(RiceOrder.OrderStatus.CONFIRMED).build());
+                }
+                return invocation.callRealMethod();
+            }).when(query).matches(any());
+            
+            List<String> found = store.findOrders(query, 10).stream()
+                    .map(RiceOrder::getOrderId)
+                    .sorted()
+                    .toList();
+            
+            assertEquals(List.of("MOV001", "MOV002"), found);
+        }
+        
+        @Test
+        @DisplayName("Should stop as soon as limit orders match")
+        void shouldStopAtLimit() {
+            // A full scan visits orders by ID, and every other order pays cash
+            OrderQuery query = spy(OrderQuery.parse("paymentMethod = Cash"));
+            
+            List<RiceOrder> found = repository.findOrders(query, 5);
+            
+            assertEquals(List.of("QRY0000", "QRY0002", "QRY0004", "QRY0006", "QRY0008"),
+                    found.stream().map(RiceOrder::getOrderId).toList());
+            verify(query, times(9)).matches(any());
+            assertThrows(IllegalArgumentException.class, () -> repository.findOrders(query, 0));
+        }
+    }
 }
-
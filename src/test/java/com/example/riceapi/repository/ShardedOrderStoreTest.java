@@ -0,0 +1,392 @@
+package com.example.riceapi.repository;
+
+import com.example.riceapi.modal.Customer;
+import com.example.riceapi.modal.OrderItem;
+import com.example.riceapi.modal.RiceOrder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+@DisplayName("ShardedOrderStore Tests")
+class ShardedOrderStoreTest {
+    
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 15, 12, 0);
+    private static final int ORDERS = 300;
+    
+    private Map<String, RiceOrderRepository> nodes;
+    private ShardedOrderStore store;
+    
+    @BeforeEach
+    void setUp() {
+        nodes = new LinkedHashMap<>();
+        for (String node : List.of("node-a", "node-b", "node-c")) {
+            nodes.put(node, new RiceOrderRepository());
+        }
+        store = new ShardedOrderStore(nodes);
+    }
+    
+    @Test
+    @DisplayName("Should store each order only on the shard owning its ID")
+    void shouldRouteOrdersToOwningShard() {
+        addOrders();
+        
+        for (int i = 0; i < ORDERS; i++) {
+            String orderId = orderId(i);
+            long holders = nodes.values().stream().filter(node -> node.orderExists(orderId)).count();
+            assertEquals(1, holders, orderId);
+            assertTrue(((RiceOrderRepository) store.shardFor(orderId)).orderExists(orderId));
+            assertEquals(orderId, store.getOrderById(orderId).orElseThrow().getOrderId());
+        }
+        assertEquals(ORDERS, store.getOrderCount());
+        for (RiceOrderRepository node : nodes.values()) {
+            // 128 points per node keep the split roughly even
+            assertTrue(node.getOrderCount() > ORDERS / 6, "Uneven split: " + node.getOrderCount());
+        }
+    }
+    
+    @Test
+    @DisplayName("Should route the same IDs alike in every instance built from the same nodes")
+    void shouldRouteStably() {
+        Map<String, RiceOrderRepository> sameNodes = new LinkedHashMap<>();
+        List<String> reversed = new ArrayList<>(nodes.keySet());
+        Collections.reverse(reversed);
+        for (String node : reversed) {
+            sameNodes.put(node, nodes.get(node));
+        }
+        ShardedOrderStore other = new ShardedOrderStore(sameNodes);
+        
+        for (int i = 0; i < ORDERS; i++) {
+            assertSame(store.shardFor(orderId(i)), other.shardFor(orderId(i)));
+        }
+    }
+    
+    @Test
+    @DisplayName("Should move only the orders of a new shard's ring segments when a shard is added")
+    void shouldMoveFewOrdersWhenShardAdded() {
+        Map<String, RiceOrderRepository> grown = new LinkedHashMap<>(nodes);
+        grown.put("node-d", new RiceOrderRepository());
+        ShardedOrderStore larger = new ShardedOrderStore(grown);
+        
+        int moved = 0;
+        for (int i = 0; i < ORDERS; i++) {
+            OrderStore after = larger.shardFor(orderId(i));
+            if (after != store.shardFor(orderId(i))) {
+                assertSame(grown.get("node-d"), after);
+                moved++;
+            }
+        }
+        assertTrue(moved > 0 && moved < ORDERS / 2, "Moved " + moved + " of " + ORDERS);
+    }
+    
+    @Test
+    @DisplayName("Should merge pages and streams from all shards in order ID order")
+    void shouldMergeByOrderId() {
+        addOrders();
+        
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            expected.add(orderId(i));
+        }
+        List<String> streamed = store.streamAllOrders().map(RiceOrder::getOrderId).collect(Collectors.toList());
+        assertEquals(expected, streamed);
+        
+        List<String> paged = new ArrayList<>();
+        String after = null;
+        List<RiceOrder> page;
+        while (!(page = store.getOrdersPage(after, 47)).isEmpty()) {
+            page.forEach(order -> paged.add(order.getOrderId()));
+            after = page.get(page.size() - 1).getOrderId();
+        }
+        assertEquals(expected, paged);
+        assertEquals(ORDERS, store.getAllOrders().size());
+    }
+    
+    @Test
+    @DisplayName("Should gather status, customer and time range queries from all shards")
+    void shouldScatterGatherQueries() {
+        addOrders();
+        
+        assertEquals(ORDERS / 3, store.getOrdersByStatus(RiceOrder.OrderStatus.DELIVERED).size());
+        assertEquals(ORDERS / 3, store.getOrderCountByStatus(RiceOrder.OrderStatus.DELIVERED));
+        assertEquals(ORDERS / 10, store.getOrdersByCustomerId("CUST3").size());
+        
+        List<RiceOrder> range = store.getOrdersByOrderDateRange(BASE.plusMinutes(10), BASE.plusMinutes(110));
+        assertEquals(100, range.size());
+        for (int i = 0; i < range.size(); i++) {
+            assertEquals(BASE.plusMinutes(10 + i), range.get(i).getOrderDate());
+        }
+        assertEquals(5, store.getOrdersByDeliveryTimeRange(BASE, BASE.plusMinutes(35)).size());
+    }
+    
+    @Test
+    @DisplayName("Should sum revenue and status totals over all shards")
+    void shouldSumTotals() {
+        addOrders();
+        
+        // Order i costs 1000 * (1 + i % 5)
+        BigDecimal expected = BigDecimal.valueOf(ORDERS / 5 * (1000 + 2000 + 3000 + 4000 + 5000)).setScale(2);
+        assertEquals(expected, store.getTotalRevenue());
+        
+        Map<RiceOrder.OrderStatus, OrderStore.StatusTotals> totals = store.getStatusTotals();
+        BigDecimal summed = BigDecimal.ZERO;
+        long count = 0;
+        for (OrderStore.StatusTotals statusTotals : totals.values()) {
+            summed = summed.add(statusTotals.getRevenue());
+            count += statusTotals.getOrderCount();
+        }
+        assertEquals(0, expected.compareTo(summed));
+        assertEquals(ORDERS, count);
+        assertEquals(totals.get(RiceOrder.OrderStatus.PENDING).getRevenue(),
+                store.getRevenueByStatus(RiceOrder.OrderStatus.PENDING));
+    }
+    
+    @Test
+    @DisplayName("Should report batch results in submission order across shards")
+    void shouldKeepBatchResultOrder() {
+        List<RiceOrder> batch = Arrays.asList(order(1), order(2), null, order(3).withOrderId(" "), order(1), order(4));
+        
+        List<OrderStore.InsertResult> results = store.addOrders(batch);
+        
+        assertEquals(6, results.size());
+        assertEquals(orderId(1), results.get(0).getOrder().getOrderId());
+        assertEquals(orderId(2), results.get(1).getOrder().getOrderId());
+        assertEquals("Order cannot be null", results.get(2).getError());
+        assertEquals("Order ID cannot be null or empty", results.get(3).getError());
+        assertTrue(results.get(4).getError().contains("already exists"));
+        assertTrue(results.get(5).isInserted());
+        assertEquals(3, store.getOrderCount());
+    }
+    
+    @Test
+    @DisplayName("Should route updates, conditional updates and removals to the owning shard")
+    void shouldRouteWrites() {
+        RiceOrder added = store.addOrder(order(7));
+        
+        RiceOrder updated = store.partialUpdateOrder(orderId(7),
+                RiceOrder.builder().status(RiceOrder.OrderStatus.CANCELLED).build(), added.getVersion()).orElseThrow();
+        assertEquals(RiceOrder.OrderStatus.CANCELLED, updated.getStatus());
+        assertThrows(OrderVersionConflictException.class,
+                () -> store.updateOrder(orderId(7), order(7), added.getVersion()));
+        
+        assertTrue(store.removeOrder(orderId(7)));
+        assertFalse(store.orderExists(orderId(7)));
+        assertThrows(IllegalArgumentException.class, () -> store.removeOrder(null));
+    }
+    
+    @Test
+    @DisplayName("Should query shards concurrently on an executor and pass through shard errors")
+    void shouldScatterOnExecutor() {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            ShardedOrderStore concurrent = new ShardedOrderStore(nodes, ShardedOrderStore.DEFAULT_VIRTUAL_NODES, executor);
+            addOrders();
+            
+            assertEquals(ORDERS, concurrent.getAllOrders().size());
+            assertEquals(3, concurrent.addOrders(List.of(order(1000), order(1001), order(1002))).size());
+            assertEquals(ORDERS + 3, concurrent.getOrderCount());
+            assertThrows(IllegalArgumentException.class,
+                    () -> concurrent.getOrdersByOrderDateRange(BASE.plusDays(1), BASE));
+            
+            concurrent.removeAllOrders();
+            assertEquals(0, store.getOrderCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    @DisplayName("Should answer a customer with the details last written on any shard, kept by its owning shard")
+    void shouldKeepCustomerOnOwningShard() {
+        // Orders for one customer on every shard, the latest written last
+        List<String> owners = new ArrayList<>();
+        for (int i = 0; owners.size() < nodes.size(); i++) {
+            OrderStore shard = store.shardFor(orderId(i));
+            String node = nodes.entrySet().stream()
+                    .filter(entry -> entry.getValue() == shard)
+                    .findFirst().orElseThrow().getKey();
+            if (!owners.contains(node)) {
+                owners.add(node);
+                store.addOrder(order(i).withCustomer(Customer.builder()
+                        .customerId("CUST900")
+                        .name("Name on " + node)
+                        .build()));
+            }
+        }
+        
+        assertEquals("Name on " + owners.get(owners.size() - 1),
+                store.getCustomerById("CUST900").orElseThrow().getName());
+        
+        // An update on the first shard makes its details the newest
+        String first = nodes.get(owners.get(0)).getOrdersByCustomerId("CUST900").get(0).getOrderId();
+        store.partialUpdateOrder(first, RiceOrder.builder()
+                .customer(Customer.builder().customerId("CUST900").name("Renamed").build())
+                .build());
+        assertEquals("Renamed", store.getCustomerById("CUST900").orElseThrow().getName());
+        assertTrue(store.getCustomerById("CUST999").isEmpty());
+        
+        // Customer IDs are placed on the same ring as order IDs
+        OrderStore owner = store.shardFor("CUST900");
+        assertEquals("Renamed", owner.getCustomerById("CUST900").orElseThrow().getName());
+        
+        // Gone with its last order, although the owning shard still holds the details
+        for (RiceOrder order : store.getOrdersByCustomerId("CUST900")) {
+            store.removeOrder(order.getOrderId());
+        }
+        assertTrue(store.getCustomerById("CUST900").isEmpty());
+        assertEquals("Renamed", owner.getCustomerById("CUST900").orElseThrow().getName());
+    }
+    
+    @Test
+    @DisplayName("Should move orders to their owning shard and tell listeners on every shard")
+    void shouldRebalanceAndNotifyAllShards() {
+        RiceOrderRepository first = nodes.get("node-a");
+        for (int i = 0; i < 30; i++) {
+            first.addOrder(order(i));
+        }
+        List<String> changes = Collections.synchronizedList(new ArrayList<>());
+        store.addChangeListener(changes::add);
+        
+        int moved = store.rebalance();
+        
+        assertTrue(moved > 0 && moved < 30, "Moved " + moved);
+        assertEquals(30, store.getOrderCount());
+        for (int i = 0; i < 30; i++) {
+            assertTrue(((RiceOrderRepository) store.shardFor(orderId(i))).orderExists(orderId(i)));
+        }
+        // One insert on the owner plus one removal on node-a per moved order
+        assertEquals(2 * moved, changes.size());
+        assertEquals(0, store.rebalance());
+        // The customers' details moved to the shards owning them
+        for (int i = 0; i < 10; i++) {
+            assertTrue(store.getCustomerById("CUST" + i).isPresent(), "CUST" + i);
+        }
+    }
+    
+    @Test
+    @DisplayName("Should leave an order on its shard when it changes while being copied")
+    void shouldKeepOrderChangedDuringMove() {
+        RiceOrderRepository source = nodes.get("node-a");
+        String orderId = misplacedOrderId(source);
+        source.addOrder(order(0).withOrderId(orderId));
+        RiceOrderRepository owner = (RiceOrderRepository) store.shardFor(orderId);
+        RiceOrderRepository copying = spy(owner);
+        doAnswer(invocation -> {
+            RiceOrder copy = (RiceOrder) invocation.callRealMethod();
+            source.partialUpdateOrder(orderId, RiceOrder.builder().status(RiceOrder.OrderStatus.CONFIRMED).build());
+            return copy;
+        }).when(copying).addOrder(any());
+        Map<String, OrderStore> shards = new LinkedHashMap<>(nodes);
+        shards.replaceAll((node, shard) -> shard == owner ? copying : shard);
+        ShardedOrderStore moving = new ShardedOrderStore(shards);
+        
+        assertEquals(0, moving.rebalance());
+        
+        assertEquals(RiceOrder.OrderStatus.CONFIRMED, source.getOrderById(orderId).orElseThrow().getStatus());
+        assertFalse(owner.orderExists(orderId));
+        // Unchanged now, so the next call moves it
+        assertEquals(1, store.rebalance());
+        assertEquals(RiceOrder.OrderStatus.CONFIRMED, owner.getOrderById(orderId).orElseThrow().getStatus());
+        assertFalse(source.orderExists(orderId));
+    }
+    
+    @Test
+    @DisplayName("Should keep the owner's copy of an order both shards hold")
+    void shouldKeepOwnersCopyWhenRebalancing() {
+        RiceOrderRepository source = nodes.get("node-a");
+        String orderId = misplacedOrderId(source);
+        source.addOrder(order(0).withOrderId(orderId));
+        store.shardFor(orderId).addOrder(order(1).withOrderId(orderId));
+        
+        assertEquals(1, store.rebalance());
+        
+        assertFalse(source.orderExists(orderId));
+        assertEquals(order(1).getStatus(), store.getOrderById(orderId).orElseThrow().getStatus());
+    }
+    
+    @Test
+    @DisplayName("Should drop only the orders other shards own and keep the customers the shard owns")
+    void shouldRetainOwnedOrders() {
+        RiceOrderRepository first = nodes.get("node-a");
+        for (int i = 0; i < 30; i++) {
+            first.addOrder(order(i));
+        }
+        
+        int dropped = store.retainOwnedOrders(first);
+        
+        assertTrue(dropped > 0 && dropped < 30, "Dropped " + dropped);
+        assertEquals(30 - dropped, first.getOrderCount());
+        for (RiceOrder order : first.getAllOrders()) {
+            assertSame(first, store.shardFor(order.getOrderId()));
+        }
+        for (int i = 0; i < 10; i++) {
+            String customerId = "CUST" + i;
+            boolean owned = store.shardFor(customerId) == first;
+            boolean hasOrders = !first.getOrdersByCustomerId(customerId).isEmpty();
+            // An owned customer is kept for the orders the other shards hold of it
+            assertEquals(owned || hasOrders, first.getCustomerRecord(customerId).isPresent(), customerId);
+        }
+    }
+    
+    @Test
+    @DisplayName("Should reject a store without shards")
+    void shouldRejectNoShards() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedOrderStore(new HashMap<>()));
+    }
+    
+    private void addOrders() {
+        // Added out of ID order, so merged results cannot come from insertion order
+        for (int i = ORDERS - 1; i >= 0; i--) {
+            store.addOrder(order(i));
+        }
+    }
+    
+    /**
+     * @return An order ID that the given shard does not own
+     */
+    private String misplacedOrderId(OrderStore shard) {
+        for (int i = 0; ; i++) {
+            if (store.shardFor(orderId(i)) != shard) {
+                return orderId(i);
+            }
+        }
+    }
+    
+    private static String orderId(int i) {
+        return String.format("ORD%05d", i);
+    }
+    
+    private static RiceOrder order(int i) {
+        RiceOrder.OrderStatus[] statuses = {
+                RiceOrder.OrderStatus.PENDING, RiceOrder.OrderStatus.DELIVERED, RiceOrder.OrderStatus.CANCELLED};
+        return RiceOrder.builder()
+                .orderId(orderId(i))
+                .customer(Customer.builder().customerId("CUST" + i % 10).build())
+                .orderItems(List.of(OrderItem.builder()
+                        .itemId("ITEM001")
+                        .quantity(1)
+                        .pricePerUnit(BigDecimal.valueOf(1000L * (1 + i % 5)))
+                        .build()))
+                .status(statuses[i % statuses.length])
+                .orderDate(BASE.plusMinutes(i))
+                .deliveryTime(BASE.plusMinutes(i).plusMinutes(30))
+                .build();
+    }
+}